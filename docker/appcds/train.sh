@@ -0,0 +1,70 @@
+#!/bin/sh
+# Creates a static AppCDS archive of the classes loaded by offline pre-compute runs.
+# usage: train.sh <jar> <archive>
+#
+# Each run dumps the classes it loads, the archive is created from all of them:
+# - dataset: the training dataset is read from a pre-filled dataset cache, decrypted in memory and saved
+# - stream: the same dataset goes through the streamed pipeline
+# - inputs: an input file download fails on an unreachable loopback URL and the failure is reported
+# Every run signs its messages and fails to reach the worker. Runs are independent, a failing input
+# download never cancels the dataset runs.
+
+set -e
+
+JAR=$1
+ARCHIVE=$2
+TRAINING_DIR=$(dirname "$0")
+WORK_DIR=$(mktemp -d)
+
+CACHE_DIR=$WORK_DIR/cache
+mkdir -p "$CACHE_DIR"
+CHECKSUM=$(sha256sum "$TRAINING_DIR/dataset.enc" | cut -d ' ' -f 1)
+cp "$TRAINING_DIR/dataset.enc" "$CACHE_DIR/$CHECKSUM"
+
+export IEXEC_TASK_ID=0x0
+export IEXEC_PRE_COMPUTE_PROGRESS_INTERVAL_MS=0
+export IEXEC_PRE_COMPUTE_DOWNLOAD_MAX_ATTEMPTS=1
+export SIGN_WORKER_ADDRESS=0x1111111111111111111111111111111111111111
+export SIGN_TEE_CHALLENGE_PRIVATE_KEY=0x1111111111111111111111111111111111111111111111111111111111111111
+
+# run <name> [VAR=value...]
+run() {
+  name=$1
+  shift
+  mkdir -p "$WORK_DIR/$name"
+  # the pre-compute is expected to fail on the unreachable worker, only the loaded classes matter
+  env IEXEC_PRE_COMPUTE_OUT="$WORK_DIR/$name" "$@" \
+      java -XX:DumpLoadedClassList="$WORK_DIR/$name.classlist" -jar "$JAR" || true
+  test -s "$WORK_DIR/$name.classlist"
+}
+
+run dataset \
+    IS_DATASET_REQUIRED=true \
+    IEXEC_DATASET_URL=http://127.0.0.1:1/dataset \
+    IEXEC_DATASET_KEY=AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA= \
+    IEXEC_DATASET_CHECKSUM=0x$CHECKSUM \
+    IEXEC_DATASET_FILENAME=dataset \
+    IEXEC_PRE_COMPUTE_DATASET_CACHE_DIR="$CACHE_DIR" \
+    IEXEC_INPUT_FILES_NUMBER=0
+test -s "$WORK_DIR/dataset/dataset"
+
+run stream \
+    IS_DATASET_REQUIRED=true \
+    IEXEC_DATASET_URL=http://127.0.0.1:1/dataset \
+    IEXEC_DATASET_KEY=AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA= \
+    IEXEC_DATASET_CHECKSUM=0x$CHECKSUM \
+    IEXEC_DATASET_FILENAME=dataset \
+    IEXEC_PRE_COMPUTE_DATASET_CACHE_DIR="$CACHE_DIR" \
+    IEXEC_PRE_COMPUTE_DATASET_STREAMING=true \
+    IEXEC_INPUT_FILES_NUMBER=0
+test -s "$WORK_DIR/stream/dataset"
+
+run inputs \
+    IS_DATASET_REQUIRED=false \
+    IEXEC_INPUT_FILES_NUMBER=1 \
+    IEXEC_INPUT_FILE_URL_1=http://127.0.0.1:1/input
+
+cat "$WORK_DIR/dataset.classlist" "$WORK_DIR/stream.classlist" "$WORK_DIR/inputs.classlist" > "$WORK_DIR/app.classlist"
+java -Xshare:dump -XX:SharedClassListFile="$WORK_DIR/app.classlist" -XX:SharedArchiveFile="$ARCHIVE" -cp "$JAR"
+rm -rf "$WORK_DIR"
+test -f "$ARCHIVE"
@@ -0,0 +1,442 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.e2e;
+
+import com.iexec.common.utils.FileHashUtils;
+import com.iexec.worker.compute.pre.dataset.ArchiveExtractor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.iexec.common.utils.IexecEnvUtils.IEXEC_INPUT_FILE_URL_PREFIX;
+import static com.iexec.common.worker.tee.TeeSessionEnvironmentVariable.IEXEC_DATASET_CHECKSUM;
+import static com.iexec.common.worker.tee.TeeSessionEnvironmentVariable.IEXEC_DATASET_FILENAME;
+import static com.iexec.common.worker.tee.TeeSessionEnvironmentVariable.IEXEC_DATASET_KEY;
+import static com.iexec.common.worker.tee.TeeSessionEnvironmentVariable.IEXEC_DATASET_URL;
+import static com.iexec.common.worker.tee.TeeSessionEnvironmentVariable.IEXEC_INPUT_FILES_NUMBER;
+import static com.iexec.common.worker.tee.TeeSessionEnvironmentVariable.IEXEC_PRE_COMPUTE_OUT;
+import static com.iexec.common.worker.tee.TeeSessionEnvironmentVariable.IEXEC_TASK_ID;
+import static com.iexec.common.worker.tee.TeeSessionEnvironmentVariable.IS_DATASET_REQUIRED;
+import static com.iexec.common.worker.tee.TeeSessionEnvironmentVariable.SIGN_TEE_CHALLENGE_PRIVATE_KEY;
+import static com.iexec.common.worker.tee.TeeSessionEnvironmentVariable.SIGN_WORKER_ADDRESS;
+import static com.iexec.worker.compute.pre.utils.PreComputeEnvironmentVariable.IEXEC_PRE_COMPUTE_DATASET_STREAMING;
+import static com.iexec.worker.compute.pre.utils.PreComputeEnvironmentVariable.IEXEC_PRE_COMPUTE_DOWNLOAD_RETRY_INITIAL_BACKOFF_MS;
+import static com.iexec.worker.compute.pre.utils.PreComputeEnvironmentVariable.IEXEC_PRE_COMPUTE_IPFS_GATEWAYS;
+import static com.iexec.worker.compute.pre.utils.PreComputeEnvironmentVariable.IEXEC_PRE_COMPUTE_IPFS_HEDGE_DELAY_MS;
+import static com.iexec.worker.compute.pre.utils.PreComputeEnvironmentVariable.IEXEC_PRE_COMPUTE_PROGRESS_INTERVAL_MS;
+import static com.iexec.worker.compute.pre.utils.PreComputeEnvironmentVariable.IEXEC_PRE_COMPUTE_RANGED_DOWNLOAD_CONNECTIONS;
+
+/**
+ * End-to-end throughput harness of the pre-compute.
+ * <p>
+ * For each scenario, datasets and input files are generated and served by local {@link ShapingHttpServer}
+ * instances, then {@link PreComputeProcess} runs the pre-compute in a child JVM. Wall time, peak RSS,
+ * peak heap and throughput are reported, and the files written by the pre-compute are checked against
+ * the generated content. Everything runs on the loopback interface: without signer environment variables,
+ * the pre-compute does not try to reach the worker. The {@code training} scenario, which loads the classes
+ * of a typical task for class data sharing, only fails to reach it.
+ * <p>
+ * Arguments are scenario names, all scenarios being run when none is given, and {@code key=value}
+ * overrides applied to every scenario: {@code datasetMb}, {@code inputFiles}, {@code inputFileKb},
+ * {@code latencyMs}, {@code bandwidthKBps}, {@code failureRate}, {@code stallRate} and {@code stallMs}.
+ * <p>
+ * The {@value #PRE_COMPUTE_COMMAND_PROPERTY} property replaces the child JVM by another pre-compute binary,
+ * e.g. the native image or the fat jar, to compare them on the same scenarios. Run time and peak heap are
+ * only known for the child JVM.
+ */
+@Slf4j
+public class E2eHarness {
+
+    static final String OUTPUT_DIR_PROPERTY = "e2e.outputDir";
+    static final String CHILD_JVM_ARGS_PROPERTY = "e2e.childJvmArgs";
+    static final String PRE_COMPUTE_COMMAND_PROPERTY = "e2e.preComputeCommand";
+    private static final String DATASET_FILENAME = "dataset.bin";
+    private static final String DATASET_CID = "/ipfs/QmUbh7ugQ9WVprTVYjzrCS4d9cCy73zUz4MMchsrqzzu1w";
+    private static final long MB = 1024L * 1024;
+
+    /**
+     * Default scenarios, created on each call since overrides modify them.
+     */
+    static List<Scenario> scenarios() {
+        return List.of(
+                Scenario.builder()
+                        .name("startup")
+                        .build(),
+                Scenario.builder()
+                        .name("object-store")
+                        .datasetSizeMb(128)
+                        .inputFiles(8)
+                        .inputFileSizeKb(4096)
+                        .objectStoreProfile(profile(20, 200))
+                        .build(),
+                Scenario.builder()
+                        .name("object-store-streaming")
+                        .datasetSizeMb(128)
+                        .inputFiles(8)
+                        .inputFileSizeKb(4096)
+                        .objectStoreProfile(profile(20, 200))
+                        .env(Map.of(IEXEC_PRE_COMPUTE_DATASET_STREAMING.name(), "true"))
+                        .build(),
+                Scenario.builder()
+                        .name("slow-link")
+                        .datasetSizeMb(32)
+                        .inputFiles(4)
+                        .inputFileSizeKb(1024)
+                        .objectStoreProfile(profile(150, 8))
+                        .build(),
+                Scenario.builder()
+                        .name("ranged-download")
+                        .datasetSizeMb(128)
+                        .objectStoreProfile(profile(20, 25))
+                        .env(Map.of(IEXEC_PRE_COMPUTE_RANGED_DOWNLOAD_CONNECTIONS.name(), "4"))
+                        .build(),
+                Scenario.builder()
+                        .name("flaky-object-store")
+                        .datasetSizeMb(32)
+                        .inputFiles(16)
+                        .inputFileSizeKb(256)
+                        .objectStoreProfile(NetworkProfile.builder()
+                                .latency(Duration.ofMillis(20))
+                                .bandwidthBytesPerSecond(50 * MB)
+                                .failureRate(0.3)
+                                .stallRate(0.2)
+                                .stallDuration(Duration.ofSeconds(2))
+                                .build())
+                        .env(Map.of(IEXEC_PRE_COMPUTE_DOWNLOAD_RETRY_INITIAL_BACKOFF_MS.name(), "100"))
+                        .build(),
+                Scenario.builder()
+                        .name("ipfs-gateways")
+                        .datasetSizeMb(64)
+                        .gatewayProfiles(List.of(
+                                NetworkProfile.builder()
+                                        .latency(Duration.ofMillis(20))
+                                        .failureRate(1)
+                                        .build(),
+                                NetworkProfile.builder()
+                                        .latency(Duration.ofMillis(20))
+                                        .bandwidthBytesPerSecond(50 * MB)
+                                        .stallRate(1)
+                                        .stallDuration(Duration.ofSeconds(5))
+                                        .build(),
+                                profile(80, 50)))
+                        .env(Map.of(IEXEC_PRE_COMPUTE_IPFS_HEDGE_DELAY_MS.name(), "200"))
+                        .build(),
+                Scenario.builder()
+                        .name("training")
+                        .datasetSizeMb(8)
+                        .inputFiles(4)
+                        .inputFileSizeKb(64)
+                        // signing and the worker client are loaded when sending metrics to the missing worker
+                        .env(Map.of(
+                                SIGN_WORKER_ADDRESS.name(), "0x" + "1".repeat(40),
+                                SIGN_TEE_CHALLENGE_PRIVATE_KEY.name(), "0x" + "1".repeat(64)))
+                        .build(),
+                Scenario.builder()
+                        .name("many-small-inputs")
+                        .inputFiles(200)
+                        .inputFileSizeKb(64)
+                        .objectStoreProfile(profile(10, 0))
+                        .build()
+        );
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> overrides = new HashMap<>();
+        final List<String> names = new ArrayList<>();
+        for (String arg : args) {
+            final int separator = arg.indexOf('=');
+            if (separator > 0) {
+                overrides.put(arg.substring(0, separator), arg.substring(separator + 1));
+            } else {
+                names.add(arg);
+            }
+        }
+        final Map<String, Scenario> scenarios = new LinkedHashMap<>();
+        scenarios().forEach(scenario -> scenarios.put(scenario.getName(), scenario));
+        final List<Scenario> selected = new ArrayList<>();
+        for (String name : names.isEmpty() ? scenarios.keySet() : names) {
+            if (!scenarios.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown scenario " + name + ", expected one of " + scenarios.keySet());
+            }
+            final Scenario scenario = scenarios.get(name);
+            scenario.applyOverrides(overrides);
+            selected.add(scenario);
+        }
+
+        final Path outputDir = Path.of(System.getProperty(OUTPUT_DIR_PROPERTY, "build/e2e")).toAbsolutePath();
+        final List<Result> results = new ArrayList<>();
+        for (Scenario scenario : selected) {
+            log.info("Running scenario [name:{}]", scenario.getName());
+            results.add(run(scenario, outputDir.resolve(scenario.getName())));
+        }
+        System.out.print(report(results));
+        Files.writeString(outputDir.resolve("results.tsv"), tsv(results));
+        if (results.stream().anyMatch(result -> !result.verified())) {
+            System.exit(1);
+        }
+    }
+
+    private static NetworkProfile profile(final long latencyMillis, final long bandwidthMBps) {
+        return NetworkProfile.builder()
+                .latency(Duration.ofMillis(latencyMillis))
+                .bandwidthBytesPerSecond(bandwidthMBps * MB)
+                .build();
+    }
+
+    static Result run(final Scenario scenario, final Path scenarioDir)
+            throws IOException, GeneralSecurityException, InterruptedException {
+        final Random random = new Random(scenario.getName().hashCode());
+        final Path preComputeOut = scenarioDir.resolve("iexec_in");
+        ArchiveExtractor.deleteQuietly(preComputeOut);
+        Files.createDirectories(preComputeOut);
+
+        final List<ShapingHttpServer> servers = new ArrayList<>();
+        try {
+            final ShapingHttpServer objectStore = new ShapingHttpServer(scenario.getObjectStoreProfile(), random.nextLong());
+            servers.add(objectStore);
+            final Map<String, String> env = new HashMap<>();
+            env.put(IEXEC_TASK_ID.name(), "0x" + Integer.toHexString(scenario.getName().hashCode()));
+            env.put(IEXEC_PRE_COMPUTE_OUT.name(), preComputeOut.toString());
+            env.put(IS_DATASET_REQUIRED.name(), String.valueOf(scenario.isDatasetRequired()));
+            env.put(IEXEC_INPUT_FILES_NUMBER.name(), String.valueOf(scenario.getInputFiles()));
+            // no worker to report progress to
+            env.put(IEXEC_PRE_COMPUTE_PROGRESS_INTERVAL_MS.name(), "0");
+
+            EncryptedDataset dataset = null;
+            long payloadBytes = 0;
+            if (scenario.isDatasetRequired()) {
+                dataset = EncryptedDataset.generate(scenario.getDatasetSizeMb(), random);
+                payloadBytes += dataset.getEncryptedContent().length;
+                if (scenario.isDatasetOnIpfs()) {
+                    final List<String> gateways = new ArrayList<>();
+                    for (NetworkProfile gatewayProfile : scenario.getGatewayProfiles()) {
+                        final ShapingHttpServer gateway = new ShapingHttpServer(gatewayProfile, random.nextLong());
+                        servers.add(gateway);
+                        gateway.serve(DATASET_CID, dataset.getEncryptedContent());
+                        gateways.add(gateway.getUrl());
+                    }
+                    env.put(IEXEC_PRE_COMPUTE_IPFS_GATEWAYS.name(), String.join(",", gateways));
+                    env.put(IEXEC_DATASET_URL.name(), DATASET_CID);
+                } else {
+                    objectStore.serve("/datasets/" + DATASET_FILENAME, dataset.getEncryptedContent());
+                    env.put(IEXEC_DATASET_URL.name(), objectStore.getUrl() + "/datasets/" + DATASET_FILENAME);
+                }
+                env.put(IEXEC_DATASET_KEY.name(), dataset.getBase64Key());
+                env.put(IEXEC_DATASET_CHECKSUM.name(), dataset.getChecksum());
+                env.put(IEXEC_DATASET_FILENAME.name(), DATASET_FILENAME);
+            }
+            final Map<String, byte[]> inputFiles = new LinkedHashMap<>();
+            for (int i = 1; i <= scenario.getInputFiles(); i++) {
+                final byte[] content = new byte[Math.multiplyExact(scenario.getInputFileSizeKb(), 1024)];
+                random.nextBytes(content);
+                final String path = "/inputs/input-" + i + ".bin";
+                objectStore.serve(path, content);
+                final String url = objectStore.getUrl() + path;
+                env.put(IEXEC_INPUT_FILE_URL_PREFIX + i, url);
+                inputFiles.put(FileHashUtils.createFileNameFromUri(url), content);
+                payloadBytes += content.length;
+            }
+            env.putAll(scenario.getEnv());
+
+            final Execution execution = execute(env, scenarioDir.resolve("pre-compute.log"));
+            final boolean verified = execution.exitStatus() == 0
+                    && verify(preComputeOut, dataset, inputFiles);
+            long requests = 0;
+            long failures = 0;
+            long stalls = 0;
+            for (ShapingHttpServer server : servers) {
+                requests += server.getRequests();
+                failures += server.getFailures();
+                stalls += server.getStalls();
+            }
+            return new Result(scenario.getName(), execution, payloadBytes, requests, failures, stalls, verified);
+        } finally {
+            servers.forEach(ShapingHttpServer::close);
+        }
+    }
+
+    /**
+     * Run the pre-compute in a child process, sampling its peak resident set size until it exits.
+     */
+    private static Execution execute(final Map<String, String> env, final Path logFile)
+            throws IOException, InterruptedException {
+        final ProcessBuilder builder = new ProcessBuilder(preComputeCommand())
+                .redirectErrorStream(true)
+                .redirectOutput(logFile.toFile());
+        // the pre-compute only sees the variables of the scenario
+        builder.environment().keySet().removeIf(key ->
+                key.startsWith("IEXEC_") || key.startsWith("SIGN_") || key.equals(IS_DATASET_REQUIRED.name()));
+        builder.environment().putAll(env);
+
+        final long startNanos = System.nanoTime();
+        final Process process = builder.start();
+        final Path status = Path.of("/proc", String.valueOf(process.pid()), "status");
+        long peakRssBytes = -1;
+        while (process.isAlive()) {
+            peakRssBytes = Math.max(peakRssBytes, readPeakRssBytes(status));
+            Thread.sleep(50);
+        }
+        final long wallMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        final int exitStatus = process.exitValue();
+
+        long runMillis = -1;
+        long peakHeapBytes = -1;
+        for (String line : Files.readAllLines(logFile, StandardCharsets.UTF_8)) {
+            if (line.startsWith(PreComputeProcess.RESULT_PREFIX + " ")) {
+                final String[] fields = line.split(" ");
+                runMillis = Long.parseLong(fields[2]);
+                peakHeapBytes = Long.parseLong(fields[3]);
+            }
+        }
+        return new Execution(exitStatus, wallMillis, runMillis, peakRssBytes, peakHeapBytes);
+    }
+
+    /**
+     * Command given by {@value #PRE_COMPUTE_COMMAND_PROPERTY}, {@link PreComputeProcess} in a JVM otherwise.
+     */
+    private static List<String> preComputeCommand() {
+        final String preComputeCommand = System.getProperty(PRE_COMPUTE_COMMAND_PROPERTY, "").trim();
+        if (!preComputeCommand.isEmpty()) {
+            return Arrays.asList(preComputeCommand.split("\\s+"));
+        }
+        final List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        final String jvmArgs = System.getProperty(CHILD_JVM_ARGS_PROPERTY, "").trim();
+        if (!jvmArgs.isEmpty()) {
+            command.addAll(Arrays.asList(jvmArgs.split("\\s+")));
+        }
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), PreComputeProcess.class.getName()));
+        return command;
+    }
+
+    /**
+     * Read the VmHWM entry of a Linux {@code /proc/<pid>/status} file, -1 if it is not available.
+     */
+    static long readPeakRssBytes(final Path status) {
+        try {
+            for (String line : Files.readAllLines(status, StandardCharsets.US_ASCII)) {
+                if (line.startsWith("VmHWM:")) {
+                    final String kiloBytes = line.substring("VmHWM:".length()).replace("kB", "").trim();
+                    return Long.parseLong(kiloBytes) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // process already exited or not running on Linux
+        }
+        return -1;
+    }
+
+    private static boolean verify(final Path preComputeOut, final EncryptedDataset dataset,
+                                  final Map<String, byte[]> inputFiles) throws IOException {
+        if (dataset != null && !hasContent(preComputeOut.resolve(DATASET_FILENAME), dataset.getPlainContent())) {
+            log.error("Invalid plain dataset file [path:{}]", preComputeOut.resolve(DATASET_FILENAME));
+            return false;
+        }
+        for (Map.Entry<String, byte[]> inputFile : inputFiles.entrySet()) {
+            if (!hasContent(preComputeOut.resolve(inputFile.getKey()), inputFile.getValue())) {
+                log.error("Invalid input file [path:{}]", preComputeOut.resolve(inputFile.getKey()));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasContent(final Path file, final byte[] expectedContent) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) != expectedContent.length) {
+            return false;
+        }
+        final MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return MessageDigest.isEqual(digest.digest(), sha256().digest(expectedContent));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String report(final List<Result> results) {
+        final StringBuilder report = new StringBuilder(String.format("%n%-24s %6s %9s %9s %10s %10s %10s %8s %8s %6s %8s%n",
+                "scenario", "exit", "wall ms", "run ms", "MB/s", "rss MB", "heap MB",
+                "requests", "failures", "stalls", "verified"));
+        for (Result result : results) {
+            final Execution execution = result.execution();
+            report.append(String.format("%-24s %6d %9d %9s %10.1f %10s %10s %8d %8d %6d %8s%n",
+                    result.scenario(), execution.exitStatus(), execution.wallMillis(),
+                    execution.runMillis() < 0 ? "-" : String.valueOf(execution.runMillis()),
+                    result.megaBytesPerSecond(), megaBytes(execution.peakRssBytes()),
+                    megaBytes(execution.peakHeapBytes()), result.requests(), result.failures(), result.stalls(),
+                    result.verified()));
+        }
+        return report.toString();
+    }
+
+    private static String megaBytes(final long bytes) {
+        return bytes < 0 ? "-" : String.format("%.1f", (double) bytes / MB);
+    }
+
+    private static String tsv(final List<Result> results) {
+        final StringBuilder tsv = new StringBuilder(String.join("\t", "scenario", "exitStatus", "wallMillis",
+                "runMillis", "bytes", "bytesPerSecond", "peakRssBytes", "peakHeapBytes",
+                "requests", "failures", "stalls", "verified")).append('\n');
+        for (Result result : results) {
+            final Execution execution = result.execution();
+            tsv.append(String.join("\t", result.scenario(), String.valueOf(execution.exitStatus()),
+                    String.valueOf(execution.wallMillis()), String.valueOf(execution.runMillis()),
+                    String.valueOf(result.bytes()), String.valueOf((long) (result.megaBytesPerSecond() * MB)),
+                    String.valueOf(execution.peakRssBytes()), String.valueOf(execution.peakHeapBytes()),
+                    String.valueOf(result.requests()), String.valueOf(result.failures()),
+                    String.valueOf(result.stalls()), String.valueOf(result.verified()))).append('\n');
+        }
+        return tsv.toString();
+    }
+
+    record Execution(int exitStatus, long wallMillis, long runMillis, long peakRssBytes, long peakHeapBytes) {
+    }
+
+    record Result(String scenario, Execution execution, long bytes, long requests, long failures, long stalls,
+                  boolean verified) {
+        /**
+         * Bytes served to the pre-compute per second of wall time, JVM startup included.
+         */
+        double megaBytesPerSecond() {
+            return execution.wallMillis() > 0 ? bytes * 1000.0 / execution.wallMillis() / MB : 0;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.e2e;
+
+import com.iexec.commons.poco.utils.HashUtils;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+/**
+ * Random dataset encrypted with AES-256-CBC, the IV being prepended to the ciphertext,
+ * as done by the iExec SDK.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class EncryptedDataset {
+    private final byte[] plainContent;
+    private final byte[] encryptedContent;
+    private final String base64Key;
+    private final String checksum;
+
+    public static EncryptedDataset generate(final int sizeMb, final Random random) throws GeneralSecurityException {
+        final byte[] key = new byte[32];
+        random.nextBytes(key);
+        final byte[] iv = new byte[16];
+        random.nextBytes(iv);
+        final byte[] plainContent = new byte[Math.multiplyExact(sizeMb, 1024 * 1024)];
+        random.nextBytes(plainContent);
+        final Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+        final byte[] ciphertext = cipher.doFinal(plainContent);
+        final byte[] encryptedContent = Arrays.copyOf(iv, iv.length + ciphertext.length);
+        System.arraycopy(ciphertext, 0, encryptedContent, iv.length, ciphertext.length);
+        return new EncryptedDataset(plainContent, encryptedContent,
+                Base64.getEncoder().encodeToString(key), HashUtils.sha256(encryptedContent));
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.e2e;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Network conditions simulated by a {@link ShapingHttpServer}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NetworkProfile {
+
+    /**
+     * Delay before response headers are sent.
+     */
+    @Builder.Default
+    private Duration latency = Duration.ZERO;
+    /**
+     * Throughput of each response body, 0 for unlimited.
+     */
+    @Builder.Default
+    private long bandwidthBytesPerSecond = 0;
+    /**
+     * Probability of answering a request with a 503 status.
+     */
+    @Builder.Default
+    private double failureRate = 0;
+    /**
+     * Probability of pausing a response body halfway for {@link #stallDuration}.
+     */
+    @Builder.Default
+    private double stallRate = 0;
+    @Builder.Default
+    private Duration stallDuration = Duration.ZERO;
+
+    /**
+     * Replace values given on the command line, e.g. {@code latencyMs=50} or {@code bandwidthKBps=1024}.
+     */
+    public void applyOverrides(final Map<String, String> overrides) {
+        if (overrides.containsKey("latencyMs")) {
+            latency = Duration.ofMillis(Long.parseLong(overrides.get("latencyMs")));
+        }
+        if (overrides.containsKey("bandwidthKBps")) {
+            bandwidthBytesPerSecond = Long.parseLong(overrides.get("bandwidthKBps")) * 1024;
+        }
+        if (overrides.containsKey("failureRate")) {
+            failureRate = Double.parseDouble(overrides.get("failureRate"));
+        }
+        if (overrides.containsKey("stallRate")) {
+            stallRate = Double.parseDouble(overrides.get("stallRate"));
+        }
+        if (overrides.containsKey("stallMs")) {
+            stallDuration = Duration.ofMillis(Long.parseLong(overrides.get("stallMs")));
+        }
+    }
+}
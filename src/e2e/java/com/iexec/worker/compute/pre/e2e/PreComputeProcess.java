@@ -0,0 +1,48 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.e2e;
+
+import com.iexec.worker.compute.pre.PreComputeAppRunner;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * Entry point of the pre-compute JVM started by {@link E2eHarness} for each scenario.
+ * <p>
+ * Once the pre-compute is over, its exit status and the peak heap usage are printed on a
+ * {@value #RESULT_PREFIX} line parsed by the harness.
+ */
+public class PreComputeProcess {
+
+    static final String RESULT_PREFIX = "E2E_RESULT";
+
+    public static void main(String[] args) {
+        final long startNanos = System.nanoTime();
+        final int exitStatus = new PreComputeAppRunner().start();
+        final long runMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        long peakHeapBytes = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeapBytes += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.out.println(RESULT_PREFIX + " " + exitStatus + " " + runMillis + " " + peakHeapBytes);
+        System.exit(exitStatus);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.e2e;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inputs of a pre-compute run and the network conditions under which they are served.
+ * <p>
+ * The dataset is downloaded from the object store, or through every IPFS gateway when
+ * {@link #gatewayProfiles} is not empty. Input files are always served by the object store.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Scenario {
+    private String name;
+    /**
+     * Size of the plain dataset, 0 when no dataset is required.
+     */
+    @Builder.Default
+    private int datasetSizeMb = 0;
+    @Builder.Default
+    private int inputFiles = 0;
+    @Builder.Default
+    private int inputFileSizeKb = 0;
+    @Builder.Default
+    private NetworkProfile objectStoreProfile = NetworkProfile.builder().build();
+    @Builder.Default
+    private List<NetworkProfile> gatewayProfiles = List.of();
+    /**
+     * Additional environment variables of the pre-compute, e.g. tuning options.
+     */
+    @Builder.Default
+    private Map<String, String> env = Map.of();
+
+    public boolean isDatasetRequired() {
+        return datasetSizeMb > 0;
+    }
+
+    public boolean isDatasetOnIpfs() {
+        return !gatewayProfiles.isEmpty();
+    }
+
+    /**
+     * Replace sizes and network conditions given on the command line.
+     *
+     * @see NetworkProfile#applyOverrides(Map)
+     */
+    public void applyOverrides(final Map<String, String> overrides) {
+        objectStoreProfile.applyOverrides(overrides);
+        gatewayProfiles.forEach(profile -> profile.applyOverrides(overrides));
+        if (overrides.containsKey("datasetMb")) {
+            datasetSizeMb = Integer.parseInt(overrides.get("datasetMb"));
+        }
+        if (overrides.containsKey("inputFiles")) {
+            inputFiles = Integer.parseInt(overrides.get("inputFiles"));
+        }
+        if (overrides.containsKey("inputFileKb")) {
+            inputFileSizeKb = Integer.parseInt(overrides.get("inputFileKb"));
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.e2e;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local HTTP server standing in for an IPFS gateway or an object store.
+ * <p>
+ * Resources are held in memory and served with HEAD and single range support. Each response is
+ * delayed, throttled, failed or stalled according to a {@link NetworkProfile}. Random decisions
+ * are seeded so that a scenario behaves the same from one run to the next.
+ */
+@Slf4j
+public class ShapingHttpServer implements AutoCloseable {
+
+    private static final int CHUNK_SIZE = 16 * 1024;
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+
+    private final NetworkProfile profile;
+    private final Random random;
+    private final Map<String, byte[]> resources = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong stalls = new AtomicLong();
+    private final AtomicLong bytesServed = new AtomicLong();
+    private final ExecutorService executor;
+    private final HttpServer server;
+
+    public ShapingHttpServer(final NetworkProfile profile, final long seed) throws IOException {
+        this.profile = profile;
+        this.random = new Random(seed);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "shaping-http-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void serve(final String path, final byte[] content) {
+        resources.put(path, content);
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getStalls() {
+        return stalls.get();
+    }
+
+    public long getBytesServed() {
+        return bytesServed.get();
+    }
+
+    private void handle(final HttpExchange exchange) {
+        try {
+            requests.incrementAndGet();
+            sleep(profile.getLatency());
+            final byte[] content = resources.get(exchange.getRequestURI().getPath());
+            if (content == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (nextDouble() < profile.getFailureRate()) {
+                failures.incrementAndGet();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            long start = 0;
+            long end = content.length - 1L;
+            int status = 200;
+            final String range = exchange.getRequestHeaders().getFirst("Range");
+            if (range != null) {
+                final Matcher matcher = RANGE.matcher(range);
+                if (!matcher.matches() || Long.parseLong(matcher.group(1)) >= content.length) {
+                    exchange.getResponseHeaders().add("Content-Range", "bytes */" + content.length);
+                    exchange.sendResponseHeaders(416, -1);
+                    return;
+                }
+                start = Long.parseLong(matcher.group(1));
+                if (!matcher.group(2).isEmpty()) {
+                    end = Math.min(end, Long.parseLong(matcher.group(2)));
+                }
+                status = 206;
+                exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+            }
+            final long length = end - start + 1;
+            exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(length));
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(status, length);
+            writeBody(exchange.getResponseBody(), content, (int) start, (int) length);
+        } catch (IOException e) {
+            // client gave up, e.g. a losing hedged request or a timeout
+            log.debug("Response interrupted [path:{}]", exchange.getRequestURI().getPath(), e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void writeBody(final OutputStream out, final byte[] content, final int offset, final int length)
+            throws IOException {
+        final long stallAt = nextDouble() < profile.getStallRate() ? length / 2 : -1;
+        long startNanos = System.nanoTime();
+        int written = 0;
+        while (written < length) {
+            if (stallAt >= 0 && written <= stallAt && stallAt < written + CHUNK_SIZE) {
+                stalls.incrementAndGet();
+                out.flush();
+                sleep(profile.getStallDuration());
+                // a stall delays the rest of the body instead of being caught up at full speed
+                startNanos += profile.getStallDuration().toNanos();
+            }
+            final int size = Math.min(CHUNK_SIZE, length - written);
+            out.write(content, offset + written, size);
+            written += size;
+            bytesServed.addAndGet(size);
+            throttle(startNanos, written);
+        }
+        out.close();
+    }
+
+    /**
+     * Wait until the elapsed time matches the configured bandwidth for the bytes written so far.
+     */
+    private void throttle(final long startNanos, final long written) {
+        final long bandwidth = profile.getBandwidthBytesPerSecond();
+        if (bandwidth <= 0) {
+            return;
+        }
+        final long dueNanos = startNanos + written * 1_000_000_000L / bandwidth;
+        final long waitNanos = dueNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            sleep(Duration.ofNanos(waitNanos));
+        }
+    }
+
+    private double nextDouble() {
+        synchronized (random) {
+            return random.nextDouble();
+        }
+    }
+
+    private static void sleep(final Duration duration) {
+        if (duration.isZero() || duration.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration.toMillis(), duration.toNanosPart() % 1_000_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2022-2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iexec.worker.compute.pre;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.iexec.common.utils.IexecEnvUtils.IEXEC_INPUT_FILE_URL_PREFIX;
+import static com.iexec.common.worker.tee.TeeSessionEnvironmentVariable.*;
+
+/**
+ * Parsing of the environment by {@link PreComputeArgs#readArgs(String)}, for a task with a dataset
+ * and a growing number of input files.
+ * Environment variables are served by system stubs, as the forked benchmark JVM cannot be given an environment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PreComputeArgsBenchmark {
+
+    private static final String CHAIN_TASK_ID = "0xbenchmark";
+
+    @Param({"1", "100"})
+    public int inputFilesNumber;
+
+    private EnvironmentVariables environment;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        environment = new EnvironmentVariables()
+                .set(IEXEC_PRE_COMPUTE_OUT.name(), "/iexec_in")
+                .set(IS_DATASET_REQUIRED.name(), "true")
+                .set(IEXEC_DATASET_URL.name(), "https://dataset.url")
+                .set(IEXEC_DATASET_KEY.name(), "datasetKey")
+                .set(IEXEC_DATASET_CHECKSUM.name(), "0xchecksum")
+                .set(IEXEC_DATASET_FILENAME.name(), "dataset.bin")
+                .set(IEXEC_INPUT_FILES_NUMBER.name(), String.valueOf(inputFilesNumber));
+        for (int i = 1; i <= inputFilesNumber; i++) {
+            environment.set(IEXEC_INPUT_FILE_URL_PREFIX + i, "https://input" + i + ".url");
+        }
+        environment.setup();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        environment.teardown();
+    }
+
+    @Benchmark
+    public PreComputeArgs readArgs() throws PreComputeException {
+        return PreComputeArgs.readArgs(CHAIN_TASK_ID);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2022-2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iexec.worker.compute.pre;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing of the plain dataset file by {@link PreComputeApp#savePlainDatasetFile(byte[])},
+ * with and without memory-mapped output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SavePlainDatasetFileBenchmark {
+
+    @Param({"1", "64", "1024"})
+    public int sizeMb;
+
+    @Param({"false", "true"})
+    public boolean isMemoryMapped;
+
+    private Path outputDir;
+    private byte[] plainContent;
+    private PreComputeApp preComputeApp;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        outputDir = Files.createTempDirectory("save-benchmark-");
+        plainContent = new byte[Math.multiplyExact(sizeMb, 1024 * 1024)];
+        new Random(42).nextBytes(plainContent);
+        final PreComputeArgs preComputeArgs = PreComputeArgs.builder()
+                .chainTaskId("0xbenchmark")
+                .outputDir(outputDir.toString())
+                .plainDatasetFilename("dataset.bin")
+                .isMemoryMappedOutputEnabled(isMemoryMapped)
+                .build();
+        preComputeApp = new PreComputeApp(preComputeArgs.getChainTaskId()) {
+            @Override
+            PreComputeArgs getPreComputeArgs() {
+                return preComputeArgs;
+            }
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(outputDir.resolve("dataset.bin"));
+        Files.deleteIfExists(outputDir);
+    }
+
+    @Benchmark
+    public void savePlainDatasetFile() throws PreComputeException {
+        preComputeApp.savePlainDatasetFile(plainContent);
+    }
+}
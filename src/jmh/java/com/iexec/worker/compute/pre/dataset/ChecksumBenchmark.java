@@ -0,0 +1,69 @@
+/*
+ * Copyright 2022-2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iexec.worker.compute.pre.dataset;
+
+import com.iexec.commons.poco.utils.HashUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checksum of an encrypted dataset held in memory, as computed by {@link HashUtils#sha256(byte[])}
+ * and by an incremental digest fed with buffers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ChecksumBenchmark {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Param({"1", "64", "1024"})
+    public int sizeMb;
+
+    private byte[] content;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        content = new byte[Math.multiplyExact(sizeMb, 1024 * 1024)];
+        new Random(42).nextBytes(content);
+    }
+
+    @Benchmark
+    public String hashUtilsSha256() {
+        return HashUtils.sha256(content);
+    }
+
+    @Benchmark
+    public byte[] incrementalSha256() throws NoSuchAlgorithmException {
+        final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        for (int offset = 0; offset < content.length; offset += BUFFER_SIZE) {
+            digest.update(content, offset, Math.min(BUFFER_SIZE, content.length - offset));
+        }
+        return digest.digest();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2022-2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iexec.worker.compute.pre.dataset;
+
+import com.iexec.common.security.CipherUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decryption of a legacy AES-CBC dataset held in memory, sequentially with {@link CipherUtils#aesDecrypt}
+ * and on all cores with {@link ParallelCbcDecryptor}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DecryptionBenchmark {
+
+    @Param({"1", "64", "1024"})
+    public int sizeMb;
+
+    private final byte[] key = new byte[32];
+    private byte[] encryptedContent;
+    private ParallelCbcDecryptor parallelDecryptor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws GeneralSecurityException {
+        final Random random = new Random(42);
+        random.nextBytes(key);
+        final byte[] iv = new byte[16];
+        random.nextBytes(iv);
+        final byte[] plainContent = new byte[Math.multiplyExact(sizeMb, 1024 * 1024)];
+        random.nextBytes(plainContent);
+        final Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+        final byte[] ciphertext = cipher.doFinal(plainContent);
+        encryptedContent = Arrays.copyOf(iv, iv.length + ciphertext.length);
+        System.arraycopy(ciphertext, 0, encryptedContent, iv.length, ciphertext.length);
+        parallelDecryptor = new ParallelCbcDecryptor(Runtime.getRuntime().availableProcessors());
+    }
+
+    @Benchmark
+    public byte[] cipherUtilsAesDecrypt() throws Exception {
+        return CipherUtils.aesDecrypt(encryptedContent, key);
+    }
+
+    @Benchmark
+    public byte[] parallelAesDecrypt() throws GeneralSecurityException {
+        return parallelDecryptor.decrypt(encryptedContent, key);
+    }
+}
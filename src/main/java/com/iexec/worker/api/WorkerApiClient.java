@@ -29,4 +29,16 @@ public interface WorkerApiClient {
                                          @Param("chainTaskId") String chainTaskId,
                                          ExitMessage exitMessage);
 
+    @RequestLine("POST /compute/pre/{chainTaskId}/metrics")
+    @Headers("Authorization: {authorization}")
+    void sendMetricsForPreComputeStage(@Param("authorization") String authorization,
+                                       @Param("chainTaskId") String chainTaskId,
+                                       PreComputeMetricsMessage metricsMessage);
+
+    @RequestLine("POST /compute/pre/{chainTaskId}/progress")
+    @Headers("Authorization: {authorization}")
+    void sendProgressForPreComputeStage(@Param("authorization") String authorization,
+                                        @Param("chainTaskId") String chainTaskId,
+                                        PreComputeProgressMessage progressMessage);
+
 }
@@ -19,19 +19,78 @@ package com.iexec.worker.compute.pre;
 import com.iexec.common.replicate.ReplicateStatusCause;
 import com.iexec.common.security.CipherUtils;
 import com.iexec.common.utils.FileHashUtils;
-import com.iexec.common.utils.FileHelper;
 import com.iexec.commons.poco.utils.HashUtils;
 import com.iexec.commons.poco.utils.MultiAddressHelper;
+import com.iexec.worker.compute.pre.dataset.ArchiveExtractor;
+import com.iexec.worker.compute.pre.dataset.ChunkedDatasetDecryptor;
+import com.iexec.worker.compute.pre.dataset.ChunkedDatasetHeader;
+import com.iexec.worker.compute.pre.dataset.DatasetCompression;
+import com.iexec.worker.compute.pre.dataset.DatasetFileWriter;
+import com.iexec.worker.compute.pre.dataset.DatasetStreamPipeline;
+import com.iexec.worker.compute.pre.dataset.EncryptedDatasetCache;
+import com.iexec.worker.compute.pre.dataset.ParallelCbcDecryptor;
+import com.iexec.worker.compute.pre.download.DownloadClient;
+import com.iexec.worker.compute.pre.download.GatewayScorer;
+import com.iexec.worker.compute.pre.download.HedgedDownloader;
+import com.iexec.worker.compute.pre.download.InputFileDescriptor;
+import com.iexec.worker.compute.pre.download.InputFileManifest;
+import com.iexec.worker.compute.pre.download.InputFileManifestException;
+import com.iexec.worker.compute.pre.download.InputFileScheduler;
+import com.iexec.worker.compute.pre.download.MeteredInputStream;
+import com.iexec.worker.compute.pre.download.RangedDownloader;
+import com.iexec.worker.compute.pre.download.ResumableDownloader;
+import com.iexec.worker.compute.pre.download.ResumingInputStream;
+import com.iexec.worker.compute.pre.download.RetryPolicy;
+import com.iexec.worker.compute.pre.download.SourceProber;
+import com.iexec.worker.compute.pre.download.TransferProgress;
+import com.iexec.worker.compute.pre.metrics.PreComputeMetrics;
+import com.iexec.worker.compute.pre.utils.MemoryGovernor;
+import com.iexec.worker.compute.pre.utils.TaskScope;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Slf4j
 public class PreComputeApp {
 
+    static final String STAGED_DATASET_PREFIX = "dataset-";
+    static final int DECOMPRESSION_BUFFER_SIZE = 64 * 1024;
+    /**
+     * Copies of the dataset held at once by the in-memory path: the buffer of the download,
+     * the encrypted content and the plain content.
+     */
+    static final int DATASET_IN_MEMORY_COPIES = 3;
+    static final Duration DATASET_PROBE_TIMEOUT = Duration.ofSeconds(5);
+    static final int PREFLIGHT_PARALLELISM = 16;
+
     private final String chainTaskId; // just for convenience
     private PreComputeArgs preComputeArgs;
+    private GatewayScorer gatewayScorer;
+    private DownloadClient downloadClient;
+    private MemoryGovernor memoryGovernor;
+    private final PreComputeMetrics metrics = new PreComputeMetrics();
+    private final TransferProgress transferProgress = new TransferProgress();
+    private final Map<String, Long> announcedLengths = new ConcurrentHashMap<>();
 
     public PreComputeApp(String chainTaskId) {
         this.chainTaskId = chainTaskId;
@@ -39,19 +98,74 @@ public class PreComputeApp {
 
     /**
      * Download, decrypt, and save the plain dataset file in "/iexec_in".
-     * If the decrypted file is an archive, it won't be extracted.
+     * If the decrypted file is an archive, it won't be extracted unless archive extraction is enabled,
+     * in which case entries are extracted to a folder named after the plain dataset file.
+     * <p>
+     * The dataset and the input files are independent, they are fetched concurrently.
+     * The first failure cancels the other stage and its exit cause is reported.
      *
      * @throws PreComputeException if dataset or input files could not be made available for the application enclave
      */
     void run() throws PreComputeException {
-        preComputeArgs = PreComputeArgs.readArgs(chainTaskId);
-        checkOutputFolder();
-        if (preComputeArgs.isDatasetRequired()) {
-            final byte[] encryptedContent = downloadEncryptedDataset();
-            final byte[] plainContent = decryptDataset(encryptedContent);
-            savePlainDatasetFile(plainContent);
+        try (PreComputeMetrics.Stage ignored = getMetrics().start(PreComputeMetrics.ARGS)) {
+            preComputeArgs = PreComputeArgs.readArgs(chainTaskId);
+            checkOutputFolder();
+        }
+        if (preComputeArgs.isPreflightEnabled()) {
+            try (PreComputeMetrics.Stage ignored = getMetrics().start(PreComputeMetrics.PREFLIGHT)) {
+                runPreflightChecks();
+            }
+        }
+        try (TaskScope scope = new TaskScope("pre-compute", 2)) {
+            if (preComputeArgs.isDatasetRequired()) {
+                scope.fork(this::prepareDataset);
+            }
+            scope.fork(this::downloadInputFiles);
+            scope.join();
+        } catch (InterruptedException e) {
+            log.error("Pre-compute interrupted [chainTaskId:{}]", chainTaskId, e);
+            Thread.currentThread().interrupt();
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_FAILED_UNKNOWN_ISSUE);
+        }
+    }
+
+    /**
+     * Make the plain dataset file available in the output folder.
+     * When dataset streaming is enabled, download, decryption and saving are performed in a single pass.
+     * Otherwise, the dataset is read in memory only if its announced length fits in the memory budget,
+     * and streamed as well when it does not or when its length is unknown. The streamed download resumes
+     * from other gateways and retries like the in-memory one, so the choice only depends on memory.
+     *
+     * @throws PreComputeException if the dataset could not be downloaded, decrypted or saved
+     */
+    void prepareDataset() throws PreComputeException {
+        try {
+            if (getPreComputeArgs().isDatasetStreamingEnabled()) {
+                streamPlainDatasetFile();
+                return;
+            }
+            final long announcedLength = probeEncryptedDatasetLength();
+            try (MemoryGovernor.Reservation reservation =
+                         getMemoryGovernor().reserve(announcedLength, DATASET_IN_MEMORY_COPIES)) {
+                if (reservation == null) {
+                    log.info("Streaming dataset not fitting in memory budget [chainTaskId:{}, announcedLength:{}, " +
+                            "payloadBudget:{}]", chainTaskId, announcedLength, getMemoryGovernor().getPayloadBudget());
+                    streamPlainDatasetFile();
+                    return;
+                }
+                final byte[] encryptedContent = downloadEncryptedDataset();
+                final byte[] plainContent = decryptDataset(encryptedContent);
+                if (getPreComputeArgs().isDatasetExtractionEnabled()) {
+                    extractPlainDataset(plainContent);
+                } else {
+                    savePlainDatasetFile(plainContent);
+                }
+            }
+        } finally {
+            if (gatewayScorer != null) {
+                gatewayScorer.save();
+            }
         }
-        downloadInputFiles();
     }
 
     /**
@@ -71,46 +185,186 @@ public class PreComputeApp {
         throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_OUTPUT_FOLDER_NOT_FOUND);
     }
 
+    /**
+     * Probe the dataset and input file sources before any download, and check that the output folder
+     * has room for all of them.
+     * <p>
+     * Sources are probed with concurrent HEAD requests, which are sent once and do not consume the retry
+     * budget of the downloads. A source answering that its resource does not exist fails the task right away,
+     * while unreachable sources and unknown lengths are left to the downloads. Announced lengths are kept
+     * for the following stages. The required disk space is a lower bound, the dataset being assumed as large
+     * once decrypted as when encrypted. The dataset is left out of it when compressed or extracted,
+     * its size on disk being unknown before decryption.
+     * Input files listed in the input manifest are not probed, the manifest being only read while downloading.
+     *
+     * @throws PreComputeException if a source is missing or if the output folder is too small
+     */
+    void runPreflightChecks() throws PreComputeException {
+        final long start = System.nanoTime();
+        final PreComputeArgs args = getPreComputeArgs();
+        final List<String> urls = new ArrayList<>(args.getInputFiles());
+        long datasetLength = -1;
+        String datasetProbeUrl = null;
+        if (args.isDatasetRequired()) {
+            final EncryptedDatasetCache cache = getDatasetCache();
+            datasetLength = cache != null ? cache.size(args.getEncryptedDatasetChecksum()) : -1;
+            if (datasetLength < 0) {
+                final String encryptedDatasetUrl = args.getEncryptedDatasetUrl();
+                datasetProbeUrl = MultiAddressHelper.isMultiAddress(encryptedDatasetUrl)
+                        ? getGatewayScorer().rank(args.getIpfsGateways()).get(0) + encryptedDatasetUrl
+                        : encryptedDatasetUrl;
+                urls.add(datasetProbeUrl);
+            }
+        }
+        final Map<String, SourceProber.Probe> probes;
+        try {
+            probes = new SourceProber(getDownloadClient(), SourceProber.DEFAULT_TIMEOUT, PREFLIGHT_PARALLELISM)
+                    .probe(urls);
+        } catch (InterruptedException e) {
+            log.error("Pre-flight checks interrupted [chainTaskId:{}]", chainTaskId, e);
+            Thread.currentThread().interrupt();
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_FAILED_UNKNOWN_ISSUE);
+        }
+        if (datasetProbeUrl != null) {
+            final SourceProber.Probe probe = probes.get(datasetProbeUrl);
+            // an IPFS gateway may not have found the content yet, other gateways could still serve it
+            if (probe.isMissing() && !MultiAddressHelper.isMultiAddress(args.getEncryptedDatasetUrl())) {
+                log.error("Encrypted dataset file not found [chainTaskId:{}, url:{}, status:{}]",
+                        chainTaskId, datasetProbeUrl, probe.getStatus());
+                throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_DATASET_DOWNLOAD_FAILED);
+            }
+            datasetLength = probe.getLength();
+            if (datasetLength >= 0) {
+                announcedLengths.put(args.getEncryptedDatasetUrl(), datasetLength);
+            }
+        }
+        // input files with the same name overwrite each other
+        final Map<String, Long> inputFileLengths = new HashMap<>();
+        for (final String url : args.getInputFiles()) {
+            final SourceProber.Probe probe = probes.get(url);
+            if (probe.isMissing()) {
+                log.error("Input file not found [chainTaskId:{}, url:{}, status:{}]", chainTaskId, url, probe.getStatus());
+                throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+            }
+            if (probe.getLength() >= 0) {
+                announcedLengths.put(url, probe.getLength());
+                inputFileLengths.merge(FileHashUtils.createFileNameFromUri(url), probe.getLength(), Math::max);
+            }
+        }
+        final boolean isDatasetSizeKnown = args.getDatasetCompression() == DatasetCompression.NONE
+                && !args.isDatasetExtractionEnabled();
+        final long datasetSpace = isDatasetSizeKnown ? Math.max(0, datasetLength) : 0;
+        final long requiredSpace = datasetSpace
+                + inputFileLengths.values().stream().mapToLong(Long::longValue).sum();
+        final long usableSpace = getUsableSpace(Path.of(args.getOutputDir()));
+        if (usableSpace >= 0 && requiredSpace > usableSpace) {
+            log.error("Not enough disk space in output folder [chainTaskId:{}, required:{}, usable:{}]",
+                    chainTaskId, requiredSpace, usableSpace);
+            throw new PreComputeException(datasetSpace > usableSpace
+                    ? ReplicateStatusCause.PRE_COMPUTE_SAVING_PLAIN_DATASET_FAILED
+                    : ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+        }
+        log.info("Pre-flight checks passed [chainTaskId:{}, sources:{}, requiredSpace:{}, usableSpace:{}, duration:{}ms]",
+                chainTaskId, probes.size(), requiredSpace, usableSpace,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Get the space usable by this process on the file system of a folder.
+     *
+     * @param dir folder on the file system
+     * @return the usable space in bytes, -1 if unknown
+     */
+    long getUsableSpace(final Path dir) {
+        try {
+            return Files.getFileStore(dir).getUsableSpace();
+        } catch (IOException e) {
+            log.warn("Failed to read usable disk space [chainTaskId:{}, path:{}]", chainTaskId, dir, e);
+            return -1;
+        }
+    }
+
+    /**
+     * Get the length of a source announced during pre-flight checks.
+     *
+     * @param url URL or multiaddr of the source
+     * @return the announced length, -1 if unknown or if pre-flight checks did not run
+     */
+    long getAnnouncedLength(final String url) {
+        return announcedLengths.getOrDefault(url, -1L);
+    }
+
     /**
      * Download encrypted dataset file and check its checksum.
+     * The host dataset cache, if enabled, is looked up before any download and filled once the checksum is verified.
      *
      * @return downloaded file bytes
      * @throws PreComputeException if download fails or bad file checksum
      */
     byte[] downloadEncryptedDataset() throws PreComputeException {
-        final String encryptedDatasetUrl = getPreComputeArgs().getEncryptedDatasetUrl();
-        log.info("Downloading encrypted dataset file [chainTaskId:{}, url:{}]",
-                chainTaskId, encryptedDatasetUrl);
-        byte[] encryptedContent = null;
-        if (MultiAddressHelper.isMultiAddress(encryptedDatasetUrl)) {
-            for (String ipfsGateway : MultiAddressHelper.IPFS_GATEWAYS) {
-                log.debug("Try to download dataset from {}", ipfsGateway);
-                encryptedContent = FileHelper.readFileBytesFromUrl(ipfsGateway + encryptedDatasetUrl);
-                if (encryptedContent != null) {
-                    break;
-                }
+        final String expectedChecksum = getPreComputeArgs().getEncryptedDatasetChecksum();
+        final EncryptedDatasetCache cache = getDatasetCache();
+        final byte[] encryptedContent;
+        try (PreComputeMetrics.Stage stage = getMetrics().start(PreComputeMetrics.DOWNLOAD)) {
+            final byte[] cachedContent = cache != null ? cache.read(expectedChecksum) : null;
+            if (cachedContent != null) {
+                log.info("Found encrypted dataset in cache [chainTaskId:{}, checksum:{}]", chainTaskId, expectedChecksum);
+                stage.setBytes(cachedContent.length);
+                return cachedContent;
             }
-        } else {
-            encryptedContent = FileHelper.readFileBytesFromUrl(encryptedDatasetUrl);
-        }
-        if (encryptedContent == null) {
-            log.error("Failed to download encrypted dataset file [chainTaskId:{}, url:{}]",
+            final String encryptedDatasetUrl = getPreComputeArgs().getEncryptedDatasetUrl();
+            log.info("Downloading encrypted dataset file [chainTaskId:{}, url:{}]",
                     chainTaskId, encryptedDatasetUrl);
-            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_DATASET_DOWNLOAD_FAILED);
+            encryptedContent = isResumableDownloadEnabled()
+                    ? readStagedDataset(downloadResumableDataset(encryptedDatasetUrl))
+                    : downloadDatasetContent(encryptedDatasetUrl);
+            if (encryptedContent == null) {
+                log.error("Failed to download encrypted dataset file [chainTaskId:{}, url:{}]",
+                        chainTaskId, encryptedDatasetUrl);
+                throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_DATASET_DOWNLOAD_FAILED);
+            }
+            stage.setBytes(encryptedContent.length);
         }
         log.info("Checking encrypted dataset checksum [chainTaskId:{}]", chainTaskId);
-        final String expectedChecksum = getPreComputeArgs().getEncryptedDatasetChecksum();
-        final String actualChecksum = HashUtils.sha256(encryptedContent);
+        final String actualChecksum;
+        try (PreComputeMetrics.Stage stage = getMetrics().start(PreComputeMetrics.CHECKSUM)) {
+            stage.setBytes(encryptedContent.length);
+            actualChecksum = HashUtils.sha256(encryptedContent);
+        }
         if (!actualChecksum.equals(expectedChecksum)) {
             log.info("Invalid dataset checksum [chainTaskId:{}, expected:{}, actual:{}]",
                     chainTaskId, expectedChecksum, actualChecksum);
             throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_INVALID_DATASET_CHECKSUM);
         }
+        if (cache != null) {
+            cache.put(expectedChecksum, encryptedContent);
+        }
+        return encryptedContent;
+    }
+
+    private byte[] downloadDatasetContent(final String encryptedDatasetUrl) throws PreComputeException {
+        byte[] encryptedContent = downloadRangedDataset(encryptedDatasetUrl);
+        if (encryptedContent != null) {
+            log.debug("Downloaded encrypted dataset with ranged requests [chainTaskId:{}]", chainTaskId);
+        } else if (MultiAddressHelper.isMultiAddress(encryptedDatasetUrl)) {
+            encryptedContent = downloadFromIpfsGateways((gateway, onResponse) -> {
+                final long start = System.nanoTime();
+                final byte[] content = readUrlBytes(gateway + encryptedDatasetUrl, onResponse);
+                if (content != null) {
+                    getGatewayScorer().recordTransfer(gateway, content.length,
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                }
+                return content;
+            }, content -> {});
+        } else {
+            encryptedContent = readUrlBytes(encryptedDatasetUrl);
+        }
         return encryptedContent;
     }
 
     /**
-     * Decrypt dataset content.
+     * Decrypt dataset content, on several cores if {@link PreComputeArgs#getDecryptionParallelism()} allows it.
+     * Both legacy AES-CBC datasets and chunked AES-GCM datasets are supported, see {@link ChunkedDatasetHeader}.
      *
      * @param encryptedContent bytes
      * @return plain dataset content bytes
@@ -118,10 +372,20 @@ public class PreComputeApp {
      */
     byte[] decryptDataset(final byte[] encryptedContent) throws PreComputeException {
         log.info("Decrypting dataset [chainTaskId:{}]", chainTaskId);
-        try {
+        try (PreComputeMetrics.Stage stage = getMetrics().start(PreComputeMetrics.DECRYPT)) {
+            stage.setBytes(encryptedContent.length);
             final String key = getPreComputeArgs().getEncryptedDatasetBase64Key();
             final byte[] decodeKey = Base64.getDecoder().decode(key);
-            final byte[] plainDatasetContent = CipherUtils.aesDecrypt(encryptedContent, decodeKey);
+            final int parallelism = getPreComputeArgs().getDecryptionParallelism();
+            final byte[] plainDatasetContent;
+            if (ChunkedDatasetHeader.isChunked(encryptedContent)) {
+                log.info("Decrypting chunked dataset [chainTaskId:{}, parallelism:{}]", chainTaskId, parallelism);
+                plainDatasetContent = ChunkedDatasetDecryptor.decrypt(encryptedContent, decodeKey, parallelism);
+            } else if (parallelism > 1) {
+                plainDatasetContent = new ParallelCbcDecryptor(parallelism).decrypt(encryptedContent, decodeKey);
+            } else {
+                plainDatasetContent = CipherUtils.aesDecrypt(encryptedContent, decodeKey);
+            }
             log.info("Decrypted dataset [chainTaskId:{}]", chainTaskId);
             return plainDatasetContent;
         } catch (Exception e) {
@@ -134,39 +398,659 @@ public class PreComputeApp {
      * Save plain dataset content in output folder (iexec_in).
      * The created file will have the name provided in the env
      * variable IEXEC_DATASET_FILENAME.
+     * A compressed dataset is decompressed while being written.
      *
      * @param plainContent bytes
-     * @throws PreComputeException if saving the file fails
+     * @throws PreComputeException if decompressing or saving the file fails
      */
     void savePlainDatasetFile(final byte[] plainContent) throws PreComputeException {
         final String plainDatasetFilepath = getPreComputeArgs().getOutputDir() + File.separator +
                 getPreComputeArgs().getPlainDatasetFilename();
-        log.info("Saving plain dataset file [chainTaskId:{}, path:{}]",
-                chainTaskId, plainDatasetFilepath);
-        if (!FileHelper.writeFile(plainDatasetFilepath, plainContent)) {
+        final DatasetCompression compression = getPreComputeArgs().getDatasetCompression();
+        log.info("Saving plain dataset file [chainTaskId:{}, path:{}, compression:{}]",
+                chainTaskId, plainDatasetFilepath, compression);
+        final boolean isCompressed = compression != DatasetCompression.NONE;
+        try (PreComputeMetrics.Stage stage = getMetrics().start(PreComputeMetrics.SAVE);
+             DatasetFileWriter writer = DatasetFileWriter.create(Path.of(plainDatasetFilepath),
+                isCompressed ? -1 : plainContent.length, getPreComputeArgs().isMemoryMappedOutputEnabled());
+             InputStream contentStream = compression.decompress(new ByteArrayInputStream(plainContent))) {
+            final byte[] buffer = new byte[DECOMPRESSION_BUFFER_SIZE];
+            int read;
+            while ((read = contentStream.read(buffer)) != -1) {
+                writer.write(buffer, 0, read);
+            }
+            writer.commit();
+            stage.setBytes(plainContent.length);
+        } catch (IOException e) {
             log.error("Failed to write plain dataset file [chainTaskId:{}, path:{}]",
-                    chainTaskId, plainDatasetFilepath);
+                    chainTaskId, plainDatasetFilepath, e);
             throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_SAVING_PLAIN_DATASET_FAILED);
         }
         log.info("Saved plain dataset file to disk [chainTaskId:{}]", chainTaskId);
     }
 
+    /**
+     * Extract plain dataset archive content in output folder (iexec_in).
+     * Entries are extracted to a folder with the name provided in the env
+     * variable IEXEC_DATASET_FILENAME, which only appears once all entries are extracted.
+     *
+     * @param plainContent bytes of a zip, tar or tar.gz archive, possibly compressed as a whole
+     * @throws PreComputeException if the archive is not supported, breaks an extraction limit or could not be written
+     */
+    void extractPlainDataset(final byte[] plainContent) throws PreComputeException {
+        final Path plainDatasetPath = Path.of(getPreComputeArgs().getOutputDir(),
+                getPreComputeArgs().getPlainDatasetFilename());
+        log.info("Extracting plain dataset archive [chainTaskId:{}, path:{}]", chainTaskId, plainDatasetPath);
+        Path stagingDir = null;
+        try (PreComputeMetrics.Stage stage = getMetrics().start(PreComputeMetrics.SAVE)) {
+            stage.setBytes(plainContent.length);
+            stagingDir = ArchiveExtractor.createStagingDir(plainDatasetPath);
+            try (InputStream contentStream = getPreComputeArgs().getDatasetCompression()
+                    .decompress(new ByteArrayInputStream(plainContent))) {
+                createArchiveExtractor().extract(contentStream, stagingDir);
+            }
+            ArchiveExtractor.publish(stagingDir, plainDatasetPath);
+        } catch (IOException e) {
+            log.error("Failed to extract plain dataset archive [chainTaskId:{}, path:{}]",
+                    chainTaskId, plainDatasetPath, e);
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_SAVING_PLAIN_DATASET_FAILED);
+        } finally {
+            if (stagingDir != null) {
+                ArchiveExtractor.deleteQuietly(stagingDir);
+            }
+        }
+        log.info("Extracted plain dataset archive to disk [chainTaskId:{}]", chainTaskId);
+    }
+
+    ArchiveExtractor createArchiveExtractor() {
+        return new ArchiveExtractor(getPreComputeArgs().getDatasetExtractionMaxSizeMb() * 1024L * 1024L,
+                ArchiveExtractor.DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Download, check, decrypt and save the plain dataset file in a single pass.
+     * If archive extraction is enabled, the plain dataset archive is extracted during the same pass.
+     * The dataset content is never fully held in memory, and the plain dataset
+     * file is only created in the output folder once the checksum has been verified.
+     *
+     * @throws PreComputeException if download, checksum verification, decryption or saving fails
+     */
+    void streamPlainDatasetFile() throws PreComputeException {
+        final byte[] key;
+        try {
+            key = Base64.getDecoder().decode(getPreComputeArgs().getEncryptedDatasetBase64Key());
+        } catch (IllegalArgumentException e) {
+            log.error("Failed to decode dataset key [chainTaskId:{}]", chainTaskId, e);
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_DATASET_DECRYPTION_FAILED);
+        }
+        final Path plainDatasetPath = Path.of(getPreComputeArgs().getOutputDir(),
+                getPreComputeArgs().getPlainDatasetFilename());
+        final DatasetStreamPipeline pipeline = new DatasetStreamPipeline(chainTaskId, key,
+                getPreComputeArgs().getEncryptedDatasetChecksum(), getPreComputeArgs().isMemoryMappedOutputEnabled(),
+                getPreComputeArgs().getDecryptionParallelism(), getPreComputeArgs().getDatasetCompression());
+        try (PreComputeMetrics.Stage stage = getMetrics().start(PreComputeMetrics.STREAM)) {
+            final MeteredInputStream encryptedStream = new MeteredInputStream(openEncryptedDatasetStream());
+            try (encryptedStream) {
+                log.info("Streaming plain dataset file [chainTaskId:{}, path:{}]", chainTaskId, plainDatasetPath);
+                if (getPreComputeArgs().isDatasetExtractionEnabled()) {
+                    pipeline.processArchive(encryptedStream, plainDatasetPath, createArchiveExtractor());
+                } else {
+                    pipeline.process(encryptedStream, plainDatasetPath);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to close encrypted dataset stream [chainTaskId:{}]", chainTaskId, e);
+            } finally {
+                stage.setBytes(encryptedStream.getBytesRead());
+            }
+        }
+        log.info("Saved plain dataset file to disk [chainTaskId:{}]", chainTaskId);
+    }
+
+    /**
+     * Open a stream on the encrypted dataset file, trying IPFS gateways in order for multiaddr URLs.
+     * A cached copy is used if available, otherwise the downloaded content is copied to the cache while read.
+     *
+     * @return an open stream on the encrypted dataset content
+     * @throws PreComputeException if no source could be reached
+     */
+    InputStream openEncryptedDatasetStream() throws PreComputeException {
+        final String expectedChecksum = getPreComputeArgs().getEncryptedDatasetChecksum();
+        final EncryptedDatasetCache cache = getDatasetCache();
+        final InputStream cachedStream = cache != null ? cache.open(expectedChecksum) : null;
+        if (cachedStream != null) {
+            log.info("Found encrypted dataset in cache [chainTaskId:{}, checksum:{}]", chainTaskId, expectedChecksum);
+            return cachedStream;
+        }
+        final String encryptedDatasetUrl = getPreComputeArgs().getEncryptedDatasetUrl();
+        log.info("Downloading encrypted dataset file [chainTaskId:{}, url:{}]",
+                chainTaskId, encryptedDatasetUrl);
+        final InputStream encryptedStream = isResumableDownloadEnabled()
+                ? openStagedDataset(downloadResumableDataset(encryptedDatasetUrl))
+                : openDatasetStream(encryptedDatasetUrl);
+        if (encryptedStream == null) {
+            log.error("Failed to download encrypted dataset file [chainTaskId:{}, url:{}]",
+                    chainTaskId, encryptedDatasetUrl);
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_DATASET_DOWNLOAD_FAILED);
+        }
+        return cache != null ? cache.cacheWhileReading(expectedChecksum, encryptedStream) : encryptedStream;
+    }
+
+    /**
+     * Open a stream on the encrypted dataset, with ranged requests if enabled, from the first IPFS gateway
+     * serving it for multiaddr URLs. A stream failing midway is resumed from the same source,
+     * then from the other gateways in rank order.
+     *
+     * @param encryptedDatasetUrl URL or multiaddr of the encrypted dataset
+     * @return an open stream, {@literal null} if all sources failed
+     * @throws PreComputeException if interrupted while waiting for a gateway
+     */
+    private InputStream openDatasetStream(final String encryptedDatasetUrl) throws PreComputeException {
+        InputStream encryptedStream = openRangedDatasetStream(encryptedDatasetUrl);
+        if (encryptedStream != null) {
+            log.debug("Streaming encrypted dataset with ranged requests [chainTaskId:{}]", chainTaskId);
+        } else if (MultiAddressHelper.isMultiAddress(encryptedDatasetUrl)) {
+            final List<String> gateways = getGatewayScorer().rank(getPreComputeArgs().getIpfsGateways());
+            encryptedStream = downloadFromIpfsGateways((gateway, onResponse) -> {
+                final InputStream stream = openUrlStream(gateway + encryptedDatasetUrl);
+                if (stream == null) {
+                    return null;
+                }
+                onResponse.run();
+                final List<String> resumeUrls = Stream.concat(Stream.of(gateway),
+                                gateways.stream().filter(other -> !other.equals(gateway)))
+                        .map(source -> source + encryptedDatasetUrl)
+                        .toList();
+                return new ResumingInputStream(getDownloadClient(),
+                        new MeteredInputStream(stream, new GatewayTransferListener(gateway)), resumeUrls);
+            }, this::closeQuietly);
+        } else {
+            final InputStream stream = openUrlStream(encryptedDatasetUrl);
+            encryptedStream = stream != null
+                    ? new ResumingInputStream(getDownloadClient(), stream, List.of(encryptedDatasetUrl))
+                    : null;
+        }
+        return encryptedStream;
+    }
+
+    /**
+     * Download the encrypted dataset to the staging folder, resuming a previous partial download if any.
+     * For multiaddr URLs, IPFS gateways are tried one after the other, a download started on a gateway
+     * being resumed on the next one as long as they serve the same validator.
+     *
+     * @param encryptedDatasetUrl URL or multiaddr of the encrypted dataset
+     * @return the staged encrypted dataset file, {@literal null} if all sources failed
+     */
+    Path downloadResumableDataset(final String encryptedDatasetUrl) {
+        final ResumableDownloader downloader = new ResumableDownloader(getDownloadClient(),
+                Path.of(getPreComputeArgs().getDownloadStagingDir()));
+        final Path stagedDataset = downloader.getStagingDir()
+                .resolve(STAGED_DATASET_PREFIX + FileHashUtils.createFileNameFromUri(encryptedDatasetUrl));
+        final List<String> sources = MultiAddressHelper.isMultiAddress(encryptedDatasetUrl)
+                ? getGatewayScorer().rank(getPreComputeArgs().getIpfsGateways())
+                : List.of("");
+        for (final String source : sources) {
+            try {
+                downloader.download(source + encryptedDatasetUrl, stagedDataset);
+                return stagedDataset;
+            } catch (IOException e) {
+                log.warn("Failed to download encrypted dataset [chainTaskId:{}, url:{}]",
+                        chainTaskId, source + encryptedDatasetUrl, e);
+                if (!source.isEmpty()) {
+                    getGatewayScorer().recordFailure(source);
+                }
+            }
+        }
+        return null;
+    }
+
+    private byte[] readStagedDataset(final Path stagedDataset) {
+        if (stagedDataset == null) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(stagedDataset);
+        } catch (IOException e) {
+            log.error("Failed to read staged dataset [chainTaskId:{}, path:{}]", chainTaskId, stagedDataset, e);
+            return null;
+        } finally {
+            deleteQuietly(stagedDataset);
+        }
+    }
+
+    private InputStream openStagedDataset(final Path stagedDataset) {
+        if (stagedDataset == null) {
+            return null;
+        }
+        try {
+            return Files.newInputStream(stagedDataset, StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            log.error("Failed to read staged dataset [chainTaskId:{}, path:{}]", chainTaskId, stagedDataset, e);
+            deleteQuietly(stagedDataset);
+            return null;
+        }
+    }
+
+    private void deleteQuietly(final Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete file [chainTaskId:{}, path:{}]", chainTaskId, path, e);
+        }
+    }
+
+    /**
+     * Get the host cache of encrypted datasets.
+     *
+     * @return the cache, {@literal null} if caching is disabled
+     */
+    EncryptedDatasetCache getDatasetCache() {
+        final String cacheDir = getPreComputeArgs().getDatasetCacheDir();
+        if (cacheDir == null) {
+            return null;
+        }
+        return new EncryptedDatasetCache(Path.of(cacheDir), getPreComputeArgs().getDatasetCacheMaxSizeMb() * 1024L * 1024L);
+    }
+
+    /**
+     * Get the length of the encrypted dataset without downloading it.
+     * The length is read from the cached copy if any, then from the pre-flight checks,
+     * then from the source, the best ranked IPFS gateway being asked for multiaddr URLs.
+     * The source is probed with a single HEAD request, never retried, so that an unreachable source
+     * neither delays the download nor consumes the retry budget. An unknown length leads to streaming.
+     *
+     * @return the announced length, -1 if unknown
+     */
+    long probeEncryptedDatasetLength() {
+        final EncryptedDatasetCache cache = getDatasetCache();
+        final long cachedLength = cache != null ? cache.size(getPreComputeArgs().getEncryptedDatasetChecksum()) : -1;
+        if (cachedLength >= 0) {
+            return cachedLength;
+        }
+        final String encryptedDatasetUrl = getPreComputeArgs().getEncryptedDatasetUrl();
+        final long announcedLength = getAnnouncedLength(encryptedDatasetUrl);
+        if (announcedLength >= 0) {
+            return announcedLength;
+        }
+        String url = encryptedDatasetUrl;
+        if (MultiAddressHelper.isMultiAddress(encryptedDatasetUrl)) {
+            final List<String> gateways = getGatewayScorer().rank(getPreComputeArgs().getIpfsGateways());
+            if (gateways.isEmpty()) {
+                return -1;
+            }
+            url = gateways.get(0) + encryptedDatasetUrl;
+        }
+        try (DownloadClient.Response response = getDownloadClient().headOnce(url, DATASET_PROBE_TIMEOUT)) {
+            if (response.getStatus() == 200 && response.getContentLength() >= 0) {
+                return response.getContentLength();
+            }
+        } catch (IOException e) {
+            log.debug("Failed to probe encrypted dataset length [chainTaskId:{}, url:{}]", chainTaskId, url, e);
+        }
+        return -1;
+    }
+
+    /**
+     * Get the memory governor of the process, detecting memory limits on first call.
+     *
+     * @return the memory governor
+     */
+    synchronized MemoryGovernor getMemoryGovernor() {
+        if (memoryGovernor == null) {
+            memoryGovernor = MemoryGovernor.detect();
+        }
+        return memoryGovernor;
+    }
+
+    private boolean isResumableDownloadEnabled() {
+        return getPreComputeArgs().getDownloadStagingDir() != null;
+    }
+
+    /**
+     * Open a stream downloading the encrypted dataset over several connections,
+     * striped across all IPFS gateways for multiaddr URLs.
+     *
+     * @param encryptedDatasetUrl URL or multiaddr of the encrypted dataset
+     * @return a stream on the encrypted dataset, {@literal null} if ranged download is disabled or not applicable
+     */
+    InputStream openRangedDatasetStream(final String encryptedDatasetUrl) {
+        final int chunkSize = getPreComputeArgs().getRangedDownloadChunkSize();
+        // each connection holds up to two chunks in memory
+        final int connections = getMemoryGovernor()
+                .limitConcurrency(getPreComputeArgs().getRangedDownloadConnections(), 2L * chunkSize);
+        if (connections <= 1) {
+            return null;
+        }
+        final List<String> urls = MultiAddressHelper.isMultiAddress(encryptedDatasetUrl)
+                ? getGatewayScorer().rank(getPreComputeArgs().getIpfsGateways()).stream()
+                .map(gateway -> gateway + encryptedDatasetUrl)
+                .toList()
+                : List.of(encryptedDatasetUrl);
+        return new RangedDownloader(getDownloadClient(), chunkSize, connections).open(urls);
+    }
+
+    private byte[] downloadRangedDataset(final String encryptedDatasetUrl) {
+        try (InputStream rangedStream = openRangedDatasetStream(encryptedDatasetUrl)) {
+            return rangedStream != null ? rangedStream.readAllBytes() : null;
+        } catch (IOException e) {
+            log.warn("Ranged download failed, falling back to single connection [chainTaskId:{}]", chainTaskId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Download a multiaddr resource from the first IPFS gateway able to serve it.
+     * <p>
+     * Gateways are ranked from their past health and latency, then tried one after the other, unless hedging
+     * is enabled. In this case, the next gateway is requested when the previous ones did not respond within
+     * the hedge delay, the first response wins and other ones are discarded. Gateways cancelled because
+     * another one won are not scored as failed.
+     *
+     * @param fetcher   downloads the resource from a gateway, returns {@literal null} on failure; it is given
+     *                  a callback to run when the gateway response headers are received, to score its latency
+     * @param discarder releases a response which lost the race
+     * @return the first successful response, {@literal null} if all gateways failed
+     * @throws PreComputeException if interrupted while waiting for a response
+     */
+    <T> T downloadFromIpfsGateways(final BiFunction<String, Runnable, T> fetcher,
+                                   final Consumer<T> discarder) throws PreComputeException {
+        final GatewayScorer scorer = getGatewayScorer();
+        final List<String> gateways = scorer.rank(getPreComputeArgs().getIpfsGateways());
+        final Function<String, T> measuredFetcher = gateway -> {
+            log.debug("Try to download dataset from {}", gateway);
+            final long start = System.nanoTime();
+            return fetcher.apply(gateway, () -> scorer.recordResponse(gateway,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        };
+        final int hedgeDelay = getPreComputeArgs().getIpfsHedgeDelayMillis();
+        if (hedgeDelay < 0) {
+            for (final String gateway : gateways) {
+                final T result = measuredFetcher.apply(gateway);
+                if (result != null) {
+                    return result;
+                }
+                scorer.recordFailure(gateway);
+            }
+            return null;
+        }
+        try {
+            return new HedgedDownloader<>(Duration.ofMillis(hedgeDelay), measuredFetcher, discarder,
+                    scorer::recordFailure).download(gateways);
+        } catch (InterruptedException e) {
+            log.error("Dataset download interrupted [chainTaskId:{}]", chainTaskId, e);
+            Thread.currentThread().interrupt();
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_DATASET_DOWNLOAD_FAILED);
+        }
+    }
+
+    /**
+     * Get the IPFS gateways scorer, loading persisted statistics on first call.
+     *
+     * @return the scorer of this task
+     */
+    synchronized GatewayScorer getGatewayScorer() {
+        if (gatewayScorer == null) {
+            final String statsFile = getPreComputeArgs().getGatewayStatsFile();
+            gatewayScorer = GatewayScorer.load(statsFile != null ? Path.of(statsFile) : null);
+        }
+        return gatewayScorer;
+    }
+
+    private class GatewayTransferListener implements MeteredInputStream.TransferListener {
+        private final String gateway;
+
+        GatewayTransferListener(String gateway) {
+            this.gateway = gateway;
+        }
+
+        @Override
+        public void onTransferCompleted(long bytes, long durationMillis) {
+            getGatewayScorer().recordTransfer(gateway, bytes, durationMillis);
+        }
+
+        @Override
+        public void onTransferFailed(IOException e) {
+            getGatewayScorer().recordFailure(gateway);
+        }
+    }
+
+    private void closeQuietly(final InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            log.warn("Failed to close stream [chainTaskId:{}]", chainTaskId, e);
+        }
+    }
+
+    /**
+     * Open a stream on a remote resource.
+     *
+     * @param url URL of the resource
+     * @return an open stream, or {@literal null} if the resource could not be reached
+     */
+    InputStream openUrlStream(final String url) {
+        return getDownloadClient().open(url);
+    }
+
+    /**
+     * Read the content of a remote resource.
+     *
+     * @param url URL of the resource
+     * @return the content, or {@literal null} if the download failed
+     */
+    byte[] readUrlBytes(final String url) {
+        return getDownloadClient().readBytes(url);
+    }
+
+    /**
+     * Read the content of a remote resource, being notified when the resource starts being served.
+     *
+     * @param url        URL of the resource
+     * @param onResponse called once the response headers are received
+     * @return the content, or {@literal null} if the download failed
+     */
+    byte[] readUrlBytes(final String url, final Runnable onResponse) {
+        return getDownloadClient().readBytes(url, onResponse);
+    }
+
+    /**
+     * Get the HTTP client shared by all downloads of this task, creating it on first call.
+     * Its retry policy holds the retry budget of the task.
+     *
+     * @return the download client of this task
+     */
+    synchronized DownloadClient getDownloadClient() {
+        if (downloadClient == null) {
+            final PreComputeArgs args = getPreComputeArgs();
+            downloadClient = new DownloadClient(new RetryPolicy(args.getDownloadMaxAttempts(),
+                    Duration.ofMillis(args.getDownloadRetryInitialBackoffMillis()),
+                    Duration.ofMillis(args.getDownloadRetryMaxBackoffMillis()),
+                    args.getDownloadRetryBudget()), transferProgress);
+        }
+        return downloadClient;
+    }
+
     /**
      * Download files and save them in the output folder (iexec_in)
-     * if the list is not empty.
+     * if the list is not empty or if an input manifest is given.
+     * <p>
+     * Files are downloaded concurrently, at most {@link PreComputeArgs#getMaxParallelDownloads()}
+     * at a time, fewer if their stream buffers would not fit in the memory budget.
+     * Each file is downloaded once, largest files first when their length was announced during
+     * pre-flight checks. Files of the input manifest are downloaded next, while the manifest is read.
+     * The first failure cancels all pending downloads.
      *
      * @throws PreComputeException if download of one of the files fails
      */
     void downloadInputFiles() throws PreComputeException {
-        for (final String url : getPreComputeArgs().getInputFiles()) {
-            log.info("Downloading input file [chainTaskId:{}, url:{}]", chainTaskId, url);
-            if (FileHelper.downloadFile(url, getPreComputeArgs().getOutputDir(), FileHashUtils.createFileNameFromUri(url))
-                    .isEmpty()) {
+        final PreComputeArgs args = getPreComputeArgs();
+        if (args.getInputFiles().isEmpty() && !args.hasInputManifest()) {
+            return;
+        }
+        final List<String> inputFiles = InputFileScheduler.schedule(args.getInputFiles(),
+                FileHashUtils::createFileNameFromUri, this::getAnnouncedLength);
+        final int maxParallelism = getMemoryGovernor()
+                .limitConcurrency(args.getMaxParallelDownloads(), MemoryGovernor.DOWNLOAD_STREAM_MEMORY);
+        final int parallelism = args.hasInputManifest() ? maxParallelism : Math.min(inputFiles.size(), maxParallelism);
+        log.info("Downloading input files [chainTaskId:{}, count:{}, skipped:{}, manifest:{}, parallelism:{}]",
+                chainTaskId, inputFiles.size(), args.getInputFiles().size() - inputFiles.size(),
+                args.hasInputManifest(), parallelism);
+        final long start = System.nanoTime();
+        int count = inputFiles.size();
+        try (TaskScope scope = new TaskScope("input-file-download", parallelism)) {
+            for (final String url : inputFiles) {
+                scope.fork(() -> downloadInputFile(url));
+            }
+            if (args.hasInputManifest()) {
+                count += forkManifestDownloads(scope, inputFiles, 2 * parallelism);
+            }
+            scope.join();
+        } catch (InterruptedException e) {
+            log.error("Input files download interrupted [chainTaskId:{}]", chainTaskId, e);
+            Thread.currentThread().interrupt();
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+        }
+        log.info("Downloaded input files [chainTaskId:{}, count:{}, duration:{}ms]",
+                chainTaskId, count, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Submit the downloads of the input manifest files as the manifest is read, a bounded number of downloads
+     * being pending at a time.
+     * <p>
+     * A file whose name is already used by a previous input file is skipped. The declared sizes are added up
+     * and checked against the disk space usable when the manifest is opened.
+     *
+     * @param scope      scope running the downloads
+     * @param inputFiles input files already submitted
+     * @param maxPending maximum number of downloads queued or running
+     * @return the number of submitted downloads
+     * @throws PreComputeException if the manifest is invalid or could not be read, if declared sizes exceed
+     *                             the usable disk space or if a previous download failed
+     */
+    private int forkManifestDownloads(final TaskScope scope, final List<String> inputFiles, final int maxPending)
+            throws PreComputeException, InterruptedException {
+        final Set<String> fileNames = new HashSet<>();
+        inputFiles.forEach(url -> fileNames.add(FileHashUtils.createFileNameFromUri(url)));
+        final long usableSpace = getUsableSpace(Path.of(getPreComputeArgs().getOutputDir()));
+        long declaredSize = inputFiles.stream().mapToLong(this::getAnnouncedLength).filter(length -> length > 0).sum();
+        int count = 0;
+        try (InputFileManifest manifest = openInputManifest()) {
+            InputFileDescriptor descriptor;
+            while ((descriptor = manifest.next()) != null) {
+                if (!fileNames.add(FileHashUtils.createFileNameFromUri(descriptor.getUrl()))) {
+                    log.warn("Skipping input file saved under an already used name [chainTaskId:{}, url:{}]",
+                            chainTaskId, descriptor.getUrl());
+                    continue;
+                }
+                declaredSize += Math.max(0, descriptor.getSize());
+                if (usableSpace >= 0 && declaredSize > usableSpace) {
+                    log.error("Not enough disk space for input files [chainTaskId:{}, required:{}, usable:{}]",
+                            chainTaskId, declaredSize, usableSpace);
+                    throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+                }
+                final InputFileDescriptor inputFile = descriptor;
+                scope.fork(() -> downloadInputFile(inputFile), maxPending);
+                count++;
+            }
+        } catch (InputFileManifestException e) {
+            log.error("Invalid input manifest [chainTaskId:{}, line:{}, reason:{}]",
+                    chainTaskId, e.getLineNumber(), e.getMessage());
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_AT_LEAST_ONE_INPUT_FILE_URL_MISSING);
+        } catch (IOException e) {
+            log.error("Failed to read input manifest [chainTaskId:{}]", chainTaskId, e);
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+        }
+        return count;
+    }
+
+    /**
+     * Open the input manifest, read from its file if any, or decoded from its environment variable otherwise.
+     *
+     * @return the input manifest, to be closed by the caller
+     * @throws IOException if the manifest could not be opened
+     */
+    InputFileManifest openInputManifest() throws IOException {
+        final String manifestFile = getPreComputeArgs().getInputManifestFile();
+        return manifestFile != null
+                ? InputFileManifest.open(Path.of(manifestFile))
+                : InputFileManifest.decode(getPreComputeArgs().getInputManifest());
+    }
+
+    /**
+     * Download a single file and save it in the output folder (iexec_in).
+     *
+     * @param url URL of the file
+     * @throws PreComputeException if download fails
+     */
+    void downloadInputFile(final String url) throws PreComputeException {
+        downloadInputFile(InputFileDescriptor.builder().url(url).build());
+    }
+
+    /**
+     * Download a single file and save it in the output folder (iexec_in), checking its size and checksum if declared
+     * in the input manifest. The checksum is computed while the file is written, a file which does not match
+     * never appearing in the output folder.
+     *
+     * @param inputFile descriptor of the file
+     * @throws PreComputeException if download fails or if the file does not match its descriptor
+     */
+    void downloadInputFile(final InputFileDescriptor inputFile) throws PreComputeException {
+        final String url = inputFile.getUrl();
+        log.info("Downloading input file [chainTaskId:{}, url:{}]", chainTaskId, url);
+        final long start = System.nanoTime();
+        final String filename = FileHashUtils.createFileNameFromUri(url);
+        final Path target = Path.of(getPreComputeArgs().getOutputDir(), filename);
+        try (PreComputeMetrics.Stage stage = getMetrics().start(PreComputeMetrics.INPUT_FILE_PREFIX + filename)) {
+            downloadInputFile(inputFile, target);
+            stage.setBytes(sizeOf(target));
+        }
+        log.info("Downloaded input file [chainTaskId:{}, url:{}, duration:{}ms]",
+                chainTaskId, url, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void downloadInputFile(final InputFileDescriptor inputFile, final Path target) throws PreComputeException {
+        final String url = inputFile.getUrl();
+        if (isResumableDownloadEnabled()) {
+            try {
+                new ResumableDownloader(getDownloadClient(), Path.of(getPreComputeArgs().getDownloadStagingDir()))
+                        .download(inputFile, target);
+            } catch (IOException e) {
+                log.error("Failed to download input file [chainTaskId:{}, url:{}]", chainTaskId, url, e);
                 throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
             }
+        } else if (!getDownloadClient().download(inputFile, target)) {
+            log.error("Failed to download input file [chainTaskId:{}, url:{}]", chainTaskId, url);
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+        }
+    }
+
+    private long sizeOf(final Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            log.debug("Failed to read file size [chainTaskId:{}, path:{}]", chainTaskId, file, e);
+            return 0;
         }
     }
 
+    /**
+     * Get the timings of the stages run so far, reported to the worker once the pre-compute ends.
+     *
+     * @return the metrics of this task
+     */
+    PreComputeMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Get the bytes received by all downloads of this task, reported to the worker while downloads run.
+     *
+     * @return the download progress of this task
+     */
+    TransferProgress getTransferProgress() {
+        return transferProgress;
+    }
+
     /**
      * Added for testing purpose.
      *
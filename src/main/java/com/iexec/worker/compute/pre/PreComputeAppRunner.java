@@ -18,17 +18,28 @@ package com.iexec.worker.compute.pre;
 
 import com.iexec.common.replicate.ReplicateStatusCause;
 import com.iexec.common.worker.api.ExitMessage;
+import com.iexec.worker.api.PreComputeMetricsMessage;
+import com.iexec.worker.api.WorkerApiClient;
+import com.iexec.worker.compute.pre.download.TransferProgress;
+import com.iexec.worker.compute.pre.metrics.PreComputeMetrics;
+import com.iexec.worker.compute.pre.metrics.ProgressReporter;
+import com.iexec.worker.compute.pre.metrics.StartupTrace;
 import com.iexec.worker.compute.pre.signer.SignerService;
 import com.iexec.worker.compute.pre.utils.EnvUtils;
 import feign.FeignException;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
+
 import static com.iexec.common.worker.tee.TeeSessionEnvironmentVariable.IEXEC_TASK_ID;
 import static com.iexec.worker.api.WorkerApiManager.getWorkerApiClient;
+import static com.iexec.worker.compute.pre.utils.PreComputeEnvironmentVariable.IEXEC_PRE_COMPUTE_PROGRESS_INTERVAL_MS;
 
 @Slf4j
 public class PreComputeAppRunner {
 
+    static final int DEFAULT_PROGRESS_INTERVAL_MILLIS = 10_000;
+
     private final SignerService signerService = new SignerService();
 
     /**
@@ -38,8 +49,11 @@ public class PreComputeAppRunner {
      * - 1: Failure; Reported cause (known or unknown)
      * - 2: Failure; Unreported cause (report issue)
      * - 3: Failure; Unreported cause (task context missing)
+     * Download progress heartbeats and stage metrics are sent to the worker once the task context is known,
+     * their delivery never changes the exit. Time spent before the run begins is logged and reported with them.
      */
     public int start() {
+        final StartupTrace startupTrace = StartupTrace.begin();
         log.info("TEE pre-compute started");
         ReplicateStatusCause exitCause = ReplicateStatusCause.PRE_COMPUTE_FAILED_UNKNOWN_ISSUE;
         String chainTaskId = "";
@@ -49,9 +63,15 @@ public class PreComputeAppRunner {
             log.error("TEE pre-compute cannot go further without taskID context", e);
             return 3;
         }
+        PreComputeApp preComputeApp = null;
         try {
-            createPreComputeApp(chainTaskId).run();
+            preComputeApp = createPreComputeApp(chainTaskId);
+            try (ProgressReporter ignored = startProgressReporter(chainTaskId, preComputeApp)) {
+                startupTrace.record(chainTaskId, preComputeApp.getMetrics());
+                preComputeApp.run();
+            }
             log.info("TEE pre-compute completed");
+            sendMetrics(chainTaskId, preComputeApp, null);
             return 0;
         } catch (PreComputeException e) {
             exitCause = e.getExitCause();
@@ -60,16 +80,63 @@ public class PreComputeAppRunner {
         } catch (Exception e) {
             log.error("TEE pre-compute failed without explicit exitCause", e);
         }
+        int exitStatus = 2;
         try {
             final String authorization = signerService.getChallenge(chainTaskId);
             getWorkerApiClient().sendExitCauseForPreComputeStage(authorization, chainTaskId, new ExitMessage(exitCause));
-            return 1;
+            exitStatus = 1;
         } catch (PreComputeException e) {
             log.error("Failed to sign exitCause message [exitCause:{}]", exitCause, e);
         } catch (FeignException e) {
             log.error("Failed to report exit exitCause [exitCause:{}]", exitCause, e);
         }
-        return 2;
+        sendMetrics(chainTaskId, preComputeApp, exitCause);
+        return exitStatus;
+    }
+
+    /**
+     * Start sending download progress heartbeats to the worker,
+     * every {@code IEXEC_PRE_COMPUTE_PROGRESS_INTERVAL_MS} milliseconds.
+     *
+     * @return the running reporter, {@literal null} if heartbeats are disabled
+     */
+    ProgressReporter startProgressReporter(String chainTaskId, PreComputeApp preComputeApp) {
+        final TransferProgress progress = preComputeApp.getTransferProgress();
+        final int intervalMillis = EnvUtils.getEnvVarOrDefault(IEXEC_PRE_COMPUTE_PROGRESS_INTERVAL_MS,
+                DEFAULT_PROGRESS_INTERVAL_MILLIS);
+        if (progress == null || intervalMillis <= 0) {
+            return null;
+        }
+        final WorkerApiClient workerApiClient = getWorkerApiClient();
+        return ProgressReporter.start(progress, Duration.ofMillis(intervalMillis), progressMessage -> {
+            try {
+                final String authorization = signerService.getChallenge(chainTaskId);
+                workerApiClient.sendProgressForPreComputeStage(authorization, chainTaskId, progressMessage);
+            } catch (PreComputeException e) {
+                log.warn("Failed to sign progress message [chainTaskId:{}]", chainTaskId, e);
+            }
+        });
+    }
+
+    /**
+     * Send stage metrics to the worker, logging failures.
+     *
+     * @param exitCause cause of the failure, {@literal null} if the pre-compute succeeded
+     */
+    void sendMetrics(String chainTaskId, PreComputeApp preComputeApp, ReplicateStatusCause exitCause) {
+        final PreComputeMetrics metrics = preComputeApp != null ? preComputeApp.getMetrics() : null;
+        if (metrics == null) {
+            return;
+        }
+        try {
+            final PreComputeMetricsMessage metricsMessage = metrics.toMessage(exitCause);
+            log.info("TEE pre-compute metrics [chainTaskId:{}, duration:{}ms, stages:{}]",
+                    chainTaskId, metricsMessage.getDurationMillis(), metricsMessage.getStages());
+            final String authorization = signerService.getChallenge(chainTaskId);
+            getWorkerApiClient().sendMetricsForPreComputeStage(authorization, chainTaskId, metricsMessage);
+        } catch (Exception e) {
+            log.warn("Failed to send pre-compute metrics [chainTaskId:{}]", chainTaskId, e);
+        }
     }
 
     PreComputeApp createPreComputeApp(String chainTaskId) {
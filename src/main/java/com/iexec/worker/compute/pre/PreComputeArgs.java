@@ -17,17 +17,22 @@
 package com.iexec.worker.compute.pre;
 
 import com.iexec.common.replicate.ReplicateStatusCause;
+import com.iexec.commons.poco.utils.MultiAddressHelper;
+import com.iexec.worker.compute.pre.dataset.DatasetCompression;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static com.iexec.common.utils.IexecEnvUtils.IEXEC_INPUT_FILE_URL_PREFIX;
 import static com.iexec.common.worker.tee.TeeSessionEnvironmentVariable.*;
+import static com.iexec.worker.compute.pre.utils.EnvUtils.getEnvVarOrDefault;
 import static com.iexec.worker.compute.pre.utils.EnvUtils.getEnvVarOrThrow;
+import static com.iexec.worker.compute.pre.utils.PreComputeEnvironmentVariable.*;
 
 @Slf4j
 @Data
@@ -35,6 +40,18 @@ import static com.iexec.worker.compute.pre.utils.EnvUtils.getEnvVarOrThrow;
 @AllArgsConstructor
 public class PreComputeArgs {
 
+    static final int DEFAULT_MAX_PARALLEL_DOWNLOADS = 4;
+    static final int IPFS_HEDGING_DISABLED = -1;
+    static final int DEFAULT_RANGED_DOWNLOAD_CONNECTIONS = 1;
+    static final int DEFAULT_RANGED_DOWNLOAD_CHUNK_SIZE = 8 * 1024 * 1024;
+    static final int DEFAULT_DATASET_CACHE_MAX_SIZE_MB = 10 * 1024;
+    static final int DEFAULT_DECRYPTION_PARALLELISM = Runtime.getRuntime().availableProcessors();
+    static final int DEFAULT_DATASET_EXTRACTION_MAX_SIZE_MB = 10 * 1024;
+    static final int DEFAULT_DOWNLOAD_MAX_ATTEMPTS = 3;
+    static final int DEFAULT_DOWNLOAD_RETRY_INITIAL_BACKOFF_MILLIS = 500;
+    static final int DEFAULT_DOWNLOAD_RETRY_MAX_BACKOFF_MILLIS = 10_000;
+    static final int DEFAULT_DOWNLOAD_RETRY_BUDGET = 20;
+
     private String chainTaskId;
     private String outputDir;
     // dataset
@@ -43,8 +60,58 @@ public class PreComputeArgs {
     private String encryptedDatasetBase64Key;
     private String encryptedDatasetChecksum;
     private String plainDatasetFilename;
+    private boolean isDatasetStreamingEnabled;
+    private boolean isMemoryMappedOutputEnabled;
+    @Builder.Default
+    private int decryptionParallelism = DEFAULT_DECRYPTION_PARALLELISM;
+    // plain dataset archive is extracted to a folder named after the plain dataset file if enabled
+    private boolean isDatasetExtractionEnabled;
+    @Builder.Default
+    private int datasetExtractionMaxSizeMb = DEFAULT_DATASET_EXTRACTION_MAX_SIZE_MB;
+    // compression applied before encryption, the plain content is decompressed while being saved
+    @Builder.Default
+    private DatasetCompression datasetCompression = DatasetCompression.NONE;
+    @Builder.Default
+    private int ipfsHedgeDelayMillis = IPFS_HEDGING_DISABLED;
+    @Builder.Default
+    private List<String> ipfsGateways = MultiAddressHelper.IPFS_GATEWAYS;
+    private String gatewayStatsFile;
+    @Builder.Default
+    private int rangedDownloadConnections = DEFAULT_RANGED_DOWNLOAD_CONNECTIONS;
+    @Builder.Default
+    private int rangedDownloadChunkSize = DEFAULT_RANGED_DOWNLOAD_CHUNK_SIZE;
+    // host folder shared by tasks to cache encrypted datasets, caching is disabled if null
+    private String datasetCacheDir;
+    @Builder.Default
+    private int datasetCacheMaxSizeMb = DEFAULT_DATASET_CACHE_MAX_SIZE_MB;
     // input files
     private List<String> inputFiles;
+    // manifest listing more input files, either a file path or its gzip compressed content encoded in base64
+    private String inputManifestFile;
+    private String inputManifest;
+    @Builder.Default
+    private int maxParallelDownloads = DEFAULT_MAX_PARALLEL_DOWNLOADS;
+    // folder where partial downloads are kept to be resumed, resumable downloads are disabled if null
+    private String downloadStagingDir;
+    // downloads
+    // sources are probed and output disk space is checked before any download if enabled
+    private boolean isPreflightEnabled;
+    @Builder.Default
+    private int downloadMaxAttempts = DEFAULT_DOWNLOAD_MAX_ATTEMPTS;
+    @Builder.Default
+    private int downloadRetryInitialBackoffMillis = DEFAULT_DOWNLOAD_RETRY_INITIAL_BACKOFF_MILLIS;
+    @Builder.Default
+    private int downloadRetryMaxBackoffMillis = DEFAULT_DOWNLOAD_RETRY_MAX_BACKOFF_MILLIS;
+    // maximum number of retries of all downloads of the task
+    @Builder.Default
+    private int downloadRetryBudget = DEFAULT_DOWNLOAD_RETRY_BUDGET;
+
+    /**
+     * @return whether input files are listed in a manifest, in addition to the input file URLs
+     */
+    public boolean hasInputManifest() {
+        return inputManifestFile != null || inputManifest != null;
+    }
 
     public static PreComputeArgs readArgs(String chainTaskId) throws PreComputeException {
         PreComputeArgs args = PreComputeArgs.builder()
@@ -52,12 +119,34 @@ public class PreComputeArgs {
                 .outputDir(getEnvVarOrThrow(IEXEC_PRE_COMPUTE_OUT, ReplicateStatusCause.PRE_COMPUTE_OUTPUT_PATH_MISSING))
                 .isDatasetRequired(Boolean.parseBoolean(getEnvVarOrThrow(IS_DATASET_REQUIRED, ReplicateStatusCause.PRE_COMPUTE_IS_DATASET_REQUIRED_MISSING)))
                 .inputFiles(new ArrayList<>())
+                .inputManifestFile(getEnvVarOrDefault(IEXEC_PRE_COMPUTE_INPUT_MANIFEST_FILE, null))
+                .inputManifest(getEnvVarOrDefault(IEXEC_PRE_COMPUTE_INPUT_MANIFEST, null))
+                .maxParallelDownloads(getEnvVarOrDefault(IEXEC_PRE_COMPUTE_MAX_PARALLEL_DOWNLOADS, DEFAULT_MAX_PARALLEL_DOWNLOADS))
+                .downloadStagingDir(getEnvVarOrDefault(IEXEC_PRE_COMPUTE_DOWNLOAD_STAGING_DIR, null))
+                .isPreflightEnabled(getEnvVarOrDefault(IEXEC_PRE_COMPUTE_PREFLIGHT, false))
+                .downloadMaxAttempts(getEnvVarOrDefault(IEXEC_PRE_COMPUTE_DOWNLOAD_MAX_ATTEMPTS, DEFAULT_DOWNLOAD_MAX_ATTEMPTS))
+                .downloadRetryInitialBackoffMillis(getEnvVarOrDefault(IEXEC_PRE_COMPUTE_DOWNLOAD_RETRY_INITIAL_BACKOFF_MS, DEFAULT_DOWNLOAD_RETRY_INITIAL_BACKOFF_MILLIS))
+                .downloadRetryMaxBackoffMillis(getEnvVarOrDefault(IEXEC_PRE_COMPUTE_DOWNLOAD_RETRY_MAX_BACKOFF_MS, DEFAULT_DOWNLOAD_RETRY_MAX_BACKOFF_MILLIS))
+                .downloadRetryBudget(getEnvVarOrDefault(IEXEC_PRE_COMPUTE_DOWNLOAD_RETRY_BUDGET, DEFAULT_DOWNLOAD_RETRY_BUDGET))
                 .build();
         if (args.isDatasetRequired()) {
             args.setEncryptedDatasetUrl(getEnvVarOrThrow(IEXEC_DATASET_URL, ReplicateStatusCause.PRE_COMPUTE_DATASET_URL_MISSING));
             args.setEncryptedDatasetBase64Key(getEnvVarOrThrow(IEXEC_DATASET_KEY, ReplicateStatusCause.PRE_COMPUTE_DATASET_KEY_MISSING));
             args.setEncryptedDatasetChecksum(getEnvVarOrThrow(IEXEC_DATASET_CHECKSUM, ReplicateStatusCause.PRE_COMPUTE_DATASET_CHECKSUM_MISSING));
             args.setPlainDatasetFilename(getEnvVarOrThrow(IEXEC_DATASET_FILENAME, ReplicateStatusCause.PRE_COMPUTE_DATASET_FILENAME_MISSING));
+            args.setDatasetStreamingEnabled(getEnvVarOrDefault(IEXEC_PRE_COMPUTE_DATASET_STREAMING, false));
+            args.setMemoryMappedOutputEnabled(getEnvVarOrDefault(IEXEC_PRE_COMPUTE_DATASET_MMAP_OUTPUT, false));
+            args.setDecryptionParallelism(getEnvVarOrDefault(IEXEC_PRE_COMPUTE_DECRYPTION_PARALLELISM, DEFAULT_DECRYPTION_PARALLELISM));
+            args.setDatasetExtractionEnabled(getEnvVarOrDefault(IEXEC_PRE_COMPUTE_DATASET_EXTRACTION, false));
+            args.setDatasetExtractionMaxSizeMb(getEnvVarOrDefault(IEXEC_PRE_COMPUTE_DATASET_EXTRACTION_MAX_SIZE_MB, DEFAULT_DATASET_EXTRACTION_MAX_SIZE_MB));
+            args.setDatasetCompression(readDatasetCompression());
+            args.setIpfsHedgeDelayMillis(getEnvVarOrDefault(IEXEC_PRE_COMPUTE_IPFS_HEDGE_DELAY_MS, IPFS_HEDGING_DISABLED));
+            args.setIpfsGateways(readIpfsGateways());
+            args.setGatewayStatsFile(getEnvVarOrDefault(IEXEC_PRE_COMPUTE_GATEWAY_STATS_FILE, null));
+            args.setRangedDownloadConnections(getEnvVarOrDefault(IEXEC_PRE_COMPUTE_RANGED_DOWNLOAD_CONNECTIONS, DEFAULT_RANGED_DOWNLOAD_CONNECTIONS));
+            args.setRangedDownloadChunkSize(readRangedDownloadChunkSize());
+            args.setDatasetCacheDir(getEnvVarOrDefault(IEXEC_PRE_COMPUTE_DATASET_CACHE_DIR, null));
+            args.setDatasetCacheMaxSizeMb(getEnvVarOrDefault(IEXEC_PRE_COMPUTE_DATASET_CACHE_MAX_SIZE_MB, DEFAULT_DATASET_CACHE_MAX_SIZE_MB));
         }
         int inputFilesNb = Integer.parseInt(getEnvVarOrThrow(IEXEC_INPUT_FILES_NUMBER, ReplicateStatusCause.PRE_COMPUTE_INPUT_FILES_NUMBER_MISSING));
         for (int i = 1; i <= inputFilesNb; i++) {
@@ -67,4 +156,50 @@ public class PreComputeArgs {
         return args;
     }
 
+    /**
+     * Read the compression applied to the dataset before its encryption, falling back to no compression.
+     *
+     * @return the dataset compression
+     */
+    static DatasetCompression readDatasetCompression() {
+        final String compression = getEnvVarOrDefault(IEXEC_PRE_COMPUTE_DATASET_COMPRESSION, DatasetCompression.NONE.name());
+        try {
+            return DatasetCompression.fromValue(compression);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid value, using default [envVar:{}, value:{}, default:{}]",
+                    IEXEC_PRE_COMPUTE_DATASET_COMPRESSION, compression, DatasetCompression.NONE);
+            return DatasetCompression.NONE;
+        }
+    }
+
+    /**
+     * Read the size of ranged download chunks, falling back to the default size if not strictly positive.
+     *
+     * @return the chunk size in bytes
+     */
+    static int readRangedDownloadChunkSize() {
+        final int chunkSize = getEnvVarOrDefault(IEXEC_PRE_COMPUTE_RANGED_DOWNLOAD_CHUNK_SIZE, DEFAULT_RANGED_DOWNLOAD_CHUNK_SIZE);
+        if (chunkSize <= 0) {
+            log.warn("Invalid value, using default [envVar:{}, value:{}, default:{}]",
+                    IEXEC_PRE_COMPUTE_RANGED_DOWNLOAD_CHUNK_SIZE, chunkSize, DEFAULT_RANGED_DOWNLOAD_CHUNK_SIZE);
+            return DEFAULT_RANGED_DOWNLOAD_CHUNK_SIZE;
+        }
+        return chunkSize;
+    }
+
+    /**
+     * Read IPFS gateways from a comma-separated list, falling back to default gateways.
+     *
+     * @return IPFS gateways URLs without trailing slash
+     */
+    static List<String> readIpfsGateways() {
+        final String gateways = getEnvVarOrDefault(IEXEC_PRE_COMPUTE_IPFS_GATEWAYS, "");
+        final List<String> ipfsGateways = Arrays.stream(gateways.split(","))
+                .map(String::trim)
+                .map(gateway -> gateway.replaceAll("/+$", ""))
+                .filter(gateway -> !gateway.isEmpty())
+                .toList();
+        return ipfsGateways.isEmpty() ? MultiAddressHelper.IPFS_GATEWAYS : ipfsGateways;
+    }
+
 }
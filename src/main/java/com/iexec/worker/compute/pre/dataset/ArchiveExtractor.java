@@ -0,0 +1,333 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.dataset;
+
+import com.iexec.worker.compute.pre.utils.FileUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Extracts zip, tar and tar.gz archives from a stream to a folder.
+ * <p>
+ * The archive is read once, in order. Small entries are read in memory and written to disk by a pool
+ * of threads, so that file creations overlap with the reading of next entries, while large entries
+ * are written as they are read. Entries are rejected if they would be written outside of the target folder
+ * or are links, and extraction stops as soon as the number of entries or the extracted size exceeds
+ * its limit.
+ */
+@Slf4j
+public class ArchiveExtractor {
+
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+    static final int WRITER_THREADS = 4;
+    static final int MAX_BUFFERED_ENTRY_SIZE = 1024 * 1024;
+    static final int BUFFER_SIZE = 64 * 1024;
+    static final Duration WRITER_TERMINATION_TIMEOUT = Duration.ofSeconds(30);
+    private static final byte[] GZIP_MAGIC = {0x1f, (byte) 0x8b};
+    private static final byte[] ZIP_MAGIC = {'P', 'K', 3, 4};
+    private static final byte[] EMPTY_ZIP_MAGIC = {'P', 'K', 5, 6};
+    private static final byte[] TAR_MAGIC = "ustar".getBytes(StandardCharsets.US_ASCII);
+    private static final int TAR_MAGIC_OFFSET = 257;
+
+    private final long maxExtractedSize;
+    private final int maxEntries;
+
+    public ArchiveExtractor(final long maxExtractedSize, final int maxEntries) {
+        this.maxExtractedSize = maxExtractedSize;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Extract all entries of an archive stream to a folder.
+     *
+     * @param in        stream on a zip, tar or tar.gz archive, left open
+     * @param targetDir existing folder in which entries are extracted
+     * @throws IOException if the stream could not be read, is not a supported archive, breaks an extraction limit
+     *                     or if an entry could not be written
+     */
+    public void extract(final InputStream in, final Path targetDir) throws IOException {
+        final Path root = targetDir.toAbsolutePath().normalize();
+        final BufferedInputStream source = new BufferedInputStream(new NonClosingInputStream(in), BUFFER_SIZE);
+        try (ArchiveInputStream<?> archive = openArchive(source);
+             EntryWriters writers = new EntryWriters()) {
+            final Set<Path> extractedFiles = new HashSet<>();
+            long extractedSize = 0;
+            int entryCount = 0;
+            ArchiveEntry entry;
+            while ((entry = archive.getNextEntry()) != null) {
+                if (++entryCount > maxEntries) {
+                    throw new ArchiveExtractionException("Archive has more than " + maxEntries + " entries");
+                }
+                final Path path = resolve(root, entry);
+                if (entry.isDirectory()) {
+                    Files.createDirectories(path);
+                    continue;
+                }
+                if (path.equals(root) || !extractedFiles.add(path)) {
+                    throw new ArchiveExtractionException("Invalid or duplicate archive entry " + entry.getName());
+                }
+                Files.createDirectories(path.getParent());
+                final byte[] head = archive.readNBytes(MAX_BUFFERED_ENTRY_SIZE + 1);
+                extractedSize = checkExtractedSize(extractedSize, head.length);
+                if (head.length <= MAX_BUFFERED_ENTRY_SIZE) {
+                    writers.submit(path, head);
+                    continue;
+                }
+                try (OutputStream out = Files.newOutputStream(path, StandardOpenOption.CREATE_NEW)) {
+                    out.write(head);
+                    final byte[] buffer = new byte[BUFFER_SIZE];
+                    int read;
+                    while ((read = archive.read(buffer)) != -1) {
+                        extractedSize = checkExtractedSize(extractedSize, read);
+                        out.write(buffer, 0, read);
+                    }
+                }
+            }
+            writers.awaitAll();
+            log.info("Extracted archive [path:{}, entries:{}, size:{}]", root, entryCount, extractedSize);
+        }
+    }
+
+    private ArchiveInputStream<?> openArchive(final BufferedInputStream in) throws IOException {
+        final byte[] prefix = peek(in, TAR_MAGIC_OFFSET + TAR_MAGIC.length);
+        if (startsWith(prefix, 0, GZIP_MAGIC)) {
+            final BufferedInputStream decompressed = new BufferedInputStream(
+                    new GzipCompressorInputStream(in, true), BUFFER_SIZE);
+            if (!startsWith(peek(decompressed, TAR_MAGIC_OFFSET + TAR_MAGIC.length), TAR_MAGIC_OFFSET, TAR_MAGIC)) {
+                decompressed.close();
+                throw new ArchiveExtractionException("Gzip content is not a tar archive");
+            }
+            return new TarArchiveInputStream(decompressed);
+        } else if (startsWith(prefix, 0, ZIP_MAGIC) || startsWith(prefix, 0, EMPTY_ZIP_MAGIC)) {
+            return new ZipArchiveInputStream(in, StandardCharsets.UTF_8.name(), true, true);
+        } else if (startsWith(prefix, TAR_MAGIC_OFFSET, TAR_MAGIC)) {
+            return new TarArchiveInputStream(in);
+        }
+        throw new ArchiveExtractionException("Unsupported archive format");
+    }
+
+    private static byte[] peek(final InputStream in, final int length) throws IOException {
+        in.mark(length);
+        final byte[] prefix = in.readNBytes(length);
+        in.reset();
+        return prefix;
+    }
+
+    private static boolean startsWith(final byte[] content, final int offset, final byte[] magic) {
+        return content.length >= offset + magic.length
+                && Arrays.equals(content, offset, offset + magic.length, magic, 0, magic.length);
+    }
+
+    /**
+     * Resolve the path of an entry, rejecting entries which would escape the target folder or are not plain
+     * files and folders.
+     */
+    private static Path resolve(final Path root, final ArchiveEntry entry) throws ArchiveExtractionException {
+        if (isLink(entry)) {
+            throw new ArchiveExtractionException("Unsupported link or special archive entry " + entry.getName());
+        }
+        final Path path = root.resolve(entry.getName()).normalize();
+        if (!path.startsWith(root)) {
+            throw new ArchiveExtractionException("Archive entry " + entry.getName() + " is outside of target folder");
+        }
+        return path;
+    }
+
+    private static boolean isLink(final ArchiveEntry entry) {
+        if (entry instanceof TarArchiveEntry tarEntry) {
+            return tarEntry.isSymbolicLink() || tarEntry.isLink() || tarEntry.isCharacterDevice()
+                    || tarEntry.isBlockDevice() || tarEntry.isFIFO();
+        }
+        return entry instanceof ZipArchiveEntry zipEntry && zipEntry.isUnixSymlink();
+    }
+
+    private long checkExtractedSize(final long extractedSize, final int read) throws ArchiveExtractionException {
+        final long newSize = extractedSize + read;
+        if (newSize > maxExtractedSize) {
+            throw new ArchiveExtractionException("Extracted content is larger than " + maxExtractedSize + " bytes");
+        }
+        return newSize;
+    }
+
+    /**
+     * Create an empty folder next to a target folder, to extract an archive before publishing it.
+     */
+    public static Path createStagingDir(final Path targetDir) throws IOException {
+        final Path absoluteTarget = targetDir.toAbsolutePath();
+        return Files.createTempDirectory(absoluteTarget.getParent(), "." + absoluteTarget.getFileName() + ".");
+    }
+
+    /**
+     * Rename a staging folder to its target folder, replacing any existing folder.
+     * The staging folder is first made readable by all users, as extracted entries are.
+     */
+    public static void publish(final Path stagingDir, final Path targetDir) throws IOException {
+        FileUtils.setPublishedFolderPermissions(stagingDir);
+        if (Files.exists(targetDir)) {
+            deleteRecursively(targetDir);
+        }
+        Files.move(stagingDir, targetDir, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Delete a folder and its content, logging failures.
+     */
+    public static void deleteQuietly(final Path dir) {
+        try {
+            deleteRecursively(dir);
+        } catch (IOException e) {
+            log.warn("Failed to delete folder [path:{}]", dir, e);
+        }
+    }
+
+    private static void deleteRecursively(final Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path visitedDir, IOException e) throws IOException {
+                if (e != null) {
+                    throw e;
+                }
+                Files.delete(visitedDir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Writes small entries on a pool of threads, holding at most twice as many entries as threads in memory.
+     */
+    private static class EntryWriters implements AutoCloseable {
+        private final AtomicInteger threadCount = new AtomicInteger();
+        private final ExecutorService executor = Executors.newFixedThreadPool(WRITER_THREADS, runnable -> {
+            final Thread thread = new Thread(runnable, "dataset-extract-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        private final Semaphore pendingEntries = new Semaphore(2 * WRITER_THREADS);
+        private final List<Future<Void>> futures = new ArrayList<>();
+
+        void submit(final Path path, final byte[] content) throws IOException {
+            try {
+                pendingEntries.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while extracting archive");
+            }
+            futures.add(executor.submit(() -> {
+                try {
+                    Files.write(path, content, StandardOpenOption.CREATE_NEW);
+                    return null;
+                } finally {
+                    pendingEntries.release();
+                }
+            }));
+            checkCompleted();
+        }
+
+        /**
+         * Report the failure of an already completed write, if any.
+         */
+        private void checkCompleted() throws IOException {
+            for (Future<Void> future : futures) {
+                if (future.isDone()) {
+                    await(future);
+                }
+            }
+            futures.removeIf(Future::isDone);
+        }
+
+        void awaitAll() throws IOException {
+            for (Future<Void> future : futures) {
+                await(future);
+            }
+            futures.clear();
+        }
+
+        private void await(final Future<Void> future) throws IOException {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while extracting archive");
+            }
+        }
+
+        /**
+         * Cancel pending writes and wait for running ones, so that no file is created in the target folder
+         * once extraction has returned.
+         */
+        @Override
+        public void close() {
+            futures.forEach(future -> future.cancel(true));
+            executor.shutdownNow();
+            try {
+                if (!executor.awaitTermination(WRITER_TERMINATION_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                    log.warn("Archive entry writers still running [timeout:{}ms]", WRITER_TERMINATION_TIMEOUT.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
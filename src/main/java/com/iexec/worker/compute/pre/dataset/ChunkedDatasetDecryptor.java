@@ -0,0 +1,162 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.dataset;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Authenticates and decrypts the chunks of a chunked dataset, see {@link ChunkedDatasetHeader} for the format.
+ * <p>
+ * Chunks do not depend on each other, they can be decrypted in any order and concurrently.
+ */
+public class ChunkedDatasetDecryptor {
+
+    // largest array size supported by common JVMs
+    static final int MAX_IN_MEMORY_PLAIN_LENGTH = Integer.MAX_VALUE - 8;
+    private static final String CIPHER_TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private final ChunkedDatasetHeader header;
+    private final SecretKeySpec keySpec;
+
+    public ChunkedDatasetDecryptor(final ChunkedDatasetHeader header, final byte[] key) {
+        this.header = header;
+        this.keySpec = new SecretKeySpec(key, "AES");
+    }
+
+    /**
+     * Decrypt a whole chunked dataset, chunks being decrypted concurrently.
+     *
+     * @param encryptedContent the whole dataset content, header included
+     * @param key              AES key
+     * @param parallelism      maximum number of chunks decrypted at the same time
+     * @return the plain content
+     * @throws GeneralSecurityException if the content is malformed, too large to be decrypted in memory
+     *                                  or if a chunk fails authentication
+     */
+    public static byte[] decrypt(final byte[] encryptedContent, final byte[] key, final int parallelism)
+            throws GeneralSecurityException {
+        final ChunkedDatasetHeader header = ChunkedDatasetHeader.parse(encryptedContent);
+        final ChunkedDatasetDecryptor decryptor = new ChunkedDatasetDecryptor(header, key);
+        final byte[] plainContent = new byte[checkInMemoryPlainLength(header)];
+        if (parallelism <= 1 || header.getChunkCount() == 1) {
+            for (int i = 0; i < header.getChunkCount(); i++) {
+                decryptor.decryptChunk(i, encryptedContent, plainContent);
+            }
+            return plainContent;
+        }
+        final ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, header.getChunkCount()));
+        try {
+            pool.invoke(decryptor.new ChunkRangeDecryption(encryptedContent, plainContent, 0, header.getChunkCount()));
+        } catch (ChunkDecryptionException e) {
+            throw e.getSecurityException();
+        } finally {
+            pool.shutdown();
+        }
+        return plainContent;
+    }
+
+    /**
+     * Check that the plain content described by a chunk index fits in a byte array.
+     * Larger datasets have to be decrypted while streamed, see {@link ChunkedDecryptingInputStream}.
+     *
+     * @return the plain content length
+     * @throws ChunkedDatasetFormatException if the plain content is too large to be held in memory
+     */
+    static int checkInMemoryPlainLength(final ChunkedDatasetHeader header) throws ChunkedDatasetFormatException {
+        if (header.getPlainLength() > MAX_IN_MEMORY_PLAIN_LENGTH) {
+            throw new ChunkedDatasetFormatException("Plain dataset length " + header.getPlainLength()
+                    + " is too large to be decrypted in memory");
+        }
+        return (int) header.getPlainLength();
+    }
+
+    /**
+     * Authenticate and decrypt a chunk.
+     *
+     * @param chunkIndex     index of the chunk in the dataset
+     * @param encryptedChunk bytes of the encrypted chunk, authentication tag included
+     * @return the plain chunk
+     * @throws GeneralSecurityException if the chunk fails authentication
+     */
+    public byte[] decryptChunk(final int chunkIndex, final byte[] encryptedChunk) throws GeneralSecurityException {
+        return createCipher(chunkIndex).doFinal(encryptedChunk, 0, header.getEncryptedChunkLength(chunkIndex));
+    }
+
+    private void decryptChunk(final int chunkIndex, final byte[] encryptedContent, final byte[] plainContent)
+            throws GeneralSecurityException {
+        createCipher(chunkIndex).doFinal(encryptedContent, (int) header.getChunkOffset(chunkIndex),
+                header.getEncryptedChunkLength(chunkIndex), plainContent, (int) header.getPlainChunkOffset(chunkIndex));
+    }
+
+    private Cipher createCipher(final int chunkIndex) throws GeneralSecurityException {
+        final Cipher cipher = Cipher.getInstance(CIPHER_TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, keySpec,
+                new GCMParameterSpec(ChunkedDatasetHeader.TAG_SIZE * Byte.SIZE, header.getNonce(chunkIndex)));
+        cipher.updateAAD(header.getAdditionalAuthenticatedData());
+        return cipher;
+    }
+
+    /**
+     * Decrypts chunks in {@code [from, to)}, splitting the range in halves until a single chunk is left.
+     */
+    private class ChunkRangeDecryption extends RecursiveAction {
+        private final byte[] encryptedContent;
+        private final byte[] plainContent;
+        private final int from;
+        private final int to;
+
+        ChunkRangeDecryption(byte[] encryptedContent, byte[] plainContent, int from, int to) {
+            this.encryptedContent = encryptedContent;
+            this.plainContent = plainContent;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new ChunkRangeDecryption(encryptedContent, plainContent, from, middle),
+                        new ChunkRangeDecryption(encryptedContent, plainContent, middle, to));
+                return;
+            }
+            try {
+                decryptChunk(from, encryptedContent, plainContent);
+            } catch (GeneralSecurityException e) {
+                throw new ChunkDecryptionException(e);
+            }
+        }
+    }
+
+    private static class ChunkDecryptionException extends RuntimeException {
+        private final GeneralSecurityException securityException;
+
+        ChunkDecryptionException(GeneralSecurityException securityException) {
+            super(securityException);
+            this.securityException = securityException;
+        }
+
+        GeneralSecurityException getSecurityException() {
+            return securityException;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.dataset;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * Thrown when a chunked dataset is malformed.
+ * <p>
+ * Malformed content is handled like content failing authentication, hence the parent class.
+ */
+public class ChunkedDatasetFormatException extends GeneralSecurityException {
+    public ChunkedDatasetFormatException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.dataset;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Header of a chunked dataset, the v2 dataset format.
+ * <p>
+ * A chunked dataset is made of a header followed by AES-GCM encrypted chunks:
+ * <pre>
+ * magic        7 bytes   "IEXECDS"
+ * version      1 byte    2
+ * nonce prefix 8 bytes   random, unique per dataset
+ * chunk count  4 bytes   big-endian, at least 1
+ * chunk index  4 bytes   per chunk, big-endian size of the encrypted chunk, authentication tag included
+ * chunks       AES-GCM encrypted chunks, in order
+ * </pre>
+ * Chunk {@code i} is encrypted with the nonce prefix followed by {@code i} as a big-endian 4-byte integer
+ * as nonce, and with the SHA-256 digest of the whole header as additional authenticated data. Each chunk
+ * can then be authenticated and decrypted on its own, while reordered, dropped or truncated chunks
+ * are still detected.
+ * <p>
+ * Legacy datasets start with a random IV, which matches the magic with a negligible probability.
+ */
+public class ChunkedDatasetHeader {
+
+    static final byte[] MAGIC = {'I', 'E', 'X', 'E', 'C', 'D', 'S', 2};
+    static final int NONCE_PREFIX_SIZE = 8;
+    static final int TAG_SIZE = 16;
+    static final int MAX_CHUNK_COUNT = 1024 * 1024;
+    static final int MAX_ENCRYPTED_CHUNK_SIZE = 64 * 1024 * 1024 + TAG_SIZE;
+    private static final int FIXED_SIZE = MAGIC.length + NONCE_PREFIX_SIZE + Integer.BYTES;
+
+    private final byte[] bytes;
+    private final byte[] additionalAuthenticatedData;
+    private final int[] encryptedChunkLengths;
+    private final long[] chunkOffsets;
+    private final long[] plainChunkOffsets;
+    private final long encryptedLength;
+    private final long plainLength;
+
+    private ChunkedDatasetHeader(final byte[] bytes) throws ChunkedDatasetFormatException {
+        this.bytes = bytes;
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes, FIXED_SIZE, bytes.length - FIXED_SIZE);
+        final int chunkCount = (bytes.length - FIXED_SIZE) / Integer.BYTES;
+        encryptedChunkLengths = new int[chunkCount];
+        chunkOffsets = new long[chunkCount];
+        plainChunkOffsets = new long[chunkCount];
+        long offset = bytes.length;
+        long plainOffset = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            final int length = buffer.getInt();
+            if (length < TAG_SIZE || length > MAX_ENCRYPTED_CHUNK_SIZE) {
+                throw new ChunkedDatasetFormatException("Invalid size for chunk " + i + ": " + length);
+            }
+            encryptedChunkLengths[i] = length;
+            chunkOffsets[i] = offset;
+            plainChunkOffsets[i] = plainOffset;
+            offset += length;
+            plainOffset += length - TAG_SIZE;
+        }
+        encryptedLength = offset;
+        plainLength = plainOffset;
+        additionalAuthenticatedData = sha256(bytes);
+    }
+
+    /**
+     * Whether content starts with the chunked dataset magic.
+     */
+    public static boolean isChunked(final byte[] content) {
+        return content.length >= MAGIC.length
+                && Arrays.equals(content, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+    }
+
+    /**
+     * Whether a stream starts with the chunked dataset magic, without consuming it.
+     *
+     * @param in stream supporting mark and reset
+     * @throws IOException if the stream could not be read
+     */
+    public static boolean isChunked(final InputStream in) throws IOException {
+        in.mark(MAGIC.length);
+        final byte[] prefix = in.readNBytes(MAGIC.length);
+        in.reset();
+        return isChunked(prefix);
+    }
+
+    /**
+     * Parse the header of a complete chunked dataset and check the dataset size against its chunk index.
+     *
+     * @param content the whole dataset content
+     * @return the parsed header
+     * @throws ChunkedDatasetFormatException if the content is not a valid chunked dataset
+     */
+    public static ChunkedDatasetHeader parse(final byte[] content) throws ChunkedDatasetFormatException {
+        if (!isChunked(content) || content.length < FIXED_SIZE) {
+            throw new ChunkedDatasetFormatException("Truncated header");
+        }
+        final int headerSize = getHeaderSize(ByteBuffer.wrap(content, MAGIC.length + NONCE_PREFIX_SIZE, Integer.BYTES)
+                .getInt());
+        if (content.length < headerSize) {
+            throw new ChunkedDatasetFormatException("Truncated chunk index");
+        }
+        final ChunkedDatasetHeader header = new ChunkedDatasetHeader(Arrays.copyOf(content, headerSize));
+        if (header.encryptedLength != content.length) {
+            throw new ChunkedDatasetFormatException("Dataset size " + content.length
+                    + " does not match chunk index size " + header.encryptedLength);
+        }
+        return header;
+    }
+
+    /**
+     * Read a header from a stream, leaving the stream on the first chunk.
+     *
+     * @param in stream on a chunked dataset
+     * @return the read header
+     * @throws IOException                   if the stream could not be read
+     * @throws ChunkedDatasetFormatException if the stream does not start with a valid header
+     */
+    public static ChunkedDatasetHeader read(final InputStream in) throws IOException, ChunkedDatasetFormatException {
+        final byte[] fixedPart = in.readNBytes(FIXED_SIZE);
+        if (fixedPart.length < FIXED_SIZE || !isChunked(fixedPart)) {
+            throw new ChunkedDatasetFormatException("Truncated header");
+        }
+        final int headerSize = getHeaderSize(ByteBuffer.wrap(fixedPart, MAGIC.length + NONCE_PREFIX_SIZE, Integer.BYTES)
+                .getInt());
+        final byte[] index = in.readNBytes(headerSize - FIXED_SIZE);
+        if (index.length < headerSize - FIXED_SIZE) {
+            throw new ChunkedDatasetFormatException("Truncated chunk index");
+        }
+        final byte[] headerBytes = Arrays.copyOf(fixedPart, headerSize);
+        System.arraycopy(index, 0, headerBytes, FIXED_SIZE, index.length);
+        return new ChunkedDatasetHeader(headerBytes);
+    }
+
+    private static int getHeaderSize(final int chunkCount) throws ChunkedDatasetFormatException {
+        if (chunkCount < 1 || chunkCount > MAX_CHUNK_COUNT) {
+            throw new ChunkedDatasetFormatException("Invalid chunk count " + chunkCount);
+        }
+        return FIXED_SIZE + chunkCount * Integer.BYTES;
+    }
+
+    private static byte[] sha256(final byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+        }
+    }
+
+    /**
+     * Digest of the header bytes, authenticated with every chunk.
+     */
+    byte[] getAdditionalAuthenticatedData() {
+        return additionalAuthenticatedData;
+    }
+
+    /**
+     * AES-GCM nonce of a chunk.
+     */
+    byte[] getNonce(final int chunkIndex) {
+        return ByteBuffer.allocate(NONCE_PREFIX_SIZE + Integer.BYTES)
+                .put(bytes, MAGIC.length, NONCE_PREFIX_SIZE)
+                .putInt(chunkIndex)
+                .array();
+    }
+
+    public int getChunkCount() {
+        return encryptedChunkLengths.length;
+    }
+
+    public int getEncryptedChunkLength(final int chunkIndex) {
+        return encryptedChunkLengths[chunkIndex];
+    }
+
+    /**
+     * Offset of an encrypted chunk from the start of the dataset.
+     */
+    public long getChunkOffset(final int chunkIndex) {
+        return chunkOffsets[chunkIndex];
+    }
+
+    /**
+     * Offset of a decrypted chunk in the plain dataset.
+     */
+    public long getPlainChunkOffset(final int chunkIndex) {
+        return plainChunkOffsets[chunkIndex];
+    }
+
+    public long getPlainLength() {
+        return plainLength;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.dataset;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decrypts a chunked dataset stream, see {@link ChunkedDatasetHeader} for the format.
+ * <p>
+ * Encrypted chunks are read from the source as they arrive and submitted for authentication and decryption
+ * to a pool of threads, while plain chunks are returned in order. At most twice the parallelism of chunks
+ * are held in memory. Like {@link javax.crypto.CipherInputStream}, authentication failures are reported
+ * as {@link IOException} caused by a {@link GeneralSecurityException}.
+ * <p>
+ * Closing this stream stops the decryption threads but does not close the source stream.
+ */
+public class ChunkedDecryptingInputStream extends InputStream {
+
+    private static final byte[] NO_CHUNK = new byte[0];
+
+    private final InputStream source;
+    private final ChunkedDatasetHeader header;
+    private final ChunkedDatasetDecryptor decryptor;
+    private final ExecutorService executor;
+    private final int maxPendingChunks;
+    private final Deque<Future<byte[]>> pendingChunks = new ArrayDeque<>();
+    private int nextChunkToRead;
+    private byte[] currentChunk = NO_CHUNK;
+    private int currentPosition;
+
+    /**
+     * Read the dataset header and prepare decryption.
+     *
+     * @param source      stream on a chunked dataset
+     * @param key         AES key
+     * @param parallelism maximum number of chunks decrypted at the same time
+     * @throws IOException                   if the header could not be read
+     * @throws ChunkedDatasetFormatException if the header is malformed
+     */
+    public ChunkedDecryptingInputStream(final InputStream source, final byte[] key, final int parallelism)
+            throws IOException, ChunkedDatasetFormatException {
+        this.source = source;
+        this.header = ChunkedDatasetHeader.read(source);
+        this.decryptor = new ChunkedDatasetDecryptor(header, key);
+        final int threads = Math.max(1, Math.min(parallelism, header.getChunkCount()));
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "dataset-decrypt-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxPendingChunks = 2 * threads;
+    }
+
+    public ChunkedDatasetHeader getHeader() {
+        return header;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextChunk()) {
+            return -1;
+        }
+        return currentChunk[currentPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextChunk()) {
+            return -1;
+        }
+        final int count = Math.min(len, currentChunk.length - currentPosition);
+        System.arraycopy(currentChunk, currentPosition, b, off, count);
+        currentPosition += count;
+        return count;
+    }
+
+    @Override
+    public void close() {
+        pendingChunks.forEach(future -> future.cancel(true));
+        pendingChunks.clear();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Make sure the current chunk has remaining bytes, waiting for the next chunk if needed.
+     *
+     * @return {@literal false} once all chunks have been returned
+     */
+    private boolean nextChunk() throws IOException {
+        while (currentPosition == currentChunk.length) {
+            submitChunks();
+            final Future<byte[]> next = pendingChunks.poll();
+            if (next == null) {
+                close();
+                return false;
+            }
+            currentChunk = await(next);
+            currentPosition = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Read encrypted chunks from the source until enough chunks are pending.
+     */
+    private void submitChunks() throws IOException {
+        while (pendingChunks.size() < maxPendingChunks && nextChunkToRead < header.getChunkCount()) {
+            final int chunkIndex = nextChunkToRead++;
+            final int length = header.getEncryptedChunkLength(chunkIndex);
+            final byte[] encryptedChunk = source.readNBytes(length);
+            if (encryptedChunk.length < length) {
+                close();
+                throw new IOException(new ChunkedDatasetFormatException("Truncated chunk " + chunkIndex));
+            }
+            pendingChunks.add(executor.submit(() -> decryptor.decryptChunk(chunkIndex, encryptedChunk)));
+        }
+        if (nextChunkToRead == header.getChunkCount() && pendingChunks.isEmpty() && source.read() != -1) {
+            close();
+            throw new IOException(new ChunkedDatasetFormatException("Unexpected bytes after last chunk"));
+        }
+    }
+
+    private byte[] await(final Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            close();
+            if (e.getCause() instanceof GeneralSecurityException securityException) {
+                throw new IOException(securityException);
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while decrypting dataset");
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.dataset;
+
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdUtils;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+
+/**
+ * Compression applied to a dataset before its encryption.
+ * <p>
+ * The compression is either declared for the dataset or, with {@link #AUTO}, detected from the header
+ * of the plain content. Detection is not the default as a dataset may be a compressed file
+ * the application expects as is.
+ */
+public enum DatasetCompression {
+    NONE,
+    GZIP,
+    ZSTD,
+    AUTO;
+
+    static final int SIGNATURE_SIZE = 4;
+
+    /**
+     * Parse a compression name, ignoring case.
+     *
+     * @throws IllegalArgumentException if the compression is not supported
+     */
+    public static DatasetCompression fromValue(final String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Wrap a plain dataset stream to read its decompressed content.
+     * <p>
+     * Closing the returned stream releases decompression resources but leaves the plain stream open.
+     *
+     * @param plainStream decrypted content of the dataset
+     * @return a stream of the decompressed content, or of the plain content if there is nothing to decompress
+     * @throws IOException if the plain stream cannot be read or its compression header is invalid
+     */
+    public InputStream decompress(final InputStream plainStream) throws IOException {
+        if (this == NONE) {
+            return new NonClosingInputStream(plainStream);
+        }
+        final BufferedInputStream source = new BufferedInputStream(
+                new NonClosingInputStream(plainStream), DatasetStreamPipeline.BUFFER_SIZE);
+        final DatasetCompression compression = this == AUTO ? detect(source) : this;
+        if (compression == GZIP) {
+            return new GzipCompressorInputStream(source, true);
+        } else if (compression == ZSTD) {
+            return new ZstdCompressorInputStream(source);
+        }
+        return source;
+    }
+
+    /**
+     * Detect the compression of a stream from its magic number, without consuming it.
+     */
+    static DatasetCompression detect(final BufferedInputStream source) throws IOException {
+        source.mark(SIGNATURE_SIZE);
+        final byte[] signature = source.readNBytes(SIGNATURE_SIZE);
+        source.reset();
+        if (GzipCompressorInputStream.matches(signature, signature.length)) {
+            return GZIP;
+        } else if (ZstdUtils.matches(signature, signature.length)) {
+            return ZSTD;
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.dataset;
+
+import com.iexec.worker.compute.pre.utils.FileUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a dataset file with as few copies and system calls as possible, then publishes it atomically.
+ * <p>
+ * Content is written to a temporary file next to the target file, which is made readable by all users
+ * and renamed to the target file on {@link #commit()}. In channel mode, small writes are gathered in a direct buffer and written
+ * with a single system call per buffer, large direct buffers being written as is. In memory-mapped mode,
+ * content is copied to mapped regions of the file without any write system call.
+ * When the final size is known, the file is extended to this size upfront.
+ */
+@Slf4j
+public class DatasetFileWriter implements AutoCloseable {
+
+    static final int BUFFER_SIZE = 1024 * 1024;
+    static final int MAPPED_REGION_SIZE = 64 * 1024 * 1024;
+
+    private final Path target;
+    private final Path tmpFile;
+    private final FileChannel channel;
+    private final long expectedSize;
+    private final boolean isMemoryMapped;
+    private final ByteBuffer buffer;
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long position;
+    private boolean isCommitted;
+
+    private DatasetFileWriter(Path target, Path tmpFile, FileChannel channel, long expectedSize, boolean isMemoryMapped) {
+        this.target = target;
+        this.tmpFile = tmpFile;
+        this.channel = channel;
+        this.expectedSize = expectedSize;
+        this.isMemoryMapped = isMemoryMapped;
+        this.buffer = isMemoryMapped ? null : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Create a writer and its temporary file.
+     *
+     * @param target         file to publish on commit
+     * @param expectedSize   final size of the file, -1 if unknown
+     * @param isMemoryMapped whether content is written through memory-mapped regions
+     * @return a new writer
+     * @throws IOException if the temporary file could not be created
+     */
+    public static DatasetFileWriter create(final Path target, final long expectedSize, final boolean isMemoryMapped)
+            throws IOException {
+        final Path tmpFile = Files.createTempFile(target.toAbsolutePath().getParent(), "." + target.getFileName(), ".part");
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(tmpFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (expectedSize > 0) {
+                channel.write(ByteBuffer.allocate(1), expectedSize - 1);
+            }
+            return new DatasetFileWriter(target, tmpFile, channel, expectedSize, isMemoryMapped);
+        } catch (IOException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            Files.deleteIfExists(tmpFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Append bytes to the file.
+     */
+    public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+        write(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    /**
+     * Append the remaining bytes of a buffer to the file.
+     */
+    public void write(final ByteBuffer src) throws IOException {
+        final int length = src.remaining();
+        if (isMemoryMapped) {
+            writeMapped(src);
+        } else if (src.isDirect() && buffer.position() == 0 && length >= BUFFER_SIZE) {
+            writeFully(src);
+        } else {
+            while (src.hasRemaining()) {
+                final int chunk = Math.min(buffer.remaining(), src.remaining());
+                buffer.put(src.slice().limit(chunk));
+                src.position(src.position() + chunk);
+                if (!buffer.hasRemaining()) {
+                    flushBuffer();
+                }
+            }
+        }
+        position += length;
+    }
+
+    /**
+     * Publish the file under its target name, replacing any existing file.
+     *
+     * @throws IOException if pending bytes could not be written or the file could not be renamed
+     */
+    public void commit() throws IOException {
+        if (!isMemoryMapped) {
+            flushBuffer();
+        }
+        region = null;
+        channel.truncate(position);
+        channel.close();
+        FileUtils.setPublishedFilePermissions(tmpFile);
+        Files.move(tmpFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        isCommitted = true;
+        log.debug("Published dataset file [path:{}, size:{}, memoryMapped:{}]", target, position, isMemoryMapped);
+    }
+
+    /**
+     * Release the file, deleting it if it has not been committed.
+     */
+    @Override
+    public void close() throws IOException {
+        region = null;
+        channel.close();
+        if (!isCommitted) {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    private void writeMapped(final ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            if (region == null || !region.hasRemaining()) {
+                regionStart = region == null ? 0 : regionStart + region.capacity();
+                final long regionSize = expectedSize > regionStart
+                        ? Math.min(MAPPED_REGION_SIZE, expectedSize - regionStart)
+                        : MAPPED_REGION_SIZE;
+                region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, regionSize);
+            }
+            final int chunk = Math.min(region.remaining(), src.remaining());
+            region.put(src.slice().limit(chunk));
+            src.position(src.position() + chunk);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(final ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            channel.write(src);
+        }
+    }
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.dataset;
+
+import com.iexec.common.replicate.ReplicateStatusCause;
+import com.iexec.worker.compute.pre.PreComputeException;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * Streams an encrypted dataset from its source to the plain dataset file.
+ * <p>
+ * Bytes read from the source are hashed with SHA-256 and decrypted on the fly, with AES-CBC for legacy datasets
+ * or chunk by chunk on several threads for chunked datasets, see {@link ChunkedDatasetHeader}.
+ * The plain content is written to a temporary file next to the target file.
+ * The temporary file is only renamed to the target file once the whole source has been consumed
+ * and its checksum has been found valid, so memory usage does not depend on the dataset size
+ * and no unverified content is ever published.
+ * <p>
+ * Datasets compressed before their encryption are decompressed on the fly after decryption.
+ * Archive datasets can also be extracted on the fly, to a temporary folder renamed to the target folder
+ * under the same conditions.
+ */
+@Slf4j
+public class DatasetStreamPipeline {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+    static final int IV_SIZE = 16;
+    private static final String CIPHER_TRANSFORMATION = "AES/CBC/PKCS5Padding";
+
+    private final String chainTaskId;
+    private final byte[] key;
+    private final String expectedChecksum;
+    private final boolean isMemoryMappedOutput;
+    private final int decryptionParallelism;
+    private final DatasetCompression compression;
+
+    public DatasetStreamPipeline(String chainTaskId, byte[] key, String expectedChecksum) {
+        this(chainTaskId, key, expectedChecksum, false);
+    }
+
+    public DatasetStreamPipeline(String chainTaskId, byte[] key, String expectedChecksum, boolean isMemoryMappedOutput) {
+        this(chainTaskId, key, expectedChecksum, isMemoryMappedOutput, 1);
+    }
+
+    public DatasetStreamPipeline(String chainTaskId, byte[] key, String expectedChecksum, boolean isMemoryMappedOutput,
+                                 int decryptionParallelism) {
+        this(chainTaskId, key, expectedChecksum, isMemoryMappedOutput, decryptionParallelism, DatasetCompression.NONE);
+    }
+
+    public DatasetStreamPipeline(String chainTaskId, byte[] key, String expectedChecksum, boolean isMemoryMappedOutput,
+                                 int decryptionParallelism, DatasetCompression compression) {
+        this.chainTaskId = chainTaskId;
+        this.key = key;
+        this.expectedChecksum = expectedChecksum;
+        this.isMemoryMappedOutput = isMemoryMappedOutput;
+        this.decryptionParallelism = decryptionParallelism;
+        this.compression = compression;
+    }
+
+    /**
+     * Hash, decrypt, decompress if needed and write the content of an encrypted dataset stream to a file.
+     *
+     * @param encryptedStream stream of the encrypted dataset, either IV prefixed or chunked
+     * @param target          path of the plain dataset file to create
+     * @throws PreComputeException if reading, checksum verification, decryption, decompression or writing fails
+     */
+    public void process(final InputStream encryptedStream, final Path target) throws PreComputeException {
+        final MessageDigest digest = createDigest();
+        final DigestInputStream digestStream = new DigestInputStream(encryptedStream, digest);
+        final DatasetFileWriter writer = createWriter(target);
+        try {
+            final DecryptionOutcome outcome = decryptToFile(digestStream, writer, target);
+            drain(digestStream);
+            checkChecksum(digest);
+            checkOutcome(outcome);
+            publish(writer, target);
+        } finally {
+            closeQuietly(writer);
+        }
+    }
+
+    /**
+     * Hash, decrypt, decompress if needed and extract the content of an encrypted archive dataset stream to a folder.
+     *
+     * @param encryptedStream stream of the encrypted dataset, either IV prefixed or chunked
+     * @param targetDir       path of the folder to create
+     * @param extractor       extractor of the plain archive
+     * @throws PreComputeException if reading, checksum verification, decryption or extraction fails
+     */
+    public void processArchive(final InputStream encryptedStream, final Path targetDir,
+                               final ArchiveExtractor extractor) throws PreComputeException {
+        final MessageDigest digest = createDigest();
+        final DigestInputStream digestStream = new DigestInputStream(encryptedStream, digest);
+        final Path stagingDir = createStagingDir(targetDir);
+        try {
+            final DecryptionOutcome outcome = decryptToFolder(digestStream, extractor, stagingDir);
+            drain(digestStream);
+            checkChecksum(digest);
+            checkOutcome(outcome);
+            publishFolder(stagingDir, targetDir);
+        } finally {
+            ArchiveExtractor.deleteQuietly(stagingDir);
+        }
+    }
+
+    /**
+     * Decrypt and decompress the stream content into a file.
+     * <p>
+     * A decryption failure is not immediately reported as the checksum has to be verified first,
+     * a corrupted download being the most likely reason of such a failure.
+     */
+    private DecryptionOutcome decryptToFile(final InputStream encryptedStream, final DatasetFileWriter writer,
+                                           final Path target) throws PreComputeException {
+        final InputStream plainStream;
+        try {
+            plainStream = createDecryptingStream(new BufferedInputStream(encryptedStream, BUFFER_SIZE));
+        } catch (GeneralSecurityException e) {
+            log.error("Failed to initialize dataset decryption [chainTaskId:{}]", chainTaskId, e);
+            return DecryptionOutcome.DECRYPTION_FAILED;
+        }
+        final ReadFailureRecordingInputStream recordingStream = new ReadFailureRecordingInputStream(plainStream);
+        try {
+            IOException decompressionFailure = null;
+            try (InputStream contentStream = compression.decompress(recordingStream)) {
+                final byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = contentStream.read(buffer)) != -1) {
+                    write(writer, buffer, read, target);
+                }
+            } catch (IOException e) {
+                decompressionFailure = e;
+            }
+            return completeDecryption(recordingStream, decompressionFailure);
+        } finally {
+            closeDecryptingStream(plainStream);
+        }
+    }
+
+    /**
+     * Decrypt, decompress and extract the stream content into a folder.
+     * <p>
+     * As for decryption failures, extraction failures are not immediately reported as the checksum
+     * has to be verified first.
+     */
+    private DecryptionOutcome decryptToFolder(final InputStream encryptedStream, final ArchiveExtractor extractor,
+                                              final Path stagingDir) throws PreComputeException {
+        final InputStream plainStream;
+        try {
+            plainStream = createDecryptingStream(new BufferedInputStream(encryptedStream, BUFFER_SIZE));
+        } catch (GeneralSecurityException e) {
+            log.error("Failed to initialize dataset decryption [chainTaskId:{}]", chainTaskId, e);
+            return DecryptionOutcome.DECRYPTION_FAILED;
+        }
+        final ReadFailureRecordingInputStream recordingStream = new ReadFailureRecordingInputStream(plainStream);
+        try {
+            IOException extractionFailure = null;
+            try (InputStream contentStream = compression.decompress(recordingStream)) {
+                extractor.extract(contentStream, stagingDir);
+            } catch (IOException e) {
+                extractionFailure = e;
+            }
+            return completeDecryption(recordingStream, extractionFailure);
+        } finally {
+            closeDecryptingStream(plainStream);
+        }
+    }
+
+    /**
+     * Decrypt the remaining plain content, then tell decryption failures apart from read failures on the source
+     * and from failures on the decrypted content, so that a wrong key or a tampered chunk is reported as such
+     * rather than as an invalid content.
+     *
+     * @param contentFailure failure while decompressing or extracting the plain content, if any
+     */
+    private DecryptionOutcome completeDecryption(final ReadFailureRecordingInputStream recordingStream,
+                                                 final IOException contentFailure) throws PreComputeException {
+        try {
+            if (recordingStream.getReadFailure() == null) {
+                recordingStream.transferTo(OutputStream.nullOutputStream());
+            }
+        } catch (IOException e) {
+            // recorded by the stream
+        }
+        final IOException readFailure = recordingStream.getReadFailure();
+        if (readFailure != null && readFailure.getCause() instanceof GeneralSecurityException) {
+            log.error("Failed to decrypt dataset [chainTaskId:{}]", chainTaskId, readFailure.getCause());
+            return DecryptionOutcome.DECRYPTION_FAILED;
+        } else if (readFailure != null) {
+            log.error("Failed to read encrypted dataset stream [chainTaskId:{}]", chainTaskId, readFailure);
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_DATASET_DOWNLOAD_FAILED);
+        } else if (contentFailure != null) {
+            log.error("Failed to decompress or extract plain dataset [chainTaskId:{}, compression:{}]",
+                    chainTaskId, compression, contentFailure);
+            return DecryptionOutcome.CONTENT_INVALID;
+        }
+        return DecryptionOutcome.DECRYPTED;
+    }
+
+    private void closeDecryptingStream(final InputStream plainStream) {
+        // a cipher stream is left open as closing it would close the source, which still has to be drained
+        if (plainStream instanceof ChunkedDecryptingInputStream chunkedStream) {
+            chunkedStream.close();
+        }
+    }
+
+    private void checkOutcome(final DecryptionOutcome outcome) throws PreComputeException {
+        if (outcome == DecryptionOutcome.DECRYPTION_FAILED) {
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_DATASET_DECRYPTION_FAILED);
+        } else if (outcome == DecryptionOutcome.CONTENT_INVALID) {
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_SAVING_PLAIN_DATASET_FAILED);
+        }
+    }
+
+    private InputStream createDecryptingStream(final InputStream encryptedStream)
+            throws GeneralSecurityException, PreComputeException {
+        try {
+            if (ChunkedDatasetHeader.isChunked(encryptedStream)) {
+                log.info("Decrypting chunked dataset [chainTaskId:{}, parallelism:{}]",
+                        chainTaskId, decryptionParallelism);
+                return new ChunkedDecryptingInputStream(encryptedStream, key, decryptionParallelism);
+            }
+        } catch (IOException e) {
+            log.error("Failed to read encrypted dataset stream [chainTaskId:{}]", chainTaskId, e);
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_DATASET_DOWNLOAD_FAILED);
+        }
+        final byte[] iv = readIv(encryptedStream);
+        final Cipher cipher = Cipher.getInstance(CIPHER_TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+        return new CipherInputStream(encryptedStream, cipher);
+    }
+
+    private byte[] readIv(final InputStream encryptedStream) throws PreComputeException {
+        try {
+            return encryptedStream.readNBytes(IV_SIZE);
+        } catch (IOException e) {
+            log.error("Failed to read encrypted dataset stream [chainTaskId:{}]", chainTaskId, e);
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_DATASET_DOWNLOAD_FAILED);
+        }
+    }
+
+    private void write(final DatasetFileWriter writer, final byte[] buffer, final int length, final Path target)
+            throws PreComputeException {
+        try {
+            writer.write(buffer, 0, length);
+        } catch (IOException e) {
+            log.error("Failed to write plain dataset file [chainTaskId:{}, path:{}]", chainTaskId, target, e);
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_SAVING_PLAIN_DATASET_FAILED);
+        }
+    }
+
+    private void drain(final InputStream encryptedStream) throws PreComputeException {
+        try {
+            encryptedStream.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            log.error("Failed to read encrypted dataset stream [chainTaskId:{}]", chainTaskId, e);
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_DATASET_DOWNLOAD_FAILED);
+        }
+    }
+
+    private void checkChecksum(final MessageDigest digest) throws PreComputeException {
+        log.info("Checking encrypted dataset checksum [chainTaskId:{}]", chainTaskId);
+        final String actualChecksum = "0x" + HexFormat.of().formatHex(digest.digest());
+        if (!actualChecksum.equals(expectedChecksum)) {
+            log.info("Invalid dataset checksum [chainTaskId:{}, expected:{}, actual:{}]",
+                    chainTaskId, expectedChecksum, actualChecksum);
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_INVALID_DATASET_CHECKSUM);
+        }
+    }
+
+    private void publish(final DatasetFileWriter writer, final Path target) throws PreComputeException {
+        try {
+            writer.commit();
+        } catch (IOException e) {
+            log.error("Failed to write plain dataset file [chainTaskId:{}, path:{}]", chainTaskId, target, e);
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_SAVING_PLAIN_DATASET_FAILED);
+        }
+    }
+
+    private void publishFolder(final Path stagingDir, final Path targetDir) throws PreComputeException {
+        try {
+            ArchiveExtractor.publish(stagingDir, targetDir);
+        } catch (IOException e) {
+            log.error("Failed to publish plain dataset folder [chainTaskId:{}, path:{}]", chainTaskId, targetDir, e);
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_SAVING_PLAIN_DATASET_FAILED);
+        }
+    }
+
+    private Path createStagingDir(final Path targetDir) throws PreComputeException {
+        try {
+            return ArchiveExtractor.createStagingDir(targetDir);
+        } catch (IOException e) {
+            log.error("Failed to create plain dataset folder [chainTaskId:{}, path:{}]", chainTaskId, targetDir, e);
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_SAVING_PLAIN_DATASET_FAILED);
+        }
+    }
+
+    private MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+        }
+    }
+
+    private DatasetFileWriter createWriter(final Path target) throws PreComputeException {
+        try {
+            return DatasetFileWriter.create(target, -1, isMemoryMappedOutput);
+        } catch (IOException e) {
+            log.error("Failed to create plain dataset file [chainTaskId:{}, path:{}]", chainTaskId, target, e);
+            throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_SAVING_PLAIN_DATASET_FAILED);
+        }
+    }
+
+    private void closeQuietly(final DatasetFileWriter writer) {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.warn("Failed to delete temporary file [chainTaskId:{}]", chainTaskId, e);
+        }
+    }
+
+    private enum DecryptionOutcome {
+        DECRYPTED,
+        DECRYPTION_FAILED,
+        CONTENT_INVALID
+    }
+
+    /**
+     * Records read failures of the plain stream, to tell them apart from decompression or extraction failures.
+     */
+    private static class ReadFailureRecordingInputStream extends FilterInputStream {
+        private IOException readFailure;
+
+        ReadFailureRecordingInputStream(InputStream in) {
+            super(in);
+        }
+
+        IOException getReadFailure() {
+            return readFailure;
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                readFailure = e;
+                throw e;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (IOException e) {
+                readFailure = e;
+                throw e;
+            }
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            try {
+                return super.skip(n);
+            } catch (IOException e) {
+                readFailure = e;
+                throw e;
+            }
+        }
+    }
+}
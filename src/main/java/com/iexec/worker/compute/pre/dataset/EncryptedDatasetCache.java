@@ -0,0 +1,429 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.dataset;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Host-wide cache of encrypted datasets, addressed by the SHA-256 checksum of their content.
+ * <p>
+ * Only encrypted content is stored, so caching does not weaken dataset confidentiality.
+ * Entries are written to a temporary file first and atomically renamed, so that concurrent
+ * pre-computes sharing the cache folder never see a partial entry. The checksum of an entry is
+ * verified again each time it is read, a corrupted entry being removed. When the cache exceeds
+ * its maximum size ({@code IEXEC_PRE_COMPUTE_DATASET_CACHE_MAX_SIZE_MB}, 10 GB by default),
+ * least recently used entries are evicted.
+ * <p>
+ * Temporary files left by a pre-compute which stopped while writing an entry are removed when the cache
+ * is opened, once they have not been written for {@link #STALE_TMP_FILE_AGE}.
+ */
+@Slf4j
+public class EncryptedDatasetCache {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * Age after which a temporary file is considered abandoned, well above the read timeout
+     * of a download since a temporary file in use is written continuously.
+     */
+    static final Duration STALE_TMP_FILE_AGE = Duration.ofHours(1);
+    private static final String TMP_FILE_SUFFIX = ".tmp";
+    private static final Pattern CHECKSUM_PATTERN = Pattern.compile("^(0x)?[0-9a-fA-F]{64}$");
+    private static final Pattern ENTRY_NAME_PATTERN = Pattern.compile("^[0-9a-f]{64}$");
+
+    private final Path directory;
+    private final long maxSizeBytes;
+    private final Clock clock;
+
+    public EncryptedDatasetCache(Path directory, long maxSizeBytes) {
+        this(directory, maxSizeBytes, Clock.systemUTC());
+    }
+
+    EncryptedDatasetCache(Path directory, long maxSizeBytes, Clock clock) {
+        this.directory = directory;
+        this.maxSizeBytes = maxSizeBytes;
+        this.clock = clock;
+        deleteStaleTmpFiles();
+    }
+
+    /**
+     * Get the size of a cached encrypted dataset, without verifying its content.
+     *
+     * @param checksum SHA-256 checksum of the encrypted dataset
+     * @return the size of the cache entry, -1 if not cached
+     */
+    public long size(final String checksum) {
+        final Path entry = getEntry(checksum);
+        if (entry == null || !Files.isRegularFile(entry)) {
+            return -1;
+        }
+        try {
+            return Files.size(entry);
+        } catch (IOException e) {
+            log.debug("Failed to read cached dataset size [path:{}]", entry, e);
+            return -1;
+        }
+    }
+
+    /**
+     * Read a cached encrypted dataset.
+     *
+     * @param checksum SHA-256 checksum of the encrypted dataset
+     * @return the encrypted content, {@literal null} if not cached or if the entry is corrupted
+     */
+    public byte[] read(final String checksum) {
+        final Path entry = getEntry(checksum);
+        if (entry == null || !Files.isRegularFile(entry)) {
+            return null;
+        }
+        try {
+            final byte[] content = Files.readAllBytes(entry);
+            final MessageDigest digest = createDigest();
+            digest.update(content);
+            if (!isValid(entry, digest)) {
+                return null;
+            }
+            touch(entry);
+            return content;
+        } catch (IOException e) {
+            log.warn("Failed to read cached dataset [path:{}]", entry, e);
+            return null;
+        }
+    }
+
+    /**
+     * Open a cached encrypted dataset, its checksum being verified before the stream is returned.
+     *
+     * @param checksum SHA-256 checksum of the encrypted dataset
+     * @return a stream on the encrypted content, {@literal null} if not cached or if the entry is corrupted
+     */
+    public InputStream open(final String checksum) {
+        final Path entry = getEntry(checksum);
+        if (entry == null || !Files.isRegularFile(entry)) {
+            return null;
+        }
+        FileChannel channel = null;
+        try {
+            // the channel keeps the verified content readable even if the entry is evicted meanwhile
+            channel = FileChannel.open(entry);
+            final MessageDigest digest = createDigest();
+            final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                digest.update(buffer.flip());
+                buffer.clear();
+            }
+            if (!isValid(entry, digest)) {
+                channel.close();
+                return null;
+            }
+            channel.position(0);
+            touch(entry);
+            return Channels.newInputStream(channel);
+        } catch (IOException e) {
+            log.warn("Failed to read cached dataset [path:{}]", entry, e);
+            closeQuietly(channel);
+            return null;
+        }
+    }
+
+    /**
+     * Store an encrypted dataset whose checksum has already been verified.
+     *
+     * @param checksum SHA-256 checksum of the encrypted dataset
+     * @param content  encrypted content
+     */
+    public void put(final String checksum, final byte[] content) {
+        final Path entry = getEntry(checksum);
+        if (entry == null || content.length > maxSizeBytes) {
+            return;
+        }
+        Path tmpFile = null;
+        try {
+            tmpFile = createTmpFile(entry);
+            Files.write(tmpFile, content);
+            commit(tmpFile, entry);
+        } catch (IOException e) {
+            log.warn("Failed to cache dataset [path:{}]", entry, e);
+            deleteQuietly(tmpFile);
+        }
+    }
+
+    /**
+     * Copy an encrypted dataset to the cache while it is read from its source.
+     * <p>
+     * The entry is only created when the returned stream is closed after having been read until its end,
+     * and if the content matches the checksum. Failing to write the cache never fails reads.
+     *
+     * @param checksum SHA-256 checksum of the encrypted dataset
+     * @param source   stream on the encrypted dataset
+     * @return a stream to read instead of the source
+     */
+    public InputStream cacheWhileReading(final String checksum, final InputStream source) {
+        final Path entry = getEntry(checksum);
+        if (entry == null) {
+            return source;
+        }
+        try {
+            return new CachingInputStream(source, entry);
+        } catch (IOException e) {
+            log.warn("Failed to create cache entry [path:{}]", entry, e);
+            return source;
+        }
+    }
+
+    private Path getEntry(final String checksum) {
+        if (checksum == null || !CHECKSUM_PATTERN.matcher(checksum).matches()) {
+            log.warn("Invalid dataset checksum, dataset will not be cached [checksum:{}]", checksum);
+            return null;
+        }
+        return directory.resolve(checksum.replaceFirst("^0x", "").toLowerCase(Locale.ROOT));
+    }
+
+    private boolean isValid(final Path entry, final MessageDigest digest) throws IOException {
+        final String actualChecksum = HexFormat.of().formatHex(digest.digest());
+        if (actualChecksum.equals(entry.getFileName().toString())) {
+            return true;
+        }
+        log.warn("Removing corrupted cached dataset [path:{}, actual:{}]", entry, actualChecksum);
+        Files.deleteIfExists(entry);
+        return false;
+    }
+
+    private void touch(final Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.from(clock.instant()));
+        } catch (IOException e) {
+            log.debug("Failed to update cached dataset access time [path:{}]", entry, e);
+        }
+    }
+
+    private Path createTmpFile(final Path entry) throws IOException {
+        Files.createDirectories(directory);
+        return Files.createTempFile(directory, "." + entry.getFileName(), TMP_FILE_SUFFIX);
+    }
+
+    /**
+     * Remove temporary files which have not been written for {@link #STALE_TMP_FILE_AGE}.
+     */
+    private void deleteStaleTmpFiles() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        final Instant staleBefore = clock.instant().minus(STALE_TMP_FILE_AGE);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> {
+                final String name = file.getFileName().toString();
+                return name.startsWith(".") && name.endsWith(TMP_FILE_SUFFIX);
+            }).forEach(file -> {
+                try {
+                    if (Files.getLastModifiedTime(file).toInstant().isBefore(staleBefore)) {
+                        Files.deleteIfExists(file);
+                        log.info("Removed stale cache temporary file [path:{}]", file);
+                    }
+                } catch (IOException e) {
+                    log.warn("Failed to remove stale cache temporary file [path:{}]", file, e);
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Failed to list cached datasets [path:{}]", directory, e);
+        }
+    }
+
+    private void commit(final Path tmpFile, final Path entry) throws IOException {
+        if (Files.size(tmpFile) > maxSizeBytes) {
+            log.info("Dataset larger than cache, not caching it [path:{}, maxSize:{}]", entry, maxSizeBytes);
+            Files.deleteIfExists(tmpFile);
+            return;
+        }
+        Files.setLastModifiedTime(tmpFile, FileTime.from(clock.instant()));
+        Files.move(tmpFile, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Cached encrypted dataset [path:{}]", entry);
+        evict();
+    }
+
+    /**
+     * Remove least recently used entries until the cache fits its maximum size.
+     */
+    synchronized void evict() {
+        final List<Entry> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> ENTRY_NAME_PATTERN.matcher(file.getFileName().toString()).matches())
+                    .forEach(file -> {
+                        try {
+                            entries.add(new Entry(file, Files.size(file), Files.getLastModifiedTime(file)));
+                        } catch (IOException e) {
+                            log.debug("Ignoring cached dataset [path:{}]", file, e);
+                        }
+                    });
+        } catch (IOException e) {
+            log.warn("Failed to list cached datasets [path:{}]", directory, e);
+            return;
+        }
+        long totalSize = entries.stream().mapToLong(Entry::size).sum();
+        entries.sort(Comparator.comparing(Entry::lastModified));
+        for (final Entry entry : entries) {
+            if (totalSize <= maxSizeBytes) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(entry.path());
+                totalSize -= entry.size();
+                log.info("Evicted cached dataset [path:{}, size:{}]", entry.path(), entry.size());
+            } catch (IOException e) {
+                log.warn("Failed to evict cached dataset [path:{}]", entry.path(), e);
+            }
+        }
+    }
+
+    private MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+        }
+    }
+
+    private void deleteQuietly(final Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete file [path:{}]", path, e);
+        }
+    }
+
+    private void closeQuietly(final AutoCloseable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            log.debug("Failed to close cached dataset", e);
+        }
+    }
+
+    private record Entry(Path path, long size, FileTime lastModified) {
+    }
+
+    private class CachingInputStream extends FilterInputStream {
+        private final Path entry;
+        private final Path tmpFile;
+        private final OutputStream out;
+        private final MessageDigest digest = createDigest();
+        private boolean isEnded;
+        private boolean isFailed;
+
+        CachingInputStream(InputStream source, Path entry) throws IOException {
+            super(source);
+            this.entry = entry;
+            this.tmpFile = createTmpFile(entry);
+            this.out = Files.newOutputStream(tmpFile);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b == -1) {
+                isEnded = true;
+            } else {
+                copy(new byte[]{(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int read = super.read(b, off, len);
+            if (read == -1) {
+                isEnded = true;
+            } else {
+                copy(b, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            isFailed = true;
+            return super.skip(n);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void copy(final byte[] b, final int off, final int len) {
+            if (isFailed) {
+                return;
+            }
+            try {
+                out.write(b, off, len);
+                digest.update(b, off, len);
+            } catch (IOException e) {
+                log.warn("Failed to write cache entry, dataset will not be cached [path:{}]", tmpFile, e);
+                isFailed = true;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                closeQuietly(out);
+                final boolean isComplete = isEnded && !isFailed
+                        && HexFormat.of().formatHex(digest.digest()).equals(entry.getFileName().toString());
+                try {
+                    if (isComplete) {
+                        commit(tmpFile, entry);
+                    }
+                } catch (IOException e) {
+                    log.warn("Failed to cache dataset [path:{}]", entry, e);
+                } finally {
+                    deleteQuietly(tmpFile);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.dataset;
+
+import java.io.FilterInputStream;
+import java.io.InputStream;
+
+/**
+ * Keeps the source stream open when a stream reading from it is closed.
+ */
+class NonClosingInputStream extends FilterInputStream {
+    NonClosingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public void close() {
+        // the source stream belongs to the caller
+    }
+}
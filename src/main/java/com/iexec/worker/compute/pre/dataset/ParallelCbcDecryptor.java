@@ -0,0 +1,148 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.dataset;
+
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Decrypts datasets encrypted with AES-CBC on several cores.
+ * <p>
+ * The input format is the one of {@code CipherUtils.aesDecrypt}: a 16-byte IV followed by the
+ * AES-CBC ciphertext with PKCS#5 padding. In CBC mode, decrypting a block only requires the previous
+ * ciphertext block, so the ciphertext is split into block-aligned segments which are decrypted
+ * independently on a fork-join pool, each segment using the ciphertext block preceding it as IV.
+ * The last block is decrypted first to check the padding and size the output exactly.
+ */
+public class ParallelCbcDecryptor {
+
+    static final int BLOCK_SIZE = 16;
+    static final int SEGMENT_SIZE = 1024 * 1024;
+    private static final String NO_PADDING_TRANSFORMATION = "AES/CBC/NoPadding";
+    private static final String PADDING_TRANSFORMATION = "AES/CBC/PKCS5Padding";
+
+    private final int parallelism;
+    private final int segmentSize;
+
+    public ParallelCbcDecryptor(int parallelism) {
+        this(parallelism, SEGMENT_SIZE);
+    }
+
+    ParallelCbcDecryptor(int parallelism, int segmentSize) {
+        this.parallelism = parallelism;
+        this.segmentSize = Math.max(BLOCK_SIZE, segmentSize - segmentSize % BLOCK_SIZE);
+    }
+
+    /**
+     * Decrypt IV-prefixed AES-CBC content.
+     *
+     * @param encryptedContent IV followed by the ciphertext
+     * @param key              AES key
+     * @return the plain content, identical to the one returned by {@code CipherUtils.aesDecrypt}
+     * @throws GeneralSecurityException if the key, the content size or the padding is invalid
+     */
+    public byte[] decrypt(final byte[] encryptedContent, final byte[] key) throws GeneralSecurityException {
+        final int ciphertextLength = encryptedContent.length - BLOCK_SIZE;
+        if (ciphertextLength <= 0 || ciphertextLength % BLOCK_SIZE != 0) {
+            throw new IllegalBlockSizeException("Invalid encrypted content size " + encryptedContent.length);
+        }
+        final SecretKeySpec keySpec = new SecretKeySpec(key, "AES");
+        final int lastBlockOffset = encryptedContent.length - BLOCK_SIZE;
+        final Cipher lastBlockCipher = Cipher.getInstance(PADDING_TRANSFORMATION);
+        lastBlockCipher.init(Cipher.DECRYPT_MODE, keySpec,
+                new IvParameterSpec(encryptedContent, lastBlockOffset - BLOCK_SIZE, BLOCK_SIZE));
+        final byte[] lastPlainBlock = lastBlockCipher.doFinal(encryptedContent, lastBlockOffset, BLOCK_SIZE);
+
+        final int bodyLength = ciphertextLength - BLOCK_SIZE;
+        final byte[] plainContent = new byte[bodyLength + lastPlainBlock.length];
+        System.arraycopy(lastPlainBlock, 0, plainContent, bodyLength, lastPlainBlock.length);
+        if (bodyLength > 0) {
+            final SegmentDecryption decryption = new SegmentDecryption(encryptedContent, plainContent, keySpec,
+                    0, bodyLength);
+            final ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+            try {
+                pool.invoke(decryption);
+            } catch (SegmentDecryptionException e) {
+                throw e.getSecurityException();
+            } finally {
+                pool.shutdown();
+            }
+        }
+        return plainContent;
+    }
+
+    /**
+     * Decrypts the ciphertext bytes in {@code [from, to)} into the same range of the plain content,
+     * splitting the range in halves until it fits in a segment.
+     */
+    private class SegmentDecryption extends RecursiveAction {
+        private final byte[] encryptedContent;
+        private final byte[] plainContent;
+        private final SecretKeySpec keySpec;
+        private final int from;
+        private final int to;
+
+        SegmentDecryption(byte[] encryptedContent, byte[] plainContent, SecretKeySpec keySpec, int from, int to) {
+            this.encryptedContent = encryptedContent;
+            this.plainContent = plainContent;
+            this.keySpec = keySpec;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            final int length = to - from;
+            if (length <= segmentSize) {
+                decryptSegment();
+                return;
+            }
+            final int middle = from + (length / BLOCK_SIZE / 2) * BLOCK_SIZE;
+            invokeAll(new SegmentDecryption(encryptedContent, plainContent, keySpec, from, middle),
+                    new SegmentDecryption(encryptedContent, plainContent, keySpec, middle, to));
+        }
+
+        private void decryptSegment() {
+            try {
+                final Cipher cipher = Cipher.getInstance(NO_PADDING_TRANSFORMATION);
+                // ciphertext starts after the IV, the block preceding a segment is its IV
+                cipher.init(Cipher.DECRYPT_MODE, keySpec, new IvParameterSpec(encryptedContent, from, BLOCK_SIZE));
+                cipher.doFinal(encryptedContent, BLOCK_SIZE + from, to - from, plainContent, from);
+            } catch (GeneralSecurityException e) {
+                throw new SegmentDecryptionException(e);
+            }
+        }
+    }
+
+    private static class SegmentDecryptionException extends RuntimeException {
+        private final GeneralSecurityException securityException;
+
+        SegmentDecryptionException(GeneralSecurityException securityException) {
+            super(securityException);
+            this.securityException = securityException;
+        }
+
+        GeneralSecurityException getSecurityException() {
+            return securityException;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.download;
+
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Checks a downloaded file against the size and SHA-256 checksum declared for it.
+ * <p>
+ * The checksum is computed while the file is written, so that the file is checked before being published
+ * without being read again. Only bytes written by a previous attempt of a resumed download are read back.
+ */
+class ContentVerifier {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputFileDescriptor expected;
+    private final MessageDigest digest;
+    private long size;
+
+    ContentVerifier(final InputFileDescriptor expected) {
+        this.expected = expected;
+        this.digest = expected.getChecksum() != null ? createDigest() : null;
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+        }
+    }
+
+    /**
+     * Forget the bytes seen so far, for a download started again from the beginning.
+     */
+    void reset() {
+        size = 0;
+        if (digest != null) {
+            digest.reset();
+        }
+    }
+
+    void update(final byte[] bytes, final int offset, final int length) {
+        size += length;
+        if (digest != null) {
+            digest.update(bytes, offset, length);
+        }
+    }
+
+    /**
+     * Account for the first bytes of a file, written by a previous attempt of a resumed download.
+     *
+     * @param file   partially downloaded file
+     * @param length number of bytes to account for
+     * @throws IOException if the file could not be read or is shorter than expected
+     */
+    void update(final Path file, final long length) throws IOException {
+        if (digest == null) {
+            size += length;
+            return;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            long remaining = length;
+            while (remaining > 0) {
+                final int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read == -1) {
+                    throw new EOFException("Partially downloaded file is shorter than " + length + " bytes");
+                }
+                update(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+    /**
+     * Wrap the output stream of the downloaded file, so that written bytes are verified.
+     */
+    OutputStream wrap(final OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                update(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                update(b, off, len);
+            }
+        };
+    }
+
+    /**
+     * Check the bytes seen so far against the declared size and checksum.
+     *
+     * @throws MismatchException if the size or the checksum differs from the declared one
+     */
+    void verify() throws MismatchException {
+        if (expected.getSize() >= 0 && size != expected.getSize()) {
+            throw new MismatchException("Unexpected size [expected:" + expected.getSize() + ", actual:" + size + "]");
+        }
+        if (digest != null) {
+            final String expectedChecksum = expected.getChecksum().replaceFirst("^0x", "");
+            final String actualChecksum = HexFormat.of().formatHex(digest.digest());
+            if (!expectedChecksum.equalsIgnoreCase(actualChecksum)) {
+                throw new MismatchException("Invalid checksum [expected:" + expectedChecksum
+                        + ", actual:" + actualChecksum + "]");
+            }
+        }
+    }
+
+    /**
+     * Thrown when a downloaded file does not match its declared size or checksum.
+     */
+    static class MismatchException extends IOException {
+        MismatchException(String message) {
+            super(message);
+        }
+    }
+}
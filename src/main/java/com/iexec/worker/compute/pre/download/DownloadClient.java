@@ -0,0 +1,619 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.download;
+
+import com.iexec.worker.compute.pre.utils.FileUtils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * HTTP client shared by all downloads of a pre-compute run.
+ * <p>
+ * A single {@link HttpClient} keeps connections alive between requests to the same host and multiplexes
+ * requests over HTTP/2 when the server supports it, so that many files hosted on the same server
+ * do not cost one TLS handshake each. Cleartext requests use HTTP/1.1, few servers supporting h2c.
+ * <p>
+ * The connect timeout bounds connection establishment, the read timeout bounds both the wait for response
+ * headers and each read of a response body. Content encoding is only negotiated when a whole resource
+ * is downloaded, as byte ranges would refer to the encoded representation otherwise.
+ * <p>
+ * Requests failing with a transient error are sent again according to the {@link RetryPolicy}, and whole
+ * resource downloads are restarted when their body cannot be read completely, each request sent counting
+ * as one attempt of the download. Received bytes are counted in a {@link TransferProgress} to report
+ * the progress of the task downloads.
+ */
+@Slf4j
+public class DownloadClient {
+
+    static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(30);
+    static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(60);
+    static final int BUFFER_SIZE = 64 * 1024;
+    private static final String ACCEPTED_ENCODINGS = "gzip, deflate";
+
+    private final HttpClient httpClient;
+    @Getter
+    private final Duration readTimeout;
+    private final ScheduledExecutorService readTimeoutScheduler;
+    private final RetryPolicy retryPolicy;
+    private final TransferProgress progress;
+
+    public DownloadClient() {
+        this(RetryPolicy.noRetry());
+    }
+
+    public DownloadClient(RetryPolicy retryPolicy) {
+        this(retryPolicy, new TransferProgress());
+    }
+
+    public DownloadClient(RetryPolicy retryPolicy, TransferProgress progress) {
+        this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT, retryPolicy, progress);
+    }
+
+    public DownloadClient(Duration connectTimeout, Duration readTimeout) {
+        this(connectTimeout, readTimeout, RetryPolicy.noRetry(), new TransferProgress());
+    }
+
+    public DownloadClient(Duration connectTimeout, Duration readTimeout, RetryPolicy retryPolicy,
+                          TransferProgress progress) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.readTimeout = readTimeout;
+        final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "download-read-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // a timeout is scheduled for each read, cancelled ones must not pile up until their deadline
+        scheduler.setRemoveOnCancelPolicy(true);
+        this.readTimeoutScheduler = scheduler;
+        this.retryPolicy = retryPolicy;
+        this.progress = progress;
+    }
+
+    /**
+     * Send a GET request, the response body being served as is.
+     *
+     * @param url     URL of the resource
+     * @param headers request headers, such as {@code Range}
+     * @return the response, to be closed by the caller
+     * @throws IOException if the URL is invalid, or if the server could not be reached in time
+     */
+    public Response get(final String url, final Map<String, String> headers) throws IOException {
+        return get(url, headers, new AtomicInteger());
+    }
+
+    /**
+     * Send a GET request as a new attempt of a download, the response body being served as is.
+     *
+     * @param attempts attempts already made for the same download, incremented for each request sent
+     */
+    Response get(final String url, final Map<String, String> headers, final AtomicInteger attempts)
+            throws IOException {
+        return send(url, "GET", headers, readTimeout, attempts);
+    }
+
+    /**
+     * Send a HEAD request.
+     *
+     * @param url     URL of the resource
+     * @param timeout maximum duration to wait for the response
+     * @return the response, to be closed by the caller
+     * @throws IOException if the URL is invalid, or if the server could not be reached in time
+     */
+    public Response head(final String url, final Duration timeout) throws IOException {
+        return send(url, "HEAD", Map.of(), timeout, new AtomicInteger());
+    }
+
+    /**
+     * Send a HEAD request once, never retried, so that probing a source does not consume the retry budget
+     * of the downloads.
+     *
+     * @param url     URL of the resource
+     * @param timeout maximum duration to wait for the response
+     * @return the response, to be closed by the caller
+     * @throws IOException if the URL is invalid, or if the server could not be reached in time
+     */
+    public Response headOnce(final String url, final Duration timeout) throws IOException {
+        return sendOnce(url, "HEAD", Map.of(), timeout);
+    }
+
+    /**
+     * Open a stream on the decoded content of a remote resource.
+     *
+     * @param url URL of the resource
+     * @return an open stream, or {@literal null} if the resource could not be reached
+     */
+    public InputStream open(final String url) {
+        return open(url, new AtomicInteger());
+    }
+
+    private InputStream open(final String url, final AtomicInteger attempts) {
+        Response response = null;
+        try {
+            response = send(url, "GET", Map.of("Accept-Encoding", ACCEPTED_ENCODINGS), readTimeout, attempts);
+            if (response.getStatus() != 200) {
+                log.warn("Unexpected response status [url:{}, status:{}]", url, response.getStatus());
+                response.close();
+                return null;
+            }
+            return response.getDecodedBody();
+        } catch (IOException e) {
+            log.warn("Failed to open stream [url:{}]", url, e);
+            if (response != null) {
+                response.close();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Read the decoded content of a remote resource.
+     *
+     * @param url URL of the resource
+     * @return the content, or {@literal null} if the download failed
+     */
+    public byte[] readBytes(final String url) {
+        return readBytes(url, () -> {});
+    }
+
+    /**
+     * Read the decoded content of a remote resource, being notified when the resource starts being served.
+     *
+     * @param url        URL of the resource
+     * @param onResponse called once, when the headers of the first successful response are received
+     *                   and before its body is read
+     * @return the content, or {@literal null} if the download failed
+     */
+    public byte[] readBytes(final String url, final Runnable onResponse) {
+        final AtomicInteger attempts = new AtomicInteger();
+        boolean isNotified = false;
+        while (true) {
+            try (InputStream in = open(url, attempts)) {
+                if (in == null) {
+                    return null;
+                }
+                if (!isNotified) {
+                    isNotified = true;
+                    onResponse.run();
+                }
+                return in.readAllBytes();
+            } catch (IOException e) {
+                if (!awaitRetry(url, attempts.get(), e)) {
+                    log.warn("Failed to download [url:{}]", url, e);
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Save the decoded content of a remote resource to a file.
+     * The content is written to a temporary file next to the target, which only appears once complete
+     * and is then readable by all users. Failures to write the file are not retried, only failures to read
+     * the response are.
+     *
+     * @param url    URL of the resource
+     * @param target file to create or replace
+     * @return {@literal true} if the file was downloaded, {@literal false} otherwise
+     */
+    public boolean download(final String url, final Path target) {
+        return download(InputFileDescriptor.builder().url(url).build(), target);
+    }
+
+    /**
+     * Save the decoded content of a remote file to a target file, checking its declared size and checksum if any.
+     * The checksum is computed while the content is written, and a file which does not match is never published.
+     * Mismatches are not retried.
+     *
+     * @param file   URL and expected size and checksum of the file
+     * @param target file to create or replace
+     * @return {@literal true} if the file was downloaded and matches, {@literal false} otherwise
+     */
+    public boolean download(final InputFileDescriptor file, final Path target) {
+        final String url = file.getUrl();
+        final ContentVerifier verifier = new ContentVerifier(file);
+        final AtomicInteger attempts = new AtomicInteger();
+        while (true) {
+            Path tmpFile = null;
+            try (InputStream in = open(url, attempts)) {
+                if (in == null) {
+                    return false;
+                }
+                tmpFile = createTmpFile(target);
+                verifier.reset();
+                try (OutputStream out = verifier.wrap(openTmpFile(tmpFile))) {
+                    in.transferTo(out);
+                }
+                verifier.verify();
+                publish(tmpFile, target);
+                return true;
+            } catch (FileWriteException e) {
+                log.warn("Failed to write downloaded file [url:{}, path:{}]", url, target, e.getCause());
+                return false;
+            } catch (ContentVerifier.MismatchException e) {
+                log.error("Downloaded file does not match its description [url:{}, path:{}, reason:{}]",
+                        url, target, e.getMessage());
+                return false;
+            } catch (IOException e) {
+                if (!awaitRetry(url, attempts.get(), e)) {
+                    log.warn("Failed to download [url:{}, path:{}]", url, target, e);
+                    return false;
+                }
+            } finally {
+                if (tmpFile != null) {
+                    deleteQuietly(tmpFile);
+                }
+            }
+        }
+    }
+
+    private static Path createTmpFile(final Path target) throws FileWriteException {
+        try {
+            return Files.createTempFile(target.toAbsolutePath().getParent(), "." + target.getFileName(), ".tmp");
+        } catch (IOException e) {
+            throw new FileWriteException(e);
+        }
+    }
+
+    private static OutputStream openTmpFile(final Path tmpFile) throws FileWriteException {
+        try {
+            return new FileWriteOutputStream(Files.newOutputStream(tmpFile));
+        } catch (IOException e) {
+            throw new FileWriteException(e);
+        }
+    }
+
+    private static void publish(final Path tmpFile, final Path target) throws FileWriteException {
+        try {
+            FileUtils.setPublishedFilePermissions(tmpFile);
+            Files.move(tmpFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new FileWriteException(e);
+        }
+    }
+
+    /**
+     * Send a request, sending it again while it fails with a transient error and retries are left.
+     * The last response is returned whatever its status once retries are exhausted.
+     *
+     * @param attempts attempts already made for the same resource, incremented for each request sent,
+     *                 so that restarting a download whose body could not be read does not reset the count
+     */
+    private Response send(final String url, final String method, final Map<String, String> headers,
+                          final Duration timeout, final AtomicInteger attempts) throws IOException {
+        while (true) {
+            final int attempt = attempts.incrementAndGet();
+            final Response response;
+            try {
+                response = sendOnce(url, method, headers, timeout);
+            } catch (IOException e) {
+                if (awaitRetry(url, attempt, e)) {
+                    continue;
+                }
+                throw e;
+            }
+            if (!retryPolicy.isRetryable(response.getStatus())) {
+                return response;
+            }
+            final Duration backoff = retryPolicy.nextBackoff(attempt,
+                    RetryPolicy.parseRetryAfter(response.getHeader("Retry-After")));
+            if (backoff == null) {
+                return response;
+            }
+            log.warn("Retrying download [url:{}, status:{}, attempt:{}, backoff:{}ms]",
+                    url, response.getStatus(), attempt, backoff.toMillis());
+            response.close();
+            if (!sleep(backoff)) {
+                throw new InterruptedIOException("Download interrupted [url:" + url + "]");
+            }
+        }
+    }
+
+    /**
+     * Wait before the next attempt of a failed download, if the failure is transient and retries are left.
+     * Only failures to send a request or to read its response are expected here.
+     *
+     * @return {@literal true} if the download must be attempted again, {@literal false} otherwise
+     */
+    boolean awaitRetry(final String url, final int attempt, final IOException e) {
+        if (!retryPolicy.isRetryable(e)) {
+            return false;
+        }
+        final Duration backoff = retryPolicy.nextBackoff(attempt, null);
+        if (backoff == null) {
+            return false;
+        }
+        log.warn("Retrying download [url:{}, error:{}, attempt:{}, backoff:{}ms]",
+                url, e.toString(), attempt, backoff.toMillis());
+        return sleep(backoff);
+    }
+
+    /**
+     * @return {@literal false} if interrupted while sleeping
+     */
+    private static boolean sleep(final Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Response sendOnce(final String url, final String method, final Map<String, String> headers,
+                              final Duration timeout) throws IOException {
+        final HttpRequest.Builder request;
+        try {
+            final URI uri = URI.create(url);
+            request = HttpRequest.newBuilder(uri)
+                    .method(method, HttpRequest.BodyPublishers.noBody())
+                    .timeout(timeout);
+            if ("http".equalsIgnoreCase(uri.getScheme())) {
+                request.version(HttpClient.Version.HTTP_1_1);
+            }
+            headers.forEach(request::header);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid download URL " + url, e);
+        }
+        try {
+            return new Response(httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Download interrupted [url:" + url + "]");
+        }
+    }
+
+    private void deleteQuietly(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete temporary file [path:{}]", file, e);
+        }
+    }
+
+    /**
+     * Response of a request, its body being read at most {@link #getReadTimeout()} at a time.
+     */
+    public class Response implements Closeable {
+        private final HttpResponse<InputStream> response;
+        private final ReadTimeoutInputStream body;
+
+        Response(HttpResponse<InputStream> response) {
+            this.response = response;
+            final boolean isCounted = getStatus() / 100 == 2 && !"HEAD".equals(response.request().method());
+            this.body = new ReadTimeoutInputStream(response.body(), isCounted ? Math.max(0, getContentLength()) : 0);
+        }
+
+        public int getStatus() {
+            return response.statusCode();
+        }
+
+        /**
+         * @return the first value of a response header, {@literal null} if absent
+         */
+        public String getHeader(final String name) {
+            return response.headers().firstValue(name).orElse(null);
+        }
+
+        /**
+         * @return the announced length of the body, -1 if unknown
+         */
+        public long getContentLength() {
+            return response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        }
+
+        /**
+         * @return the body as sent by the server
+         */
+        public InputStream getBody() {
+            return body;
+        }
+
+        /**
+         * @return the body decoded according to the {@code Content-Encoding} header
+         * @throws IOException if the encoding is not supported or the body header is invalid
+         */
+        public InputStream getDecodedBody() throws IOException {
+            final String encoding = getHeader("Content-Encoding");
+            if (encoding == null || encoding.isBlank() || "identity".equalsIgnoreCase(encoding.trim())) {
+                return body;
+            }
+            return switch (encoding.trim().toLowerCase(Locale.ROOT)) {
+                case "gzip", "x-gzip" -> new GZIPInputStream(body, BUFFER_SIZE);
+                case "deflate" -> new InflaterInputStream(body);
+                default -> throw new IOException("Unsupported content encoding " + encoding);
+            };
+        }
+
+        /**
+         * Release the connection, discarding the unread part of the body.
+         */
+        @Override
+        public void close() {
+            try {
+                body.close();
+            } catch (IOException e) {
+                log.debug("Failed to close response body [uri:{}]", response.uri(), e);
+            }
+        }
+    }
+
+    /**
+     * Closes the underlying stream when a read is blocked for longer than the read timeout,
+     * which unblocks the reading thread.
+     * <p>
+     * Its announced length and the bytes read are counted in the transfer progress. They are withdrawn
+     * if the stream is closed before its end, such as a failed attempt or a discarded response, so that
+     * each download is only counted by the response which completes it.
+     */
+    private class ReadTimeoutInputStream extends FilterInputStream {
+        private final long expectedBytes;
+        private volatile boolean isTimedOut;
+        private long bytesRead;
+        private boolean isEnded;
+        private boolean isClosed;
+
+        ReadTimeoutInputStream(InputStream in, long expectedBytes) {
+            super(in);
+            this.expectedBytes = expectedBytes;
+            progress.addExpected(expectedBytes);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final ScheduledFuture<?> timeout = scheduleTimeout();
+            try {
+                final int b = super.read();
+                if (b == -1) {
+                    isEnded = true;
+                } else {
+                    count(1);
+                }
+                return b;
+            } catch (IOException e) {
+                throw isTimedOut ? new HttpTimeoutException("Read timed out") : e;
+            } finally {
+                timeout.cancel(false);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final ScheduledFuture<?> timeout = scheduleTimeout();
+            try {
+                final int read = super.read(b, off, len);
+                if (read == -1) {
+                    isEnded = true;
+                } else {
+                    count(read);
+                }
+                return read;
+            } catch (IOException e) {
+                throw isTimedOut ? new HttpTimeoutException("Read timed out") : e;
+            } finally {
+                timeout.cancel(false);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized (this) {
+                if (isClosed) {
+                    return;
+                }
+                isClosed = true;
+                // a body is complete once its announced length is read, even if its end was not reached
+                if (!isEnded && (expectedBytes == 0 || bytesRead < expectedBytes)) {
+                    progress.addExpected(-expectedBytes);
+                    progress.addTransferred(-bytesRead);
+                }
+            }
+            super.close();
+        }
+
+        private synchronized void count(final int bytes) {
+            bytesRead += bytes;
+            progress.addTransferred(bytes);
+        }
+
+        private ScheduledFuture<?> scheduleTimeout() {
+            return readTimeoutScheduler.schedule(() -> {
+                isTimedOut = true;
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    log.debug("Failed to close timed out response body", e);
+                }
+            }, readTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Failure to write a downloaded file, which is local and never retried.
+     */
+    static class FileWriteException extends IOException {
+        FileWriteException(IOException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Reports failures of the underlying file stream as {@link FileWriteException}.
+     */
+    private static class FileWriteOutputStream extends FilterOutputStream {
+        FileWriteOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            try {
+                out.write(b);
+            } catch (IOException e) {
+                throw new FileWriteException(e);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            try {
+                out.write(b, off, len);
+            } catch (IOException e) {
+                throw new FileWriteException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.close();
+            } catch (IOException e) {
+                throw new FileWriteException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.download;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ranks IPFS gateways from their observed health and performance.
+ * <p>
+ * Time-to-first-byte and throughput are tracked as exponentially weighted moving averages.
+ * Failures add to a failure score which decays with time, so a gateway which has been down
+ * is tried again later on. Statistics can be persisted to a file shared by successive tasks
+ * running on the same worker host.
+ */
+@Slf4j
+public class GatewayScorer {
+
+    static final double EWMA_WEIGHT = 0.3;
+    static final Duration FAILURE_HALF_LIFE = Duration.ofHours(1);
+    static final double UNKNOWN_TTFB_MILLIS = 1_000;
+    static final double FAILURE_PENALTY_MILLIS = 30_000;
+    private static final String HEADER = "# gateway\tttfb_ms\tthroughput_bps\tfailure_score\tupdated_at";
+    private static final String SEPARATOR = "\t";
+
+    private final Path statsFile;
+    private final Clock clock;
+    private final Map<String, GatewayStats> stats = new HashMap<>();
+
+    GatewayScorer(Path statsFile, Clock clock) {
+        this.statsFile = statsFile;
+        this.clock = clock;
+    }
+
+    /**
+     * Create a scorer, loading previously persisted statistics if any.
+     *
+     * @param statsFile file where statistics are persisted, {@literal null} to keep them in memory only
+     * @return a new scorer
+     */
+    public static GatewayScorer load(final Path statsFile) {
+        return load(statsFile, Clock.systemUTC());
+    }
+
+    static GatewayScorer load(final Path statsFile, final Clock clock) {
+        final GatewayScorer scorer = new GatewayScorer(statsFile, clock);
+        if (statsFile == null || !Files.isRegularFile(statsFile)) {
+            return scorer;
+        }
+        try {
+            for (final String line : Files.readAllLines(statsFile, StandardCharsets.UTF_8)) {
+                scorer.parseLine(line);
+            }
+            log.debug("Loaded gateway statistics [path:{}, gateways:{}]", statsFile, scorer.stats.size());
+        } catch (IOException e) {
+            log.warn("Failed to load gateway statistics, starting from scratch [path:{}]", statsFile, e);
+        }
+        return scorer;
+    }
+
+    /**
+     * Order gateways from the most to the least promising one.
+     * Gateways without statistics keep their relative order.
+     *
+     * @param gateways gateways by order of preference
+     * @return a new list with the same gateways
+     */
+    public synchronized List<String> rank(final List<String> gateways) {
+        final long now = clock.millis();
+        stats.values().forEach(gatewayStats -> gatewayStats.decay(now));
+        final List<String> ranked = new ArrayList<>(gateways);
+        ranked.sort(Comparator.comparingDouble(this::score)
+                .thenComparing(Comparator.comparingDouble(this::throughput).reversed()));
+        log.debug("Ranked gateways [gateways:{}]", ranked);
+        return ranked;
+    }
+
+    /**
+     * Record the delay between a request and the beginning of the response.
+     */
+    public synchronized void recordResponse(final String gateway, final long ttfbMillis) {
+        final GatewayStats gatewayStats = getStats(gateway);
+        gatewayStats.ttfbMillis = average(gatewayStats.ttfbMillis, ttfbMillis);
+        gatewayStats.failureScore *= 1 - EWMA_WEIGHT;
+    }
+
+    /**
+     * Record a complete transfer.
+     */
+    public synchronized void recordTransfer(final String gateway, final long bytes, final long durationMillis) {
+        final double throughput = bytes * 1_000d / Math.max(1, durationMillis);
+        final GatewayStats gatewayStats = getStats(gateway);
+        gatewayStats.throughput = average(gatewayStats.throughput, throughput);
+    }
+
+    /**
+     * Record a failed request or transfer.
+     */
+    public synchronized void recordFailure(final String gateway) {
+        getStats(gateway).failureScore += 1;
+    }
+
+    /**
+     * Persist statistics, replacing the stats file atomically.
+     */
+    public synchronized void save() {
+        if (statsFile == null) {
+            return;
+        }
+        final List<String> lines = new ArrayList<>();
+        lines.add(HEADER);
+        stats.forEach((gateway, gatewayStats) -> lines.add(String.join(SEPARATOR, gateway,
+                String.valueOf(gatewayStats.ttfbMillis),
+                String.valueOf(gatewayStats.throughput),
+                String.valueOf(gatewayStats.failureScore),
+                String.valueOf(gatewayStats.updatedAt))));
+        try {
+            final Path directory = statsFile.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            final Path tmpFile = Files.createTempFile(directory, "." + statsFile.getFileName(), ".tmp");
+            Files.write(tmpFile, lines, StandardCharsets.UTF_8);
+            Files.move(tmpFile, statsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to save gateway statistics [path:{}]", statsFile, e);
+        }
+    }
+
+    /**
+     * Expected cost of a request to a gateway in milliseconds, lower is better.
+     */
+    synchronized double score(final String gateway) {
+        final GatewayStats gatewayStats = stats.get(gateway);
+        if (gatewayStats == null) {
+            return UNKNOWN_TTFB_MILLIS;
+        }
+        final double ttfb = Double.isNaN(gatewayStats.ttfbMillis) ? UNKNOWN_TTFB_MILLIS : gatewayStats.ttfbMillis;
+        return ttfb + FAILURE_PENALTY_MILLIS * gatewayStats.failureScore;
+    }
+
+    private synchronized double throughput(final String gateway) {
+        final GatewayStats gatewayStats = stats.get(gateway);
+        return gatewayStats == null || Double.isNaN(gatewayStats.throughput) ? 0 : gatewayStats.throughput;
+    }
+
+    private GatewayStats getStats(final String gateway) {
+        final long now = clock.millis();
+        final GatewayStats gatewayStats = stats.computeIfAbsent(gateway, key -> new GatewayStats(now));
+        gatewayStats.decay(now);
+        return gatewayStats;
+    }
+
+    private static double average(final double current, final double sample) {
+        return Double.isNaN(current) ? sample : current + EWMA_WEIGHT * (sample - current);
+    }
+
+    private void parseLine(final String line) {
+        if (line.isBlank() || line.startsWith("#")) {
+            return;
+        }
+        final String[] fields = line.split(SEPARATOR);
+        try {
+            final GatewayStats gatewayStats = new GatewayStats(Long.parseLong(fields[4]));
+            gatewayStats.ttfbMillis = Double.parseDouble(fields[1]);
+            gatewayStats.throughput = Double.parseDouble(fields[2]);
+            gatewayStats.failureScore = Double.parseDouble(fields[3]);
+            stats.put(fields[0], gatewayStats);
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed gateway statistics line [path:{}, line:{}]", statsFile, line);
+        }
+    }
+
+    private static class GatewayStats {
+        private double ttfbMillis = Double.NaN;
+        private double throughput = Double.NaN;
+        private double failureScore;
+        private long updatedAt;
+
+        GatewayStats(long updatedAt) {
+            this.updatedAt = updatedAt;
+        }
+
+        void decay(final long now) {
+            if (now > updatedAt) {
+                failureScore *= Math.pow(0.5, (double) (now - updatedAt) / FAILURE_HALF_LIFE.toMillis());
+                updatedAt = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.download;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Races the same download against several sources and keeps the first successful one.
+ * <p>
+ * The first source is requested immediately. Each following source is requested once the hedge delay
+ * has elapsed without any response, or as soon as a previously started source fails.
+ * When a source wins, other requests are cancelled and late results are discarded. Sources failing
+ * before the race is over are reported as failed, cancelled sources are not.
+ *
+ * @param <T> type of a download result, {@literal null} meaning the download failed
+ */
+@Slf4j
+public class HedgedDownloader<T> {
+
+    private final Duration hedgeDelay;
+    private final Function<String, T> fetcher;
+    private final Consumer<T> discarder;
+    private final Consumer<String> failureListener;
+
+    /**
+     * @param hedgeDelay delay before requesting the next source, zero to request all sources at once
+     * @param fetcher    downloads from a URL, returns {@literal null} on failure
+     * @param discarder  releases a result which lost the race
+     */
+    public HedgedDownloader(Duration hedgeDelay, Function<String, T> fetcher, Consumer<T> discarder) {
+        this(hedgeDelay, fetcher, discarder, url -> {});
+    }
+
+    /**
+     * @param hedgeDelay      delay before requesting the next source, zero to request all sources at once
+     * @param fetcher         downloads from a URL, returns {@literal null} on failure
+     * @param discarder       releases a result which lost the race
+     * @param failureListener notified of the URL of a source which failed, not of a source cancelled
+     *                        once the race is over
+     */
+    public HedgedDownloader(Duration hedgeDelay, Function<String, T> fetcher, Consumer<T> discarder,
+                            Consumer<String> failureListener) {
+        this.hedgeDelay = hedgeDelay;
+        this.fetcher = fetcher;
+        this.discarder = discarder;
+        this.failureListener = failureListener;
+    }
+
+    /**
+     * Download from the first source delivering a result.
+     *
+     * @param urls sources to race, by order of preference
+     * @return the first successful result, or {@literal null} if all sources failed
+     * @throws InterruptedException if the current thread was interrupted while waiting
+     */
+    public T download(final List<String> urls) throws InterruptedException {
+        if (urls.isEmpty()) {
+            return null;
+        }
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(urls.size(), runnable -> {
+            final Thread thread = new Thread(runnable, "hedged-download-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        final Race race = new Race(executor);
+        try {
+            return race.run(urls);
+        } finally {
+            race.cancel();
+            executor.shutdownNow();
+            race.discardLateResults();
+        }
+    }
+
+    private record Outcome<T>(String url, T result) {
+    }
+
+    private class Race {
+        private final ExecutorService executor;
+        private final BlockingQueue<Outcome<T>> outcomes = new LinkedBlockingQueue<>();
+        private boolean isDone;
+        private volatile boolean isCancelled;
+
+        Race(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        T run(final List<String> urls) throws InterruptedException {
+            int started = 0;
+            int failed = 0;
+            start(urls.get(started++));
+            while (failed < urls.size()) {
+                final Outcome<T> outcome = started < urls.size()
+                        ? outcomes.poll(hedgeDelay.toMillis(), TimeUnit.MILLISECONDS)
+                        : outcomes.take();
+                if (outcome == null) {
+                    log.debug("No response within hedge delay, requesting next source [url:{}]", urls.get(started));
+                    start(urls.get(started++));
+                } else if (outcome.result() != null) {
+                    log.info("Download race won [url:{}, sourcesRequested:{}]", outcome.url(), started);
+                    return outcome.result();
+                } else {
+                    failed++;
+                    if (started < urls.size()) {
+                        start(urls.get(started++));
+                    }
+                }
+            }
+            return null;
+        }
+
+        private void start(final String url) {
+            executor.execute(() -> {
+                T result = null;
+                try {
+                    result = fetcher.apply(url);
+                } catch (RuntimeException e) {
+                    log.warn("Download failed [url:{}]", url, e);
+                }
+                if (result == null && !isCancelled) {
+                    failureListener.accept(url);
+                }
+                publish(new Outcome<>(url, result));
+            });
+        }
+
+        /**
+         * Mark pending requests as cancelled before they are interrupted, so that they are not reported as failed.
+         */
+        void cancel() {
+            isCancelled = true;
+        }
+
+        private void publish(final Outcome<T> outcome) {
+            synchronized (this) {
+                if (!isDone) {
+                    outcomes.add(outcome);
+                    return;
+                }
+            }
+            discard(outcome);
+        }
+
+        void discardLateResults() {
+            final List<Outcome<T>> lateOutcomes = new ArrayList<>();
+            synchronized (this) {
+                isDone = true;
+                outcomes.drainTo(lateOutcomes);
+            }
+            lateOutcomes.forEach(this::discard);
+        }
+
+        private void discard(final Outcome<T> outcome) {
+            if (outcome.result() != null) {
+                log.debug("Discarding download which lost the race [url:{}]", outcome.url());
+                discarder.accept(outcome.result());
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.iexec.worker.compute.pre.download;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads input file descriptors from a manifest, for tasks with too many input files for environment variables.
+ * <p>
+ * Each line describes a file: its URL, then optionally its size in bytes, or {@code -} if unknown, and its
+ * SHA-256 checksum, separated by spaces or tabs. Blank lines and lines starting with {@code #} are ignored.
+ * <pre>
+ * # url size checksum
+ * https://host/a.csv 1024 0x9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08
+ * https://host/b.csv -
+ * https://host/c.csv
+ * </pre>
+ * The manifest is read one line at a time, so that the first files can be downloaded before it is fully read.
+ */
+public class InputFileManifest implements Closeable {
+
+    private static final Pattern SEPARATOR = Pattern.compile("[ \t]+");
+    private static final Pattern CHECKSUM_PATTERN = Pattern.compile("^(0x)?[0-9a-fA-F]{64}$");
+
+    private final BufferedReader reader;
+    // content decoded from memory cannot fail to be read, read failures mean it is not valid gzip content
+    private final boolean isDecoded;
+    private int lineNumber;
+
+    InputFileManifest(final BufferedReader reader) {
+        this(reader, false);
+    }
+
+    private InputFileManifest(final BufferedReader reader, final boolean isDecoded) {
+        this.reader = reader;
+        this.isDecoded = isDecoded;
+    }
+
+    /**
+     * Open a manifest file.
+     *
+     * @param file path of the manifest
+     * @return the manifest, to be closed by the caller
+     * @throws IOException if the file could not be opened
+     */
+    public static InputFileManifest open(final Path file) throws IOException {
+        return new InputFileManifest(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read a manifest compressed with gzip and encoded in base64, as passed in an environment variable.
+     *
+     * @param encoded base64 encoding of the gzip compressed manifest
+     * @return the manifest, to be closed by the caller
+     * @throws InputFileManifestException if the value is not valid base64 or gzip content
+     */
+    public static InputFileManifest decode(final String encoded) throws InputFileManifestException {
+        final byte[] compressed;
+        try {
+            compressed = Base64.getDecoder().decode(encoded.trim());
+        } catch (IllegalArgumentException e) {
+            throw new InputFileManifestException("Input manifest is not valid base64", 0, e);
+        }
+        try {
+            return new InputFileManifest(new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(new ByteArrayInputStream(compressed)), StandardCharsets.UTF_8)), true);
+        } catch (IOException e) {
+            throw new InputFileManifestException("Input manifest is not valid gzip content", 0, e);
+        }
+    }
+
+    /**
+     * Read the next input file descriptor.
+     *
+     * @return the next descriptor, {@literal null} once the manifest has been fully read
+     * @throws InputFileManifestException if the manifest has an invalid line
+     * @throws IOException                if the manifest could not be read
+     */
+    public InputFileDescriptor next() throws IOException {
+        String line;
+        while ((line = readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                return parse(line);
+            }
+        }
+        return null;
+    }
+
+    private String readLine() throws IOException {
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            if (isDecoded) {
+                throw new InputFileManifestException("Input manifest is not valid gzip content", lineNumber + 1, e);
+            }
+            throw e;
+        }
+    }
+
+    private InputFileDescriptor parse(final String line) throws InputFileManifestException {
+        final String[] fields = SEPARATOR.split(line);
+        if (fields.length > 3) {
+            throw invalidLine("too many fields");
+        }
+        final InputFileDescriptor descriptor = InputFileDescriptor.builder().url(fields[0]).build();
+        if (fields.length > 1 && !"-".equals(fields[1])) {
+            try {
+                descriptor.setSize(Long.parseLong(fields[1]));
+            } catch (NumberFormatException e) {
+                throw invalidLine("invalid size");
+            }
+            if (descriptor.getSize() < 0) {
+                throw invalidLine("invalid size");
+            }
+        }
+        if (fields.length > 2) {
+            if (!CHECKSUM_PATTERN.matcher(fields[2]).matches()) {
+                throw invalidLine("invalid checksum");
+            }
+            descriptor.setChecksum(fields[2]);
+        }
+        return descriptor;
+    }
+
+    private InputFileManifestException invalidLine(final String reason) {
+        return new InputFileManifestException("Invalid input manifest line " + lineNumber + ": " + reason, lineNumber);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.download;
+
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * Thrown when an input manifest is malformed, as opposed to a manifest which could not be read.
+ */
+public class InputFileManifestException extends IOException {
+
+    // line of the manifest at fault, 0 if the manifest could not be decoded as a whole
+    @Getter
+    private final int lineNumber;
+
+    public InputFileManifestException(String message, int lineNumber) {
+        super(message);
+        this.lineNumber = lineNumber;
+    }
+
+    public InputFileManifestException(String message, int lineNumber, Throwable cause) {
+        super(message, cause);
+        this.lineNumber = lineNumber;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.iexec.worker.compute.pre.download;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Decides which input files are downloaded and in which order.
+ * <p>
+ * Each file of the output folder is downloaded once: duplicate URLs are dropped and, when distinct URLs
+ * are saved under the same name, only the last one is downloaded since it would overwrite the others.
+ * Downloads are then ordered largest first, which shortens the total duration when they share a bounded
+ * number of connections. Files of unknown length are started first, as they may be the largest ones,
+ * and files of equal or unknown length keep their original order.
+ */
+@Slf4j
+public class InputFileScheduler {
+
+    private InputFileScheduler() {
+    }
+
+    /**
+     * Get the downloads to run, in the order they should be started.
+     *
+     * @param urls            URLs of the input files, in task order
+     * @param fileName        name under which a URL is saved
+     * @param announcedLength announced length of a URL, negative if unknown
+     * @return distinct URLs to download, largest first
+     */
+    public static List<String> schedule(final List<String> urls,
+                                        final Function<String, String> fileName,
+                                        final ToLongFunction<String> announcedLength) {
+        final Map<String, String> urlByFileName = new LinkedHashMap<>();
+        for (final String url : urls) {
+            final String previousUrl = urlByFileName.put(fileName.apply(url), url);
+            if (previousUrl != null && !previousUrl.equals(url)) {
+                log.warn("Input file overwritten by a later one, skipping it [url:{}, overwrittenBy:{}]",
+                        previousUrl, url);
+            }
+        }
+        final List<String> scheduled = new ArrayList<>(urlByFileName.values());
+        // a stable sort keeps the task order of files of equal or unknown length
+        scheduled.sort(Comparator.comparingLong((String url) -> {
+            final long length = announcedLength.applyAsLong(url);
+            return length < 0 ? Long.MAX_VALUE : length;
+        }).reversed());
+        return scheduled;
+    }
+}
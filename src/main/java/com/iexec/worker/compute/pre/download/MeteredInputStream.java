@@ -0,0 +1,133 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.download;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts bytes read from a stream and notifies a listener once the transfer ends.
+ */
+public class MeteredInputStream extends FilterInputStream {
+
+    public interface TransferListener {
+        void onTransferCompleted(long bytes, long durationMillis);
+
+        void onTransferFailed(IOException e);
+    }
+
+    private final TransferListener listener;
+    private final long start = System.nanoTime();
+    private long bytesRead;
+    private boolean isEnded;
+
+    /**
+     * Count bytes read from a stream without notifying anyone, see {@link #getBytesRead()}.
+     */
+    public MeteredInputStream(InputStream in) {
+        this(in, new TransferListener() {
+            @Override
+            public void onTransferCompleted(long bytes, long durationMillis) {
+                // only counting
+            }
+
+            @Override
+            public void onTransferFailed(IOException e) {
+                // only counting
+            }
+        });
+    }
+
+    public MeteredInputStream(InputStream in, TransferListener listener) {
+        super(in);
+        this.listener = listener;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public int read() throws IOException {
+        try {
+            final int b = super.read();
+            if (b == -1) {
+                complete();
+            } else {
+                bytesRead++;
+            }
+            return b;
+        } catch (IOException e) {
+            fail(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        try {
+            final int read = super.read(b, off, len);
+            if (read == -1) {
+                complete();
+            } else {
+                bytesRead += read;
+            }
+            return read;
+        } catch (IOException e) {
+            fail(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        final long skipped = super.skip(n);
+        bytesRead += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Close the stream. A transfer closed before its end, such as a download which lost a race,
+     * is neither completed nor failed.
+     */
+    @Override
+    public void close() throws IOException {
+        isEnded = true;
+        super.close();
+    }
+
+    private void complete() {
+        if (!isEnded) {
+            isEnded = true;
+            listener.onTransferCompleted(bytesRead, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    private void fail(final IOException e) {
+        if (!isEnded) {
+            isEnded = true;
+            listener.onTransferFailed(e);
+        }
+    }
+}
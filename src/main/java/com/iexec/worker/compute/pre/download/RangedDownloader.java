@@ -0,0 +1,262 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.download;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downloads a resource over several connections with HTTP range requests.
+ * <p>
+ * The resource is split into fixed-size chunks fetched concurrently. When several sources serve the same
+ * resource, chunks are striped across them and a failed chunk is retried on the next source.
+ * Chunks are delivered in order as a single stream, at most {@code 2 * parallelism} chunks being
+ * buffered at any time.
+ */
+@Slf4j
+public class RangedDownloader {
+
+    static final Duration PROBE_TIMEOUT = Duration.ofSeconds(5);
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_PARTIAL = 206;
+
+    private final DownloadClient client;
+    private final int chunkSize;
+    private final int parallelism;
+
+    /**
+     * @param chunkSize   size of the chunks, strictly positive
+     * @param parallelism maximum number of concurrent range requests
+     * @throws IllegalArgumentException if the chunk size is not strictly positive
+     */
+    public RangedDownloader(DownloadClient client, int chunkSize, int parallelism) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be strictly positive [chunkSize:" + chunkSize + "]");
+        }
+        this.client = client;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Open a ranged download stream if worth it.
+     * <p>
+     * Sources are probed concurrently. Only sources accepting byte ranges and announcing the same size
+     * as the preferred responding source are kept.
+     *
+     * @param urls sources of the same resource, by order of preference
+     * @return a stream on the resource, {@literal null} if no source accepts ranges
+     * or if the resource is too small to be split
+     */
+    public InputStream open(final List<String> urls) {
+        final Map<String, Long> sizes = probe(urls);
+        long size = -1;
+        final List<String> sources = new ArrayList<>();
+        for (final String url : urls) {
+            final long sourceSize = sizes.getOrDefault(url, -1L);
+            if (sourceSize < 0 || (size >= 0 && sourceSize != size)) {
+                continue;
+            }
+            size = sourceSize;
+            sources.add(url);
+        }
+        if (sources.isEmpty() || size < 2L * chunkSize) {
+            log.debug("Ranged download not applicable [size:{}, sources:{}]", size, sources.size());
+            return null;
+        }
+        log.info("Starting ranged download [size:{}, chunkSize:{}, connections:{}, sources:{}]",
+                size, chunkSize, parallelism, sources.size());
+        return new RangedInputStream(sources, size);
+    }
+
+    /**
+     * Get the size of a resource if its source accepts byte ranges.
+     *
+     * @param url source URL
+     * @return the resource size, -1 if unknown or if ranges are not accepted
+     */
+    long probeSize(final String url) {
+        try (DownloadClient.Response response = client.head(url, PROBE_TIMEOUT)) {
+            if (response.getStatus() != HTTP_OK
+                    || !"bytes".equalsIgnoreCase(response.getHeader("Accept-Ranges"))) {
+                return -1;
+            }
+            return response.getContentLength();
+        } catch (IOException e) {
+            log.debug("Failed to probe source [url:{}]", url, e);
+            return -1;
+        }
+    }
+
+    private Map<String, Long> probe(final List<String> urls) {
+        final Map<String, Long> sizes = new ConcurrentHashMap<>();
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, urls.size()), runnable -> {
+            final Thread thread = new Thread(runnable, "ranged-download-probe-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            urls.forEach(url -> futures.add(executor.submit(() -> sizes.put(url, probeSize(url)))));
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.warn("Failed to probe sources", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return sizes;
+    }
+
+    /**
+     * Fetch a chunk, trying each source in turn starting from the one assigned to the chunk.
+     */
+    byte[] fetchChunk(final List<String> urls, final int index, final long size) throws IOException {
+        final long start = (long) index * chunkSize;
+        final long end = Math.min(size, start + chunkSize) - 1;
+        IOException lastFailure = null;
+        for (int attempt = 0; attempt < urls.size(); attempt++) {
+            final String url = urls.get((index + attempt) % urls.size());
+            try {
+                return fetchRange(url, start, end);
+            } catch (IOException e) {
+                log.warn("Failed to download chunk, trying next source [url:{}, chunk:{}, attempt:{}]",
+                        url, index, attempt + 1, e);
+                lastFailure = e;
+            }
+        }
+        throw new IOException("Failed to download chunk " + index + " from all sources", lastFailure);
+    }
+
+    private byte[] fetchRange(final String url, final long start, final long end) throws IOException {
+        try (DownloadClient.Response response = client.get(url, Map.of("Range", "bytes=" + start + "-" + end))) {
+            if (response.getStatus() != HTTP_PARTIAL) {
+                throw new IOException("Unexpected response status " + response.getStatus());
+            }
+            final int length = (int) (end - start + 1);
+            final byte[] chunk = response.getBody().readNBytes(length);
+            if (chunk.length != length) {
+                throw new IOException("Truncated chunk [expected:" + length + ", actual:" + chunk.length + "]");
+            }
+            return chunk;
+        }
+    }
+
+    private class RangedInputStream extends InputStream {
+        private final List<String> urls;
+        private final long size;
+        private final int chunkCount;
+        private final ExecutorService executor;
+        private final Deque<Future<byte[]>> pendingChunks = new ArrayDeque<>();
+        private int nextChunk;
+        private byte[] currentChunk = new byte[0];
+        private int position;
+
+        RangedInputStream(List<String> urls, long size) {
+            this.urls = urls;
+            this.size = size;
+            this.chunkCount = (int) ((size + chunkSize - 1) / chunkSize);
+            final AtomicInteger threadCount = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+                final Thread thread = new Thread(runnable, "ranged-download-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduleChunks();
+        }
+
+        private void scheduleChunks() {
+            while (pendingChunks.size() < 2 * parallelism && nextChunk < chunkCount) {
+                final int index = nextChunk++;
+                pendingChunks.add(executor.submit(() -> fetchChunk(urls, index, size)));
+            }
+        }
+
+        private boolean loadNextChunk() throws IOException {
+            final Future<byte[]> pendingChunk = pendingChunks.poll();
+            if (pendingChunk == null) {
+                return false;
+            }
+            scheduleChunks();
+            try {
+                currentChunk = pendingChunk.get(
+                        client.getReadTimeout().toMillis() * 2L * urls.size(), TimeUnit.MILLISECONDS);
+                position = 0;
+                return true;
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException ioException ? ioException : new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Ranged download interrupted");
+            } catch (TimeoutException e) {
+                throw new IOException("Timeout while waiting for chunk", e);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == currentChunk.length && !loadNextChunk()) {
+                return -1;
+            }
+            return currentChunk[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (position == currentChunk.length) {
+                if (!loadNextChunk()) {
+                    return -1;
+                }
+            }
+            final int read = Math.min(len, currentChunk.length - position);
+            System.arraycopy(currentChunk, position, b, off, read);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public void close() {
+            pendingChunks.forEach(pendingChunk -> pendingChunk.cancel(true));
+            pendingChunks.clear();
+            executor.shutdownNow();
+        }
+    }
+}
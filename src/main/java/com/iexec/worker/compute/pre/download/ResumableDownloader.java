@@ -0,0 +1,334 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.download;
+
+import com.iexec.worker.compute.pre.utils.FileUtils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downloads files through a staging folder so that an interrupted download can be resumed.
+ * <p>
+ * Bytes are appended to a {@code .part} file in the staging folder. Every {@code checkpointInterval} bytes,
+ * the part file is flushed to disk and a checkpoint recording the number of persisted bytes and the
+ * validator of the remote resource ({@code ETag} or {@code Last-Modified}) is written next to it.
+ * A following download of the same target resumes from the checkpoint with a {@code Range} request,
+ * guarded by {@code If-Range} so that a modified resource is downloaded again from the beginning.
+ * A download whose response fails is resumed the same way within the same call, as long as the
+ * {@link RetryPolicy} of the client allows it. The target file is only created once the download is complete.
+ */
+@Slf4j
+public class ResumableDownloader {
+
+    static final String PART_SUFFIX = ".part";
+    static final String CHECKPOINT_SUFFIX = ".checkpoint";
+    static final long CHECKPOINT_INTERVAL = 4L * 1024 * 1024;
+    static final int BUFFER_SIZE = 64 * 1024;
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_PARTIAL = 206;
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+    private static final String VALIDATOR = "validator";
+    private static final String LENGTH = "length";
+    private static final String TOTAL_LENGTH = "totalLength";
+
+    private final DownloadClient client;
+    @Getter
+    private final Path stagingDir;
+    private final long checkpointInterval;
+
+    public ResumableDownloader(DownloadClient client, Path stagingDir) {
+        this(client, stagingDir, CHECKPOINT_INTERVAL);
+    }
+
+    ResumableDownloader(DownloadClient client, Path stagingDir, long checkpointInterval) {
+        this.client = client;
+        this.stagingDir = stagingDir;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Download a resource to a target file, resuming a previous partial download of the same target if possible.
+     * On failure, the download is resumed while retries are left, and the bytes persisted so far are then kept
+     * in the staging folder for a later attempt.
+     *
+     * @param url    URL of the resource
+     * @param target file to create
+     * @throws IOException if the download failed
+     */
+    public void download(final String url, final Path target) throws IOException {
+        download(InputFileDescriptor.builder().url(url).build(), target);
+    }
+
+    /**
+     * Download a file to a target file, resuming a previous partial download of the same target if possible,
+     * and check its declared size and checksum if any before creating the target.
+     * Bytes persisted by a previous attempt are read back to compute the checksum, later ones are checked
+     * while written. A file which does not match is removed from the staging folder.
+     *
+     * @param file   URL and expected size and checksum of the file
+     * @param target file to create
+     * @throws IOException if the download failed or if the file does not match
+     */
+    public void download(final InputFileDescriptor file, final Path target) throws IOException {
+        final String url = file.getUrl();
+        final ContentVerifier verifier = new ContentVerifier(file);
+        final String name = target.getFileName().toString();
+        final Path partFile = stagingDir.resolve(name + PART_SUFFIX);
+        final Path checkpointFile = stagingDir.resolve(name + CHECKPOINT_SUFFIX);
+        final AtomicInteger attempts = new AtomicInteger();
+        local(() -> Files.createDirectories(stagingDir));
+        while (true) {
+            try {
+                downloadOnce(url, partFile, checkpointFile, verifier, attempts);
+                break;
+            } catch (DownloadClient.FileWriteException | UnexpectedStatusException e) {
+                throw e;
+            } catch (IOException e) {
+                // the next attempt resumes from the last checkpoint
+                if (!client.awaitRetry(url, attempts.get(), e)) {
+                    throw e;
+                }
+            }
+        }
+        try {
+            verifier.verify();
+        } catch (ContentVerifier.MismatchException e) {
+            // a resumed download would end with the same content
+            Files.deleteIfExists(partFile);
+            Files.deleteIfExists(checkpointFile);
+            throw e;
+        }
+        publish(partFile, target);
+        Files.deleteIfExists(checkpointFile);
+    }
+
+    private void downloadOnce(final String url, final Path partFile, final Path checkpointFile,
+                              final ContentVerifier verifier, final AtomicInteger attempts) throws IOException {
+        verifier.reset();
+        final Checkpoint checkpoint = readCheckpoint(checkpointFile, partFile);
+        final Map<String, String> headers = checkpoint == null ? Map.of() : Map.of(
+                "Range", "bytes=" + checkpoint.length() + "-",
+                "If-Range", checkpoint.validator());
+        try (DownloadClient.Response response = client.get(url, headers, attempts)) {
+            final int status = response.getStatus();
+            if (checkpoint != null && status == HTTP_PARTIAL && isResumedAt(response, checkpoint.length())) {
+                log.info("Resuming download [url:{}, offset:{}]", url, checkpoint.length());
+                local(() -> verifier.update(partFile, checkpoint.length()));
+                transfer(response, partFile, checkpointFile, checkpoint, verifier);
+            } else if (checkpoint != null && status == HTTP_RANGE_NOT_SATISFIABLE
+                    && checkpoint.length() == checkpoint.totalLength()) {
+                log.info("Download already complete [url:{}, bytes:{}]", url, checkpoint.length());
+                local(() -> verifier.update(partFile, checkpoint.length()));
+            } else if (status == HTTP_OK) {
+                if (checkpoint != null) {
+                    log.info("Resource changed or ranges not supported, restarting download [url:{}]", url);
+                }
+                final long totalLength = response.getContentLength();
+                transfer(response, partFile, checkpointFile, new Checkpoint(getValidator(response), 0, totalLength),
+                        verifier);
+            } else {
+                if (status == HTTP_RANGE_NOT_SATISFIABLE) {
+                    local(() -> Files.deleteIfExists(checkpointFile));
+                }
+                throw new UnexpectedStatusException(status);
+            }
+        }
+    }
+
+    private void transfer(final DownloadClient.Response response, final Path partFile, final Path checkpointFile,
+                          final Checkpoint start, final ContentVerifier verifier) throws IOException {
+        if (start.validator() == null) {
+            local(() -> Files.deleteIfExists(checkpointFile));
+        }
+        final long totalLength = start.totalLength() >= 0 ? start.totalLength() : getTotalLength(response, start);
+        long written = start.length();
+        try (InputStream in = response.getBody();
+             FileChannel channel = openPartFile(partFile, written)) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            long checkpointed = written;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+                local(() -> {
+                    while (byteBuffer.hasRemaining()) {
+                        channel.write(byteBuffer);
+                    }
+                });
+                verifier.update(buffer, 0, read);
+                written += read;
+                if (written - checkpointed >= checkpointInterval) {
+                    checkpoint(channel, checkpointFile, new Checkpoint(start.validator(), written, totalLength));
+                    checkpointed = written;
+                }
+            }
+            checkpoint(channel, checkpointFile, new Checkpoint(start.validator(), written, totalLength));
+        }
+        if (totalLength >= 0 && written != totalLength) {
+            throw new IOException("Incomplete download [expected:" + totalLength + ", actual:" + written + "]");
+        }
+    }
+
+    private FileChannel openPartFile(final Path partFile, final long length) throws IOException {
+        final FileChannel channel;
+        try {
+            channel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new DownloadClient.FileWriteException(e);
+        }
+        try {
+            channel.truncate(length);
+            channel.position(length);
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw new DownloadClient.FileWriteException(e);
+        }
+    }
+
+    private void checkpoint(final FileChannel channel, final Path checkpointFile, final Checkpoint checkpoint)
+            throws IOException {
+        local(() -> {
+            channel.force(false);
+            writeCheckpoint(checkpointFile, checkpoint);
+        });
+    }
+
+    /**
+     * Run a local file system operation, whose failure is never retried.
+     */
+    private static void local(final LocalOperation operation) throws DownloadClient.FileWriteException {
+        try {
+            operation.run();
+        } catch (IOException e) {
+            throw new DownloadClient.FileWriteException(e);
+        }
+    }
+
+    private void publish(final Path partFile, final Path target) throws IOException {
+        FileUtils.setPublishedFilePermissions(partFile);
+        try {
+            Files.move(partFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Get a strong validator of the resource, weak entity tags cannot be used in {@code If-Range} requests.
+     */
+    private String getValidator(final DownloadClient.Response response) {
+        final String etag = response.getHeader("ETag");
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return response.getHeader("Last-Modified");
+    }
+
+    private boolean isResumedAt(final DownloadClient.Response response, final long offset) {
+        final String contentRange = response.getHeader("Content-Range");
+        return contentRange != null && contentRange.startsWith("bytes " + offset + "-");
+    }
+
+    private long getTotalLength(final DownloadClient.Response response, final Checkpoint start) {
+        final String contentRange = response.getHeader("Content-Range");
+        if (contentRange != null && !contentRange.endsWith("/*")) {
+            try {
+                return Long.parseLong(contentRange.substring(contentRange.lastIndexOf('/') + 1));
+            } catch (NumberFormatException e) {
+                log.debug("Invalid Content-Range header [value:{}]", contentRange);
+            }
+        }
+        final long contentLength = response.getContentLength();
+        return contentLength >= 0 ? start.length() + contentLength : -1;
+    }
+
+    private Checkpoint readCheckpoint(final Path checkpointFile, final Path partFile) {
+        if (!Files.isRegularFile(checkpointFile) || !Files.isRegularFile(partFile)) {
+            return null;
+        }
+        final Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+            final Checkpoint checkpoint = new Checkpoint(properties.getProperty(VALIDATOR),
+                    Long.parseLong(properties.getProperty(LENGTH)),
+                    Long.parseLong(properties.getProperty(TOTAL_LENGTH)));
+            if (checkpoint.validator() == null || checkpoint.length() <= 0
+                    || Files.size(partFile) < checkpoint.length()) {
+                return null;
+            }
+            return checkpoint;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring invalid download checkpoint [path:{}]", checkpointFile, e);
+            return null;
+        }
+    }
+
+    private void writeCheckpoint(final Path checkpointFile, final Checkpoint checkpoint) throws IOException {
+        if (checkpoint.validator() == null) {
+            return;
+        }
+        final Properties properties = new Properties();
+        properties.setProperty(VALIDATOR, checkpoint.validator());
+        properties.setProperty(LENGTH, String.valueOf(checkpoint.length()));
+        properties.setProperty(TOTAL_LENGTH, String.valueOf(checkpoint.totalLength()));
+        final Path tmpFile = Files.createTempFile(stagingDir, "." + checkpointFile.getFileName(), ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        Files.move(tmpFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Bytes of a resource persisted in a part file.
+     *
+     * @param validator   {@code ETag} or {@code Last-Modified} value of the resource, {@literal null} if none
+     * @param length      number of bytes flushed to the part file
+     * @param totalLength size of the resource, -1 if unknown
+     */
+    private record Checkpoint(String validator, long length, long totalLength) {
+    }
+
+    @FunctionalInterface
+    private interface LocalOperation {
+        void run() throws IOException;
+    }
+
+    /**
+     * Response status which is neither a transient failure nor a resumable response.
+     */
+    private static class UnexpectedStatusException extends IOException {
+        UnexpectedStatusException(int status) {
+            super("Unexpected response status " + status);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.download;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads a resource from an open stream, requesting the rest of the resource with a {@code Range} request
+ * when reading fails midway, from the same source first and then from the other sources in order.
+ * <p>
+ * Each resumed request counts as one attempt of the download, resuming being allowed by the {@link RetryPolicy}
+ * of the client. A source not supporting ranges serves the resource from the beginning again, bytes already
+ * read being skipped. Resumed bytes are not guarded by a validator, the checksum of the whole resource
+ * must be verified by the reader.
+ */
+@Slf4j
+public class ResumingInputStream extends InputStream {
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_PARTIAL = 206;
+
+    private final DownloadClient client;
+    private final List<String> urls;
+    // the request which opened the stream is the first attempt
+    private final AtomicInteger attempts = new AtomicInteger(1);
+    private InputStream in;
+    private int source;
+    private long position;
+    private volatile boolean isClosed;
+
+    /**
+     * @param client client sending resumed requests
+     * @param in     open stream on the resource
+     * @param urls   sources of the resource by order of preference, starting with the one serving the stream
+     */
+    public ResumingInputStream(DownloadClient client, InputStream in, List<String> urls) {
+        this.client = client;
+        this.in = in;
+        this.urls = urls;
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (true) {
+            try {
+                final int b = in.read();
+                if (b != -1) {
+                    position++;
+                }
+                return b;
+            } catch (IOException e) {
+                resume(e);
+            }
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        while (true) {
+            try {
+                final int read = in.read(b, off, len);
+                if (read > 0) {
+                    position += read;
+                }
+                return read;
+            } catch (IOException e) {
+                resume(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        isClosed = true;
+        in.close();
+    }
+
+    /**
+     * Replace the failed stream with a stream on the rest of the resource.
+     *
+     * @param failure failure of the current stream
+     * @throws IOException the failure, if it cannot be retried or if no source serves the rest of the resource
+     */
+    private void resume(final IOException failure) throws IOException {
+        closeQuietly(in);
+        if (isClosed || !client.awaitRetry(urls.get(source), attempts.get(), failure)) {
+            throw failure;
+        }
+        for (int i = 0; i < urls.size(); i++) {
+            final int candidate = (source + i) % urls.size();
+            final InputStream resumed = open(urls.get(candidate));
+            if (resumed != null) {
+                in = resumed;
+                source = candidate;
+                return;
+            }
+        }
+        throw failure;
+    }
+
+    private InputStream open(final String url) {
+        DownloadClient.Response response = null;
+        try {
+            response = client.get(url, Map.of("Range", "bytes=" + position + "-"), attempts);
+            final int status = response.getStatus();
+            final String contentRange = response.getHeader("Content-Range");
+            if (status == HTTP_PARTIAL && contentRange != null && contentRange.startsWith("bytes " + position + "-")) {
+                log.info("Resuming download [url:{}, offset:{}]", url, position);
+                return response.getBody();
+            }
+            if (status == HTTP_OK) {
+                log.info("Ranges not supported, skipping bytes already read [url:{}, offset:{}]", url, position);
+                final InputStream body = response.getBody();
+                body.skipNBytes(position);
+                return body;
+            }
+            log.warn("Failed to resume download [url:{}, offset:{}, status:{}]", url, position, status);
+        } catch (IOException e) {
+            log.warn("Failed to resume download [url:{}, offset:{}]", url, position, e);
+        }
+        if (response != null) {
+            response.close();
+        }
+        return null;
+    }
+
+    private static void closeQuietly(final InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            log.debug("Failed to close failed stream", e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.download;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.UnknownHostException;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.FileSystemException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides whether a failed download request is worth retrying, and when.
+ * <p>
+ * Timeouts, connection failures and server-side statuses ({@code 408}, {@code 425}, {@code 429} and {@code 5xx}
+ * gateway or availability errors) are transient and retried, while invalid URLs, unknown hosts, TLS failures,
+ * local file system failures and other client errors are not. Retries are delayed with an exponential backoff
+ * with full jitter, a {@code Retry-After} header extending the delay up to the maximum backoff.
+ * <p>
+ * All downloads of a task share a retry budget, so that a failing source cannot delay the task indefinitely.
+ */
+@Slf4j
+public class RetryPolicy {
+
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(408, 425, 429, 500, 502, 503, 504);
+
+    @Getter
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final AtomicInteger remainingBudget;
+
+    /**
+     * @param maxAttempts    maximum number of attempts of a single request, 1 to disable retries
+     * @param initialBackoff upper bound of the delay before the first retry, doubled for each following retry
+     * @param maxBackoff     maximum delay before a retry
+     * @param retryBudget    maximum number of retries shared by all requests
+     */
+    public RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff, int retryBudget) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.remainingBudget = new AtomicInteger(Math.max(0, retryBudget));
+    }
+
+    /**
+     * @return a policy never retrying
+     */
+    public static RetryPolicy noRetry() {
+        return new RetryPolicy(1, Duration.ZERO, Duration.ZERO, 0);
+    }
+
+    public int getRemainingBudget() {
+        return remainingBudget.get();
+    }
+
+    /**
+     * Check whether a response status denotes a transient failure.
+     */
+    public boolean isRetryable(final int status) {
+        return RETRYABLE_STATUSES.contains(status);
+    }
+
+    /**
+     * Check whether a failure to send a request or to read its response is transient.
+     * Local file system failures are never transient, callers must not submit other local failures.
+     */
+    public boolean isRetryable(final IOException e) {
+        if (e instanceof HttpTimeoutException) {
+            return true;
+        }
+        return !(e instanceof InterruptedIOException)
+                && !(e instanceof FileSystemException)
+                && !(e instanceof UnknownHostException)
+                && !(e instanceof SSLException)
+                && !(e.getCause() instanceof IllegalArgumentException);
+    }
+
+    /**
+     * Get the delay before the next attempt, consuming one retry of the budget.
+     *
+     * @param attempt    number of attempts already made
+     * @param retryAfter delay requested by the server, {@literal null} if none
+     * @return the delay before the next attempt, {@literal null} if the request must not be retried
+     */
+    public Duration nextBackoff(final int attempt, final Duration retryAfter) {
+        if (attempt >= maxAttempts) {
+            return null;
+        }
+        if (remainingBudget.getAndUpdate(budget -> Math.max(0, budget - 1)) == 0) {
+            log.warn("Download retry budget exhausted [attempt:{}]", attempt);
+            return null;
+        }
+        final long ceiling = Math.min(maxBackoff.toMillis(),
+                initialBackoff.toMillis() << Math.min(attempt - 1, 30));
+        long backoff = ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling + 1) : 0;
+        if (retryAfter != null) {
+            backoff = Math.max(backoff, Math.min(maxBackoff.toMillis(), retryAfter.toMillis()));
+        }
+        return Duration.ofMillis(backoff);
+    }
+
+    /**
+     * Parse a {@code Retry-After} header given in seconds, HTTP dates are ignored.
+     *
+     * @return the requested delay, {@literal null} if absent or not a number of seconds
+     */
+    static Duration parseRetryAfter(final String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
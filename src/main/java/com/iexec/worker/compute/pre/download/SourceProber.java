@@ -0,0 +1,136 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.iexec.worker.compute.pre.download;
+
+import com.iexec.worker.compute.pre.PreComputeException;
+import com.iexec.worker.compute.pre.utils.TaskScope;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Probes download sources with concurrent HEAD requests, before any content is downloaded.
+ * <p>
+ * Only a source answering that its resource does not exist is reported as missing. Sources which could not
+ * be reached in time, reject HEAD requests or do not announce a length are left unknown, their download
+ * being in charge of reporting the failure if any. Probes are sent once and never retried, so that they do not
+ * consume the retry budget of the downloads.
+ */
+@Slf4j
+public class SourceProber {
+
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(5);
+
+    private final DownloadClient client;
+    private final Duration timeout;
+    private final int parallelism;
+
+    public SourceProber(final DownloadClient client, final Duration timeout, final int parallelism) {
+        this.client = client;
+        this.timeout = timeout;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Probe sources concurrently, each distinct URL being requested once.
+     *
+     * @param urls URLs of the sources
+     * @return the probe of each distinct URL
+     * @throws InterruptedException if interrupted while waiting for probes
+     */
+    public Map<String, Probe> probe(final Collection<String> urls) throws InterruptedException {
+        final Collection<String> distinctUrls = new LinkedHashSet<>(urls);
+        final Map<String, Probe> probes = new ConcurrentHashMap<>();
+        try (TaskScope scope = new TaskScope("source-probe", Math.min(parallelism, distinctUrls.size()))) {
+            for (final String url : distinctUrls) {
+                scope.fork(() -> probes.put(url, probe(url)));
+            }
+            scope.join();
+        } catch (PreComputeException e) {
+            // probes never throw, their failures are reported as unknown
+            throw new IllegalStateException(e);
+        }
+        return probes;
+    }
+
+    /**
+     * Probe a single source.
+     *
+     * @param url URL of the source
+     * @return the probe of the source
+     */
+    public Probe probe(final String url) {
+        try (DownloadClient.Response response = client.headOnce(url, timeout)) {
+            final int status = response.getStatus();
+            if (status == 404 || status == 410) {
+                return new Probe(true, status, -1);
+            }
+            if (status / 100 != 2) {
+                log.debug("Source length unknown [url:{}, status:{}]", url, status);
+                return new Probe(false, status, -1);
+            }
+            return new Probe(false, status, response.getContentLength());
+        } catch (IOException e) {
+            log.debug("Failed to probe source [url:{}]", url, e);
+            return Probe.UNREACHABLE;
+        }
+    }
+
+    /**
+     * Outcome of a source probe.
+     */
+    public static class Probe {
+        private static final Probe UNREACHABLE = new Probe(false, -1, -1);
+
+        private final boolean missing;
+        private final int status;
+        private final long length;
+
+        private Probe(final boolean missing, final int status, final long length) {
+            this.missing = missing;
+            this.status = status;
+            this.length = length;
+        }
+
+        /**
+         * @return whether the source answered that its resource does not exist
+         */
+        public boolean isMissing() {
+            return missing;
+        }
+
+        /**
+         * @return the status answered by the source, -1 if it could not be reached
+         */
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * @return the announced length of the resource, -1 if unknown
+         */
+        public long getLength() {
+            return length;
+        }
+    }
+}
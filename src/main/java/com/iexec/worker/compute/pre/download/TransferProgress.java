@@ -0,0 +1,50 @@
+/*
+ * Copyright 2022-2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iexec.worker.compute.pre.download;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts bytes received by all downloads of a task, and bytes announced by their responses.
+ * <p>
+ * Responses closed before their end, such as failed attempts or responses discarded by a race, are withdrawn
+ * from both counters. Each download is then counted once, by the response completing it, and the ratio
+ * of both counters reaches 1 once all downloads are complete.
+ */
+public class TransferProgress {
+
+    private final AtomicLong bytesTransferred = new AtomicLong();
+    private final AtomicLong expectedBytes = new AtomicLong();
+
+    public void addTransferred(final long bytes) {
+        bytesTransferred.addAndGet(bytes);
+    }
+
+    public void addExpected(final long bytes) {
+        expectedBytes.addAndGet(bytes);
+    }
+
+    public long getBytesTransferred() {
+        return bytesTransferred.get();
+    }
+
+    /**
+     * @return the sum of the announced sizes of responses, responses of unknown size being ignored
+     */
+    public long getExpectedBytes() {
+        return expectedBytes.get();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2022-2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iexec.worker.compute.pre.metrics;
+
+import com.iexec.common.replicate.ReplicateStatusCause;
+import com.iexec.worker.api.PreComputeMetricsMessage;
+import com.iexec.worker.api.StageMetrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the duration and the size of the content processed by each stage of a pre-compute run.
+ * <p>
+ * Stages may be recorded from several threads, input files being downloaded concurrently with the dataset.
+ * When the dataset is streamed, download, checksum, decryption and saving happen in a single pass
+ * recorded as the {@link #STREAM} stage. Startup stages, recorded by {@link StartupTrace}, span the time
+ * spent before the run starts.
+ */
+public class PreComputeMetrics {
+
+    public static final String ARGS = "args";
+    public static final String PREFLIGHT = "preflight";
+    public static final String DOWNLOAD = "download";
+    public static final String CHECKSUM = "checksum";
+    public static final String DECRYPT = "decrypt";
+    public static final String SAVE = "save";
+    public static final String STREAM = "stream";
+    public static final String INPUT_FILE_PREFIX = "input-file:";
+    public static final String JVM_STARTUP = "jvm-startup";
+    public static final String RUNNER_STARTUP = "runner-startup";
+
+    private final long start = System.nanoTime();
+    private final List<StageMetrics> stages = new CopyOnWriteArrayList<>();
+
+    /**
+     * Start timing a stage, recorded once closed.
+     *
+     * @param name name of the stage
+     * @return the running stage
+     */
+    public Stage start(final String name) {
+        return new Stage(name);
+    }
+
+    /**
+     * Record a stage which was timed elsewhere.
+     *
+     * @param name          name of the stage
+     * @param durationNanos duration of the stage
+     */
+    public void record(final String name, final long durationNanos) {
+        add(name, durationNanos, 0);
+    }
+
+    private void add(final String name, final long durationNanos, final long bytes) {
+        stages.add(StageMetrics.builder()
+                .name(name)
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(durationNanos))
+                .bytes(bytes)
+                .bytesPerSecond(durationNanos > 0 ? (long) (bytes * 1e9 / durationNanos) : 0)
+                .build());
+    }
+
+    /**
+     * @return the stages recorded so far, in completion order
+     */
+    public List<StageMetrics> getStages() {
+        return List.copyOf(stages);
+    }
+
+    /**
+     * Build the report of the run.
+     *
+     * @param exitCause cause of the failure, {@literal null} if the pre-compute succeeded
+     * @return the report to send to the worker
+     */
+    public PreComputeMetricsMessage toMessage(final ReplicateStatusCause exitCause) {
+        return PreComputeMetricsMessage.builder()
+                .success(exitCause == null)
+                .exitCause(exitCause)
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                .stages(getStages())
+                .build();
+    }
+
+    /**
+     * Running stage, its duration spanning from its start to its closing, whether it succeeded or not.
+     */
+    public class Stage implements AutoCloseable {
+        private final String name;
+        private final long stageStart = System.nanoTime();
+        private long bytes;
+        private boolean isClosed;
+
+        private Stage(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @param bytes size of the content processed by the stage
+         */
+        public void setBytes(final long bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void close() {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+            add(name, System.nanoTime() - stageStart, bytes);
+        }
+    }
+}
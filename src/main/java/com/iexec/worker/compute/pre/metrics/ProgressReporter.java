@@ -0,0 +1,104 @@
+/*
+ * Copyright 2022-2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.metrics;
+
+import com.iexec.worker.api.PreComputeProgressMessage;
+import com.iexec.worker.compute.pre.download.TransferProgress;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Periodically sends the progress of the task downloads, at most once per interval.
+ * <p>
+ * Heartbeats start with the first download and carry the throughput since the previous heartbeat,
+ * so that a slow download can be told apart from a stalled one. A failed heartbeat is only logged, as a warning
+ * for the first one and quietly afterwards, since workers without a progress endpoint fail all of them.
+ */
+@Slf4j
+public class ProgressReporter implements AutoCloseable {
+
+    private final TransferProgress progress;
+    private final Consumer<PreComputeProgressMessage> sender;
+    private final ScheduledExecutorService scheduler;
+    private long previousBytes;
+    private long previousNanos = System.nanoTime();
+    private boolean hasFailed;
+
+    private ProgressReporter(TransferProgress progress, Consumer<PreComputeProgressMessage> sender) {
+        this.progress = progress;
+        this.sender = sender;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "progress-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start sending heartbeats.
+     *
+     * @param progress progress of the task downloads
+     * @param interval delay between two heartbeats
+     * @param sender   delivers a heartbeat to the worker
+     * @return the running reporter, to be closed once downloads are over
+     */
+    public static ProgressReporter start(final TransferProgress progress, final Duration interval,
+                                         final Consumer<PreComputeProgressMessage> sender) {
+        final ProgressReporter reporter = new ProgressReporter(progress, sender);
+        reporter.scheduler.scheduleAtFixedRate(reporter::report,
+                interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        return reporter;
+    }
+
+    void report() {
+        final long bytes = progress.getBytesTransferred();
+        final long expectedBytes = progress.getExpectedBytes();
+        if (bytes == 0 && expectedBytes == 0) {
+            return;
+        }
+        final long now = System.nanoTime();
+        final long elapsedNanos = now - previousNanos;
+        final long bytesPerSecond = elapsedNanos > 0 ? (long) ((bytes - previousBytes) * 1e9 / elapsedNanos) : 0;
+        previousBytes = bytes;
+        previousNanos = now;
+        try {
+            sender.accept(PreComputeProgressMessage.builder()
+                    .bytesTransferred(bytes)
+                    .expectedBytes(expectedBytes)
+                    .bytesPerSecond(bytesPerSecond)
+                    .build());
+        } catch (RuntimeException e) {
+            if (!hasFailed) {
+                hasFailed = true;
+                log.warn("Failed to send download progress, following failures are only logged at debug level " +
+                        "[bytes:{}, expectedBytes:{}]", bytes, expectedBytes, e);
+            } else {
+                log.debug("Failed to send download progress [bytes:{}, expectedBytes:{}]", bytes, expectedBytes, e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time spent before the pre-compute run starts, split between the JVM startup, from the JVM start
+ * to the runner, and the runner startup, until the run begins.
+ */
+@Slf4j
+public class StartupTrace {
+
+    private final Instant jvmStart;
+    private final Instant runnerStart = Instant.now();
+    private final long runnerStartNanos = System.nanoTime();
+
+    StartupTrace(final Instant jvmStart) {
+        this.jvmStart = jvmStart;
+    }
+
+    /**
+     * Start tracing, when the runner starts.
+     */
+    public static StartupTrace begin() {
+        return new StartupTrace(Instant.ofEpochMilli(ManagementFactory.getRuntimeMXBean().getStartTime()));
+    }
+
+    /**
+     * Log startup durations and record them as stages, when the run begins.
+     *
+     * @param metrics metrics of the run, may be {@literal null}
+     */
+    public void record(final String chainTaskId, final PreComputeMetrics metrics) {
+        final long runnerNanos = System.nanoTime() - runnerStartNanos;
+        final long jvmNanos = Math.max(0, Duration.between(jvmStart, runnerStart).toNanos());
+        log.info("TEE pre-compute startup [chainTaskId:{}, jvm:{}ms, runner:{}ms]", chainTaskId,
+                TimeUnit.NANOSECONDS.toMillis(jvmNanos), TimeUnit.NANOSECONDS.toMillis(runnerNanos));
+        if (metrics == null) {
+            return;
+        }
+        metrics.record(PreComputeMetrics.JVM_STARTUP, jvmNanos);
+        metrics.record(PreComputeMetrics.RUNNER_STARTUP, runnerNanos);
+    }
+}
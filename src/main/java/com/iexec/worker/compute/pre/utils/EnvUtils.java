@@ -38,4 +38,30 @@ public class EnvUtils {
         }
         return envVar;
     }
+
+    public static String getEnvVarOrDefault(final PreComputeEnvironmentVariable envVar, final String defaultValue) {
+        final String value = System.getenv(envVar.name());
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        return value;
+    }
+
+    public static boolean getEnvVarOrDefault(final PreComputeEnvironmentVariable envVar, final boolean defaultValue) {
+        final String value = getEnvVarOrDefault(envVar, null);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+
+    public static int getEnvVarOrDefault(final PreComputeEnvironmentVariable envVar, final int defaultValue) {
+        final String value = getEnvVarOrDefault(envVar, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value, using default [envVar:{}, value:{}, default:{}]", envVar, value, defaultValue);
+            return defaultValue;
+        }
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.utils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+/**
+ * Sets the permissions of files and folders published to the output folder.
+ * <p>
+ * Temporary files and folders are created readable by their owner only, while the application enclave
+ * may run as another user. Published files are thus given the mode they would have had if written directly
+ * with the default umask.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class FileUtils {
+
+    public static final Set<PosixFilePermission> PUBLISHED_FILE_PERMISSIONS =
+            PosixFilePermissions.fromString("rw-r--r--");
+    public static final Set<PosixFilePermission> PUBLISHED_FOLDER_PERMISSIONS =
+            PosixFilePermissions.fromString("rwxr-xr-x");
+
+    /**
+     * Make a file readable by all users, before publishing it.
+     * Nothing is done on file systems not supporting POSIX permissions.
+     *
+     * @param file file to publish
+     * @throws IOException if permissions could not be set
+     */
+    public static void setPublishedFilePermissions(final Path file) throws IOException {
+        setPermissions(file, PUBLISHED_FILE_PERMISSIONS);
+    }
+
+    /**
+     * Make a folder readable and traversable by all users, before publishing it.
+     * Nothing is done on file systems not supporting POSIX permissions.
+     *
+     * @param dir folder to publish
+     * @throws IOException if permissions could not be set
+     */
+    public static void setPublishedFolderPermissions(final Path dir) throws IOException {
+        setPermissions(dir, PUBLISHED_FOLDER_PERMISSIONS);
+    }
+
+    private static void setPermissions(final Path path, final Set<PosixFilePermission> permissions)
+            throws IOException {
+        if (path.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.setPosixFilePermissions(path, permissions);
+        }
+    }
+}
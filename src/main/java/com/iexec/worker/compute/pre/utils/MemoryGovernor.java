@@ -0,0 +1,178 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.iexec.worker.compute.pre.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Sizes memory hungry work from the memory actually available to the pre-compute.
+ * <p>
+ * The usable memory is the maximum heap size, lowered to the container memory limit minus a reserve for
+ * non-heap memory when the container is smaller. Half of it may hold payloads read in memory and a quarter
+ * of it the buffers of concurrent streams, leaving the rest to the application itself.
+ * A payload is only read in memory if its announced length fits in what is left of the payload budget,
+ * it must be streamed to disk otherwise.
+ */
+@Slf4j
+public class MemoryGovernor {
+
+    /**
+     * Memory which may be buffered by a single download stream, bounded by the default HTTP/2 flow control
+     * window of the JDK HTTP client.
+     */
+    public static final long DOWNLOAD_STREAM_MEMORY = 16L * 1024 * 1024;
+    static final long NON_HEAP_RESERVE = 128L * 1024 * 1024;
+    private static final long UNLIMITED_THRESHOLD = 1L << 60;
+    private static final Path CGROUP_V2_LIMIT = Path.of("/sys/fs/cgroup/memory.max");
+    private static final Path CGROUP_V1_LIMIT = Path.of("/sys/fs/cgroup/memory/memory.limit_in_bytes");
+
+    private final long usableMemory;
+    private final long payloadBudget;
+    private long reservedMemory;
+
+    public MemoryGovernor(final long maxHeapSize, final long containerLimit) {
+        final long containerUsable = containerLimit == Long.MAX_VALUE
+                ? Long.MAX_VALUE
+                : Math.max(0, containerLimit - NON_HEAP_RESERVE);
+        this.usableMemory = Math.min(maxHeapSize, containerUsable);
+        this.payloadBudget = usableMemory / 2;
+    }
+
+    /**
+     * Create a governor for the current JVM, reading the memory limit of its container if any.
+     *
+     * @return the governor of the current process
+     */
+    public static MemoryGovernor detect() {
+        final long maxHeapSize = Runtime.getRuntime().maxMemory();
+        final long containerLimit = readContainerLimit(CGROUP_V2_LIMIT, CGROUP_V1_LIMIT);
+        final MemoryGovernor governor = new MemoryGovernor(maxHeapSize, containerLimit);
+        log.info("Detected memory limits [maxHeapSize:{}, containerLimit:{}, payloadBudget:{}]",
+                maxHeapSize, containerLimit == Long.MAX_VALUE ? "none" : containerLimit, governor.getPayloadBudget());
+        return governor;
+    }
+
+    /**
+     * Read the memory limit of the container from the first readable cgroup limit file.
+     *
+     * @param limitFiles cgroup v2 or v1 memory limit files, in order of preference
+     * @return the limit in bytes, {@link Long#MAX_VALUE} if unlimited or unknown
+     */
+    static long readContainerLimit(final Path... limitFiles) {
+        for (final Path limitFile : limitFiles) {
+            if (!Files.isReadable(limitFile)) {
+                continue;
+            }
+            try {
+                final String value = Files.readString(limitFile).trim();
+                if ("max".equals(value)) {
+                    return Long.MAX_VALUE;
+                }
+                final long limit = Long.parseLong(value);
+                return limit > 0 && limit < UNLIMITED_THRESHOLD ? limit : Long.MAX_VALUE;
+            } catch (IOException | NumberFormatException e) {
+                log.debug("Failed to read container memory limit [path:{}]", limitFile, e);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public long getUsableMemory() {
+        return usableMemory;
+    }
+
+    public long getPayloadBudget() {
+        return payloadBudget;
+    }
+
+    /**
+     * Reserve memory to read a payload in memory.
+     *
+     * @param announcedLength length announced by the source of the payload, negative if unknown
+     * @param copies          number of copies of the payload held in memory at the same time
+     * @return the reservation to close once the payload is released,
+     * {@literal null} if the length is unknown or does not fit in the remaining budget
+     */
+    public synchronized Reservation reserve(final long announcedLength, final int copies) {
+        if (announcedLength < 0) {
+            return null;
+        }
+        final long bytes;
+        try {
+            bytes = Math.multiplyExact(announcedLength, copies);
+        } catch (ArithmeticException e) {
+            return null;
+        }
+        if (bytes > payloadBudget - reservedMemory) {
+            return null;
+        }
+        reservedMemory += bytes;
+        return new Reservation(bytes);
+    }
+
+    /**
+     * Get the memory currently reserved by payloads.
+     *
+     * @return the reserved memory in bytes
+     */
+    public synchronized long getReservedMemory() {
+        return reservedMemory;
+    }
+
+    /**
+     * Limit a number of concurrent streams to what their buffers may hold in the stream budget.
+     *
+     * @param requested       requested number of concurrent streams
+     * @param memoryPerStream memory buffered by each stream
+     * @return the allowed number of concurrent streams, at least 1
+     */
+    public int limitConcurrency(final int requested, final long memoryPerStream) {
+        final long allowed = Math.max(1, usableMemory / 4 / Math.max(1, memoryPerStream));
+        return (int) Math.max(1, Math.min(requested, allowed));
+    }
+
+    /**
+     * Memory reserved for a payload, released once closed.
+     */
+    public class Reservation implements AutoCloseable {
+        private final long bytes;
+        private boolean released;
+
+        private Reservation(final long bytes) {
+            this.bytes = bytes;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public void close() {
+            synchronized (MemoryGovernor.this) {
+                if (!released) {
+                    released = true;
+                    reservedMemory -= bytes;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.utils;
+
+/**
+ * Optional environment variables tuning the pre-compute behaviour.
+ * <p>
+ * Contrary to {@link com.iexec.common.worker.tee.TeeSessionEnvironmentVariable} entries,
+ * none of them is mandatory and a default value is used when they are absent.
+ */
+public enum PreComputeEnvironmentVariable {
+    IEXEC_PRE_COMPUTE_DATASET_STREAMING,
+    IEXEC_PRE_COMPUTE_MAX_PARALLEL_DOWNLOADS,
+    IEXEC_PRE_COMPUTE_IPFS_HEDGE_DELAY_MS,
+    IEXEC_PRE_COMPUTE_IPFS_GATEWAYS,
+    IEXEC_PRE_COMPUTE_GATEWAY_STATS_FILE,
+    IEXEC_PRE_COMPUTE_RANGED_DOWNLOAD_CONNECTIONS,
+    IEXEC_PRE_COMPUTE_RANGED_DOWNLOAD_CHUNK_SIZE,
+    IEXEC_PRE_COMPUTE_DOWNLOAD_STAGING_DIR,
+    IEXEC_PRE_COMPUTE_DATASET_CACHE_DIR,
+    IEXEC_PRE_COMPUTE_DATASET_CACHE_MAX_SIZE_MB,
+    IEXEC_PRE_COMPUTE_DATASET_MMAP_OUTPUT,
+    IEXEC_PRE_COMPUTE_DECRYPTION_PARALLELISM,
+    IEXEC_PRE_COMPUTE_DATASET_EXTRACTION,
+    IEXEC_PRE_COMPUTE_DATASET_EXTRACTION_MAX_SIZE_MB,
+    IEXEC_PRE_COMPUTE_DATASET_COMPRESSION,
+    IEXEC_PRE_COMPUTE_DOWNLOAD_MAX_ATTEMPTS,
+    IEXEC_PRE_COMPUTE_DOWNLOAD_RETRY_INITIAL_BACKOFF_MS,
+    IEXEC_PRE_COMPUTE_DOWNLOAD_RETRY_MAX_BACKOFF_MS,
+    IEXEC_PRE_COMPUTE_DOWNLOAD_RETRY_BUDGET,
+    IEXEC_PRE_COMPUTE_PROGRESS_INTERVAL_MS,
+    IEXEC_PRE_COMPUTE_PREFLIGHT,
+    IEXEC_PRE_COMPUTE_INPUT_MANIFEST_FILE,
+    IEXEC_PRE_COMPUTE_INPUT_MANIFEST,
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.utils;
+
+import com.iexec.worker.compute.pre.PreComputeException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a group of tasks concurrently with a bounded parallelism and fails fast.
+ * <p>
+ * The first task failure cancels all other tasks of the scope, queued tasks will never start
+ * and running tasks are interrupted. The failure is then rethrown by {@link #join()}. Closing the scope
+ * waits for interrupted tasks to stop.
+ * <pre>
+ * try (TaskScope scope = new TaskScope("download", 4)) {
+ *     scope.fork(() -> download(url1));
+ *     scope.fork(() -> download(url2));
+ *     scope.join();
+ * }
+ * </pre>
+ */
+@Slf4j
+public class TaskScope implements AutoCloseable {
+
+    static final Duration TERMINATION_TIMEOUT = Duration.ofSeconds(30);
+
+    @FunctionalInterface
+    public interface Task {
+        void run() throws PreComputeException;
+    }
+
+    private final ExecutorService executor;
+    private final CompletionService<Void> completionService;
+    // tasks submitted and not awaited yet
+    private final Set<Future<Void>> futures = new LinkedHashSet<>();
+
+    public TaskScope(final String name, final int parallelism) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            final Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.completionService = new ExecutorCompletionService<>(executor);
+    }
+
+    /**
+     * Submit a task to the scope.
+     *
+     * @param task task to run
+     */
+    public void fork(final Task task) {
+        futures.add(completionService.submit(() -> {
+            task.run();
+            return null;
+        }));
+    }
+
+    /**
+     * Submit a task once fewer than {@code maxPending} submitted tasks are queued or running,
+     * so that tasks read from a large source are not all held in memory at once.
+     *
+     * @param task       task to run
+     * @param maxPending maximum number of tasks queued or running
+     * @throws PreComputeException  the failure of a previously submitted task
+     * @throws InterruptedException if the current thread was interrupted while waiting
+     */
+    public void fork(final Task task, final int maxPending) throws PreComputeException, InterruptedException {
+        while (futures.size() >= Math.max(1, maxPending)) {
+            awaitNext();
+        }
+        fork(task);
+    }
+
+    /**
+     * Wait for all submitted tasks to complete.
+     *
+     * @throws PreComputeException  the failure of the first failing task
+     * @throws InterruptedException if the current thread was interrupted while waiting
+     */
+    public void join() throws PreComputeException, InterruptedException {
+        while (!futures.isEmpty()) {
+            awaitNext();
+        }
+    }
+
+    private void awaitNext() throws PreComputeException, InterruptedException {
+        try {
+            final Future<Void> future = completionService.take();
+            futures.remove(future);
+            future.get();
+        } catch (ExecutionException e) {
+            cancel();
+            final Throwable cause = e.getCause();
+            if (cause instanceof PreComputeException preComputeException) {
+                throw preComputeException;
+            } else if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            } else if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            cancel();
+            throw e;
+        }
+    }
+
+    /**
+     * Cancel all tasks which have not completed yet.
+     */
+    public void cancel() {
+        futures.forEach(future -> future.cancel(true));
+        executor.shutdownNow();
+    }
+
+    /**
+     * Cancel all tasks which have not completed yet and wait for running tasks to stop, for at most
+     * {@link #TERMINATION_TIMEOUT}, so that no task outlives the scope.
+     */
+    @Override
+    public void close() {
+        cancel();
+        try {
+            if (!executor.awaitTermination(TERMINATION_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Tasks still running after scope closed [timeout:{}ms]", TERMINATION_TIMEOUT.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -18,8 +18,11 @@ package com.iexec.worker.compute.pre;
 
 import com.iexec.common.replicate.ReplicateStatusCause;
 import com.iexec.common.worker.api.ExitMessage;
+import com.iexec.worker.api.PreComputeMetricsMessage;
 import com.iexec.worker.api.WorkerApiClient;
 import com.iexec.worker.api.WorkerApiManager;
+import com.iexec.worker.compute.pre.download.TransferProgress;
+import com.iexec.worker.compute.pre.metrics.PreComputeMetrics;
 import com.iexec.worker.compute.pre.signer.SignerService;
 import feign.FeignException;
 import org.junit.jupiter.api.BeforeEach;
@@ -36,6 +39,7 @@ import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
 
 import static com.iexec.common.replicate.ReplicateStatusCause.POST_COMPUTE_COMPUTED_FILE_NOT_FOUND;
 import static com.iexec.common.worker.tee.TeeSessionEnvironmentVariable.IEXEC_TASK_ID;
+import static com.iexec.worker.compute.pre.utils.PreComputeEnvironmentVariable.IEXEC_PRE_COMPUTE_PROGRESS_INTERVAL_MS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
@@ -139,4 +143,101 @@ class PreComputeAppRunnerTests {
             assertEquals(2, exitStatus);
         }
     }
+
+    @Test
+    void metricsSentOnSuccess(EnvironmentVariables environment) throws Exception {
+        environment.set(IEXEC_TASK_ID, CHAIN_TASK_ID);
+
+        final PreComputeApp preComputeApp = mock(PreComputeApp.class);
+        when(preComputeAppRunner.createPreComputeApp(CHAIN_TASK_ID)).thenReturn(preComputeApp);
+        when(preComputeApp.getMetrics()).thenReturn(new PreComputeMetrics());
+        when(signerService.getChallenge(CHAIN_TASK_ID)).thenReturn(CHALLENGE);
+
+        final WorkerApiClient workerApiClient = mock(WorkerApiClient.class);
+        try (MockedStatic<WorkerApiManager> workerApiManager = Mockito.mockStatic(WorkerApiManager.class)) {
+            workerApiManager.when(WorkerApiManager::getWorkerApiClient)
+                    .thenReturn(workerApiClient);
+            final int exitStatus = preComputeAppRunner.start();
+            assertEquals(0, exitStatus);
+        }
+        verify(workerApiClient).sendMetricsForPreComputeStage(eq(CHALLENGE), eq(CHAIN_TASK_ID),
+                argThat(metricsMessage -> metricsMessage.isSuccess() && metricsMessage.getExitCause() == null
+                        && metricsMessage.getStages().stream()
+                        .anyMatch(stage -> PreComputeMetrics.RUNNER_STARTUP.equals(stage.getName()))));
+    }
+
+    @Test
+    void metricsSentOnFailure(EnvironmentVariables environment) throws Exception {
+        environment.set(IEXEC_TASK_ID, CHAIN_TASK_ID);
+
+        final PreComputeApp preComputeApp = mock(PreComputeApp.class);
+        doThrow(new PreComputeException(POST_COMPUTE_COMPUTED_FILE_NOT_FOUND))
+                .when(preComputeApp).run();
+        when(preComputeAppRunner.createPreComputeApp(CHAIN_TASK_ID)).thenReturn(preComputeApp);
+        when(preComputeApp.getMetrics()).thenReturn(new PreComputeMetrics());
+        when(signerService.getChallenge(CHAIN_TASK_ID)).thenReturn(CHALLENGE);
+
+        final WorkerApiClient workerApiClient = mock(WorkerApiClient.class);
+        try (MockedStatic<WorkerApiManager> workerApiManager = Mockito.mockStatic(WorkerApiManager.class)) {
+            workerApiManager.when(WorkerApiManager::getWorkerApiClient)
+                    .thenReturn(workerApiClient);
+            final int exitStatus = preComputeAppRunner.start();
+            assertEquals(1, exitStatus);
+        }
+        verify(workerApiClient).sendMetricsForPreComputeStage(eq(CHALLENGE), eq(CHAIN_TASK_ID),
+                argThat(metricsMessage -> !metricsMessage.isSuccess()
+                        && metricsMessage.getExitCause() == POST_COMPUTE_COMPUTED_FILE_NOT_FOUND));
+    }
+
+    @Test
+    void metricsNotSentWithoutChangingExitStatus(EnvironmentVariables environment) throws Exception {
+        environment.set(IEXEC_TASK_ID, CHAIN_TASK_ID);
+
+        final PreComputeApp preComputeApp = mock(PreComputeApp.class);
+        when(preComputeAppRunner.createPreComputeApp(CHAIN_TASK_ID)).thenReturn(preComputeApp);
+        when(preComputeApp.getMetrics()).thenReturn(new PreComputeMetrics());
+        when(signerService.getChallenge(CHAIN_TASK_ID)).thenReturn(CHALLENGE);
+
+        final WorkerApiClient workerApiClient = mock(WorkerApiClient.class);
+        doThrow(FeignException.NotFound.class)
+                .when(workerApiClient).sendMetricsForPreComputeStage(
+                        eq(CHALLENGE),
+                        eq(CHAIN_TASK_ID),
+                        any(PreComputeMetricsMessage.class));
+        try (MockedStatic<WorkerApiManager> workerApiManager = Mockito.mockStatic(WorkerApiManager.class)) {
+            workerApiManager.when(WorkerApiManager::getWorkerApiClient)
+                    .thenReturn(workerApiClient);
+            final int exitStatus = preComputeAppRunner.start();
+            assertEquals(0, exitStatus);
+        }
+    }
+
+    @Test
+    void progressSentWhileRunning(EnvironmentVariables environment) throws Exception {
+        environment.set(IEXEC_TASK_ID, CHAIN_TASK_ID);
+        environment.set(IEXEC_PRE_COMPUTE_PROGRESS_INTERVAL_MS, "10");
+
+        final TransferProgress progress = new TransferProgress();
+        final PreComputeApp preComputeApp = mock(PreComputeApp.class);
+        doAnswer(invocation -> {
+            progress.addExpected(100);
+            progress.addTransferred(50);
+            Thread.sleep(200);
+            return null;
+        }).when(preComputeApp).run();
+        when(preComputeAppRunner.createPreComputeApp(CHAIN_TASK_ID)).thenReturn(preComputeApp);
+        when(preComputeApp.getTransferProgress()).thenReturn(progress);
+        when(signerService.getChallenge(CHAIN_TASK_ID)).thenReturn(CHALLENGE);
+
+        final WorkerApiClient workerApiClient = mock(WorkerApiClient.class);
+        try (MockedStatic<WorkerApiManager> workerApiManager = Mockito.mockStatic(WorkerApiManager.class)) {
+            workerApiManager.when(WorkerApiManager::getWorkerApiClient)
+                    .thenReturn(workerApiClient);
+            final int exitStatus = preComputeAppRunner.start();
+            assertEquals(0, exitStatus);
+        }
+        verify(workerApiClient, atLeastOnce()).sendProgressForPreComputeStage(eq(CHALLENGE), eq(CHAIN_TASK_ID),
+                argThat(progressMessage -> progressMessage.getBytesTransferred() == 50
+                        && progressMessage.getExpectedBytes() == 100));
+    }
 }
@@ -19,22 +19,53 @@ package com.iexec.worker.compute.pre;
 import com.iexec.common.replicate.ReplicateStatusCause;
 import com.iexec.common.utils.FileHashUtils;
 import com.iexec.common.utils.FileHelper;
+import com.iexec.commons.poco.utils.MultiAddressHelper;
+import com.iexec.worker.api.StageMetrics;
+import com.iexec.worker.compute.pre.dataset.ChunkedDatasetEncryptor;
+import com.iexec.worker.compute.pre.dataset.DatasetCompression;
+import com.iexec.worker.compute.pre.download.GatewayScorer;
+import com.iexec.worker.compute.pre.download.InputFileDescriptor;
+import com.iexec.worker.compute.pre.metrics.PreComputeMetrics;
+import com.iexec.worker.compute.pre.utils.MemoryGovernor;
+import com.sun.net.httpserver.HttpServer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
-import org.mockito.MockedStatic;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.stubbing.Answer;
 import org.mockito.junit.jupiter.MockitoExtension;
 import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
 import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.URL;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static com.iexec.common.utils.IexecEnvUtils.IEXEC_INPUT_FILE_URL_PREFIX;
 import static com.iexec.common.worker.tee.TeeSessionEnvironmentVariable.*;
+import static com.iexec.worker.compute.pre.utils.PreComputeEnvironmentVariable.IEXEC_PRE_COMPUTE_DATASET_STREAMING;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
@@ -95,6 +126,7 @@ class PreComputeAppTests {
         final byte[] plainContent = "plainContent".getBytes();
 
         doNothing().when(preComputeApp).checkOutputFolder();
+        doReturn((long) encryptedDataset.length).when(preComputeApp).probeEncryptedDatasetLength();
         doReturn(encryptedDataset).when(preComputeApp).downloadEncryptedDataset();
         doReturn(plainContent).when(preComputeApp).decryptDataset(encryptedDataset);
         doNothing().when(preComputeApp).savePlainDatasetFile(plainContent);
@@ -103,6 +135,32 @@ class PreComputeAppTests {
         assertDoesNotThrow(() -> preComputeApp.run());
     }
 
+    @Test
+    void shouldRunSuccessfullyWithStreamedDataset(EnvironmentVariables environment) throws PreComputeException {
+        environment.set(
+                IEXEC_TASK_ID, CHAIN_TASK_ID,
+                IEXEC_PRE_COMPUTE_OUT, outputDir.getAbsolutePath(),
+                IS_DATASET_REQUIRED, true,
+                IEXEC_DATASET_URL, HTTP_DATASET_URL,
+                IEXEC_DATASET_KEY, FileHelper.readFile(KEY_FILE),
+                IEXEC_DATASET_CHECKSUM, DATASET_CHECKSUM,
+                IEXEC_DATASET_FILENAME, DATASET_FILENAME,
+                IEXEC_PRE_COMPUTE_DATASET_STREAMING, true,
+                IEXEC_INPUT_FILES_NUMBER, 0
+        );
+
+        doNothing().when(preComputeApp).checkOutputFolder();
+        doNothing().when(preComputeApp).streamPlainDatasetFile();
+        doNothing().when(preComputeApp).downloadInputFiles();
+
+        assertDoesNotThrow(() -> preComputeApp.run());
+
+        verify(preComputeApp).streamPlainDatasetFile();
+        verify(preComputeApp, never()).downloadEncryptedDataset();
+        verify(preComputeApp, never()).decryptDataset(any());
+        verify(preComputeApp, never()).savePlainDatasetFile(any());
+    }
+
     @Test
     void shouldRunSuccessfullyWithoutDataset(EnvironmentVariables environment) throws PreComputeException {
         environment.set(
@@ -123,6 +181,80 @@ class PreComputeAppTests {
         verify(preComputeApp, never()).decryptDataset(any());
         verify(preComputeApp, never()).savePlainDatasetFile(any());
     }
+
+    @Test
+    void shouldPrepareDatasetAndDownloadInputFilesConcurrently(EnvironmentVariables environment) throws PreComputeException {
+        setDatasetAndInputFilesEnvironment(environment);
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        final Answer<Void> awaitOtherStage = invocation -> {
+            bothStarted.countDown();
+            // only succeeds if both stages are running at the same time
+            if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+                throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_FAILED_UNKNOWN_ISSUE);
+            }
+            return null;
+        };
+
+        doNothing().when(preComputeApp).checkOutputFolder();
+        doAnswer(awaitOtherStage).when(preComputeApp).prepareDataset();
+        doAnswer(awaitOtherStage).when(preComputeApp).downloadInputFiles();
+
+        assertDoesNotThrow(() -> preComputeApp.run());
+    }
+
+    @Test
+    void shouldCancelInputFilesDownloadSinceDatasetFailed(EnvironmentVariables environment) throws PreComputeException {
+        setDatasetAndInputFilesEnvironment(environment);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        doNothing().when(preComputeApp).checkOutputFolder();
+        doThrow(new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_INVALID_DATASET_CHECKSUM))
+                .when(preComputeApp).prepareDataset();
+        doAnswer(invocation -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return null;
+        }).when(preComputeApp).downloadInputFiles();
+
+        PreComputeException e = assertThrows(PreComputeException.class, () -> preComputeApp.run());
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_INVALID_DATASET_CHECKSUM);
+        assertDoesNotThrow(() -> interrupted.await(5, TimeUnit.SECONDS));
+        assertThat(interrupted.getCount()).isZero();
+    }
+
+    @Test
+    void shouldReportInputFileFailureWhileDatasetIsPrepared(EnvironmentVariables environment) throws PreComputeException {
+        setDatasetAndInputFilesEnvironment(environment);
+
+        doNothing().when(preComputeApp).checkOutputFolder();
+        doAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return null;
+        }).when(preComputeApp).prepareDataset();
+        doThrow(new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED))
+                .when(preComputeApp).downloadInputFiles();
+
+        PreComputeException e = assertThrows(PreComputeException.class, () -> preComputeApp.run());
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+    }
+
+    private void setDatasetAndInputFilesEnvironment(EnvironmentVariables environment) {
+        environment.set(
+                IEXEC_TASK_ID, CHAIN_TASK_ID,
+                IEXEC_PRE_COMPUTE_OUT, outputDir.getAbsolutePath(),
+                IS_DATASET_REQUIRED, true,
+                IEXEC_DATASET_URL, HTTP_DATASET_URL,
+                IEXEC_DATASET_KEY, FileHelper.readFile(KEY_FILE),
+                IEXEC_DATASET_CHECKSUM, DATASET_CHECKSUM,
+                IEXEC_DATASET_FILENAME, DATASET_FILENAME,
+                IEXEC_INPUT_FILES_NUMBER, 2,
+                IEXEC_INPUT_FILE_URL_PREFIX + "1", INPUT_FILE_1_URL,
+                IEXEC_INPUT_FILE_URL_PREFIX + "2", INPUT_FILE_2_URL
+        );
+    }
     //endregion
 
     @Test
@@ -165,6 +297,43 @@ class PreComputeAppTests {
         assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_DATASET_DOWNLOAD_FAILED);
     }
 
+    @Test
+    void shouldReadEncryptedDatasetFromCacheWithoutDownloading() throws Exception {
+        final File cacheDir = new File(outputDir, "cache");
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(IPFS_DATASET_URL)
+                .datasetCacheDir(cacheDir.getAbsolutePath())
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        final byte[] expectedBytes = FileHelper.readAllBytes(RESOURCES + DATASET_RESOURCE_NAME);
+        preComputeApp.getDatasetCache().put(DATASET_CHECKSUM, expectedBytes);
+        assertThat(preComputeApp.downloadEncryptedDataset()).isEqualTo(expectedBytes);
+        verify(preComputeApp, never()).readUrlBytes(anyString(), any());
+        try (InputStream cachedStream = preComputeApp.openEncryptedDatasetStream()) {
+            assertThat(cachedStream).hasBinaryContent(expectedBytes);
+        }
+        verify(preComputeApp, never()).openUrlStream(anyString());
+    }
+
+    @Test
+    void shouldCacheEncryptedDatasetOnceDownloaded() throws Exception {
+        final HttpServer gateway = startGateway(200, FileHelper.readAllBytes(RESOURCES + DATASET_RESOURCE_NAME));
+        try {
+            final File cacheDir = new File(outputDir, "cache");
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(IPFS_DATASET_URL)
+                    .isDatasetStreamingEnabled(true)
+                    .ipfsGateways(List.of(getGatewayUrl(gateway)))
+                    .datasetCacheDir(cacheDir.getAbsolutePath())
+                    .build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            preComputeApp.prepareDataset();
+            assertThat(new File(outputDir, DATASET_FILENAME)).hasBinaryContent(FileHelper.readAllBytes(PLAIN_DATA_FILE));
+            assertThat(new File(cacheDir, DATASET_CHECKSUM.substring(2)))
+                    .hasBinaryContent(FileHelper.readAllBytes(RESOURCES + DATASET_RESOURCE_NAME));
+        } finally {
+            gateway.stop(0);
+        }
+    }
+
     @Test
     void shouldDownloadEncryptedDatasetFromIexecGateway() throws PreComputeException {
         final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(IPFS_DATASET_URL).build();
@@ -172,12 +341,9 @@ class PreComputeAppTests {
         final URL resourceFile = this.getClass().getClassLoader().getResource(DATASET_RESOURCE_NAME);
         assertThat(resourceFile).isNotNull();
         final byte[] expectedBytes = FileHelper.readAllBytes(resourceFile.getFile());
-        try (MockedStatic<FileHelper> fileHelperMock = mockStatic(FileHelper.class)) {
-            fileHelperMock.when(() -> FileHelper.readFileBytesFromUrl(anyString()))
-                    .thenReturn(expectedBytes);
-            assertThat(preComputeApp.downloadEncryptedDataset()).isNotNull();
-            fileHelperMock.verify(() -> FileHelper.readFileBytesFromUrl(anyString()), times(1));
-        }
+        doReturn(expectedBytes).when(preComputeApp).readUrlBytes(anyString(), any());
+        assertThat(preComputeApp.downloadEncryptedDataset()).isNotNull();
+        verify(preComputeApp, times(1)).readUrlBytes(anyString(), any());
     }
 
     @Test
@@ -187,13 +353,9 @@ class PreComputeAppTests {
         final URL resourceFile = this.getClass().getClassLoader().getResource(DATASET_RESOURCE_NAME);
         assertThat(resourceFile).isNotNull();
         final byte[] expectedBytes = FileHelper.readAllBytes(resourceFile.getFile());
-        try (MockedStatic<FileHelper> fileHelperMock = mockStatic(FileHelper.class)) {
-            fileHelperMock.when(() -> FileHelper.readFileBytesFromUrl(anyString()))
-                    .thenReturn(null)
-                    .thenReturn(expectedBytes);
-            assertThat(preComputeApp.downloadEncryptedDataset()).isNotNull();
-            fileHelperMock.verify(() -> FileHelper.readFileBytesFromUrl(anyString()), times(2));
-        }
+        doReturn(null).doReturn(expectedBytes).when(preComputeApp).readUrlBytes(anyString(), any());
+        assertThat(preComputeApp.downloadEncryptedDataset()).isNotNull();
+        verify(preComputeApp, times(2)).readUrlBytes(anyString(), any());
     }
 
     @Test
@@ -203,14 +365,9 @@ class PreComputeAppTests {
         final URL resourceFile = this.getClass().getClassLoader().getResource(DATASET_RESOURCE_NAME);
         assertThat(resourceFile).isNotNull();
         final byte[] expectedBytes = FileHelper.readAllBytes(resourceFile.getFile());
-        try (MockedStatic<FileHelper> fileHelperMock = mockStatic(FileHelper.class)) {
-            fileHelperMock.when(() -> FileHelper.readFileBytesFromUrl(anyString()))
-                    .thenReturn(null)
-                    .thenReturn(null)
-                    .thenReturn(expectedBytes);
-            assertThat(preComputeApp.downloadEncryptedDataset()).isNotNull();
-            fileHelperMock.verify(() -> FileHelper.readFileBytesFromUrl(anyString()), times(3));
-        }
+        doReturn(null).doReturn(null).doReturn(expectedBytes).when(preComputeApp).readUrlBytes(anyString(), any());
+        assertThat(preComputeApp.downloadEncryptedDataset()).isNotNull();
+        verify(preComputeApp, times(3)).readUrlBytes(anyString(), any());
     }
 
     @Test
@@ -219,14 +376,191 @@ class PreComputeAppTests {
         doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
         final URL resourceFile = this.getClass().getClassLoader().getResource(DATASET_RESOURCE_NAME);
         assertThat(resourceFile).isNotNull();
-        try (MockedStatic<FileHelper> fileHelperMock = mockStatic(FileHelper.class)) {
-            fileHelperMock.when(() -> FileHelper.readFileBytesFromUrl(anyString()))
-                    .thenReturn(null);
-            assertThrows(
-                    PreComputeException.class,
-                    () -> preComputeApp.downloadEncryptedDataset()
-            );
-            fileHelperMock.verify(() -> FileHelper.readFileBytesFromUrl(anyString()), times(3));
+        doReturn(null).when(preComputeApp).readUrlBytes(anyString(), any());
+        assertThrows(
+                PreComputeException.class,
+                () -> preComputeApp.downloadEncryptedDataset()
+        );
+        verify(preComputeApp, times(3)).readUrlBytes(anyString(), any());
+    }
+
+    @Test
+    void shouldDownloadEncryptedDatasetFromFastestGatewayWhenHedging() throws PreComputeException {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(IPFS_DATASET_URL)
+                .ipfsHedgeDelayMillis(50)
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        final String firstGateway = MultiAddressHelper.IPFS_GATEWAYS.get(0);
+        final List<String> discarded = new CopyOnWriteArrayList<>();
+        final String result = preComputeApp.downloadFromIpfsGateways((gateway, onResponse) -> {
+            if (gateway.equals(firstGateway)) {
+                try {
+                    Thread.sleep(5_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+            return gateway;
+        }, discarded::add);
+        assertThat(result).isEqualTo(MultiAddressHelper.IPFS_GATEWAYS.get(1));
+    }
+
+    @Test
+    void shouldScoreGatewayLatencyOnResponseHeaders() throws Exception {
+        final byte[] content = FileHelper.readAllBytes(RESOURCES + DATASET_RESOURCE_NAME);
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        // headers are sent right away, the end of the body a second later
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, content.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(content, 0, 1);
+                body.flush();
+                Thread.sleep(1_000);
+                body.write(content, 1, content.length - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.start();
+        try {
+            final String gatewayUrl = getGatewayUrl(server);
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(IPFS_DATASET_URL)
+                    .ipfsGateways(List.of(gatewayUrl))
+                    .build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            final GatewayScorer scorer = spy(GatewayScorer.load(null));
+            doReturn(scorer).when(preComputeApp).getGatewayScorer();
+            assertThat(preComputeApp.downloadEncryptedDataset()).isEqualTo(content);
+            verify(scorer).recordResponse(eq(gatewayUrl), longThat(ttfb -> ttfb < 1_000));
+            verify(scorer).recordTransfer(eq(gatewayUrl), eq((long) content.length), longThat(duration -> duration >= 1_000));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void shouldNotDownloadEncryptedDatasetWhenHedgingAndFailureOnAllGateways() throws PreComputeException {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(IPFS_DATASET_URL)
+                .ipfsHedgeDelayMillis(0)
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        final List<String> requested = new CopyOnWriteArrayList<>();
+        final String result = preComputeApp.downloadFromIpfsGateways((gateway, onResponse) -> {
+            requested.add(gateway);
+            return null;
+        }, gateway -> {});
+        assertThat(result).isNull();
+        assertThat(requested).hasSameSizeAs(MultiAddressHelper.IPFS_GATEWAYS);
+    }
+
+    @Test
+    void shouldNotRecordFailureOfGatewayCancelledByHedging() throws Exception {
+        final List<String> gateways = List.of("https://slow.gateway", "https://fast.gateway");
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(IPFS_DATASET_URL)
+                .ipfsGateways(gateways)
+                .ipfsHedgeDelayMillis(0)
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        final GatewayScorer scorer = spy(GatewayScorer.load(null));
+        doReturn(scorer).when(preComputeApp).getGatewayScorer();
+        final CountDownLatch slowEnded = new CountDownLatch(1);
+        final String result = preComputeApp.downloadFromIpfsGateways((gateway, onResponse) -> {
+            if (gateway.equals("https://fast.gateway")) {
+                onResponse.run();
+                return gateway;
+            }
+            try {
+                Thread.sleep(5_000);
+                return gateway;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } finally {
+                slowEnded.countDown();
+            }
+        }, gateway -> {});
+        assertThat(result).isEqualTo("https://fast.gateway");
+        assertThat(slowEnded.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(scorer, never()).recordFailure(anyString());
+    }
+
+    @Test
+    void shouldTryHealthiestGatewayFirstOnNextTask() throws Exception {
+        final HttpServer healthyGateway = startGateway(200, FileHelper.readAllBytes(RESOURCES + DATASET_RESOURCE_NAME));
+        final HttpServer failingGateway = startGateway(502, new byte[0]);
+        try {
+            final String failingGatewayUrl = getGatewayUrl(failingGateway);
+            final String healthyGatewayUrl = getGatewayUrl(healthyGateway);
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(IPFS_DATASET_URL)
+                    .isDatasetStreamingEnabled(true)
+                    .ipfsGateways(List.of(failingGatewayUrl, healthyGatewayUrl))
+                    .gatewayStatsFile(new File(outputDir, "gateway-stats.tsv").getAbsolutePath())
+                    .build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            preComputeApp.prepareDataset();
+            assertThat(new File(outputDir, DATASET_FILENAME)).hasBinaryContent(FileHelper.readAllBytes(PLAIN_DATA_FILE));
+
+            final PreComputeApp nextPreComputeApp = spy(new PreComputeApp(CHAIN_TASK_ID));
+            doReturn(preComputeArgs).when(nextPreComputeApp).getPreComputeArgs();
+            assertThat(nextPreComputeApp.getGatewayScorer().rank(preComputeArgs.getIpfsGateways()))
+                    .containsExactly(healthyGatewayUrl, failingGatewayUrl);
+        } finally {
+            healthyGateway.stop(0);
+            failingGateway.stop(0);
+        }
+    }
+
+    private HttpServer startGateway(int status, byte[] content) throws IOException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(status, content.length > 0 ? content.length : -1);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(content);
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private String getGatewayUrl(HttpServer server) {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    @Test
+    void shouldDownloadEncryptedDatasetThroughStagingFolder() throws Exception {
+        final HttpServer server = startGateway(200, FileHelper.readAllBytes(RESOURCES + DATASET_RESOURCE_NAME));
+        try {
+            final File stagingDir = new File(outputDir, "staging");
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(getGatewayUrl(server) + "/dataset.bin")
+                    .downloadStagingDir(stagingDir.getAbsolutePath())
+                    .build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            assertThat(preComputeApp.downloadEncryptedDataset())
+                    .isEqualTo(FileHelper.readAllBytes(RESOURCES + DATASET_RESOURCE_NAME));
+            assertThat(stagingDir).isEmptyDirectory();
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void shouldTryNextGatewayWhenResumableDownloadFails() throws Exception {
+        final HttpServer healthyGateway = startGateway(200, FileHelper.readAllBytes(RESOURCES + DATASET_RESOURCE_NAME));
+        final HttpServer failingGateway = startGateway(502, new byte[0]);
+        try {
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(IPFS_DATASET_URL)
+                    .isDatasetStreamingEnabled(true)
+                    .ipfsGateways(List.of(getGatewayUrl(failingGateway), getGatewayUrl(healthyGateway)))
+                    .downloadStagingDir(new File(outputDir, "staging").getAbsolutePath())
+                    .build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            preComputeApp.prepareDataset();
+            assertThat(new File(outputDir, DATASET_FILENAME)).hasBinaryContent(FileHelper.readAllBytes(PLAIN_DATA_FILE));
+            assertThat(new File(outputDir, "staging")).isEmptyDirectory();
+        } finally {
+            healthyGateway.stop(0);
+            failingGateway.stop(0);
         }
     }
 
@@ -242,9 +576,12 @@ class PreComputeAppTests {
         assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_INVALID_DATASET_CHECKSUM);
     }
 
-    @Test
-    void shouldDecryptDataset() throws Exception {
-        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL).build();
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    void shouldDecryptDataset(int decryptionParallelism) throws Exception {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                .decryptionParallelism(decryptionParallelism)
+                .build();
         doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
         byte[] encryptedData = FileHelper.readFileBytesFromUrl(HTTP_DATASET_URL);
         byte[] expectedPlainData = FileHelper.readAllBytes(PLAIN_DATA_FILE);
@@ -252,6 +589,19 @@ class PreComputeAppTests {
         assertThat(actualPlainData).isEqualTo(expectedPlainData);
     }
 
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    void shouldDecryptChunkedDataset(int decryptionParallelism) throws Exception {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                .decryptionParallelism(decryptionParallelism)
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        final byte[] key = Base64.getDecoder().decode(preComputeArgs.getEncryptedDatasetBase64Key());
+        final byte[] expectedPlainData = FileHelper.readAllBytes(PLAIN_DATA_FILE);
+        final byte[] chunkedData = ChunkedDatasetEncryptor.encrypt(expectedPlainData, key, 8);
+        assertThat(preComputeApp.decryptDataset(chunkedData)).isEqualTo(expectedPlainData);
+    }
+
     @Test
     void shouldThrowSinceDecryptionFailed() {
         String badKey = FileHelper.readFile(KEY_FILE).replace("A", "B");
@@ -275,6 +625,59 @@ class PreComputeAppTests {
         assertThat(new File(outputDir, DATASET_FILENAME)).exists();
     }
 
+    @Test
+    void shouldRecordDatasetStageMetrics() throws Exception {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL).build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        final byte[] key = Base64.getDecoder().decode(preComputeArgs.getEncryptedDatasetBase64Key());
+        final byte[] plainContent = FileHelper.readAllBytes(PLAIN_DATA_FILE);
+        final byte[] encryptedContent = ChunkedDatasetEncryptor.encrypt(plainContent, key, 8);
+        preComputeApp.savePlainDatasetFile(preComputeApp.decryptDataset(encryptedContent));
+        assertThat(preComputeApp.getMetrics().getStages())
+                .extracting(StageMetrics::getName, StageMetrics::getBytes)
+                .containsExactly(
+                        tuple(PreComputeMetrics.DECRYPT, (long) encryptedContent.length),
+                        tuple(PreComputeMetrics.SAVE, (long) plainContent.length));
+    }
+
+    @Test
+    void shouldSavePlainDatasetFileWithMemoryMapping() throws Exception {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                .isMemoryMappedOutputEnabled(true)
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        final byte[] plainContent = FileHelper.readAllBytes(PLAIN_DATA_FILE);
+        preComputeApp.savePlainDatasetFile(plainContent);
+        assertThat(new File(outputDir, DATASET_FILENAME)).hasBinaryContent(plainContent);
+    }
+
+    @Test
+    void shouldSaveCompressedPlainDatasetFile() throws Exception {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                .datasetCompression(DatasetCompression.GZIP)
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        final byte[] plainContent = FileHelper.readAllBytes(PLAIN_DATA_FILE);
+        final ByteArrayOutputStream compressedContent = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressedContent)) {
+            gzip.write(plainContent);
+        }
+        preComputeApp.savePlainDatasetFile(compressedContent.toByteArray());
+        assertThat(new File(outputDir, DATASET_FILENAME)).hasBinaryContent(plainContent);
+    }
+
+    @Test
+    void shouldThrowSincePlainDatasetNotCompressed() {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                .datasetCompression(DatasetCompression.GZIP)
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        PreComputeException e = assertThrows(PreComputeException.class,
+                () -> preComputeApp.savePlainDatasetFile("data".getBytes()));
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_SAVING_PLAIN_DATASET_FAILED);
+        assertThat(outputDir).isEmptyDirectory();
+    }
+
     @Test
     void shouldThrowSinceFailedToSavePlainDataset() {
         final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
@@ -286,6 +689,405 @@ class PreComputeAppTests {
         assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_SAVING_PLAIN_DATASET_FAILED);
     }
 
+    @Test
+    void shouldExtractPlainDataset() throws Exception {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                .isDatasetExtractionEnabled(true)
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        final byte[] plainContent = FileHelper.readAllBytes(PLAIN_DATA_FILE);
+        final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            zip.putNextEntry(new ZipEntry("folder/plain-data.txt"));
+            zip.write(plainContent);
+            zip.closeEntry();
+        }
+        preComputeApp.extractPlainDataset(archive.toByteArray());
+        assertThat(new File(outputDir, DATASET_FILENAME + "/folder/plain-data.txt")).hasBinaryContent(plainContent);
+        assertThat(outputDir.list()).containsExactly(DATASET_FILENAME);
+    }
+
+    @Test
+    void shouldThrowSincePlainDatasetNotAnArchive() {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                .isDatasetExtractionEnabled(true)
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        PreComputeException e = assertThrows(PreComputeException.class,
+                () -> preComputeApp.extractPlainDataset("data".getBytes()));
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_SAVING_PLAIN_DATASET_FAILED);
+        assertThat(outputDir).isEmptyDirectory();
+    }
+
+    //region prepareDataset
+    @Test
+    void shouldReadDatasetInMemoryWhenFittingInBudget() throws Exception {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL).build();
+        final MemoryGovernor memoryGovernor = new MemoryGovernor(64L * 1024 * 1024, Long.MAX_VALUE);
+        final byte[] encryptedDataset = "encryptedDataset".getBytes();
+        final byte[] plainContent = "plainContent".getBytes();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        doReturn(memoryGovernor).when(preComputeApp).getMemoryGovernor();
+        doReturn((long) encryptedDataset.length).when(preComputeApp).probeEncryptedDatasetLength();
+        doReturn(encryptedDataset).when(preComputeApp).downloadEncryptedDataset();
+        doReturn(plainContent).when(preComputeApp).decryptDataset(encryptedDataset);
+        doNothing().when(preComputeApp).savePlainDatasetFile(plainContent);
+        preComputeApp.prepareDataset();
+        verify(preComputeApp, never()).streamPlainDatasetFile();
+        assertThat(memoryGovernor.getReservedMemory()).isZero();
+    }
+
+    @Test
+    void shouldStreamDatasetExceedingMemoryBudget() throws Exception {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL).build();
+        final MemoryGovernor memoryGovernor = new MemoryGovernor(64L * 1024 * 1024, Long.MAX_VALUE);
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        doReturn(memoryGovernor).when(preComputeApp).getMemoryGovernor();
+        doReturn(20L * 1024 * 1024).when(preComputeApp).probeEncryptedDatasetLength();
+        doNothing().when(preComputeApp).streamPlainDatasetFile();
+        preComputeApp.prepareDataset();
+        verify(preComputeApp, never()).downloadEncryptedDataset();
+        assertThat(memoryGovernor.getReservedMemory()).isZero();
+    }
+
+    @Test
+    void shouldStreamDatasetOfUnknownLength() throws Exception {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL).build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        doReturn(-1L).when(preComputeApp).probeEncryptedDatasetLength();
+        doNothing().when(preComputeApp).streamPlainDatasetFile();
+        preComputeApp.prepareDataset();
+        verify(preComputeApp, never()).downloadEncryptedDataset();
+    }
+
+    @Test
+    void shouldStreamDatasetExceedingMemoryBudgetFromHttpSourceFailingMidway() throws Exception {
+        final byte[] encryptedDataset = FileHelper.readAllBytes(RESOURCES + DATASET_RESOURCE_NAME);
+        final int failAfter = encryptedDataset.length / 2;
+        final List<String> ranges = new CopyOnWriteArrayList<>();
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(encryptedDataset.length));
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+                return;
+            }
+            final String range = exchange.getRequestHeaders().getFirst("Range");
+            if (range == null) {
+                // the connection is closed halfway through the body
+                exchange.sendResponseHeaders(200, encryptedDataset.length);
+                try {
+                    final OutputStream body = exchange.getResponseBody();
+                    body.write(encryptedDataset, 0, failAfter);
+                    body.flush();
+                } finally {
+                    exchange.close();
+                }
+                return;
+            }
+            ranges.add(range);
+            final int start = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+            exchange.getResponseHeaders().set("Content-Range",
+                    "bytes " + start + "-" + (encryptedDataset.length - 1) + "/" + encryptedDataset.length);
+            exchange.sendResponseHeaders(206, encryptedDataset.length - start);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(encryptedDataset, start, encryptedDataset.length - start);
+            }
+        });
+        server.start();
+        try {
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(getGatewayUrl(server) + "/dataset.bin")
+                    .downloadRetryInitialBackoffMillis(0)
+                    .build();
+            // half of the usable memory is the payload budget, far below the three copies of the dataset
+            final MemoryGovernor memoryGovernor = new MemoryGovernor(encryptedDataset.length, Long.MAX_VALUE);
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            doReturn(memoryGovernor).when(preComputeApp).getMemoryGovernor();
+            preComputeApp.prepareDataset();
+            assertThat(new File(outputDir, DATASET_FILENAME)).hasBinaryContent(FileHelper.readAllBytes(PLAIN_DATA_FILE));
+            verify(preComputeApp).streamPlainDatasetFile();
+            verify(preComputeApp, never()).downloadEncryptedDataset();
+            assertThat(ranges).containsExactly("bytes=" + failAfter + "-");
+            assertThat(memoryGovernor.getReservedMemory()).isZero();
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void shouldProbeEncryptedDatasetLengthFromSource() throws IOException {
+        final HttpServer server = startHeadServer(1234);
+        try {
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(getGatewayUrl(server) + "/dataset.bin")
+                    .downloadMaxAttempts(1)
+                    .build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            assertThat(preComputeApp.probeEncryptedDatasetLength()).isEqualTo(1234);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void shouldProbeEncryptedDatasetLengthFromCache() throws IOException {
+        final File cacheDir = new File(outputDir, "cache");
+        final byte[] encryptedDataset = FileHelper.readAllBytes(RESOURCES + DATASET_RESOURCE_NAME);
+        Files.createDirectories(cacheDir.toPath());
+        Files.write(cacheDir.toPath().resolve(DATASET_CHECKSUM.substring(2)), encryptedDataset);
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                .datasetCacheDir(cacheDir.getAbsolutePath())
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        assertThat(preComputeApp.probeEncryptedDatasetLength()).isEqualTo(encryptedDataset.length);
+        verify(preComputeApp, never()).getDownloadClient();
+    }
+
+    @Test
+    void shouldNotProbeEncryptedDatasetLengthWhenSourceFails() throws IOException {
+        final HttpServer server = startGateway(404, new byte[0]);
+        try {
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(getGatewayUrl(server) + "/dataset.bin")
+                    .downloadMaxAttempts(1)
+                    .build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            assertThat(preComputeApp.probeEncryptedDatasetLength()).isEqualTo(-1);
+        } finally {
+            server.stop(0);
+        }
+    }
+    @Test
+    void shouldProbeEncryptedDatasetLengthOnceWithoutConsumingRetryBudget() throws IOException {
+        final AtomicInteger requests = new AtomicInteger();
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(getGatewayUrl(server) + "/dataset.bin")
+                    .downloadMaxAttempts(3)
+                    .downloadRetryInitialBackoffMillis(0)
+                    .build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            assertThat(preComputeApp.probeEncryptedDatasetLength()).isEqualTo(-1);
+            assertThat(requests).hasValue(1);
+        } finally {
+            server.stop(0);
+        }
+    }
+    //endregion
+
+    //region runPreflightChecks
+    @Test
+    void shouldPassPreflightChecksAndKeepAnnouncedLengths() throws Exception {
+        final HttpServer server = startHeadServer(1234);
+        try {
+            final String datasetUrl = getGatewayUrl(server) + "/dataset.bin";
+            final String inputFileUrl = getGatewayUrl(server) + "/input.txt";
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(datasetUrl)
+                    .inputFiles(List.of(inputFileUrl))
+                    .build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            preComputeApp.runPreflightChecks();
+            assertThat(preComputeApp.getAnnouncedLength(datasetUrl)).isEqualTo(1234);
+            assertThat(preComputeApp.getAnnouncedLength(inputFileUrl)).isEqualTo(1234);
+            assertThat(preComputeApp.probeEncryptedDatasetLength()).isEqualTo(1234);
+            // probes share the download client, the dataset length is not requested again
+            verify(preComputeApp, times(1)).getDownloadClient();
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void shouldPassPreflightChecksWhenHeadIsRejected() throws Exception {
+        final HttpServer server = startGateway(405, new byte[0]);
+        try {
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(getGatewayUrl(server) + "/dataset.bin")
+                    .inputFiles(List.of(getGatewayUrl(server) + "/input.txt"))
+                    .build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            assertDoesNotThrow(() -> preComputeApp.runPreflightChecks());
+            assertThat(preComputeApp.getAnnouncedLength(getGatewayUrl(server) + "/dataset.bin")).isEqualTo(-1);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void shouldFailPreflightChecksSinceDatasetMissing() throws Exception {
+        final HttpServer server = startGateway(404, new byte[0]);
+        try {
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(getGatewayUrl(server) + "/dataset.bin")
+                    .inputFiles(List.of())
+                    .build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            final PreComputeException e = assertThrows(PreComputeException.class,
+                    () -> preComputeApp.runPreflightChecks());
+            assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_DATASET_DOWNLOAD_FAILED);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void shouldFailPreflightChecksSinceInputFileMissing() throws Exception {
+        final HttpServer server = startGateway(404, new byte[0]);
+        try {
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                    .isDatasetRequired(false)
+                    .inputFiles(List.of(getGatewayUrl(server) + "/input.txt"))
+                    .build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            final PreComputeException e = assertThrows(PreComputeException.class,
+                    () -> preComputeApp.runPreflightChecks());
+            assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void shouldFailPreflightChecksSinceDatasetDoesNotFitOnDisk() throws Exception {
+        final HttpServer server = startHeadServer(1234);
+        try {
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(getGatewayUrl(server) + "/dataset.bin")
+                    .inputFiles(List.of())
+                    .build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            doReturn(1000L).when(preComputeApp).getUsableSpace(any());
+            final PreComputeException e = assertThrows(PreComputeException.class,
+                    () -> preComputeApp.runPreflightChecks());
+            assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_SAVING_PLAIN_DATASET_FAILED);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void shouldPassPreflightChecksSinceCompressedDatasetSizeUnknown() throws Exception {
+        final HttpServer server = startHeadServer(1234);
+        try {
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(getGatewayUrl(server) + "/dataset.bin")
+                    .datasetCompression(DatasetCompression.GZIP)
+                    .inputFiles(List.of())
+                    .build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            doReturn(1000L).when(preComputeApp).getUsableSpace(any());
+            assertDoesNotThrow(() -> preComputeApp.runPreflightChecks());
+            assertThat(preComputeApp.getAnnouncedLength(getGatewayUrl(server) + "/dataset.bin")).isEqualTo(1234);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void shouldPassPreflightChecksSinceExtractedDatasetSizeUnknown() throws Exception {
+        final HttpServer server = startHeadServer(1234);
+        try {
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(getGatewayUrl(server) + "/dataset.bin")
+                    .isDatasetExtractionEnabled(true)
+                    .inputFiles(List.of())
+                    .build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            doReturn(1000L).when(preComputeApp).getUsableSpace(any());
+            assertDoesNotThrow(() -> preComputeApp.runPreflightChecks());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void shouldFailPreflightChecksSinceInputFilesDoNotFitOnDisk() throws Exception {
+        final HttpServer server = startHeadServer(1234);
+        try {
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(getGatewayUrl(server) + "/dataset.bin")
+                    .inputFiles(List.of(getGatewayUrl(server) + "/a.txt", getGatewayUrl(server) + "/b.txt"))
+                    .build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            doReturn(3000L).when(preComputeApp).getUsableSpace(any());
+            final PreComputeException e = assertThrows(PreComputeException.class,
+                    () -> preComputeApp.runPreflightChecks());
+            assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private HttpServer startHeadServer(long contentLength) throws IOException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(contentLength));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+    //endregion
+
+    //region streamPlainDatasetFile
+    @Test
+    void shouldStreamPlainDatasetFile() throws Exception {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL).build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        doReturn(new FileInputStream(RESOURCES + DATASET_RESOURCE_NAME))
+                .when(preComputeApp).openEncryptedDatasetStream();
+        preComputeApp.streamPlainDatasetFile();
+        assertThat(new File(outputDir, DATASET_FILENAME)).hasBinaryContent(FileHelper.readAllBytes(PLAIN_DATA_FILE));
+    }
+
+    @Test
+    void shouldNotStreamPlainDatasetFileSinceChecksumNotValid() throws Exception {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                .encryptedDatasetChecksum("badChecksum")
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        doReturn(new FileInputStream(RESOURCES + DATASET_RESOURCE_NAME))
+                .when(preComputeApp).openEncryptedDatasetStream();
+        PreComputeException e = assertThrows(
+                PreComputeException.class,
+                () -> preComputeApp.streamPlainDatasetFile());
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_INVALID_DATASET_CHECKSUM);
+        assertThat(new File(outputDir, DATASET_FILENAME)).doesNotExist();
+    }
+
+    @Test
+    void shouldNotStreamPlainDatasetFileSinceDownloadFailed() {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(IPFS_DATASET_URL).build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        doReturn(null).when(preComputeApp).openUrlStream(anyString());
+        PreComputeException e = assertThrows(
+                PreComputeException.class,
+                () -> preComputeApp.streamPlainDatasetFile());
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_DATASET_DOWNLOAD_FAILED);
+        verify(preComputeApp, times(3)).openUrlStream(anyString());
+    }
+
+    @Test
+    void shouldStreamPlainDatasetFileWithRangedDownload() throws Exception {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(IPFS_DATASET_URL)
+                .rangedDownloadConnections(4)
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        doReturn(new FileInputStream(RESOURCES + DATASET_RESOURCE_NAME))
+                .when(preComputeApp).openRangedDatasetStream(IPFS_DATASET_URL);
+        preComputeApp.streamPlainDatasetFile();
+        assertThat(new File(outputDir, DATASET_FILENAME)).hasBinaryContent(FileHelper.readAllBytes(PLAIN_DATA_FILE));
+        verify(preComputeApp, never()).openUrlStream(anyString());
+    }
+
+    @Test
+    void shouldNotOpenRangedDatasetStreamWhenDisabled() {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL).build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        assertThat(preComputeApp.openRangedDatasetStream(HTTP_DATASET_URL)).isNull();
+    }
+    //endregion
+
     @Test
     void shouldDownloadInputFiles() throws Exception {
         final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL).build();
@@ -306,6 +1108,268 @@ class PreComputeAppTests {
         assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
     }
 
+    @Test
+    void shouldDownloadInputFileThroughStagingFolder() throws Exception {
+        final HttpServer server = startGateway(200, FileHelper.readAllBytes(PLAIN_DATA_FILE));
+        try {
+            final String url = getGatewayUrl(server) + "/input-file.txt";
+            final File stagingDir = new File(outputDir, "staging");
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                    .downloadStagingDir(stagingDir.getAbsolutePath())
+                    .build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            preComputeApp.downloadInputFile(url);
+            assertThat(new File(outputDir, FileHashUtils.createFileNameFromUri(url)))
+                    .hasBinaryContent(FileHelper.readAllBytes(PLAIN_DATA_FILE));
+            assertThat(stagingDir).isEmptyDirectory();
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void shouldKeepFailedInputFileOutOfOutputFolderWhenStaging() {
+        final File stagingDir = new File(outputDir, "staging");
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                .downloadStagingDir(stagingDir.getAbsolutePath())
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        PreComputeException e = assertThrows(PreComputeException.class,
+                () -> preComputeApp.downloadInputFile("http://localhost:1/input-file.txt"));
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+        assertThat(new File(outputDir, FileHashUtils.createFileNameFromUri("http://localhost:1/input-file.txt")))
+                .doesNotExist();
+    }
+
+    @Test
+    void shouldDownloadInputFilesConcurrently() throws Exception {
+        final List<String> inputFiles = List.of("url1", "url2", "url3", "url4");
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                .inputFiles(inputFiles)
+                .maxParallelDownloads(4)
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        final CountDownLatch allStarted = new CountDownLatch(inputFiles.size());
+        doAnswer(invocation -> {
+            allStarted.countDown();
+            // only succeeds if all downloads are in flight at the same time
+            if (!allStarted.await(5, TimeUnit.SECONDS)) {
+                throw new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+            }
+            return null;
+        }).when(preComputeApp).downloadInputFile(anyString());
+        assertDoesNotThrow(() -> preComputeApp.downloadInputFiles());
+        inputFiles.forEach(url -> verify(preComputeApp).downloadInputFile(url));
+    }
+
+    @Test
+    void shouldStopDownloadingInputFilesAfterFirstFailure() throws Exception {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                .inputFiles(List.of("url1", "url2", "url3", "url4"))
+                .maxParallelDownloads(1)
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        doAnswer(invocation -> {
+            Thread.sleep(500);
+            return null;
+        }).when(preComputeApp).downloadInputFile(anyString());
+        doThrow(new PreComputeException(ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED))
+                .when(preComputeApp).downloadInputFile("url1");
+        PreComputeException e = assertThrows(PreComputeException.class,
+                () -> preComputeApp.downloadInputFiles());
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+        verify(preComputeApp, never()).downloadInputFile("url4");
+    }
+
+    @Test
+    void shouldDownloadDuplicateInputFileOnce() throws Exception {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                .inputFiles(List.of(INPUT_FILE_1_URL, INPUT_FILE_2_URL, INPUT_FILE_1_URL))
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        doNothing().when(preComputeApp).downloadInputFile(anyString());
+        preComputeApp.downloadInputFiles();
+        verify(preComputeApp).downloadInputFile(INPUT_FILE_1_URL);
+        verify(preComputeApp).downloadInputFile(INPUT_FILE_2_URL);
+    }
+
+    @Test
+    void shouldDownloadLargestInputFilesFirst() throws Exception {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                .inputFiles(List.of("url1", "url2", "url3"))
+                .maxParallelDownloads(1)
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        doReturn(10L).when(preComputeApp).getAnnouncedLength("url1");
+        doReturn(1000L).when(preComputeApp).getAnnouncedLength("url2");
+        doReturn(100L).when(preComputeApp).getAnnouncedLength("url3");
+        final List<String> downloaded = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            downloaded.add(invocation.getArgument(0));
+            return null;
+        }).when(preComputeApp).downloadInputFile(anyString());
+        preComputeApp.downloadInputFiles();
+        assertThat(downloaded).containsExactly("url2", "url3", "url1");
+    }
+
+    @Test
+    void shouldDownloadInputFilesFromManifest() throws Exception {
+        final File manifest = new File(outputDir, "manifest.txt");
+        Files.writeString(manifest.toPath(), "# input files\nurl3 -\n\nurl4\n");
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                .inputFiles(List.of("url1", "url2"))
+                .inputManifestFile(manifest.getAbsolutePath())
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        doNothing().when(preComputeApp).downloadInputFile(anyString());
+        doNothing().when(preComputeApp).downloadInputFile(any(InputFileDescriptor.class));
+        preComputeApp.downloadInputFiles();
+        List.of("url1", "url2").forEach(url -> verify(preComputeApp).downloadInputFile(url));
+        List.of("url3", "url4").forEach(url -> verify(preComputeApp)
+                .downloadInputFile(InputFileDescriptor.builder().url(url).build()));
+    }
+
+    @Test
+    void shouldDownloadInputFilesFromManifestOnly() throws Exception {
+        final File manifest = new File(outputDir, "manifest.txt");
+        Files.writeString(manifest.toPath(), "url1\n");
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                .inputFiles(List.of())
+                .inputManifestFile(manifest.getAbsolutePath())
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        doNothing().when(preComputeApp).downloadInputFile(any(InputFileDescriptor.class));
+        preComputeApp.downloadInputFiles();
+        verify(preComputeApp).downloadInputFile(InputFileDescriptor.builder().url("url1").build());
+    }
+
+    @Test
+    void shouldSkipManifestInputFileWithUsedName() throws Exception {
+        final File manifest = new File(outputDir, "manifest.txt");
+        Files.writeString(manifest.toPath(), INPUT_FILE_1_URL + "\n" + INPUT_FILE_1_URL + "\n");
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                .inputFiles(List.of(INPUT_FILE_1_URL))
+                .inputManifestFile(manifest.getAbsolutePath())
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        doNothing().when(preComputeApp).downloadInputFile(anyString());
+        preComputeApp.downloadInputFiles();
+        verify(preComputeApp).downloadInputFile(INPUT_FILE_1_URL);
+        verify(preComputeApp, never()).downloadInputFile(any(InputFileDescriptor.class));
+    }
+
+    @Test
+    void shouldThrowSinceInputManifestInvalid() throws Exception {
+        final File manifest = new File(outputDir, "manifest.txt");
+        Files.writeString(manifest.toPath(), "url1 not-a-size\n");
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                .inputFiles(List.of())
+                .inputManifestFile(manifest.getAbsolutePath())
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        final PreComputeException e = assertThrows(PreComputeException.class,
+                () -> preComputeApp.downloadInputFiles());
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_AT_LEAST_ONE_INPUT_FILE_URL_MISSING);
+    }
+
+    @Test
+    void shouldThrowSinceInputManifestUnreadable() {
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                .inputFiles(List.of())
+                .inputManifestFile(new File(outputDir, "missing-manifest.txt").getAbsolutePath())
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        final PreComputeException e = assertThrows(PreComputeException.class,
+                () -> preComputeApp.downloadInputFiles());
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+    }
+
+    @Test
+    void shouldThrowSinceManifestInputFilesDoNotFitOnDisk() throws Exception {
+        final File manifest = new File(outputDir, "manifest.txt");
+        Files.writeString(manifest.toPath(), "url1 600\nurl2 600\n");
+        final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                .inputFiles(List.of())
+                .inputManifestFile(manifest.getAbsolutePath())
+                .build();
+        doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+        doReturn(1000L).when(preComputeApp).getUsableSpace(any());
+        doNothing().when(preComputeApp).downloadInputFile(any(InputFileDescriptor.class));
+        final PreComputeException e = assertThrows(PreComputeException.class,
+                () -> preComputeApp.downloadInputFiles());
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+        verify(preComputeApp, never()).downloadInputFile(new InputFileDescriptor("url2", 600, null));
+    }
+
+    @Test
+    void shouldVerifyManifestInputFile() throws Exception {
+        final byte[] content = FileHelper.readAllBytes(PLAIN_DATA_FILE);
+        final String checksum = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        final HttpServer server = startGateway(200, content);
+        try {
+            final String url = getGatewayUrl(server) + "/input-file.txt";
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL).build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            preComputeApp.downloadInputFile(new InputFileDescriptor(url, content.length, "0x" + checksum));
+            assertThat(new File(outputDir, FileHashUtils.createFileNameFromUri(url))).hasBinaryContent(content);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void shouldRemoveManifestInputFileWithInvalidChecksum() throws Exception {
+        final HttpServer server = startGateway(200, FileHelper.readAllBytes(PLAIN_DATA_FILE));
+        try {
+            final String url = getGatewayUrl(server) + "/input-file.txt";
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL).build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            final InputFileDescriptor inputFile = new InputFileDescriptor(url, -1, "0".repeat(64));
+            final PreComputeException e = assertThrows(PreComputeException.class,
+                    () -> preComputeApp.downloadInputFile(inputFile));
+            assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+            assertThat(new File(outputDir, FileHashUtils.createFileNameFromUri(url))).doesNotExist();
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void shouldRemoveManifestInputFileWithUnexpectedSize() throws Exception {
+        final HttpServer server = startGateway(200, FileHelper.readAllBytes(PLAIN_DATA_FILE));
+        try {
+            final String url = getGatewayUrl(server) + "/input-file.txt";
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL).build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            final InputFileDescriptor inputFile = new InputFileDescriptor(url, 1, null);
+            assertThrows(PreComputeException.class, () -> preComputeApp.downloadInputFile(inputFile));
+            assertThat(new File(outputDir, FileHashUtils.createFileNameFromUri(url))).doesNotExist();
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void shouldNotPublishStagedManifestInputFileWithInvalidChecksum() throws Exception {
+        final HttpServer server = startGateway(200, FileHelper.readAllBytes(PLAIN_DATA_FILE));
+        try {
+            final String url = getGatewayUrl(server) + "/input-file.txt";
+            final File stagingDir = new File(outputDir, "staging");
+            final PreComputeArgs preComputeArgs = getPreComputeArgsBuilder(HTTP_DATASET_URL)
+                    .downloadStagingDir(stagingDir.getAbsolutePath())
+                    .build();
+            doReturn(preComputeArgs).when(preComputeApp).getPreComputeArgs();
+            final InputFileDescriptor inputFile = new InputFileDescriptor(url, -1, "0".repeat(64));
+            final PreComputeException e = assertThrows(PreComputeException.class,
+                    () -> preComputeApp.downloadInputFile(inputFile));
+            assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+            assertThat(new File(outputDir, FileHashUtils.createFileNameFromUri(url))).doesNotExist();
+            assertThat(stagingDir).isEmptyDirectory();
+        } finally {
+            server.stop(0);
+        }
+    }
+
     private PreComputeArgs.PreComputeArgsBuilder getPreComputeArgsBuilder(String datasetUrl) {
         return PreComputeArgs.builder()
                 .chainTaskId(CHAIN_TASK_ID)
@@ -18,15 +18,21 @@ package com.iexec.worker.compute.pre;
 
 import com.iexec.common.replicate.ReplicateStatusCause;
 import com.iexec.common.worker.tee.TeeSessionEnvironmentVariable;
+import com.iexec.commons.poco.utils.MultiAddressHelper;
+import com.iexec.worker.compute.pre.dataset.DatasetCompression;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
 import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
 
+import java.util.List;
+
 import static com.iexec.common.utils.IexecEnvUtils.IEXEC_INPUT_FILE_URL_PREFIX;
 import static com.iexec.common.worker.tee.TeeSessionEnvironmentVariable.*;
+import static com.iexec.worker.compute.pre.utils.PreComputeEnvironmentVariable.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(SystemStubsExtension.class)
@@ -53,6 +59,80 @@ class PreComputeArgsTests {
         assertFalse(args.isDatasetRequired());
         assertEquals(1, args.getInputFiles().size());
         assertEquals(INPUT_FILE_URL_1, args.getInputFiles().get(0));
+        assertEquals(PreComputeArgs.DEFAULT_MAX_PARALLEL_DOWNLOADS, args.getMaxParallelDownloads());
+        assertNull(args.getDownloadStagingDir());
+        assertFalse(args.isPreflightEnabled());
+        assertEquals(PreComputeArgs.DEFAULT_DOWNLOAD_MAX_ATTEMPTS, args.getDownloadMaxAttempts());
+        assertEquals(PreComputeArgs.DEFAULT_DOWNLOAD_RETRY_INITIAL_BACKOFF_MILLIS, args.getDownloadRetryInitialBackoffMillis());
+        assertEquals(PreComputeArgs.DEFAULT_DOWNLOAD_RETRY_MAX_BACKOFF_MILLIS, args.getDownloadRetryMaxBackoffMillis());
+        assertEquals(PreComputeArgs.DEFAULT_DOWNLOAD_RETRY_BUDGET, args.getDownloadRetryBudget());
+    }
+
+    @Test
+    void shouldReadMaxParallelDownloads(EnvironmentVariables environment) throws Exception {
+        environment.set(IEXEC_PRE_COMPUTE_OUT, OUTPUT_DIR);
+        environment.set(IS_DATASET_REQUIRED, "false");
+        environment.set(IEXEC_INPUT_FILES_NUMBER, "0");
+        environment.set(IEXEC_PRE_COMPUTE_MAX_PARALLEL_DOWNLOADS, "16");
+        final PreComputeArgs args = PreComputeArgs.readArgs(CHAIN_TASK_ID);
+        assertEquals(16, args.getMaxParallelDownloads());
+    }
+
+    @Test
+    void shouldReadDownloadStagingDir(EnvironmentVariables environment) throws Exception {
+        environment.set(IEXEC_PRE_COMPUTE_OUT, OUTPUT_DIR);
+        environment.set(IS_DATASET_REQUIRED, "false");
+        environment.set(IEXEC_PRE_COMPUTE_DOWNLOAD_STAGING_DIR, "/worker/staging");
+        environment.set(IEXEC_INPUT_FILES_NUMBER, "0");
+        final PreComputeArgs args = PreComputeArgs.readArgs(CHAIN_TASK_ID);
+        assertEquals("/worker/staging", args.getDownloadStagingDir());
+    }
+
+    @Test
+    void shouldReadPreflightEnabled(EnvironmentVariables environment) throws Exception {
+        environment.set(IEXEC_PRE_COMPUTE_OUT, OUTPUT_DIR);
+        environment.set(IS_DATASET_REQUIRED, "false");
+        environment.set(IEXEC_PRE_COMPUTE_PREFLIGHT, "true");
+        environment.set(IEXEC_INPUT_FILES_NUMBER, "0");
+        final PreComputeArgs args = PreComputeArgs.readArgs(CHAIN_TASK_ID);
+        assertTrue(args.isPreflightEnabled());
+    }
+
+    @Test
+    void shouldReadInputManifest(EnvironmentVariables environment) throws Exception {
+        environment.set(IEXEC_PRE_COMPUTE_OUT, OUTPUT_DIR);
+        environment.set(IS_DATASET_REQUIRED, "false");
+        environment.set(IEXEC_INPUT_FILES_NUMBER, "0");
+        environment.set(IEXEC_PRE_COMPUTE_INPUT_MANIFEST_FILE, "/worker/manifest.txt");
+        final PreComputeArgs args = PreComputeArgs.readArgs(CHAIN_TASK_ID);
+        assertEquals("/worker/manifest.txt", args.getInputManifestFile());
+        assertNull(args.getInputManifest());
+        assertTrue(args.hasInputManifest());
+    }
+
+    @Test
+    void shouldReadArgsWithoutInputManifest(EnvironmentVariables environment) throws Exception {
+        environment.set(IEXEC_PRE_COMPUTE_OUT, OUTPUT_DIR);
+        environment.set(IS_DATASET_REQUIRED, "false");
+        environment.set(IEXEC_INPUT_FILES_NUMBER, "0");
+        final PreComputeArgs args = PreComputeArgs.readArgs(CHAIN_TASK_ID);
+        assertFalse(args.hasInputManifest());
+    }
+
+    @Test
+    void shouldReadDownloadRetryPolicy(EnvironmentVariables environment) throws Exception {
+        environment.set(IEXEC_PRE_COMPUTE_OUT, OUTPUT_DIR);
+        environment.set(IS_DATASET_REQUIRED, "false");
+        environment.set(IEXEC_INPUT_FILES_NUMBER, "0");
+        environment.set(IEXEC_PRE_COMPUTE_DOWNLOAD_MAX_ATTEMPTS, "5");
+        environment.set(IEXEC_PRE_COMPUTE_DOWNLOAD_RETRY_INITIAL_BACKOFF_MS, "100");
+        environment.set(IEXEC_PRE_COMPUTE_DOWNLOAD_RETRY_MAX_BACKOFF_MS, "2000");
+        environment.set(IEXEC_PRE_COMPUTE_DOWNLOAD_RETRY_BUDGET, "50");
+        final PreComputeArgs args = PreComputeArgs.readArgs(CHAIN_TASK_ID);
+        assertEquals(5, args.getDownloadMaxAttempts());
+        assertEquals(100, args.getDownloadRetryInitialBackoffMillis());
+        assertEquals(2000, args.getDownloadRetryMaxBackoffMillis());
+        assertEquals(50, args.getDownloadRetryBudget());
     }
 
     @Test
@@ -72,9 +152,158 @@ class PreComputeArgsTests {
         assertEquals(DATASET_KEY, args.getEncryptedDatasetBase64Key());
         assertEquals(DATASET_CHECKSUM, args.getEncryptedDatasetChecksum());
         assertEquals(DATASET_FILENAME, args.getPlainDatasetFilename());
+        assertFalse(args.isDatasetStreamingEnabled());
+        assertEquals(PreComputeArgs.IPFS_HEDGING_DISABLED, args.getIpfsHedgeDelayMillis());
+        assertEquals(PreComputeArgs.DEFAULT_RANGED_DOWNLOAD_CONNECTIONS, args.getRangedDownloadConnections());
+        assertEquals(PreComputeArgs.DEFAULT_RANGED_DOWNLOAD_CHUNK_SIZE, args.getRangedDownloadChunkSize());
+        assertNull(args.getDatasetCacheDir());
+        assertFalse(args.isMemoryMappedOutputEnabled());
+        assertEquals(PreComputeArgs.DEFAULT_DECRYPTION_PARALLELISM, args.getDecryptionParallelism());
+        assertFalse(args.isDatasetExtractionEnabled());
+        assertEquals(PreComputeArgs.DEFAULT_DATASET_EXTRACTION_MAX_SIZE_MB, args.getDatasetExtractionMaxSizeMb());
+        assertEquals(DatasetCompression.NONE, args.getDatasetCompression());
+        assertEquals(MultiAddressHelper.IPFS_GATEWAYS, args.getIpfsGateways());
+        assertNull(args.getGatewayStatsFile());
         assertEquals(0, args.getInputFiles().size());
     }
 
+    @Test
+    void shouldReadArgsWithStreamedDataset(EnvironmentVariables environment) throws Exception {
+        environment.set(IEXEC_PRE_COMPUTE_OUT, OUTPUT_DIR);
+        environment.set(IS_DATASET_REQUIRED, "true");
+        environment.set(IEXEC_DATASET_URL, DATASET_URL);
+        environment.set(IEXEC_DATASET_KEY, DATASET_KEY);
+        environment.set(IEXEC_DATASET_CHECKSUM, DATASET_CHECKSUM);
+        environment.set(IEXEC_DATASET_FILENAME, DATASET_FILENAME);
+        environment.set(IEXEC_PRE_COMPUTE_DATASET_STREAMING, "true");
+        environment.set(IEXEC_INPUT_FILES_NUMBER, "0");
+        environment.set(IEXEC_PRE_COMPUTE_DATASET_MMAP_OUTPUT, "true");
+        final PreComputeArgs args = PreComputeArgs.readArgs(CHAIN_TASK_ID);
+        assertTrue(args.isDatasetStreamingEnabled());
+        assertTrue(args.isMemoryMappedOutputEnabled());
+    }
+
+    @Test
+    void shouldReadArgsWithIpfsHedging(EnvironmentVariables environment) throws Exception {
+        environment.set(IEXEC_PRE_COMPUTE_OUT, OUTPUT_DIR);
+        environment.set(IS_DATASET_REQUIRED, "true");
+        environment.set(IEXEC_DATASET_URL, DATASET_URL);
+        environment.set(IEXEC_DATASET_KEY, DATASET_KEY);
+        environment.set(IEXEC_DATASET_CHECKSUM, DATASET_CHECKSUM);
+        environment.set(IEXEC_DATASET_FILENAME, DATASET_FILENAME);
+        environment.set(IEXEC_PRE_COMPUTE_IPFS_HEDGE_DELAY_MS, "200");
+        environment.set(IEXEC_INPUT_FILES_NUMBER, "0");
+        final PreComputeArgs args = PreComputeArgs.readArgs(CHAIN_TASK_ID);
+        assertEquals(200, args.getIpfsHedgeDelayMillis());
+    }
+
+    @Test
+    void shouldReadArgsWithRangedDownload(EnvironmentVariables environment) throws Exception {
+        environment.set(IEXEC_PRE_COMPUTE_OUT, OUTPUT_DIR);
+        environment.set(IS_DATASET_REQUIRED, "true");
+        environment.set(IEXEC_DATASET_URL, DATASET_URL);
+        environment.set(IEXEC_DATASET_KEY, DATASET_KEY);
+        environment.set(IEXEC_DATASET_CHECKSUM, DATASET_CHECKSUM);
+        environment.set(IEXEC_DATASET_FILENAME, DATASET_FILENAME);
+        environment.set(IEXEC_PRE_COMPUTE_RANGED_DOWNLOAD_CONNECTIONS, "8");
+        environment.set(IEXEC_PRE_COMPUTE_RANGED_DOWNLOAD_CHUNK_SIZE, "1048576");
+        environment.set(IEXEC_INPUT_FILES_NUMBER, "0");
+        final PreComputeArgs args = PreComputeArgs.readArgs(CHAIN_TASK_ID);
+        assertEquals(8, args.getRangedDownloadConnections());
+        assertEquals(1048576, args.getRangedDownloadChunkSize());
+    }
+
+    @Test
+    void shouldReadArgsWithDatasetCache(EnvironmentVariables environment) throws Exception {
+        environment.set(IEXEC_PRE_COMPUTE_OUT, OUTPUT_DIR);
+        environment.set(IS_DATASET_REQUIRED, "true");
+        environment.set(IEXEC_DATASET_URL, DATASET_URL);
+        environment.set(IEXEC_DATASET_KEY, DATASET_KEY);
+        environment.set(IEXEC_DATASET_CHECKSUM, DATASET_CHECKSUM);
+        environment.set(IEXEC_DATASET_FILENAME, DATASET_FILENAME);
+        environment.set(IEXEC_PRE_COMPUTE_DATASET_CACHE_DIR, "/worker/dataset-cache");
+        environment.set(IEXEC_PRE_COMPUTE_DATASET_CACHE_MAX_SIZE_MB, "2048");
+        environment.set(IEXEC_INPUT_FILES_NUMBER, "0");
+        final PreComputeArgs args = PreComputeArgs.readArgs(CHAIN_TASK_ID);
+        assertEquals("/worker/dataset-cache", args.getDatasetCacheDir());
+        assertEquals(2048, args.getDatasetCacheMaxSizeMb());
+    }
+
+    @Test
+    void shouldReadArgsWithDecryptionParallelism(EnvironmentVariables environment) throws Exception {
+        environment.set(IEXEC_PRE_COMPUTE_OUT, OUTPUT_DIR);
+        environment.set(IS_DATASET_REQUIRED, "true");
+        environment.set(IEXEC_DATASET_URL, DATASET_URL);
+        environment.set(IEXEC_DATASET_KEY, DATASET_KEY);
+        environment.set(IEXEC_DATASET_CHECKSUM, DATASET_CHECKSUM);
+        environment.set(IEXEC_DATASET_FILENAME, DATASET_FILENAME);
+        environment.set(IEXEC_PRE_COMPUTE_DECRYPTION_PARALLELISM, "1");
+        environment.set(IEXEC_INPUT_FILES_NUMBER, "0");
+        final PreComputeArgs args = PreComputeArgs.readArgs(CHAIN_TASK_ID);
+        assertEquals(1, args.getDecryptionParallelism());
+    }
+
+    @Test
+    void shouldReadArgsWithDatasetExtraction(EnvironmentVariables environment) throws Exception {
+        environment.set(IEXEC_PRE_COMPUTE_OUT, OUTPUT_DIR);
+        environment.set(IS_DATASET_REQUIRED, "true");
+        environment.set(IEXEC_DATASET_URL, DATASET_URL);
+        environment.set(IEXEC_DATASET_KEY, DATASET_KEY);
+        environment.set(IEXEC_DATASET_CHECKSUM, DATASET_CHECKSUM);
+        environment.set(IEXEC_DATASET_FILENAME, DATASET_FILENAME);
+        environment.set(IEXEC_PRE_COMPUTE_DATASET_EXTRACTION, "true");
+        environment.set(IEXEC_PRE_COMPUTE_DATASET_EXTRACTION_MAX_SIZE_MB, "2048");
+        environment.set(IEXEC_INPUT_FILES_NUMBER, "0");
+        final PreComputeArgs args = PreComputeArgs.readArgs(CHAIN_TASK_ID);
+        assertTrue(args.isDatasetExtractionEnabled());
+        assertEquals(2048, args.getDatasetExtractionMaxSizeMb());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = DatasetCompression.class, names = {"GZIP", "ZSTD", "AUTO"})
+    void shouldReadArgsWithDatasetCompression(DatasetCompression compression, EnvironmentVariables environment)
+            throws Exception {
+        environment.set(IEXEC_PRE_COMPUTE_OUT, OUTPUT_DIR);
+        environment.set(IS_DATASET_REQUIRED, "true");
+        environment.set(IEXEC_DATASET_URL, DATASET_URL);
+        environment.set(IEXEC_DATASET_KEY, DATASET_KEY);
+        environment.set(IEXEC_DATASET_CHECKSUM, DATASET_CHECKSUM);
+        environment.set(IEXEC_DATASET_FILENAME, DATASET_FILENAME);
+        environment.set(IEXEC_PRE_COMPUTE_DATASET_COMPRESSION, compression.name().toLowerCase());
+        environment.set(IEXEC_INPUT_FILES_NUMBER, "0");
+        final PreComputeArgs args = PreComputeArgs.readArgs(CHAIN_TASK_ID);
+        assertEquals(compression, args.getDatasetCompression());
+    }
+
+    @Test
+    void shouldReadNoDatasetCompressionSinceInvalidValue(EnvironmentVariables environment) {
+        environment.set(IEXEC_PRE_COMPUTE_DATASET_COMPRESSION, "brotli");
+        assertEquals(DatasetCompression.NONE, PreComputeArgs.readDatasetCompression());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "-1", "abc"})
+    void shouldReadDefaultRangedDownloadChunkSizeSinceInvalidValue(String chunkSize, EnvironmentVariables environment) {
+        environment.set(IEXEC_PRE_COMPUTE_RANGED_DOWNLOAD_CHUNK_SIZE, chunkSize);
+        assertEquals(PreComputeArgs.DEFAULT_RANGED_DOWNLOAD_CHUNK_SIZE, PreComputeArgs.readRangedDownloadChunkSize());
+    }
+
+    @Test
+    void shouldReadArgsWithCustomIpfsGateways(EnvironmentVariables environment) throws Exception {
+        environment.set(IEXEC_PRE_COMPUTE_OUT, OUTPUT_DIR);
+        environment.set(IS_DATASET_REQUIRED, "true");
+        environment.set(IEXEC_DATASET_URL, DATASET_URL);
+        environment.set(IEXEC_DATASET_KEY, DATASET_KEY);
+        environment.set(IEXEC_DATASET_CHECKSUM, DATASET_CHECKSUM);
+        environment.set(IEXEC_DATASET_FILENAME, DATASET_FILENAME);
+        environment.set(IEXEC_PRE_COMPUTE_IPFS_GATEWAYS, " http://local.mirror:8080/ ,https://ipfs.io,");
+        environment.set(IEXEC_PRE_COMPUTE_GATEWAY_STATS_FILE, "/worker/gateway-stats.tsv");
+        environment.set(IEXEC_INPUT_FILES_NUMBER, "0");
+        final PreComputeArgs args = PreComputeArgs.readArgs(CHAIN_TASK_ID);
+        assertEquals(List.of("http://local.mirror:8080", "https://ipfs.io"), args.getIpfsGateways());
+        assertEquals("/worker/gateway-stats.tsv", args.getGatewayStatsFile());
+    }
+
     @Test
     void shouldReadArgsWithMultipleInputFiles(EnvironmentVariables environment) throws Exception {
         environment.set(IEXEC_PRE_COMPUTE_OUT, OUTPUT_DIR);
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.dataset;
+
+import com.iexec.worker.compute.pre.utils.FileUtils;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ArchiveExtractorTests {
+
+    private static final long MAX_SIZE = 10L * 1024 * 1024;
+    private static final byte[] LARGE_CONTENT = new byte[ArchiveExtractor.MAX_BUFFERED_ENTRY_SIZE + 123];
+
+    static {
+        new Random(42).nextBytes(LARGE_CONTENT);
+    }
+
+    enum Format {
+        ZIP, TAR, TAR_GZ
+    }
+
+    @TempDir
+    Path tmpDir;
+
+    @ParameterizedTest
+    @EnumSource(Format.class)
+    void shouldExtractArchive(Format format) throws IOException {
+        final Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("a.txt", bytes("a"));
+        entries.put("folder/b.txt", bytes("b"));
+        entries.put("folder/large.bin", LARGE_CONTENT);
+        for (int i = 0; i < 20; i++) {
+            entries.put("many/" + i + ".txt", bytes(String.valueOf(i)));
+        }
+        final Path targetDir = Files.createDirectory(tmpDir.resolve("dataset"));
+        new ArchiveExtractor(MAX_SIZE, 100).extract(archive(format, entries), targetDir);
+        for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+            assertThat(targetDir.resolve(entry.getKey())).hasBinaryContent(entry.getValue());
+        }
+    }
+
+    @Test
+    void shouldLeaveSourceStreamOpen() throws IOException {
+        final boolean[] isClosed = {false};
+        final InputStream source = new ByteArrayInputStream(
+                archive(Format.TAR, Map.of("a.txt", bytes("a"))).readAllBytes()) {
+            @Override
+            public void close() {
+                isClosed[0] = true;
+            }
+        };
+        new ArchiveExtractor(MAX_SIZE, 100).extract(source, tmpDir);
+        assertThat(isClosed[0]).isFalse();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Format.class)
+    void shouldRejectEntryOutsideOfTargetFolder(Format format) throws IOException {
+        final Path targetDir = Files.createDirectory(tmpDir.resolve("dataset"));
+        final InputStream archive = archive(format, Map.of("folder/../../evil.txt", bytes("evil")));
+        final ArchiveExtractor extractor = new ArchiveExtractor(MAX_SIZE, 100);
+        assertThrows(ArchiveExtractionException.class, () -> extractor.extract(archive, targetDir));
+        assertThat(tmpDir.resolve("evil.txt")).doesNotExist();
+    }
+
+    @Test
+    void shouldNotWriteEntriesOnceExtractionFailed() throws Exception {
+        final Map<String, byte[]> entries = new LinkedHashMap<>();
+        for (int i = 0; i < 500; i++) {
+            entries.put(i + ".txt", bytes(String.valueOf(i)));
+        }
+        entries.put("../evil.txt", bytes("evil"));
+        final Path targetDir = Files.createDirectory(tmpDir.resolve("dataset"));
+        final InputStream archive = archive(Format.TAR, entries);
+        final ArchiveExtractor extractor = new ArchiveExtractor(MAX_SIZE, 1000);
+        assertThrows(ArchiveExtractionException.class, () -> extractor.extract(archive, targetDir));
+        final List<Path> extractedFiles;
+        try (var files = Files.list(targetDir)) {
+            extractedFiles = files.toList();
+        }
+        Thread.sleep(200);
+        try (var files = Files.list(targetDir)) {
+            assertThat(files).containsExactlyInAnyOrderElementsOf(extractedFiles);
+        }
+    }
+
+    @Test
+    void shouldRejectSymbolicLink() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(out)) {
+            final TarArchiveEntry link = new TarArchiveEntry("link", TarArchiveEntry.LF_SYMLINK);
+            link.setLinkName("/etc/passwd");
+            tar.putArchiveEntry(link);
+            tar.closeArchiveEntry();
+        }
+        final InputStream archive = new ByteArrayInputStream(out.toByteArray());
+        final ArchiveExtractor extractor = new ArchiveExtractor(MAX_SIZE, 100);
+        assertThrows(ArchiveExtractionException.class, () -> extractor.extract(archive, tmpDir));
+        assertThat(tmpDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldRejectDuplicateEntry() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(out)) {
+            putEntry(tar, new TarArchiveEntry("a.txt"), bytes("first"));
+            putEntry(tar, new TarArchiveEntry("a.txt"), bytes("second"));
+        }
+        final InputStream archive = new ByteArrayInputStream(out.toByteArray());
+        final ArchiveExtractor extractor = new ArchiveExtractor(MAX_SIZE, 100);
+        assertThrows(ArchiveExtractionException.class, () -> extractor.extract(archive, tmpDir));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Format.class)
+    void shouldStopWhenExtractedSizeExceedsLimit(Format format) throws IOException {
+        final InputStream archive = archive(format, Map.of("large.bin", LARGE_CONTENT));
+        final ArchiveExtractor extractor = new ArchiveExtractor(LARGE_CONTENT.length - 1L, 100);
+        assertThrows(ArchiveExtractionException.class, () -> extractor.extract(archive, tmpDir));
+    }
+
+    @Test
+    void shouldStopWhenEntryCountExceedsLimit() throws IOException {
+        final InputStream archive = archive(Format.ZIP, Map.of("a.txt", bytes("a"), "b.txt", bytes("b")));
+        final ArchiveExtractor extractor = new ArchiveExtractor(MAX_SIZE, 1);
+        assertThrows(ArchiveExtractionException.class, () -> extractor.extract(archive, tmpDir));
+    }
+
+    @Test
+    void shouldRejectUnsupportedFormat() {
+        final InputStream notAnArchive = new ByteArrayInputStream(bytes("plain content"));
+        final ArchiveExtractor extractor = new ArchiveExtractor(MAX_SIZE, 100);
+        assertThrows(ArchiveExtractionException.class, () -> extractor.extract(notAnArchive, tmpDir));
+    }
+
+    @Test
+    void shouldPublishStagingFolderReplacingExistingFolder() throws IOException {
+        final Path targetDir = Files.createDirectory(tmpDir.resolve("dataset"));
+        Files.write(targetDir.resolve("old.txt"), bytes("old"));
+        final Path stagingDir = ArchiveExtractor.createStagingDir(targetDir);
+        Files.write(stagingDir.resolve("new.txt"), bytes("new"));
+        ArchiveExtractor.publish(stagingDir, targetDir);
+        assertThat(targetDir.resolve("new.txt")).hasBinaryContent(bytes("new"));
+        assertThat(Files.getPosixFilePermissions(targetDir)).isEqualTo(FileUtils.PUBLISHED_FOLDER_PERMISSIONS);
+        assertThat(targetDir.resolve("old.txt")).doesNotExist();
+        try (var files = Files.list(tmpDir)) {
+            assertThat(files).containsExactly(targetDir);
+        }
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static InputStream archive(Format format, Map<String, byte[]> entries) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        switch (format) {
+            case ZIP -> {
+                try (ZipArchiveOutputStream zip = new ZipArchiveOutputStream(out)) {
+                    for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                        putEntry(zip, new ZipArchiveEntry(entry.getKey()), entry.getValue());
+                    }
+                }
+            }
+            case TAR -> writeTar(out, entries);
+            case TAR_GZ -> writeTar(new GzipCompressorOutputStream(out), entries);
+        }
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    private static void writeTar(OutputStream out, Map<String, byte[]> entries) throws IOException {
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(out)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                putEntry(tar, new TarArchiveEntry(entry.getKey(), true), entry.getValue());
+            }
+        }
+    }
+
+    private static <E extends ArchiveEntry> void putEntry(ArchiveOutputStream<E> archive, E entry, byte[] content)
+            throws IOException {
+        if (entry instanceof TarArchiveEntry tarEntry) {
+            tarEntry.setSize(content.length);
+        }
+        archive.putArchiveEntry(entry);
+        archive.write(content);
+        archive.closeArchiveEntry();
+    }
+}
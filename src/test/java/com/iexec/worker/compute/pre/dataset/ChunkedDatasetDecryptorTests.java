@@ -0,0 +1,151 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.dataset;
+
+import com.iexec.common.utils.FileHelper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.crypto.AEADBadTagException;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChunkedDatasetDecryptorTests {
+
+    private static final int CHUNK_SIZE = 100;
+    private static final int HEADER_SIZE_WITH_ONE_CHUNK = 24;
+
+    private final Random random = new Random(42);
+    private final byte[] key = randomBytes(32);
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 99, 100, 101, 1000, 12_345})
+    void shouldDecryptChunkedDataset(int plainSize) throws GeneralSecurityException {
+        final byte[] plainContent = randomBytes(plainSize);
+        final byte[] encryptedContent = ChunkedDatasetEncryptor.encrypt(plainContent, key, CHUNK_SIZE);
+        assertThat(ChunkedDatasetDecryptor.decrypt(encryptedContent, key, 4)).isEqualTo(plainContent);
+        assertThat(ChunkedDatasetDecryptor.decrypt(encryptedContent, key, 1)).isEqualTo(plainContent);
+    }
+
+    @Test
+    void shouldDecryptSingleChunk() throws GeneralSecurityException {
+        final byte[] plainContent = randomBytes(1000);
+        final byte[] encryptedContent = ChunkedDatasetEncryptor.encrypt(plainContent, key, CHUNK_SIZE);
+        final ChunkedDatasetHeader header = ChunkedDatasetHeader.parse(encryptedContent);
+        final int offset = (int) header.getChunkOffset(3);
+        final byte[] encryptedChunk = Arrays.copyOfRange(encryptedContent, offset,
+                offset + header.getEncryptedChunkLength(3));
+        assertThat(new ChunkedDatasetDecryptor(header, key).decryptChunk(3, encryptedChunk))
+                .isEqualTo(Arrays.copyOfRange(plainContent, 3 * CHUNK_SIZE, 4 * CHUNK_SIZE));
+    }
+
+    @Test
+    void shouldDetectLegacyDataset() {
+        assertThat(ChunkedDatasetHeader.isChunked(FileHelper.readAllBytes("src/test/resources/encrypted-data.bin")))
+                .isFalse();
+        assertThat(ChunkedDatasetHeader.isChunked(ChunkedDatasetHeader.MAGIC)).isTrue();
+    }
+
+    @Test
+    void shouldThrowSinceChunkTampered() throws GeneralSecurityException {
+        final byte[] encryptedContent = ChunkedDatasetEncryptor.encrypt(randomBytes(1000), key, CHUNK_SIZE);
+        encryptedContent[encryptedContent.length - 500] ^= 1;
+        assertThrows(AEADBadTagException.class, () -> ChunkedDatasetDecryptor.decrypt(encryptedContent, key, 4));
+    }
+
+    @Test
+    void shouldThrowSinceChunksReordered() throws GeneralSecurityException {
+        final byte[] encryptedContent = ChunkedDatasetEncryptor.encrypt(randomBytes(2 * CHUNK_SIZE), key, CHUNK_SIZE);
+        final ChunkedDatasetHeader header = ChunkedDatasetHeader.parse(encryptedContent);
+        final int first = (int) header.getChunkOffset(0);
+        final int second = (int) header.getChunkOffset(1);
+        final byte[] firstChunk = Arrays.copyOfRange(encryptedContent, first, second);
+        System.arraycopy(encryptedContent, second, encryptedContent, first, second - first);
+        System.arraycopy(firstChunk, 0, encryptedContent, second, firstChunk.length);
+        assertThrows(AEADBadTagException.class, () -> ChunkedDatasetDecryptor.decrypt(encryptedContent, key, 4));
+    }
+
+    @Test
+    void shouldThrowSinceChunkDropped() throws GeneralSecurityException {
+        final byte[] encryptedContent = ChunkedDatasetEncryptor.encrypt(randomBytes(2 * CHUNK_SIZE), key, CHUNK_SIZE);
+        final ChunkedDatasetHeader header = ChunkedDatasetHeader.parse(encryptedContent);
+        // rewrite the header as if the dataset had a single chunk
+        final byte[] truncatedContent = new byte[HEADER_SIZE_WITH_ONE_CHUNK + header.getEncryptedChunkLength(0)];
+        ByteBuffer.wrap(truncatedContent)
+                .put(encryptedContent, 0, HEADER_SIZE_WITH_ONE_CHUNK - 2 * Integer.BYTES)
+                .putInt(1)
+                .putInt(header.getEncryptedChunkLength(0))
+                .put(encryptedContent, (int) header.getChunkOffset(0), header.getEncryptedChunkLength(0));
+        assertThrows(AEADBadTagException.class, () -> ChunkedDatasetDecryptor.decrypt(truncatedContent, key, 4));
+    }
+
+    @Test
+    void shouldThrowSinceWrongKey() throws GeneralSecurityException {
+        final byte[] encryptedContent = ChunkedDatasetEncryptor.encrypt(randomBytes(1000), key, CHUNK_SIZE);
+        final byte[] wrongKey = randomBytes(32);
+        assertThrows(AEADBadTagException.class, () -> ChunkedDatasetDecryptor.decrypt(encryptedContent, wrongKey, 4));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {-1, 1})
+    void shouldThrowSinceSizeDoesNotMatchChunkIndex(int sizeDelta) throws GeneralSecurityException {
+        final byte[] encryptedContent = ChunkedDatasetEncryptor.encrypt(randomBytes(1000), key, CHUNK_SIZE);
+        final byte[] resizedContent = Arrays.copyOf(encryptedContent, encryptedContent.length + sizeDelta);
+        assertThrows(ChunkedDatasetFormatException.class,
+                () -> ChunkedDatasetDecryptor.decrypt(resizedContent, key, 4));
+    }
+
+    @Test
+    void shouldThrowSinceInvalidChunkCount() {
+        final byte[] encryptedContent = ByteBuffer.allocate(HEADER_SIZE_WITH_ONE_CHUNK)
+                .put(ChunkedDatasetHeader.MAGIC)
+                .put(new byte[ChunkedDatasetHeader.NONCE_PREFIX_SIZE])
+                .putInt(ChunkedDatasetHeader.MAX_CHUNK_COUNT + 1)
+                .array();
+        assertThrows(ChunkedDatasetFormatException.class,
+                () -> ChunkedDatasetDecryptor.decrypt(encryptedContent, key, 4));
+    }
+
+    @Test
+    void shouldThrowSincePlainLengthTooLargeForMemory() throws Exception {
+        final int chunkCount = 33;
+        final ByteBuffer headerBytes = ByteBuffer.allocate(HEADER_SIZE_WITH_ONE_CHUNK + (chunkCount - 1) * Integer.BYTES)
+                .put(ChunkedDatasetHeader.MAGIC)
+                .put(new byte[ChunkedDatasetHeader.NONCE_PREFIX_SIZE])
+                .putInt(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            headerBytes.putInt(ChunkedDatasetHeader.MAX_ENCRYPTED_CHUNK_SIZE);
+        }
+        final ChunkedDatasetHeader header = ChunkedDatasetHeader.read(new ByteArrayInputStream(headerBytes.array()));
+        assertThat(header.getPlainLength()).isGreaterThan(Integer.MAX_VALUE);
+        assertThrows(ChunkedDatasetFormatException.class,
+                () -> ChunkedDatasetDecryptor.checkInMemoryPlainLength(header));
+    }
+
+    private byte[] randomBytes(int size) {
+        final byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
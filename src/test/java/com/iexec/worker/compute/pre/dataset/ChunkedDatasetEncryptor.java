@@ -0,0 +1,65 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.dataset;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Produces chunked datasets for tests, as a dataset owner would.
+ */
+public class ChunkedDatasetEncryptor {
+
+    private ChunkedDatasetEncryptor() {
+    }
+
+    public static byte[] encrypt(final byte[] plainContent, final byte[] key, final int chunkSize)
+            throws GeneralSecurityException {
+        final int chunkCount = Math.max(1, (plainContent.length + chunkSize - 1) / chunkSize);
+        final byte[] noncePrefix = new byte[ChunkedDatasetHeader.NONCE_PREFIX_SIZE];
+        new SecureRandom().nextBytes(noncePrefix);
+        final ByteBuffer header = ByteBuffer.allocate(ChunkedDatasetHeader.MAGIC.length + noncePrefix.length
+                + Integer.BYTES * (1 + chunkCount));
+        header.put(ChunkedDatasetHeader.MAGIC).put(noncePrefix).putInt(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            final int plainChunkLength = Math.min(chunkSize, plainContent.length - i * chunkSize);
+            header.putInt(plainChunkLength + ChunkedDatasetHeader.TAG_SIZE);
+        }
+        final byte[] headerDigest = MessageDigest.getInstance("SHA-256").digest(header.array());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(header.array());
+        for (int i = 0; i < chunkCount; i++) {
+            final byte[] nonce = ByteBuffer.allocate(noncePrefix.length + Integer.BYTES)
+                    .put(noncePrefix).putInt(i).array();
+            final Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"),
+                    new GCMParameterSpec(ChunkedDatasetHeader.TAG_SIZE * Byte.SIZE, nonce));
+            cipher.updateAAD(headerDigest);
+            final int from = i * chunkSize;
+            out.writeBytes(cipher.doFinal(Arrays.copyOfRange(plainContent, from,
+                    Math.min(plainContent.length, from + chunkSize))));
+        }
+        return out.toByteArray();
+    }
+}
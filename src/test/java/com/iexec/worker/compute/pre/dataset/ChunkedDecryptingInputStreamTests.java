@@ -0,0 +1,105 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.dataset;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.crypto.AEADBadTagException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChunkedDecryptingInputStreamTests {
+
+    private static final int CHUNK_SIZE = 100;
+
+    private final Random random = new Random(42);
+    private final byte[] key = randomBytes(32);
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 8})
+    void shouldDecryptChunksInOrder(int parallelism) throws Exception {
+        final byte[] plainContent = randomBytes(12_345);
+        final byte[] encryptedContent = ChunkedDatasetEncryptor.encrypt(plainContent, key, CHUNK_SIZE);
+        try (ChunkedDecryptingInputStream in = new ChunkedDecryptingInputStream(
+                new ByteArrayInputStream(encryptedContent), key, parallelism)) {
+            assertThat(in.getHeader().getPlainLength()).isEqualTo(plainContent.length);
+            assertThat(in.read()).isEqualTo(plainContent[0] & 0xFF);
+            assertThat(in.readAllBytes()).isEqualTo(Arrays.copyOfRange(plainContent, 1, plainContent.length));
+            assertThat(in.read()).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void shouldDecryptEmptyDataset() throws Exception {
+        final byte[] encryptedContent = ChunkedDatasetEncryptor.encrypt(new byte[0], key, CHUNK_SIZE);
+        try (InputStream in = new ChunkedDecryptingInputStream(new ByteArrayInputStream(encryptedContent), key, 4)) {
+            assertThat(in.readAllBytes()).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldThrowSinceChunkTampered() throws Exception {
+        final byte[] encryptedContent = ChunkedDatasetEncryptor.encrypt(randomBytes(1000), key, CHUNK_SIZE);
+        encryptedContent[encryptedContent.length - 500] ^= 1;
+        try (InputStream in = new ChunkedDecryptingInputStream(new ByteArrayInputStream(encryptedContent), key, 4)) {
+            final IOException e = assertThrows(IOException.class, in::readAllBytes);
+            assertThat(e).hasCauseInstanceOf(AEADBadTagException.class);
+        }
+    }
+
+    @Test
+    void shouldThrowSinceTruncated() throws Exception {
+        final byte[] encryptedContent = ChunkedDatasetEncryptor.encrypt(randomBytes(1000), key, CHUNK_SIZE);
+        final byte[] truncatedContent = Arrays.copyOf(encryptedContent, encryptedContent.length - 1);
+        try (InputStream in = new ChunkedDecryptingInputStream(new ByteArrayInputStream(truncatedContent), key, 4)) {
+            final IOException e = assertThrows(IOException.class, in::readAllBytes);
+            assertThat(e).hasCauseInstanceOf(ChunkedDatasetFormatException.class);
+        }
+    }
+
+    @Test
+    void shouldThrowSinceTrailingBytes() throws Exception {
+        final byte[] encryptedContent = ChunkedDatasetEncryptor.encrypt(randomBytes(1000), key, CHUNK_SIZE);
+        final byte[] extendedContent = Arrays.copyOf(encryptedContent, encryptedContent.length + 1);
+        try (InputStream in = new ChunkedDecryptingInputStream(new ByteArrayInputStream(extendedContent), key, 4)) {
+            final IOException e = assertThrows(IOException.class, in::readAllBytes);
+            assertThat(e).hasCauseInstanceOf(ChunkedDatasetFormatException.class);
+        }
+    }
+
+    @Test
+    void shouldThrowSinceTruncatedHeader() throws GeneralSecurityException {
+        final byte[] encryptedContent = ChunkedDatasetEncryptor.encrypt(randomBytes(1000), key, CHUNK_SIZE);
+        final ByteArrayInputStream source = new ByteArrayInputStream(Arrays.copyOf(encryptedContent, 30));
+        assertThrows(ChunkedDatasetFormatException.class, () -> new ChunkedDecryptingInputStream(source, key, 4));
+    }
+
+    private byte[] randomBytes(int size) {
+        final byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
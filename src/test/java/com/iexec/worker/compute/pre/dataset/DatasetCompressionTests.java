@@ -0,0 +1,126 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.dataset;
+
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DatasetCompressionTests {
+
+    private static final byte[] CONTENT = new byte[3 * DatasetStreamPipeline.BUFFER_SIZE + 123];
+
+    static {
+        new Random(42).nextBytes(CONTENT);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = DatasetCompression.class, names = {"GZIP", "ZSTD"})
+    void shouldDecompressDeclaredCompression(DatasetCompression compression) throws IOException {
+        final InputStream compressed = new ByteArrayInputStream(compress(compression, CONTENT));
+        try (InputStream in = compression.decompress(compressed)) {
+            assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = DatasetCompression.class, names = {"GZIP", "ZSTD"})
+    void shouldDetectAndDecompress(DatasetCompression compression) throws IOException {
+        final InputStream compressed = new ByteArrayInputStream(compress(compression, CONTENT));
+        try (InputStream in = DatasetCompression.AUTO.decompress(compressed)) {
+            assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    void shouldNotDecompressWhenNoCompressionDetected() throws IOException {
+        try (InputStream in = DatasetCompression.AUTO.decompress(new ByteArrayInputStream(CONTENT))) {
+            assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    void shouldReadPlainStreamWhenNotCompressed() throws IOException {
+        try (InputStream in = DatasetCompression.NONE.decompress(new ByteArrayInputStream(CONTENT))) {
+            assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    void shouldDecompressConcatenatedGzipMembers() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(compress(DatasetCompression.GZIP, "first-".getBytes()));
+        out.write(compress(DatasetCompression.GZIP, "second".getBytes()));
+        try (InputStream in = DatasetCompression.GZIP.decompress(new ByteArrayInputStream(out.toByteArray()))) {
+            assertThat(in.readAllBytes()).isEqualTo("first-second".getBytes());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = DatasetCompression.class, names = {"NONE", "GZIP", "AUTO"})
+    void shouldLeavePlainStreamOpen(DatasetCompression compression) throws IOException {
+        final boolean[] isClosed = {false};
+        final InputStream plainStream = new ByteArrayInputStream(compress(DatasetCompression.GZIP, CONTENT)) {
+            @Override
+            public void close() {
+                isClosed[0] = true;
+            }
+        };
+        compression.decompress(plainStream).close();
+        assertThat(isClosed[0]).isFalse();
+    }
+
+    @Test
+    void shouldThrowSinceContentNotCompressed() {
+        final InputStream plainStream = new ByteArrayInputStream(CONTENT);
+        assertThrows(IOException.class, () -> DatasetCompression.GZIP.decompress(plainStream).readAllBytes());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"gzip", "GZIP", " Zstd "})
+    void shouldParseCompressionIgnoringCase(String value) {
+        assertThat(DatasetCompression.fromValue(value)).isIn(DatasetCompression.GZIP, DatasetCompression.ZSTD);
+    }
+
+    @Test
+    void shouldNotParseUnknownCompression() {
+        assertThrows(IllegalArgumentException.class, () -> DatasetCompression.fromValue("brotli"));
+    }
+
+    static byte[] compress(DatasetCompression compression, byte[] content) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream compressed = compression == DatasetCompression.ZSTD
+                ? new ZstdCompressorOutputStream(out)
+                : new GzipCompressorOutputStream(out)) {
+            compressed.write(content);
+        }
+        return out.toByteArray();
+    }
+}
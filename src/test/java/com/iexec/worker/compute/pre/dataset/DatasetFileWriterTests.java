@@ -0,0 +1,112 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.dataset;
+
+import com.iexec.worker.compute.pre.utils.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DatasetFileWriterTests {
+
+    private static final byte[] CONTENT = new byte[3 * DatasetFileWriter.BUFFER_SIZE + 123];
+
+    static {
+        new Random(42).nextBytes(CONTENT);
+    }
+
+    @TempDir
+    Path outputDir;
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void shouldWriteHeapAndDirectBuffers(boolean isMemoryMapped) throws IOException {
+        final Path target = outputDir.resolve("dataset");
+        try (DatasetFileWriter writer = DatasetFileWriter.create(target, -1, isMemoryMapped)) {
+            writer.write(CONTENT, 0, 10);
+            final ByteBuffer direct = ByteBuffer.allocateDirect(2 * DatasetFileWriter.BUFFER_SIZE);
+            direct.put(CONTENT, 10, direct.capacity()).flip();
+            writer.write(direct);
+            final int offset = 10 + 2 * DatasetFileWriter.BUFFER_SIZE;
+            writer.write(CONTENT, offset, CONTENT.length - offset);
+            writer.commit();
+        }
+        assertThat(target).hasBinaryContent(CONTENT);
+        try (var files = Files.list(outputDir)) {
+            assertThat(files).containsExactly(target);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void shouldTrimPreallocatedFileToWrittenSize(boolean isMemoryMapped) throws IOException {
+        final Path target = outputDir.resolve("dataset");
+        try (DatasetFileWriter writer = DatasetFileWriter.create(target, CONTENT.length * 2L, isMemoryMapped)) {
+            writer.write(CONTENT, 0, CONTENT.length);
+            writer.commit();
+        }
+        assertThat(target).hasBinaryContent(CONTENT);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void shouldPublishFileReadableByAllUsers(boolean isMemoryMapped) throws IOException {
+        final Path target = outputDir.resolve("dataset");
+        try (DatasetFileWriter writer = DatasetFileWriter.create(target, -1, isMemoryMapped)) {
+            writer.write(CONTENT, 0, 10);
+            writer.commit();
+        }
+        assertThat(Files.getPosixFilePermissions(target)).isEqualTo(FileUtils.PUBLISHED_FILE_PERMISSIONS);
+    }
+
+    @Test
+    void shouldReplaceExistingFile() throws IOException {
+        final Path target = outputDir.resolve("dataset");
+        Files.write(target, new byte[]{1, 2, 3});
+        try (DatasetFileWriter writer = DatasetFileWriter.create(target, CONTENT.length, false)) {
+            writer.write(CONTENT, 0, CONTENT.length);
+            writer.commit();
+        }
+        assertThat(target).hasBinaryContent(CONTENT);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void shouldDeleteUncommittedFile(boolean isMemoryMapped) throws IOException {
+        final Path target = outputDir.resolve("dataset");
+        try (DatasetFileWriter writer = DatasetFileWriter.create(target, CONTENT.length, isMemoryMapped)) {
+            writer.write(CONTENT, 0, CONTENT.length / 2);
+        }
+        assertThat(outputDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldThrowSinceOutputFolderNotFound() {
+        final Path target = outputDir.resolve("not-found").resolve("dataset");
+        assertThrows(IOException.class, () -> DatasetFileWriter.create(target, -1, false));
+    }
+}
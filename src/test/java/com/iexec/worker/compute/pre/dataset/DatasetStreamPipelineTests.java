@@ -0,0 +1,362 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.dataset;
+
+import com.iexec.common.replicate.ReplicateStatusCause;
+import com.iexec.common.utils.FileHelper;
+import com.iexec.commons.poco.utils.HashUtils;
+import com.iexec.worker.compute.pre.PreComputeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DatasetStreamPipelineTests {
+
+    private static final String CHAIN_TASK_ID = "0xabc";
+    private static final String DATASET_CHECKSUM =
+            "0x02a12ef127dcfbdb294a090c8f0b69a0ca30b7940fc36cabf971f488efd374d7";
+    private static final String RESOURCES = "src/test/resources/";
+    private static final String ENCRYPTED_DATA_FILE = RESOURCES + "encrypted-data.bin";
+    private static final String KEY_FILE = RESOURCES + "key.txt";
+    private static final String PLAIN_DATA_FILE = RESOURCES + "plain-data.txt";
+
+    @TempDir
+    Path outputDir;
+
+    private byte[] key;
+    private byte[] encryptedContent;
+
+    @BeforeEach
+    void beforeEach() {
+        key = Base64.getDecoder().decode(FileHelper.readFile(KEY_FILE));
+        encryptedContent = FileHelper.readAllBytes(ENCRYPTED_DATA_FILE);
+    }
+
+    @Test
+    void shouldStreamPlainDatasetFile() throws Exception {
+        final Path target = outputDir.resolve("dataset");
+        new DatasetStreamPipeline(CHAIN_TASK_ID, key, DATASET_CHECKSUM)
+                .process(new ByteArrayInputStream(encryptedContent), target);
+        assertThat(target).hasBinaryContent(FileHelper.readAllBytes(PLAIN_DATA_FILE));
+        try (Stream<Path> files = Files.list(outputDir)) {
+            assertThat(files).containsExactly(target);
+        }
+    }
+
+    @Test
+    void shouldStreamPlainDatasetFileWithoutClosingSource() throws Exception {
+        final Path target = outputDir.resolve("dataset");
+        new DatasetStreamPipeline(CHAIN_TASK_ID, key, DATASET_CHECKSUM)
+                .process(new CloseSensitiveInputStream(encryptedContent), target);
+        assertThat(target).hasBinaryContent(FileHelper.readAllBytes(PLAIN_DATA_FILE));
+    }
+
+    @Test
+    void shouldExtractPlainArchiveDatasetWithoutClosingSource() throws Exception {
+        final Path target = outputDir.resolve("dataset");
+        final byte[] encryptedArchive = encryptCbc(zip("a.txt", "content"));
+        new DatasetStreamPipeline(CHAIN_TASK_ID, key, HashUtils.sha256(encryptedArchive))
+                .processArchive(new CloseSensitiveInputStream(encryptedArchive), target,
+                        new ArchiveExtractor(1024, 10));
+        assertThat(target.resolve("a.txt")).hasContent("content");
+    }
+
+    @Test
+    void shouldStreamPlainDatasetFileToMemoryMappedFile() throws Exception {
+        final Path target = outputDir.resolve("dataset");
+        new DatasetStreamPipeline(CHAIN_TASK_ID, key, DATASET_CHECKSUM, true)
+                .process(new ByteArrayInputStream(encryptedContent), target);
+        assertThat(target).hasBinaryContent(FileHelper.readAllBytes(PLAIN_DATA_FILE));
+        try (Stream<Path> files = Files.list(outputDir)) {
+            assertThat(files).containsExactly(target);
+        }
+    }
+
+    @Test
+    void shouldStreamPlainChunkedDatasetFile() throws Exception {
+        final Path target = outputDir.resolve("dataset");
+        final byte[] plainContent = FileHelper.readAllBytes(PLAIN_DATA_FILE);
+        final byte[] chunkedContent = ChunkedDatasetEncryptor.encrypt(plainContent, key, 8);
+        new DatasetStreamPipeline(CHAIN_TASK_ID, key, HashUtils.sha256(chunkedContent), false, 4)
+                .process(new ByteArrayInputStream(chunkedContent), target);
+        assertThat(target).hasBinaryContent(plainContent);
+        try (Stream<Path> files = Files.list(outputDir)) {
+            assertThat(files).containsExactly(target);
+        }
+    }
+
+    @Test
+    void shouldThrowSinceChunkedDatasetAuthenticationFailed() throws Exception {
+        final Path target = outputDir.resolve("dataset");
+        final byte[] chunkedContent = ChunkedDatasetEncryptor.encrypt(FileHelper.readAllBytes(PLAIN_DATA_FILE), key, 8);
+        chunkedContent[chunkedContent.length - 1] ^= 1;
+        final DatasetStreamPipeline pipeline = new DatasetStreamPipeline(CHAIN_TASK_ID, key,
+                HashUtils.sha256(chunkedContent), false, 4);
+        final InputStream encryptedStream = new ByteArrayInputStream(chunkedContent);
+        final PreComputeException e = assertThrows(PreComputeException.class,
+                () -> pipeline.process(encryptedStream, target));
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_DATASET_DECRYPTION_FAILED);
+        assertThat(outputDir).isEmptyDirectory();
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = DatasetCompression.class, names = {"GZIP", "AUTO"})
+    void shouldDecompressPlainDataset(DatasetCompression compression) throws Exception {
+        final Path target = outputDir.resolve("dataset");
+        final byte[] plainContent = FileHelper.readAllBytes(PLAIN_DATA_FILE);
+        final byte[] chunkedContent = ChunkedDatasetEncryptor.encrypt(
+                DatasetCompressionTests.compress(DatasetCompression.GZIP, plainContent), key, 64);
+        new DatasetStreamPipeline(CHAIN_TASK_ID, key, HashUtils.sha256(chunkedContent), false, 2, compression)
+                .process(new ByteArrayInputStream(chunkedContent), target);
+        assertThat(target).hasBinaryContent(plainContent);
+    }
+
+    @Test
+    void shouldThrowSincePlainDatasetNotCompressed() throws IOException {
+        final Path target = outputDir.resolve("dataset");
+        final DatasetStreamPipeline pipeline = new DatasetStreamPipeline(
+                CHAIN_TASK_ID, key, DATASET_CHECKSUM, false, 1, DatasetCompression.ZSTD);
+        final InputStream encryptedStream = new ByteArrayInputStream(encryptedContent);
+        final PreComputeException e = assertThrows(PreComputeException.class,
+                () -> pipeline.process(encryptedStream, target));
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_SAVING_PLAIN_DATASET_FAILED);
+        assertThat(outputDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldThrowSinceCompressedDatasetDecryptionFailed() throws IOException {
+        final Path target = outputDir.resolve("dataset");
+        final byte[] chunkedContent = ChunkedDatasetEncryptor.encrypt(
+                DatasetCompressionTests.compress(DatasetCompression.GZIP, "content".getBytes()), key, 64);
+        final byte[] badKey = key.clone();
+        badKey[0] ^= 1;
+        final DatasetStreamPipeline pipeline = new DatasetStreamPipeline(
+                CHAIN_TASK_ID, badKey, HashUtils.sha256(chunkedContent), false, 1, DatasetCompression.GZIP);
+        final InputStream encryptedStream = new ByteArrayInputStream(chunkedContent);
+        final PreComputeException e = assertThrows(PreComputeException.class,
+                () -> pipeline.process(encryptedStream, target));
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_DATASET_DECRYPTION_FAILED);
+        assertThat(outputDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldExtractCompressedPlainArchiveDataset() throws Exception {
+        final Path target = outputDir.resolve("dataset");
+        final byte[] chunkedContent = ChunkedDatasetEncryptor.encrypt(
+                DatasetCompressionTests.compress(DatasetCompression.ZSTD, zip("a.txt", "content")), key, 64);
+        new DatasetStreamPipeline(CHAIN_TASK_ID, key, HashUtils.sha256(chunkedContent), false, 2,
+                DatasetCompression.ZSTD)
+                .processArchive(new ByteArrayInputStream(chunkedContent), target, new ArchiveExtractor(1024, 10));
+        assertThat(target.resolve("a.txt")).hasContent("content");
+    }
+
+    @Test
+    void shouldExtractPlainArchiveDataset() throws Exception {
+        final Path target = outputDir.resolve("dataset");
+        final byte[] chunkedContent = ChunkedDatasetEncryptor.encrypt(zip("folder/a.txt", "content"), key, 64);
+        new DatasetStreamPipeline(CHAIN_TASK_ID, key, HashUtils.sha256(chunkedContent), false, 2)
+                .processArchive(new ByteArrayInputStream(chunkedContent), target, new ArchiveExtractor(1024, 10));
+        assertThat(target.resolve("folder").resolve("a.txt")).hasContent("content");
+        try (Stream<Path> files = Files.list(outputDir)) {
+            assertThat(files).containsExactly(target);
+        }
+    }
+
+    @Test
+    void shouldNotPublishFolderSinceChecksumNotValid() throws IOException {
+        final Path target = outputDir.resolve("dataset");
+        final byte[] chunkedContent = ChunkedDatasetEncryptor.encrypt(zip("a.txt", "content"), key, 64);
+        final DatasetStreamPipeline pipeline = new DatasetStreamPipeline(CHAIN_TASK_ID, key, "badChecksum");
+        final InputStream encryptedStream = new ByteArrayInputStream(chunkedContent);
+        final ArchiveExtractor extractor = new ArchiveExtractor(1024, 10);
+        final PreComputeException e = assertThrows(PreComputeException.class,
+                () -> pipeline.processArchive(encryptedStream, target, extractor));
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_INVALID_DATASET_CHECKSUM);
+        assertThat(outputDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldThrowSincePlainDatasetNotAnArchive() throws IOException {
+        final Path target = outputDir.resolve("dataset");
+        final DatasetStreamPipeline pipeline = new DatasetStreamPipeline(CHAIN_TASK_ID, key, DATASET_CHECKSUM);
+        final InputStream encryptedStream = new ByteArrayInputStream(encryptedContent);
+        final ArchiveExtractor extractor = new ArchiveExtractor(1024, 10);
+        final PreComputeException e = assertThrows(PreComputeException.class,
+                () -> pipeline.processArchive(encryptedStream, target, extractor));
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_SAVING_PLAIN_DATASET_FAILED);
+        assertThat(outputDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldThrowSinceArchiveDecryptionFailed() throws IOException {
+        final Path target = outputDir.resolve("dataset");
+        final byte[] chunkedContent = ChunkedDatasetEncryptor.encrypt(zip("a.txt", "content"), key, 64);
+        final byte[] badKey = key.clone();
+        badKey[0] ^= 1;
+        final DatasetStreamPipeline pipeline = new DatasetStreamPipeline(
+                CHAIN_TASK_ID, badKey, HashUtils.sha256(chunkedContent));
+        final InputStream encryptedStream = new ByteArrayInputStream(chunkedContent);
+        final ArchiveExtractor extractor = new ArchiveExtractor(1024, 10);
+        final PreComputeException e = assertThrows(PreComputeException.class,
+                () -> pipeline.processArchive(encryptedStream, target, extractor));
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_DATASET_DECRYPTION_FAILED);
+        assertThat(outputDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldNotPublishFileSinceChecksumNotValid() throws IOException {
+        final Path target = outputDir.resolve("dataset");
+        final DatasetStreamPipeline pipeline = new DatasetStreamPipeline(CHAIN_TASK_ID, key, "badChecksum");
+        final InputStream encryptedStream = new ByteArrayInputStream(encryptedContent);
+        final PreComputeException e = assertThrows(PreComputeException.class,
+                () -> pipeline.process(encryptedStream, target));
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_INVALID_DATASET_CHECKSUM);
+        assertThat(outputDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldReportChecksumFailureBeforeDecryptionFailure() throws IOException {
+        final Path target = outputDir.resolve("dataset");
+        final byte[] corruptedContent = encryptedContent.clone();
+        corruptedContent[corruptedContent.length - 1] ^= 1;
+        final DatasetStreamPipeline pipeline = new DatasetStreamPipeline(CHAIN_TASK_ID, key, DATASET_CHECKSUM);
+        final InputStream encryptedStream = new ByteArrayInputStream(corruptedContent);
+        final PreComputeException e = assertThrows(PreComputeException.class,
+                () -> pipeline.process(encryptedStream, target));
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_INVALID_DATASET_CHECKSUM);
+        assertThat(outputDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldThrowSinceDecryptionFailed() throws IOException {
+        final Path target = outputDir.resolve("dataset");
+        final byte[] badKey = key.clone();
+        badKey[0] ^= 1;
+        final DatasetStreamPipeline pipeline = new DatasetStreamPipeline(CHAIN_TASK_ID, badKey, DATASET_CHECKSUM);
+        final InputStream encryptedStream = new ByteArrayInputStream(encryptedContent);
+        final PreComputeException e = assertThrows(PreComputeException.class,
+                () -> pipeline.process(encryptedStream, target));
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_DATASET_DECRYPTION_FAILED);
+        assertThat(outputDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldThrowSinceSourceFailed() throws IOException {
+        final Path target = outputDir.resolve("dataset");
+        final InputStream failingStream = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+        final DatasetStreamPipeline pipeline = new DatasetStreamPipeline(CHAIN_TASK_ID, key, DATASET_CHECKSUM);
+        final PreComputeException e = assertThrows(PreComputeException.class,
+                () -> pipeline.process(failingStream, target));
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_DATASET_DOWNLOAD_FAILED);
+        assertThat(outputDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldThrowSinceOutputFolderNotFound() {
+        final Path target = outputDir.resolve("not-found").resolve("dataset");
+        final DatasetStreamPipeline pipeline = new DatasetStreamPipeline(CHAIN_TASK_ID, key, DATASET_CHECKSUM);
+        final InputStream encryptedStream = new ByteArrayInputStream(encryptedContent);
+        final PreComputeException e = assertThrows(PreComputeException.class,
+                () -> pipeline.process(encryptedStream, target));
+        assertThat(e.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_SAVING_PLAIN_DATASET_FAILED);
+    }
+
+    private byte[] encryptCbc(byte[] plainContent) throws GeneralSecurityException {
+        final byte[] iv = new byte[DatasetStreamPipeline.IV_SIZE];
+        new SecureRandom().nextBytes(iv);
+        final Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+        final byte[] ciphertext = cipher.doFinal(plainContent);
+        final byte[] encryptedContent = Arrays.copyOf(iv, iv.length + ciphertext.length);
+        System.arraycopy(ciphertext, 0, encryptedContent, iv.length, ciphertext.length);
+        return encryptedContent;
+    }
+
+    private static byte[] zip(String entryName, String content) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry(entryName));
+            zip.write(content.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Fails reads once closed, as an HTTP body or a file channel does.
+     */
+    private static class CloseSensitiveInputStream extends FilterInputStream {
+        private boolean isClosed;
+
+        CloseSensitiveInputStream(byte[] content) {
+            super(new ByteArrayInputStream(content));
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkOpen();
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkOpen();
+            return super.read(b, off, len);
+        }
+
+        @Override
+        public void close() {
+            isClosed = true;
+        }
+
+        private void checkOpen() throws IOException {
+            if (isClosed) {
+                throw new IOException("Stream closed");
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.dataset;
+
+import com.iexec.commons.poco.utils.HashUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EncryptedDatasetCacheTests {
+
+    private static final byte[] CONTENT = "encrypted content".getBytes(StandardCharsets.UTF_8);
+    private static final String CHECKSUM = HashUtils.sha256(CONTENT);
+    private static final byte[] OTHER_CONTENT = "other encrypted content".getBytes(StandardCharsets.UTF_8);
+    private static final String OTHER_CHECKSUM = HashUtils.sha256(OTHER_CONTENT);
+
+    @TempDir
+    Path cacheDir;
+
+    @Test
+    void shouldReturnNullWhenNotCached() {
+        final EncryptedDatasetCache cache = new EncryptedDatasetCache(cacheDir, 1024);
+        assertThat(cache.read(CHECKSUM)).isNull();
+        assertThat(cache.open(CHECKSUM)).isNull();
+    }
+
+    @Test
+    void shouldReadCachedContent() throws IOException {
+        final EncryptedDatasetCache cache = new EncryptedDatasetCache(cacheDir, 1024);
+        cache.put(CHECKSUM, CONTENT);
+        assertThat(cache.read(CHECKSUM)).isEqualTo(CONTENT);
+        try (InputStream in = cache.open(CHECKSUM)) {
+            assertThat(in).hasBinaryContent(CONTENT);
+        }
+        assertThat(cacheDir).isDirectoryContaining(path -> path.getFileName().toString()
+                .equals(CHECKSUM.substring(2)));
+    }
+
+    @Test
+    void shouldCacheWhileReading() throws IOException {
+        final EncryptedDatasetCache cache = new EncryptedDatasetCache(cacheDir, 1024);
+        try (InputStream in = cache.cacheWhileReading(CHECKSUM, new ByteArrayInputStream(CONTENT))) {
+            assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+        }
+        assertThat(cache.read(CHECKSUM)).isEqualTo(CONTENT);
+        try (var files = Files.list(cacheDir)) {
+            assertThat(files).hasSize(1);
+        }
+    }
+
+    @Test
+    void shouldNotCachePartiallyReadStream() throws IOException {
+        final EncryptedDatasetCache cache = new EncryptedDatasetCache(cacheDir, 1024);
+        try (InputStream in = cache.cacheWhileReading(CHECKSUM, new ByteArrayInputStream(CONTENT))) {
+            assertThat(in.readNBytes(4)).hasSize(4);
+        }
+        assertThat(cache.read(CHECKSUM)).isNull();
+        assertThat(cacheDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldNotCacheStreamWithUnexpectedContent() throws IOException {
+        final EncryptedDatasetCache cache = new EncryptedDatasetCache(cacheDir, 1024);
+        try (InputStream in = cache.cacheWhileReading(CHECKSUM, new ByteArrayInputStream(OTHER_CONTENT))) {
+            in.readAllBytes();
+        }
+        assertThat(cacheDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldRemoveCorruptedEntry() throws IOException {
+        final EncryptedDatasetCache cache = new EncryptedDatasetCache(cacheDir, 1024);
+        Files.write(cacheDir.resolve(CHECKSUM.substring(2)), OTHER_CONTENT);
+        assertThat(cache.read(CHECKSUM)).isNull();
+        assertThat(cacheDir).isEmptyDirectory();
+
+        Files.write(cacheDir.resolve(CHECKSUM.substring(2)), OTHER_CONTENT);
+        assertThat(cache.open(CHECKSUM)).isNull();
+        assertThat(cacheDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntry() {
+        final long maxSize = CONTENT.length + OTHER_CONTENT.length;
+        new EncryptedDatasetCache(cacheDir, maxSize, clockAt(1_000)).put(CHECKSUM, CONTENT);
+        new EncryptedDatasetCache(cacheDir, maxSize, clockAt(2_000)).put(OTHER_CHECKSUM, OTHER_CONTENT);
+        // reading refreshes the entry, the other one becomes the least recently used
+        assertThat(new EncryptedDatasetCache(cacheDir, maxSize, clockAt(3_000)).read(CHECKSUM)).isEqualTo(CONTENT);
+
+        final byte[] newContent = "new".getBytes(StandardCharsets.UTF_8);
+        final EncryptedDatasetCache cache = new EncryptedDatasetCache(cacheDir, maxSize, clockAt(4_000));
+        cache.put(HashUtils.sha256(newContent), newContent);
+        assertThat(cache.read(CHECKSUM)).isEqualTo(CONTENT);
+        assertThat(cache.read(OTHER_CHECKSUM)).isNull();
+        assertThat(cache.read(HashUtils.sha256(newContent))).isEqualTo(newContent);
+    }
+
+    @Test
+    void shouldNotCacheContentLargerThanCache() {
+        final EncryptedDatasetCache cache = new EncryptedDatasetCache(cacheDir, CONTENT.length - 1L);
+        cache.put(CHECKSUM, CONTENT);
+        assertThat(cacheDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldIgnoreInvalidChecksum() throws IOException {
+        final EncryptedDatasetCache cache = new EncryptedDatasetCache(cacheDir, 1024);
+        cache.put("../escape", CONTENT);
+        assertThat(cache.read("../escape")).isNull();
+        final InputStream source = new ByteArrayInputStream(CONTENT);
+        assertThat(cache.cacheWhileReading("../escape", source)).isSameAs(source);
+        assertThat(cacheDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldDeleteStaleTmpFilesWhenOpened() throws IOException {
+        final Path staleTmpFile = Files.createFile(cacheDir.resolve("." + CHECKSUM.substring(2) + "123.tmp"));
+        Files.setLastModifiedTime(staleTmpFile, FileTime.from(Instant.ofEpochSecond(1_000)));
+        final Path recentTmpFile = Files.createFile(cacheDir.resolve("." + OTHER_CHECKSUM.substring(2) + "456.tmp"));
+        Files.setLastModifiedTime(recentTmpFile, FileTime.from(Instant.ofEpochSecond(5_000)));
+        final Path entry = cacheDir.resolve(CHECKSUM.substring(2));
+        Files.write(entry, CONTENT);
+        Files.setLastModifiedTime(entry, FileTime.from(Instant.ofEpochSecond(1_000)));
+
+        new EncryptedDatasetCache(cacheDir, 1024, clockAt(1_000 + EncryptedDatasetCache.STALE_TMP_FILE_AGE.toSeconds() + 1));
+        assertThat(staleTmpFile).doesNotExist();
+        assertThat(recentTmpFile).exists();
+        assertThat(entry).exists();
+    }
+
+    private Clock clockAt(long epochSecond) {
+        return Clock.fixed(Instant.ofEpochSecond(epochSecond), ZoneOffset.UTC);
+    }
+}
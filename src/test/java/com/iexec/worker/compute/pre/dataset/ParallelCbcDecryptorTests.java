@@ -0,0 +1,106 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.dataset;
+
+import com.iexec.common.utils.FileHelper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelCbcDecryptorTests {
+
+    private static final String ENCRYPTED_DATASET_PATH = "src/test/resources/encrypted-data.bin";
+    private static final String KEY_PATH = "src/test/resources/key.txt";
+    private static final String PLAIN_DATASET_PATH = "src/test/resources/plain-data.txt";
+    private static final int SMALL_SEGMENT_SIZE = 4 * ParallelCbcDecryptor.BLOCK_SIZE;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void shouldDecryptDatasetFixture() throws GeneralSecurityException {
+        final byte[] encryptedContent = FileHelper.readAllBytes(ENCRYPTED_DATASET_PATH);
+        final byte[] key = Base64.getDecoder().decode(FileHelper.readFile(KEY_PATH).trim());
+        final byte[] plainContent = new ParallelCbcDecryptor(4, SMALL_SEGMENT_SIZE).decrypt(encryptedContent, key);
+        assertThat(plainContent).isEqualTo(FileHelper.readAllBytes(PLAIN_DATASET_PATH));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 15, 16, 17, 63, 64, 65, 1000, 4096, 100_003})
+    void shouldDecryptLikeSequentialCipher(int plainSize) throws GeneralSecurityException {
+        final byte[] key = randomBytes(32);
+        final byte[] plainContent = randomBytes(plainSize);
+        final byte[] encryptedContent = encrypt(plainContent, key);
+        assertThat(new ParallelCbcDecryptor(4, SMALL_SEGMENT_SIZE).decrypt(encryptedContent, key))
+                .isEqualTo(plainContent);
+        assertThat(new ParallelCbcDecryptor(1).decrypt(encryptedContent, key))
+                .isEqualTo(plainContent);
+    }
+
+    @Test
+    void shouldThrowSinceWrongKey() throws GeneralSecurityException {
+        final byte[] encryptedContent = encrypt(randomBytes(1000), randomBytes(32));
+        final ParallelCbcDecryptor decryptor = new ParallelCbcDecryptor(4, SMALL_SEGMENT_SIZE);
+        final byte[] wrongKey = randomBytes(32);
+        assertThrows(BadPaddingException.class, () -> decryptor.decrypt(encryptedContent, wrongKey));
+    }
+
+    @Test
+    void shouldThrowSinceInvalidKeySize() throws GeneralSecurityException {
+        final byte[] encryptedContent = encrypt(randomBytes(1000), randomBytes(32));
+        final ParallelCbcDecryptor decryptor = new ParallelCbcDecryptor(4, SMALL_SEGMENT_SIZE);
+        final byte[] invalidKey = randomBytes(7);
+        assertThrows(GeneralSecurityException.class, () -> decryptor.decrypt(encryptedContent, invalidKey));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 15, 16, 33})
+    void shouldThrowSinceInvalidContentSize(int size) {
+        final ParallelCbcDecryptor decryptor = new ParallelCbcDecryptor(4, SMALL_SEGMENT_SIZE);
+        final byte[] encryptedContent = randomBytes(size);
+        final byte[] key = randomBytes(32);
+        assertThrows(IllegalBlockSizeException.class, () -> decryptor.decrypt(encryptedContent, key));
+    }
+
+    private byte[] randomBytes(int size) {
+        final byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private byte[] encrypt(byte[] plainContent, byte[] key) throws GeneralSecurityException {
+        final byte[] iv = randomBytes(ParallelCbcDecryptor.BLOCK_SIZE);
+        final Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+        final byte[] ciphertext = cipher.doFinal(plainContent);
+        final byte[] encryptedContent = Arrays.copyOf(iv, iv.length + ciphertext.length);
+        System.arraycopy(ciphertext, 0, encryptedContent, iv.length, ciphertext.length);
+        return encryptedContent;
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.download;
+
+import com.iexec.worker.compute.pre.utils.FileUtils;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DownloadClientTests {
+
+    private static final byte[] CONTENT = new byte[100_000];
+
+    static {
+        new Random(42).nextBytes(CONTENT);
+    }
+
+    @TempDir
+    Path outputDir;
+
+    private final DownloadClient client = new DownloadClient();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger fileRequests = new AtomicInteger();
+    private final AtomicInteger flakyRequests = new AtomicInteger();
+    private final AtomicInteger missingRequests = new AtomicInteger();
+    private final CountDownLatch responseNotified = new CountDownLatch(1);
+    private final AtomicBoolean isNotifiedBeforeBody = new AtomicBoolean();
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/file", exchange -> {
+            fileRequests.incrementAndGet();
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            final String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            byte[] body = CONTENT;
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                    gzip.write(CONTENT);
+                }
+                body = compressed.toByteArray();
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(body.length));
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.createContext("/missing", exchange -> {
+            missingRequests.incrementAndGet();
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.createContext("/stalled", exchange -> {
+            exchange.sendResponseHeaders(200, CONTENT.length);
+            final OutputStream out = exchange.getResponseBody();
+            out.write(CONTENT, 0, 10);
+            out.flush();
+            try {
+                Thread.sleep(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        // fails twice with a bad gateway status then once with a truncated body, before serving the content
+        server.createContext("/flaky", exchange -> {
+            final int request = flakyRequests.incrementAndGet();
+            if (request <= 2) {
+                exchange.sendResponseHeaders(502, -1);
+            } else if (request == 3) {
+                exchange.sendResponseHeaders(200, CONTENT.length);
+                exchange.getResponseBody().write(CONTENT, 0, 10);
+            } else {
+                exchange.sendResponseHeaders(200, CONTENT.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(CONTENT);
+                }
+            }
+            exchange.close();
+        });
+        // sends the start of the body, then the rest once the client was notified of the response
+        server.createContext("/paced", exchange -> {
+            exchange.sendResponseHeaders(200, CONTENT.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(CONTENT, 0, 10);
+                out.flush();
+                isNotifiedBeforeBody.set(responseNotified.await(5, TimeUnit.SECONDS));
+                out.write(CONTENT, 10, CONTENT.length - 10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        baseUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldReadDecodedContent() {
+        assertThat(client.readBytes(baseUrl + "/file")).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void shouldNotifyResponseBeforeReadingBody() {
+        final AtomicInteger notifications = new AtomicInteger();
+        assertThat(client.readBytes(baseUrl + "/paced", () -> {
+            notifications.incrementAndGet();
+            responseNotified.countDown();
+        })).isEqualTo(CONTENT);
+        assertThat(notifications).hasValue(1);
+        assertThat(isNotifiedBeforeBody).isTrue();
+    }
+
+    @Test
+    void shouldNotifyFirstResponseOnlyWhenRetrying() {
+        final DownloadClient retryingClient = new DownloadClient(retryPolicy(5, 10));
+        final AtomicInteger notifications = new AtomicInteger();
+        assertThat(retryingClient.readBytes(baseUrl + "/flaky", notifications::incrementAndGet)).isEqualTo(CONTENT);
+        assertThat(notifications).hasValue(1);
+    }
+
+    @Test
+    void shouldNotNotifyResponseSinceUnexpectedStatus() {
+        final AtomicInteger notifications = new AtomicInteger();
+        assertThat(client.readBytes(baseUrl + "/missing", notifications::incrementAndGet)).isNull();
+        assertThat(notifications).hasValue(0);
+    }
+
+    @Test
+    void shouldCountTransferProgress() throws IOException {
+        final TransferProgress progress = new TransferProgress();
+        final DownloadClient countingClient = new DownloadClient(RetryPolicy.noRetry(), progress);
+        try (DownloadClient.Response response = countingClient.head(baseUrl + "/file", Duration.ofSeconds(5))) {
+            assertThat(response.getStatus()).isEqualTo(200);
+        }
+        assertThat(progress.getExpectedBytes()).isZero();
+        try (DownloadClient.Response response = countingClient.get(baseUrl + "/file", Map.of())) {
+            assertThat(response.getBody().readAllBytes()).isEqualTo(CONTENT);
+        }
+        assertThat(progress.getExpectedBytes()).isEqualTo(CONTENT.length);
+        assertThat(progress.getBytesTransferred()).isEqualTo(CONTENT.length);
+    }
+
+    @Test
+    void shouldCountDownloadOnceWhenRetryingBodyRead() {
+        final TransferProgress progress = new TransferProgress();
+        final DownloadClient retryingClient = new DownloadClient(retryPolicy(5, 10), progress);
+        assertThat(retryingClient.readBytes(baseUrl + "/flaky")).isEqualTo(CONTENT);
+        assertThat(flakyRequests).hasValue(4);
+        assertThat(progress.getExpectedBytes()).isEqualTo(CONTENT.length);
+        assertThat(progress.getBytesTransferred()).isEqualTo(CONTENT.length);
+    }
+
+    @Test
+    void shouldWithdrawProgressOfDiscardedResponse() throws IOException {
+        final TransferProgress progress = new TransferProgress();
+        final DownloadClient countingClient = new DownloadClient(RetryPolicy.noRetry(), progress);
+        try (DownloadClient.Response response = countingClient.get(baseUrl + "/file", Map.of())) {
+            assertThat(progress.getExpectedBytes()).isEqualTo(CONTENT.length);
+            assertThat(response.getBody().readNBytes(10)).hasSize(10);
+        }
+        assertThat(progress.getExpectedBytes()).isZero();
+        assertThat(progress.getBytesTransferred()).isZero();
+    }
+
+    @Test
+    void shouldReuseConnectionAcrossDownloads() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(client.readBytes(baseUrl + "/file")).isEqualTo(CONTENT);
+        }
+        assertThat(clientPorts).hasSize(1);
+    }
+
+    @Test
+    void shouldServeRawBodyWithoutNegotiatingEncoding() throws IOException {
+        try (DownloadClient.Response response = client.get(baseUrl + "/file", Map.of())) {
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getHeader("Content-Encoding")).isNull();
+            assertThat(response.getContentLength()).isEqualTo(CONTENT.length);
+            assertThat(response.getBody().readAllBytes()).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    void shouldSendHeadRequest() throws IOException {
+        try (DownloadClient.Response response = client.head(baseUrl + "/file", Duration.ofSeconds(5))) {
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getHeader("Accept-Ranges")).isEqualTo("bytes");
+            assertThat(response.getContentLength()).isEqualTo(CONTENT.length);
+        }
+    }
+
+    @Test
+    void shouldNotOpenStreamSinceUnexpectedStatus() {
+        assertThat(client.open(baseUrl + "/missing")).isNull();
+        assertThat(client.readBytes(baseUrl + "/missing")).isNull();
+    }
+
+    @Test
+    void shouldThrowSinceInvalidUrl() {
+        assertThrows(IOException.class, () -> client.get("not a url", Map.of()));
+        assertThat(client.open("not a url")).isNull();
+    }
+
+    @Test
+    void shouldThrowSinceReadTimedOut() throws IOException {
+        final DownloadClient impatientClient = new DownloadClient(Duration.ofSeconds(1), Duration.ofMillis(200));
+        try (DownloadClient.Response response = impatientClient.get(baseUrl + "/stalled", Map.of())) {
+            final InputStream body = response.getBody();
+            assertThat(body.readNBytes(10)).hasSize(10);
+            assertThrows(HttpTimeoutException.class, body::readAllBytes);
+        }
+    }
+
+    @Test
+    void shouldDownloadFile() throws IOException {
+        final Path target = outputDir.resolve("file");
+        assertThat(client.download(baseUrl + "/file", target)).isTrue();
+        assertThat(target).hasBinaryContent(CONTENT);
+        assertThat(Files.getPosixFilePermissions(target)).isEqualTo(FileUtils.PUBLISHED_FILE_PERMISSIONS);
+        try (Stream<Path> files = Files.list(outputDir)) {
+            assertThat(files).containsExactly(target);
+        }
+    }
+
+    @Test
+    void shouldDownloadFileMatchingDescriptor() throws Exception {
+        final Path target = outputDir.resolve("file");
+        final InputFileDescriptor file = new InputFileDescriptor(baseUrl + "/file", CONTENT.length, "0x" + sha256(CONTENT));
+        assertThat(client.download(file, target)).isTrue();
+        assertThat(target).hasBinaryContent(CONTENT);
+    }
+
+    @Test
+    void shouldNotPublishFileNotMatchingDescriptor() throws IOException {
+        final DownloadClient retryingClient = new DownloadClient(retryPolicy(5, 10));
+        final Path target = outputDir.resolve("file");
+        assertThat(retryingClient.download(new InputFileDescriptor(baseUrl + "/file", -1, "0".repeat(64)), target))
+                .isFalse();
+        assertThat(retryingClient.download(new InputFileDescriptor(baseUrl + "/file", 1, null), target)).isFalse();
+        assertThat(fileRequests).hasValue(2);
+        try (Stream<Path> files = Files.list(outputDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldNotCreateFileSinceDownloadFailed() throws IOException {
+        final DownloadClient impatientClient = new DownloadClient(Duration.ofSeconds(1), Duration.ofMillis(200));
+        assertThat(client.download(baseUrl + "/missing", outputDir.resolve("missing"))).isFalse();
+        assertThat(impatientClient.download(baseUrl + "/stalled", outputDir.resolve("stalled"))).isFalse();
+        try (Stream<Path> files = Files.list(outputDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldRetryTransientFailures() {
+        final DownloadClient retryingClient = new DownloadClient(retryPolicy(5, 10));
+        assertThat(retryingClient.readBytes(baseUrl + "/flaky")).isEqualTo(CONTENT);
+        assertThat(flakyRequests).hasValue(4);
+    }
+
+    @Test
+    void shouldDownloadFileAfterRetries() {
+        final DownloadClient retryingClient = new DownloadClient(retryPolicy(5, 10));
+        final Path target = outputDir.resolve("file");
+        assertThat(retryingClient.download(baseUrl + "/flaky", target)).isTrue();
+        assertThat(target).hasBinaryContent(CONTENT);
+    }
+
+    @Test
+    void shouldCountAttemptsOncePerRequest() {
+        final DownloadClient retryingClient = new DownloadClient(retryPolicy(3, 10));
+        assertThat(retryingClient.readBytes(baseUrl + "/flaky")).isNull();
+        assertThat(flakyRequests).hasValue(3);
+    }
+
+    @Test
+    void shouldNotRetryFileWriteFailure() {
+        final DownloadClient retryingClient = new DownloadClient(retryPolicy(5, 10));
+        final Path target = outputDir.resolve("not-found").resolve("file");
+        assertThat(retryingClient.download(baseUrl + "/file", target)).isFalse();
+        assertThat(fileRequests).hasValue(1);
+    }
+
+    @Test
+    void shouldReturnLastResponseOnceAttemptsExhausted() throws IOException {
+        final DownloadClient retryingClient = new DownloadClient(retryPolicy(2, 10));
+        try (DownloadClient.Response response = retryingClient.get(baseUrl + "/flaky", Map.of())) {
+            assertThat(response.getStatus()).isEqualTo(502);
+        }
+        assertThat(flakyRequests).hasValue(2);
+    }
+
+    @Test
+    void shouldStopRetryingOnceBudgetExhausted() {
+        final DownloadClient retryingClient = new DownloadClient(retryPolicy(5, 1));
+        assertThat(retryingClient.readBytes(baseUrl + "/flaky")).isNull();
+        assertThat(flakyRequests).hasValue(2);
+    }
+
+    @Test
+    void shouldNotRetryClientError() {
+        final DownloadClient retryingClient = new DownloadClient(retryPolicy(5, 10));
+        assertThat(retryingClient.readBytes(baseUrl + "/missing")).isNull();
+        assertThat(missingRequests).hasValue(1);
+    }
+
+    private static RetryPolicy retryPolicy(int maxAttempts, int retryBudget) {
+        return new RetryPolicy(maxAttempts, Duration.ofMillis(10), Duration.ofMillis(50), retryBudget);
+    }
+
+    private static String sha256(byte[] content) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.download;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class GatewayScorerTests {
+
+    private static final String GATEWAY_A = "https://a.gateway";
+    private static final String GATEWAY_B = "https://b.gateway";
+    private static final String GATEWAY_C = "https://c.gateway";
+    private static final List<String> GATEWAYS = List.of(GATEWAY_A, GATEWAY_B, GATEWAY_C);
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    @TempDir
+    Path tempDir;
+
+    private static Clock clockAt(Instant instant) {
+        return Clock.fixed(instant, ZoneOffset.UTC);
+    }
+
+    @Test
+    void shouldKeepConfiguredOrderWithoutStatistics() {
+        final GatewayScorer scorer = GatewayScorer.load(null);
+        assertThat(scorer.rank(GATEWAYS)).containsExactlyElementsOf(GATEWAYS);
+    }
+
+    @Test
+    void shouldRankFailingGatewayLast() {
+        final GatewayScorer scorer = GatewayScorer.load(null, clockAt(NOW));
+        scorer.recordFailure(GATEWAY_A);
+        assertThat(scorer.rank(GATEWAYS)).containsExactly(GATEWAY_B, GATEWAY_C, GATEWAY_A);
+    }
+
+    @Test
+    void shouldRankFastestGatewayFirst() {
+        final GatewayScorer scorer = GatewayScorer.load(null, clockAt(NOW));
+        scorer.recordResponse(GATEWAY_A, 800);
+        scorer.recordResponse(GATEWAY_B, 900);
+        scorer.recordResponse(GATEWAY_C, 50);
+        assertThat(scorer.rank(GATEWAYS)).containsExactly(GATEWAY_C, GATEWAY_A, GATEWAY_B);
+    }
+
+    @Test
+    void shouldPreferHigherThroughputOnEqualLatency() {
+        final GatewayScorer scorer = GatewayScorer.load(null, clockAt(NOW));
+        GATEWAYS.forEach(gateway -> scorer.recordResponse(gateway, 100));
+        scorer.recordTransfer(GATEWAY_A, 1_000, 1_000);
+        scorer.recordTransfer(GATEWAY_B, 1_000_000, 1_000);
+        scorer.recordTransfer(GATEWAY_C, 10_000, 1_000);
+        assertThat(scorer.rank(GATEWAYS)).containsExactly(GATEWAY_B, GATEWAY_C, GATEWAY_A);
+    }
+
+    @Test
+    void shouldDecayFailuresOverTime() {
+        final Path statsFile = tempDir.resolve("stats.tsv");
+        final GatewayScorer scorer = GatewayScorer.load(statsFile, clockAt(NOW));
+        scorer.recordFailure(GATEWAY_A);
+        final double initialScore = scorer.score(GATEWAY_A);
+        scorer.save();
+
+        final GatewayScorer laterScorer = GatewayScorer.load(statsFile,
+                clockAt(NOW.plus(GatewayScorer.FAILURE_HALF_LIFE)));
+        laterScorer.rank(GATEWAYS);
+        assertThat(laterScorer.score(GATEWAY_A))
+                .isCloseTo(GatewayScorer.UNKNOWN_TTFB_MILLIS + GatewayScorer.FAILURE_PENALTY_MILLIS / 2,
+                        offset(1d))
+                .isLessThan(initialScore);
+    }
+
+    @Test
+    void shouldPersistAndReloadStatistics() {
+        final Path statsFile = tempDir.resolve("stats.tsv");
+        final GatewayScorer scorer = GatewayScorer.load(statsFile, clockAt(NOW));
+        scorer.recordResponse(GATEWAY_C, 10);
+        scorer.recordFailure(GATEWAY_A);
+        scorer.save();
+        assertThat(statsFile).exists();
+
+        final GatewayScorer reloadedScorer = GatewayScorer.load(statsFile, clockAt(NOW));
+        assertThat(reloadedScorer.rank(GATEWAYS)).containsExactly(GATEWAY_C, GATEWAY_B, GATEWAY_A);
+    }
+
+    @Test
+    void shouldIgnoreMalformedStatistics() throws IOException {
+        final Path statsFile = tempDir.resolve("stats.tsv");
+        Files.writeString(statsFile, "not\tvalid\n" + GATEWAY_C + "\t10.0\tNaN\t0.0\t" + NOW.toEpochMilli() + "\n");
+        final GatewayScorer scorer = GatewayScorer.load(statsFile, clockAt(NOW));
+        assertThat(scorer.rank(GATEWAYS)).containsExactly(GATEWAY_C, GATEWAY_A, GATEWAY_B);
+    }
+}
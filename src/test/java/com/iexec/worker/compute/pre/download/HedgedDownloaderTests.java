@@ -0,0 +1,162 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.download;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgedDownloaderTests {
+
+    private static final String SLOW = "slow";
+    private static final String FAST = "fast";
+    private static final String FAILING = "failing";
+    private static final String OTHER = "other";
+
+    private final Set<String> requested = ConcurrentHashMap.newKeySet();
+    private final Set<String> discarded = ConcurrentHashMap.newKeySet();
+
+    private Function<String, String> fetcher(Map<String, Long> delays) {
+        return url -> {
+            requested.add(url);
+            if (FAILING.equals(url)) {
+                return null;
+            }
+            try {
+                Thread.sleep(delays.getOrDefault(url, 0L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return url;
+        };
+    }
+
+    @Test
+    void shouldReturnFirstSourceWhenFastEnough() throws InterruptedException {
+        final HedgedDownloader<String> downloader = new HedgedDownloader<>(Duration.ofSeconds(5),
+                fetcher(Map.of()), discarded::add);
+        assertThat(downloader.download(List.of(FAST, OTHER))).isEqualTo(FAST);
+        assertThat(requested).containsExactly(FAST);
+    }
+
+    @Test
+    void shouldHedgeToNextSourceAfterDelay() throws InterruptedException {
+        final HedgedDownloader<String> downloader = new HedgedDownloader<>(Duration.ofMillis(50),
+                fetcher(Map.of(SLOW, 5_000L)), discarded::add);
+        final long start = System.nanoTime();
+        assertThat(downloader.download(List.of(SLOW, FAST))).isEqualTo(FAST);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5_000L);
+        assertThat(requested).containsExactlyInAnyOrder(SLOW, FAST);
+    }
+
+    @Test
+    void shouldRequestNextSourceImmediatelyOnFailure() throws InterruptedException {
+        final HedgedDownloader<String> downloader = new HedgedDownloader<>(Duration.ofSeconds(10),
+                fetcher(Map.of()), discarded::add);
+        final long start = System.nanoTime();
+        assertThat(downloader.download(List.of(FAILING, FAST))).isEqualTo(FAST);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(10_000L);
+    }
+
+    @Test
+    void shouldRequestAllSourcesAtOnceWithoutDelay() throws InterruptedException {
+        final CountDownLatch allRequested = new CountDownLatch(3);
+        final HedgedDownloader<String> downloader = new HedgedDownloader<>(Duration.ZERO, url -> {
+            allRequested.countDown();
+            try {
+                return allRequested.await(5, TimeUnit.SECONDS) ? url : null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }, discarded::add);
+        assertThat(downloader.download(List.of(SLOW, FAST, OTHER))).isNotNull();
+        assertThat(allRequested.getCount()).isZero();
+    }
+
+    @Test
+    void shouldDiscardResultsWhichLostTheRace() throws InterruptedException {
+        final CountDownLatch released = new CountDownLatch(1);
+        final HedgedDownloader<String> downloader = new HedgedDownloader<>(Duration.ZERO, url -> {
+            if (SLOW.equals(url)) {
+                // not interruptible, like a blocking socket read
+                while (released.getCount() > 0) {
+                    Thread.onSpinWait();
+                }
+            }
+            return url;
+        }, discarded::add);
+        assertThat(downloader.download(List.of(SLOW, FAST))).isEqualTo(FAST);
+        released.countDown();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (discarded.isEmpty() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(discarded).containsExactly(SLOW);
+    }
+
+    @Test
+    void shouldReportFailedSource() throws InterruptedException {
+        final Set<String> failed = ConcurrentHashMap.newKeySet();
+        final HedgedDownloader<String> downloader = new HedgedDownloader<>(Duration.ofSeconds(10),
+                fetcher(Map.of()), discarded::add, failed::add);
+        assertThat(downloader.download(List.of(FAILING, FAST))).isEqualTo(FAST);
+        assertThat(failed).containsExactly(FAILING);
+    }
+
+    @Test
+    void shouldNotScoreCancelledSourceAsFailed() throws InterruptedException {
+        final GatewayScorer scorer = GatewayScorer.load(null);
+        final double slowScore = scorer.score(SLOW);
+        final CountDownLatch slowEnded = new CountDownLatch(1);
+        final HedgedDownloader<String> downloader = new HedgedDownloader<>(Duration.ZERO, url -> {
+            if (FAST.equals(url)) {
+                return url;
+            }
+            try {
+                Thread.sleep(5_000);
+                return url;
+            } catch (InterruptedException e) {
+                // cancelled by the race, like an interrupted request
+                Thread.currentThread().interrupt();
+                return null;
+            } finally {
+                slowEnded.countDown();
+            }
+        }, discarded::add, scorer::recordFailure);
+        assertThat(downloader.download(List.of(SLOW, FAST))).isEqualTo(FAST);
+        assertThat(slowEnded.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(scorer.score(SLOW)).isEqualTo(slowScore);
+    }
+
+    @Test
+    void shouldReturnNullSinceAllSourcesFailed() throws InterruptedException {
+        final HedgedDownloader<String> downloader = new HedgedDownloader<>(Duration.ofMillis(10),
+                url -> null, discarded::add);
+        assertThat(downloader.download(List.of(FAILING, FAILING, FAILING))).isNull();
+        assertThat(discarded).isEmpty();
+    }
+}
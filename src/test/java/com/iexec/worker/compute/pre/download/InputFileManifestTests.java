@@ -0,0 +1,146 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.iexec.worker.compute.pre.download;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InputFileManifestTests {
+
+    private static final String CHECKSUM = "0x9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+    private static final String MANIFEST = "# url size checksum\n"
+            + "https://host/a.csv 1024 " + CHECKSUM + "\n"
+            + "\n"
+            + "https://host/b.csv\t-\n"
+            + "  https://host/c.csv  \n";
+
+    @TempDir
+    Path tmpDir;
+
+    @Test
+    void shouldReadDescriptors() throws IOException {
+        try (InputFileManifest manifest = new InputFileManifest(new BufferedReader(new StringReader(MANIFEST)))) {
+            assertThat(manifest.next()).isEqualTo(new InputFileDescriptor("https://host/a.csv", 1024, CHECKSUM));
+            assertThat(manifest.next()).isEqualTo(new InputFileDescriptor("https://host/b.csv", -1, null));
+            assertThat(manifest.next()).isEqualTo(new InputFileDescriptor("https://host/c.csv", -1, null));
+            assertThat(manifest.next()).isNull();
+        }
+    }
+
+    @Test
+    void shouldOpenManifestFile() throws IOException {
+        final Path file = Files.writeString(tmpDir.resolve("manifest.txt"), MANIFEST);
+        try (InputFileManifest manifest = InputFileManifest.open(file)) {
+            assertThat(manifest.next().getUrl()).isEqualTo("https://host/a.csv");
+        }
+    }
+
+    @Test
+    void shouldDecodeCompressedManifest() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(MANIFEST.getBytes(StandardCharsets.UTF_8));
+        }
+        try (InputFileManifest manifest = InputFileManifest.decode(Base64.getEncoder().encodeToString(out.toByteArray()))) {
+            assertThat(manifest.next().getUrl()).isEqualTo("https://host/a.csv");
+            assertThat(manifest.next().getUrl()).isEqualTo("https://host/b.csv");
+        }
+    }
+
+    @Test
+    void shouldNotDecodeInvalidManifest() {
+        assertThrows(InputFileManifestException.class, () -> InputFileManifest.decode("not base64!"));
+        final String notGzip = Base64.getEncoder().encodeToString("https://host/a.csv".getBytes(StandardCharsets.UTF_8));
+        assertThrows(InputFileManifestException.class, () -> InputFileManifest.decode(notGzip));
+    }
+
+    @Test
+    void shouldNotDecodeTruncatedManifest() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(MANIFEST.getBytes(StandardCharsets.UTF_8));
+        }
+        final byte[] truncated = Arrays.copyOf(out.toByteArray(), out.size() - 10);
+        try (InputFileManifest manifest = InputFileManifest.decode(Base64.getEncoder().encodeToString(truncated))) {
+            assertThrows(InputFileManifestException.class, () -> {
+                while (manifest.next() != null) {
+                    // read until the truncated end
+                }
+            });
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "https://host/a.csv size",
+            "https://host/a.csv -5",
+            "https://host/a.csv 10 0x1234",
+            "https://host/a.csv 10 " + CHECKSUM + " extra"
+    })
+    void shouldRejectInvalidLine(String line) throws IOException {
+        try (InputFileManifest manifest = new InputFileManifest(
+                new BufferedReader(new StringReader("https://host/ok.csv\n" + line)))) {
+            assertThat(manifest.next().getUrl()).isEqualTo("https://host/ok.csv");
+            final InputFileManifestException e = assertThrows(InputFileManifestException.class, manifest::next);
+            assertThat(e).hasMessageContaining("line 2");
+            assertThat(e.getLineNumber()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void shouldReadFirstDescriptorBeforeRestOfManifest() throws IOException {
+        final Reader firstLineOnly = new Reader() {
+            private boolean read;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                if (read) {
+                    throw new IOException("Manifest not fully available yet");
+                }
+                read = true;
+                final char[] line = "https://host/a.csv\n".toCharArray();
+                System.arraycopy(line, 0, buffer, offset, line.length);
+                return line.length;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (InputFileManifest manifest = new InputFileManifest(new BufferedReader(firstLineOnly))) {
+            assertThat(manifest.next().getUrl()).isEqualTo("https://host/a.csv");
+        }
+    }
+}
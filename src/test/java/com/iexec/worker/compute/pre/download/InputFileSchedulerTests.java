@@ -0,0 +1,68 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.iexec.worker.compute.pre.download;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InputFileSchedulerTests {
+
+    private static final Function<String, String> LAST_SEGMENT = url -> url.substring(url.lastIndexOf('/') + 1);
+
+    @Test
+    void shouldDropDuplicateUrls() {
+        final List<String> urls = List.of("http://host/a", "http://host/b", "http://host/a");
+        assertThat(InputFileScheduler.schedule(urls, LAST_SEGMENT, url -> -1))
+                .containsExactly("http://host/a", "http://host/b");
+    }
+
+    @Test
+    void shouldKeepLastUrlSavedUnderSameName() {
+        final List<String> urls = List.of("http://first/a", "http://host/b", "http://second/a");
+        assertThat(InputFileScheduler.schedule(urls, LAST_SEGMENT, url -> -1))
+                .containsExactly("http://second/a", "http://host/b");
+    }
+
+    @Test
+    void shouldScheduleLargestFirst() {
+        final Map<String, Long> lengths = Map.of("http://host/small", 10L, "http://host/large", 1000L,
+                "http://host/medium", 100L);
+        final List<String> urls = List.of("http://host/small", "http://host/large", "http://host/medium");
+        assertThat(InputFileScheduler.schedule(urls, LAST_SEGMENT, lengths::get))
+                .containsExactly("http://host/large", "http://host/medium", "http://host/small");
+    }
+
+    @Test
+    void shouldScheduleUnknownLengthsFirstInTaskOrder() {
+        final Map<String, Long> lengths = Map.of("http://host/a", 10L, "http://host/b", -1L,
+                "http://host/c", 10L, "http://host/d", -1L);
+        final List<String> urls = List.of("http://host/a", "http://host/b", "http://host/c", "http://host/d");
+        assertThat(InputFileScheduler.schedule(urls, LAST_SEGMENT, lengths::get))
+                .containsExactly("http://host/b", "http://host/d", "http://host/a", "http://host/c");
+    }
+
+    @Test
+    void shouldScheduleNothingWithoutInputFiles() {
+        assertThat(InputFileScheduler.schedule(List.of(), LAST_SEGMENT, url -> -1)).isEmpty();
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.download;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RangedDownloaderTests {
+
+    private static final int CHUNK_SIZE = 1024;
+    private static final byte[] CONTENT = new byte[10 * CHUNK_SIZE + 123];
+
+    static {
+        new Random(42).nextBytes(CONTENT);
+    }
+
+    private final DownloadClient client = new DownloadClient();
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    @AfterEach
+    void stopServers() {
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void shouldDownloadFromSingleSource() throws IOException {
+        final AtomicInteger rangeRequests = new AtomicInteger();
+        final String url = startServer(true, rangeRequests, -1);
+        try (InputStream in = new RangedDownloader(client, CHUNK_SIZE, 4).open(List.of(url))) {
+            assertThat(in).isNotNull();
+            assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+        }
+        assertThat(rangeRequests).hasValue(11);
+    }
+
+    @Test
+    void shouldStripeChunksAcrossSources() throws IOException {
+        final AtomicInteger firstRequests = new AtomicInteger();
+        final AtomicInteger secondRequests = new AtomicInteger();
+        final List<String> urls = List.of(
+                startServer(true, firstRequests, -1),
+                startServer(true, secondRequests, -1));
+        try (InputStream in = new RangedDownloader(client, CHUNK_SIZE, 4).open(urls)) {
+            assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+        }
+        assertThat(firstRequests).hasValue(6);
+        assertThat(secondRequests).hasValue(5);
+    }
+
+    @Test
+    void shouldRetryFailedChunkOnNextSource() throws IOException {
+        final AtomicInteger failingRequests = new AtomicInteger();
+        final AtomicInteger healthyRequests = new AtomicInteger();
+        final List<String> urls = List.of(
+                startServer(true, failingRequests, 0),
+                startServer(true, healthyRequests, -1));
+        try (InputStream in = new RangedDownloader(client, CHUNK_SIZE, 2).open(urls)) {
+            assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+        }
+        assertThat(failingRequests).hasValue(6);
+        assertThat(healthyRequests).hasValue(6);
+    }
+
+    @Test
+    void shouldFailWhenChunkUnavailableFromAllSources() throws IOException {
+        final String url = startServer(true, new AtomicInteger(), 3);
+        try (InputStream in = new RangedDownloader(client, CHUNK_SIZE, 2).open(List.of(url))) {
+            assertThrows(IOException.class, in::readAllBytes);
+        }
+    }
+
+    @Test
+    void shouldIgnoreSourcesWithDifferentSize() throws IOException {
+        final AtomicInteger requests = new AtomicInteger();
+        final HttpServer otherServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        otherServer.createContext("/", exchange -> {
+            if (!"HEAD".equals(exchange.getRequestMethod())) {
+                requests.incrementAndGet();
+            }
+            exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+            exchange.getResponseHeaders().add("Content-Length", String.valueOf(CONTENT.length + 1));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        otherServer.start();
+        servers.add(otherServer);
+        final List<String> urls = List.of(startServer(true, new AtomicInteger(), -1), getUrl(otherServer));
+        try (InputStream in = new RangedDownloader(client, CHUNK_SIZE, 2).open(urls)) {
+            assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+        }
+        assertThat(requests).hasValue(0);
+    }
+
+    @Test
+    void shouldReturnNullWhenRangesNotSupported() throws IOException {
+        final String url = startServer(false, new AtomicInteger(), -1);
+        assertThat(new RangedDownloader(client, CHUNK_SIZE, 4).open(List.of(url))).isNull();
+    }
+
+    @Test
+    void shouldReturnNullWhenResourceTooSmall() throws IOException {
+        final String url = startServer(true, new AtomicInteger(), -1);
+        assertThat(new RangedDownloader(client, CONTENT.length, 4).open(List.of(url))).isNull();
+    }
+
+    @Test
+    void shouldReturnNullWhenSourceUnreachable() {
+        assertThat(new RangedDownloader(client, CHUNK_SIZE, 4).open(List.of("http://localhost:1/dataset"))).isNull();
+    }
+
+    @Test
+    void shouldRejectNonPositiveChunkSize() {
+        assertThrows(IllegalArgumentException.class, () -> new RangedDownloader(client, 0, 4));
+        assertThrows(IllegalArgumentException.class, () -> new RangedDownloader(client, -1, 4));
+    }
+
+    /**
+     * Start a server serving {@link #CONTENT}.
+     *
+     * @param acceptRanges  whether the server announces byte ranges support
+     * @param rangeRequests counter of range requests received
+     * @param failingChunk  index of a chunk the server never serves, -1 to serve all chunks
+     * @return the URL of the content
+     */
+    private String startServer(boolean acceptRanges, AtomicInteger rangeRequests, int failingChunk) throws IOException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            if (acceptRanges) {
+                exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+            }
+            final String range = exchange.getRequestHeaders().getFirst("Range");
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(CONTENT.length));
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            } else if (range == null || !acceptRanges) {
+                send(exchange, 200, CONTENT, 0, CONTENT.length);
+            } else {
+                rangeRequests.incrementAndGet();
+                final String[] bounds = range.substring("bytes=".length()).split("-");
+                final int start = Integer.parseInt(bounds[0]);
+                final int end = Integer.parseInt(bounds[1]);
+                if (start / CHUNK_SIZE == failingChunk) {
+                    exchange.sendResponseHeaders(503, -1);
+                    exchange.close();
+                    return;
+                }
+                exchange.getResponseHeaders().add("Content-Range",
+                        "bytes " + start + "-" + end + "/" + CONTENT.length);
+                send(exchange, 206, CONTENT, start, end - start + 1);
+            }
+        });
+        server.start();
+        servers.add(server);
+        return getUrl(server) + "/dataset";
+    }
+
+    private void send(HttpExchange exchange, int status, byte[] content, int offset, int length) throws IOException {
+        exchange.sendResponseHeaders(status, length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(content, offset, length);
+        }
+    }
+
+    private String getUrl(HttpServer server) {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.download;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ResumableDownloaderTests {
+
+    private static final byte[] CONTENT = new byte[100_000];
+    private static final int CHECKPOINT_INTERVAL = 1024;
+
+    static {
+        new Random(42).nextBytes(CONTENT);
+    }
+
+    @TempDir
+    Path stagingDir;
+    @TempDir
+    Path outputDir;
+
+    private final DownloadClient client = new DownloadClient();
+    private HttpServer server;
+    private String url;
+    private final List<String> rangeRequests = new CopyOnWriteArrayList<>();
+    private volatile String etag = "\"v1\"";
+    private volatile int status = 200;
+    private volatile int failAfter = -1;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            if (status != 200) {
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+                return;
+            }
+            if (etag != null) {
+                exchange.getResponseHeaders().add("ETag", etag);
+            }
+            final String range = exchange.getRequestHeaders().getFirst("Range");
+            final String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+            int start = 0;
+            if (range != null) {
+                rangeRequests.add(range + " " + ifRange);
+            }
+            if (range != null && etag != null && etag.equals(ifRange)) {
+                start = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+                exchange.getResponseHeaders().add("Content-Range",
+                        "bytes " + start + "-" + (CONTENT.length - 1) + "/" + CONTENT.length);
+                exchange.sendResponseHeaders(206, CONTENT.length - start);
+            } else {
+                exchange.sendResponseHeaders(200, CONTENT.length);
+            }
+            final OutputStream body = exchange.getResponseBody();
+            try {
+                if (failAfter > 0) {
+                    body.write(CONTENT, start, failAfter);
+                    body.flush();
+                    failAfter = -1;
+                    exchange.close();
+                    return;
+                }
+                body.write(CONTENT, start, CONTENT.length - start);
+                body.close();
+            } catch (IOException e) {
+                // connection closed on purpose
+            }
+        });
+        server.start();
+        url = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/file";
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldDownloadFile() throws IOException {
+        final Path target = outputDir.resolve("file");
+        new ResumableDownloader(client, stagingDir, CHECKPOINT_INTERVAL).download(url, target);
+        assertThat(target).hasBinaryContent(CONTENT);
+        assertThat(stagingDir).isEmptyDirectory();
+        assertThat(rangeRequests).isEmpty();
+    }
+
+    @Test
+    void shouldResumeInterruptedDownload() throws IOException {
+        final Path target = outputDir.resolve("file");
+        final ResumableDownloader downloader = new ResumableDownloader(client, stagingDir, CHECKPOINT_INTERVAL);
+        failAfter = 50_000;
+        assertThrows(IOException.class, () -> downloader.download(url, target));
+        assertThat(target).doesNotExist();
+        assertThat(stagingDir.resolve("file" + ResumableDownloader.PART_SUFFIX)).exists();
+        assertThat(stagingDir.resolve("file" + ResumableDownloader.CHECKPOINT_SUFFIX)).exists();
+
+        downloader.download(url, target);
+        assertThat(target).hasBinaryContent(CONTENT);
+        assertThat(rangeRequests).singleElement().asString().endsWith("- \"v1\"").doesNotStartWith("bytes=0-");
+        assertThat(stagingDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldResumeDownloadFailingMidwayWhileRetriesAllowed() throws IOException {
+        final Path target = outputDir.resolve("file");
+        final DownloadClient retryingClient = new DownloadClient(new RetryPolicy(3, Duration.ZERO, Duration.ZERO, 10));
+        failAfter = 50_000;
+        new ResumableDownloader(retryingClient, stagingDir, CHECKPOINT_INTERVAL).download(url, target);
+        assertThat(target).hasBinaryContent(CONTENT);
+        assertThat(rangeRequests).singleElement().asString().endsWith("- \"v1\"").doesNotStartWith("bytes=0-");
+        assertThat(stagingDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldVerifyResumedDownload() throws Exception {
+        final Path target = outputDir.resolve("file");
+        final ResumableDownloader downloader = new ResumableDownloader(client, stagingDir, CHECKPOINT_INTERVAL);
+        final InputFileDescriptor file = new InputFileDescriptor(url, CONTENT.length, sha256(CONTENT));
+        failAfter = 50_000;
+        assertThrows(IOException.class, () -> downloader.download(file, target));
+
+        downloader.download(file, target);
+        assertThat(target).hasBinaryContent(CONTENT);
+        assertThat(rangeRequests).hasSize(1);
+        assertThat(stagingDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldNotPublishFileWithInvalidChecksum() {
+        final Path target = outputDir.resolve("file");
+        final ResumableDownloader downloader = new ResumableDownloader(client, stagingDir, CHECKPOINT_INTERVAL);
+        final InputFileDescriptor file = new InputFileDescriptor(url, CONTENT.length, "0".repeat(64));
+        assertThrows(IOException.class, () -> downloader.download(file, target));
+        assertThat(target).doesNotExist();
+        assertThat(stagingDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldRestartDownloadWhenResourceChanged() throws IOException {
+        final Path target = outputDir.resolve("file");
+        final ResumableDownloader downloader = new ResumableDownloader(client, stagingDir, CHECKPOINT_INTERVAL);
+        failAfter = 50_000;
+        assertThrows(IOException.class, () -> downloader.download(url, target));
+
+        etag = "\"v2\"";
+        downloader.download(url, target);
+        assertThat(target).hasBinaryContent(CONTENT);
+        assertThat(rangeRequests).singleElement().asString().endsWith("- \"v1\"");
+    }
+
+    @Test
+    void shouldNotKeepCheckpointWithoutValidator() {
+        final Path target = outputDir.resolve("file");
+        final ResumableDownloader downloader = new ResumableDownloader(client, stagingDir, CHECKPOINT_INTERVAL);
+        etag = null;
+        failAfter = 50_000;
+        assertThrows(IOException.class, () -> downloader.download(url, target));
+        assertThat(stagingDir.resolve("file" + ResumableDownloader.CHECKPOINT_SUFFIX)).doesNotExist();
+    }
+
+    @Test
+    void shouldThrowOnUnexpectedStatus() {
+        final Path target = outputDir.resolve("file");
+        status = 404;
+        assertThrows(IOException.class, () -> new ResumableDownloader(client, stagingDir).download(url, target));
+        assertThat(target).doesNotExist();
+    }
+
+    @Test
+    void shouldThrowOnInvalidUrl() {
+        final Path target = outputDir.resolve("file");
+        assertThrows(IOException.class, () -> new ResumableDownloader(client, stagingDir).download("not a url", target));
+    }
+
+    private static String sha256(byte[] content) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
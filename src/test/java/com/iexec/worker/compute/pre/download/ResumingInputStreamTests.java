@@ -0,0 +1,165 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.download;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ResumingInputStreamTests {
+
+    private static final byte[] CONTENT = new byte[100_000];
+    private static final int FAIL_AFTER = 50_000;
+
+    static {
+        new Random(42).nextBytes(CONTENT);
+    }
+
+    private final DownloadClient client = new DownloadClient(new RetryPolicy(3, Duration.ZERO, Duration.ZERO, 10));
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        // the whole resource fails midway, ranges are served
+        server.createContext("/truncated", exchange -> {
+            final String range = record(exchange);
+            if (range == null) {
+                sendTruncated(exchange);
+            } else {
+                sendRange(exchange, range);
+            }
+        });
+        // the whole resource fails midway, ranges are rejected
+        server.createContext("/unavailable", exchange -> {
+            if (record(exchange) == null) {
+                sendTruncated(exchange);
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+            }
+        });
+        // ranges are served
+        server.createContext("/ranges", exchange -> sendRange(exchange, record(exchange)));
+        // ranges are ignored, the whole resource is served
+        server.createContext("/no-ranges", exchange -> {
+            record(exchange);
+            exchange.sendResponseHeaders(200, CONTENT.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(CONTENT);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldResumeFromSameSourceWhenBodyFails() throws IOException {
+        try (InputStream in = open("/truncated", List.of(url("/truncated")))) {
+            assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+        }
+        assertThat(requests).containsExactly("/truncated null", "/truncated bytes=" + FAIL_AFTER + "-");
+    }
+
+    @Test
+    void shouldResumeFromNextSourceWhenSameSourceFails() throws IOException {
+        try (InputStream in = open("/unavailable", List.of(url("/unavailable"), url("/ranges")))) {
+            assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+        }
+        assertThat(requests).containsExactly("/unavailable null",
+                "/unavailable bytes=" + FAIL_AFTER + "-", "/ranges bytes=" + FAIL_AFTER + "-");
+    }
+
+    @Test
+    void shouldSkipBytesAlreadyReadWhenRangesNotSupported() throws IOException {
+        try (InputStream in = open("/unavailable", List.of(url("/unavailable"), url("/no-ranges")))) {
+            assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    void shouldThrowSinceRetriesExhausted() throws IOException {
+        final DownloadClient noRetryClient = new DownloadClient();
+        try (InputStream in = new ResumingInputStream(noRetryClient, noRetryClient.open(url("/truncated")),
+                List.of(url("/truncated")))) {
+            assertThrows(IOException.class, in::readAllBytes);
+        }
+        assertThat(requests).containsExactly("/truncated null");
+    }
+
+    @Test
+    void shouldThrowSinceNoSourceServesRest() throws IOException {
+        try (InputStream in = open("/unavailable", List.of(url("/unavailable")))) {
+            assertThrows(IOException.class, in::readAllBytes);
+        }
+    }
+
+    private InputStream open(String path, List<String> urls) {
+        return new ResumingInputStream(client, client.open(url(path)), urls);
+    }
+
+    private String record(HttpExchange exchange) {
+        final String range = exchange.getRequestHeaders().getFirst("Range");
+        requests.add(exchange.getRequestURI().getPath() + " " + range);
+        return range;
+    }
+
+    private void sendTruncated(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(200, CONTENT.length);
+        try {
+            final OutputStream out = exchange.getResponseBody();
+            out.write(CONTENT, 0, FAIL_AFTER);
+            out.flush();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void sendRange(HttpExchange exchange, String range) throws IOException {
+        final int start = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+        exchange.getResponseHeaders().add("Content-Range",
+                "bytes " + start + "-" + (CONTENT.length - 1) + "/" + CONTENT.length);
+        exchange.sendResponseHeaders(206, CONTENT.length - start);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(CONTENT, start, CONTENT.length - start);
+        }
+    }
+
+    private String url(String path) {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path;
+    }
+}
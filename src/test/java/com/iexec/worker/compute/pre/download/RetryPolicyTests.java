@@ -0,0 +1,111 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.download;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.net.ssl.SSLHandshakeException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryPolicyTests {
+
+    private final RetryPolicy policy = new RetryPolicy(4, Duration.ofMillis(100), Duration.ofMillis(250), 10);
+
+    @ParameterizedTest
+    @ValueSource(ints = {408, 425, 429, 500, 502, 503, 504})
+    void shouldRetryTransientStatus(int status) {
+        assertThat(policy.isRetryable(status)).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {200, 206, 400, 401, 403, 404, 416, 501})
+    void shouldNotRetryOtherStatus(int status) {
+        assertThat(policy.isRetryable(status)).isFalse();
+    }
+
+    @Test
+    void shouldRetryTransientFailures() {
+        assertThat(policy.isRetryable(new ConnectException("refused"))).isTrue();
+        assertThat(policy.isRetryable(new HttpConnectTimeoutException("connect timed out"))).isTrue();
+        assertThat(policy.isRetryable(new HttpTimeoutException("read timed out"))).isTrue();
+        assertThat(policy.isRetryable(new IOException("connection reset"))).isTrue();
+    }
+
+    @Test
+    void shouldNotRetryPermanentFailures() {
+        assertThat(policy.isRetryable(new UnknownHostException("unknown.host"))).isFalse();
+        assertThat(policy.isRetryable(new SSLHandshakeException("bad certificate"))).isFalse();
+        assertThat(policy.isRetryable(new InterruptedIOException("interrupted"))).isFalse();
+        assertThat(policy.isRetryable(new IOException("Invalid download URL", new IllegalArgumentException())))
+                .isFalse();
+        assertThat(policy.isRetryable(new NoSuchFileException("/iexec_in/file"))).isFalse();
+    }
+
+    @Test
+    void shouldBackoffExponentiallyUpToMaxBackoff() {
+        for (int i = 0; i < 100; i++) {
+            final RetryPolicy retryPolicy = new RetryPolicy(4, Duration.ofMillis(100), Duration.ofMillis(250), 3);
+            assertThat(retryPolicy.nextBackoff(1, null)).isBetween(Duration.ZERO, Duration.ofMillis(100));
+            assertThat(retryPolicy.nextBackoff(2, null)).isBetween(Duration.ZERO, Duration.ofMillis(200));
+            assertThat(retryPolicy.nextBackoff(3, null)).isBetween(Duration.ZERO, Duration.ofMillis(250));
+        }
+    }
+
+    @Test
+    void shouldNotRetryOnceMaxAttemptsReached() {
+        assertThat(policy.nextBackoff(4, null)).isNull();
+        assertThat(policy.getRemainingBudget()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldHonorRetryAfterUpToMaxBackoff() {
+        assertThat(policy.nextBackoff(1, Duration.ofMillis(200))).isEqualTo(Duration.ofMillis(200));
+        assertThat(policy.nextBackoff(1, Duration.ofSeconds(30))).isEqualTo(Duration.ofMillis(250));
+    }
+
+    @Test
+    void shouldStopRetryingOnceBudgetExhausted() {
+        final RetryPolicy retryPolicy = new RetryPolicy(10, Duration.ZERO, Duration.ZERO, 2);
+        assertThat(retryPolicy.nextBackoff(1, null)).isNotNull();
+        assertThat(retryPolicy.nextBackoff(1, null)).isNotNull();
+        assertThat(retryPolicy.nextBackoff(1, null)).isNull();
+        assertThat(retryPolicy.getRemainingBudget()).isZero();
+    }
+
+    @Test
+    void shouldNeverRetryWithNoRetryPolicy() {
+        assertThat(RetryPolicy.noRetry().nextBackoff(1, null)).isNull();
+    }
+
+    @Test
+    void shouldParseRetryAfterSeconds() {
+        assertThat(RetryPolicy.parseRetryAfter("3")).isEqualTo(Duration.ofSeconds(3));
+        assertThat(RetryPolicy.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT")).isNull();
+        assertThat(RetryPolicy.parseRetryAfter(null)).isNull();
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.iexec.worker.compute.pre.download;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SourceProberTests {
+
+    private final SourceProber prober = new SourceProber(new DownloadClient(), Duration.ofSeconds(5), 4);
+    private final AtomicInteger requests = new AtomicInteger();
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            final String path = exchange.getRequestURI().getPath();
+            switch (path) {
+                case "/found" -> {
+                    exchange.getResponseHeaders().set("Content-Length", "1234");
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "/gone" -> exchange.sendResponseHeaders(410, -1);
+                case "/forbidden" -> exchange.sendResponseHeaders(403, -1);
+                case "/unavailable" -> exchange.sendResponseHeaders(503, -1);
+                default -> exchange.sendResponseHeaders(404, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldReturnAnnouncedLength() {
+        final SourceProber.Probe probe = prober.probe(url("/found"));
+        assertThat(probe.isMissing()).isFalse();
+        assertThat(probe.getStatus()).isEqualTo(200);
+        assertThat(probe.getLength()).isEqualTo(1234);
+    }
+
+    @Test
+    void shouldReportMissingResource() {
+        assertThat(prober.probe(url("/missing")).isMissing()).isTrue();
+        assertThat(prober.probe(url("/gone")).isMissing()).isTrue();
+    }
+
+    @Test
+    void shouldLeaveLengthUnknownWhenHeadIsRejected() {
+        final SourceProber.Probe probe = prober.probe(url("/forbidden"));
+        assertThat(probe.isMissing()).isFalse();
+        assertThat(probe.getStatus()).isEqualTo(403);
+        assertThat(probe.getLength()).isEqualTo(-1);
+    }
+
+    @Test
+    void shouldLeaveLengthUnknownWhenSourceIsUnreachable() throws IOException {
+        final int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        final SourceProber.Probe probe = prober.probe("http://127.0.0.1:" + closedPort + "/found");
+        assertThat(probe.isMissing()).isFalse();
+        assertThat(probe.getStatus()).isEqualTo(-1);
+        assertThat(probe.getLength()).isEqualTo(-1);
+    }
+
+    @Test
+    void shouldNotRetryProbeNorConsumeRetryBudget() {
+        final RetryPolicy retryPolicy = new RetryPolicy(3, Duration.ZERO, Duration.ZERO, 10);
+        final SourceProber retryingClientProber = new SourceProber(
+                new DownloadClient(retryPolicy), Duration.ofSeconds(5), 4);
+        final SourceProber.Probe probe = retryingClientProber.probe(url("/unavailable"));
+        assertThat(probe.getStatus()).isEqualTo(503);
+        assertThat(probe.getLength()).isEqualTo(-1);
+        assertThat(requests).hasValue(1);
+        assertThat(retryPolicy.getRemainingBudget()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldProbeEachDistinctSourceOnce() throws InterruptedException {
+        final Map<String, SourceProber.Probe> probes = prober.probe(
+                List.of(url("/found"), url("/missing"), url("/found")));
+        assertThat(probes).containsOnlyKeys(url("/found"), url("/missing"));
+        assertThat(probes.get(url("/found")).getLength()).isEqualTo(1234);
+        assertThat(probes.get(url("/missing")).isMissing()).isTrue();
+        assertThat(requests).hasValue(2);
+    }
+
+    private String url(String path) {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2022-2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.metrics;
+
+import com.iexec.common.replicate.ReplicateStatusCause;
+import com.iexec.worker.api.PreComputeMetricsMessage;
+import com.iexec.worker.api.StageMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PreComputeMetricsTests {
+
+    private final PreComputeMetrics metrics = new PreComputeMetrics();
+
+    @Test
+    void shouldRecordStageDurationAndThroughput() throws InterruptedException {
+        try (PreComputeMetrics.Stage stage = metrics.start(PreComputeMetrics.DOWNLOAD)) {
+            stage.setBytes(1_000_000);
+            Thread.sleep(100);
+        }
+        assertThat(metrics.getStages()).singleElement().satisfies(stage -> {
+            assertThat(stage.getName()).isEqualTo(PreComputeMetrics.DOWNLOAD);
+            assertThat(stage.getBytes()).isEqualTo(1_000_000);
+            assertThat(stage.getDurationMillis()).isGreaterThanOrEqualTo(100);
+            assertThat(stage.getBytesPerSecond()).isPositive().isLessThanOrEqualTo(10_000_000);
+        });
+    }
+
+    @Test
+    void shouldRecordFailedStage() {
+        try (PreComputeMetrics.Stage ignored = metrics.start(PreComputeMetrics.DECRYPT)) {
+            throw new IllegalStateException("decryption failed");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertThat(metrics.getStages()).extracting(StageMetrics::getName).containsExactly(PreComputeMetrics.DECRYPT);
+    }
+
+    @Test
+    void shouldRecordStageOnce() {
+        final PreComputeMetrics.Stage stage = metrics.start(PreComputeMetrics.SAVE);
+        stage.close();
+        stage.close();
+        assertThat(metrics.getStages()).hasSize(1);
+    }
+
+    @Test
+    void shouldRecordConcurrentStages() throws InterruptedException {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 20; i++) {
+            final String name = PreComputeMetrics.INPUT_FILE_PREFIX + i;
+            executor.execute(() -> metrics.start(name).close());
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(metrics.getStages()).hasSize(20);
+    }
+
+    @Test
+    void shouldBuildSuccessMessage() {
+        metrics.start(PreComputeMetrics.ARGS).close();
+        final PreComputeMetricsMessage message = metrics.toMessage(null);
+        assertThat(message.isSuccess()).isTrue();
+        assertThat(message.getExitCause()).isNull();
+        assertThat(message.getDurationMillis()).isNotNegative();
+        assertThat(message.getStages()).extracting(StageMetrics::getName).containsExactly(PreComputeMetrics.ARGS);
+    }
+
+    @Test
+    void shouldBuildFailureMessage() {
+        final PreComputeMetricsMessage message =
+                metrics.toMessage(ReplicateStatusCause.PRE_COMPUTE_DATASET_DOWNLOAD_FAILED);
+        assertThat(message.isSuccess()).isFalse();
+        assertThat(message.getExitCause()).isEqualTo(ReplicateStatusCause.PRE_COMPUTE_DATASET_DOWNLOAD_FAILED);
+        assertThat(message.getStages()).isEmpty();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2022-2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.metrics;
+
+import com.iexec.worker.api.PreComputeProgressMessage;
+import com.iexec.worker.compute.pre.download.TransferProgress;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProgressReporterTests {
+
+    private final TransferProgress progress = new TransferProgress();
+    private final List<PreComputeProgressMessage> messages = new CopyOnWriteArrayList<>();
+
+    @Test
+    void shouldNotReportBeforeFirstDownload() throws InterruptedException {
+        try (ProgressReporter ignored = ProgressReporter.start(progress, Duration.ofMillis(10), messages::add)) {
+            Thread.sleep(100);
+        }
+        assertThat(messages).isEmpty();
+    }
+
+    @Test
+    void shouldReportProgressAndThroughput() throws InterruptedException {
+        final ProgressReporter reporter = ProgressReporter.start(progress, Duration.ofDays(1), messages::add);
+        try (reporter) {
+            progress.addExpected(1_000_000);
+            progress.addTransferred(200_000);
+            Thread.sleep(50);
+            reporter.report();
+            Thread.sleep(50);
+            reporter.report();
+        }
+        assertThat(messages).hasSize(2);
+        assertThat(messages.get(0).getBytesTransferred()).isEqualTo(200_000);
+        assertThat(messages.get(0).getExpectedBytes()).isEqualTo(1_000_000);
+        assertThat(messages.get(0).getBytesPerSecond()).isPositive();
+        assertThat(messages.get(1).getBytesTransferred()).isEqualTo(200_000);
+        assertThat(messages.get(1).getBytesPerSecond()).isZero();
+    }
+
+    @Test
+    void shouldKeepReportingAfterFailedHeartbeat() throws InterruptedException {
+        final CountDownLatch heartbeats = new CountDownLatch(3);
+        progress.addTransferred(1);
+        try (ProgressReporter ignored = ProgressReporter.start(progress, Duration.ofMillis(10), message -> {
+            heartbeats.countDown();
+            throw new IllegalStateException("worker unreachable");
+        })) {
+            assertThat(heartbeats.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    @Test
+    void shouldStopReportingOnceClosed() throws InterruptedException {
+        progress.addTransferred(1);
+        try (ProgressReporter ignored = ProgressReporter.start(progress, Duration.ofMillis(10), messages::add)) {
+            Thread.sleep(100);
+        }
+        final int reported = messages.size();
+        Thread.sleep(100);
+        assertThat(messages).hasSize(reported);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.metrics;
+
+import com.iexec.worker.api.StageMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+class StartupTraceTests {
+
+    private static final String CHAIN_TASK_ID = "0xabc";
+
+    private final PreComputeMetrics metrics = new PreComputeMetrics();
+
+    @Test
+    void shouldRecordJvmAndRunnerStartup() throws InterruptedException {
+        final StartupTrace startupTrace = new StartupTrace(Instant.now().minusMillis(500));
+        Thread.sleep(100);
+        startupTrace.record(CHAIN_TASK_ID, metrics);
+        assertThat(metrics.getStages())
+                .extracting(StageMetrics::getName)
+                .containsExactly(PreComputeMetrics.JVM_STARTUP, PreComputeMetrics.RUNNER_STARTUP);
+        assertThat(metrics.getStages().get(0).getDurationMillis()).isBetween(500L, 5_000L);
+        assertThat(metrics.getStages().get(1).getDurationMillis()).isGreaterThanOrEqualTo(100);
+    }
+
+    @Test
+    void shouldTraceStartupOfCurrentJvm() {
+        StartupTrace.begin().record(CHAIN_TASK_ID, metrics);
+        assertThat(metrics.getStages()).hasSize(2)
+                .allSatisfy(stage -> assertThat(stage.getDurationMillis()).isNotNegative());
+    }
+
+    @Test
+    void shouldOnlyLogSinceMetricsMissing() {
+        final StartupTrace startupTrace = StartupTrace.begin();
+        assertDoesNotThrow(() -> startupTrace.record(CHAIN_TASK_ID, null));
+    }
+}
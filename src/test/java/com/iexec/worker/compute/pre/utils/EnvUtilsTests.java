@@ -24,8 +24,11 @@ import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
 import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
 
 import static com.iexec.common.replicate.ReplicateStatusCause.PRE_COMPUTE_TASK_ID_MISSING;
+import static com.iexec.worker.compute.pre.utils.PreComputeEnvironmentVariable.IEXEC_PRE_COMPUTE_DATASET_STREAMING;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(SystemStubsExtension.class)
 class EnvUtilsTests {
@@ -53,4 +56,25 @@ class EnvUtilsTests {
         assertEquals(PRE_COMPUTE_TASK_ID_MISSING, exception.getExitCause());
     }
     // endregion
+
+    // region getEnvVarOrDefault
+    @Test
+    void shouldGetEnvVarOrDefault(EnvironmentVariables environment) {
+        environment.set(IEXEC_PRE_COMPUTE_DATASET_STREAMING, ENVIRONMENT_VAR_VALUE);
+        assertEquals(ENVIRONMENT_VAR_VALUE, EnvUtils.getEnvVarOrDefault(IEXEC_PRE_COMPUTE_DATASET_STREAMING, "default"));
+    }
+
+    @Test
+    void shouldGetDefaultValueSinceEmptyVar(EnvironmentVariables environment) {
+        environment.set(IEXEC_PRE_COMPUTE_DATASET_STREAMING, "");
+        assertEquals("default", EnvUtils.getEnvVarOrDefault(IEXEC_PRE_COMPUTE_DATASET_STREAMING, "default"));
+    }
+
+    @Test
+    void shouldGetBooleanEnvVarOrDefault(EnvironmentVariables environment) {
+        assertTrue(EnvUtils.getEnvVarOrDefault(IEXEC_PRE_COMPUTE_DATASET_STREAMING, true));
+        environment.set(IEXEC_PRE_COMPUTE_DATASET_STREAMING, "false");
+        assertFalse(EnvUtils.getEnvVarOrDefault(IEXEC_PRE_COMPUTE_DATASET_STREAMING, true));
+    }
+    // endregion
 }
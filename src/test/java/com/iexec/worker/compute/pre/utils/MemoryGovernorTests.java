@@ -0,0 +1,119 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.iexec.worker.compute.pre.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemoryGovernorTests {
+
+    private static final long MB = 1024L * 1024;
+
+    @TempDir
+    Path tmpDir;
+
+    @Test
+    void shouldUseHeapSizeWithoutContainerLimit() {
+        final MemoryGovernor governor = new MemoryGovernor(256 * MB, Long.MAX_VALUE);
+        assertThat(governor.getUsableMemory()).isEqualTo(256 * MB);
+        assertThat(governor.getPayloadBudget()).isEqualTo(128 * MB);
+    }
+
+    @Test
+    void shouldLowerUsableMemoryToContainerLimit() {
+        final MemoryGovernor governor = new MemoryGovernor(4096 * MB, 512 * MB);
+        assertThat(governor.getUsableMemory()).isEqualTo(512 * MB - MemoryGovernor.NON_HEAP_RESERVE);
+    }
+
+    @Test
+    void shouldReservePayloadFittingInBudget() {
+        final MemoryGovernor governor = new MemoryGovernor(256 * MB, Long.MAX_VALUE);
+        try (MemoryGovernor.Reservation reservation = governor.reserve(40 * MB, 3)) {
+            assertThat(reservation).isNotNull();
+            assertThat(reservation.getBytes()).isEqualTo(120 * MB);
+            assertThat(governor.getReservedMemory()).isEqualTo(120 * MB);
+            assertThat(governor.reserve(4 * MB, 3)).isNull();
+        }
+        assertThat(governor.getReservedMemory()).isZero();
+    }
+
+    @Test
+    void shouldReleaseReservationOnce() {
+        final MemoryGovernor governor = new MemoryGovernor(256 * MB, Long.MAX_VALUE);
+        final MemoryGovernor.Reservation first = governor.reserve(10 * MB, 1);
+        final MemoryGovernor.Reservation second = governor.reserve(20 * MB, 1);
+        first.close();
+        first.close();
+        assertThat(governor.getReservedMemory()).isEqualTo(20 * MB);
+        second.close();
+        assertThat(governor.getReservedMemory()).isZero();
+    }
+
+    @Test
+    void shouldNotReservePayloadOfUnknownOrHugeLength() {
+        final MemoryGovernor governor = new MemoryGovernor(256 * MB, Long.MAX_VALUE);
+        assertThat(governor.reserve(-1, 3)).isNull();
+        assertThat(governor.reserve(Long.MAX_VALUE / 2, 3)).isNull();
+        assertThat(governor.getReservedMemory()).isZero();
+    }
+
+    @Test
+    void shouldLimitConcurrencyToStreamBudget() {
+        final MemoryGovernor governor = new MemoryGovernor(256 * MB, Long.MAX_VALUE);
+        assertThat(governor.limitConcurrency(8, 16 * MB)).isEqualTo(4);
+        assertThat(governor.limitConcurrency(2, 16 * MB)).isEqualTo(2);
+        assertThat(governor.limitConcurrency(8, 1024 * MB)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReadCgroupV2Limit() throws IOException {
+        final Path limitFile = Files.writeString(tmpDir.resolve("memory.max"), "536870912\n");
+        assertThat(MemoryGovernor.readContainerLimit(limitFile)).isEqualTo(512 * MB);
+    }
+
+    @Test
+    void shouldReadUnlimitedCgroupV2Limit() throws IOException {
+        final Path limitFile = Files.writeString(tmpDir.resolve("memory.max"), "max\n");
+        assertThat(MemoryGovernor.readContainerLimit(limitFile)).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void shouldReadUnlimitedCgroupV1Limit() throws IOException {
+        final Path limitFile = Files.writeString(tmpDir.resolve("memory.limit_in_bytes"), "9223372036854771712\n");
+        assertThat(MemoryGovernor.readContainerLimit(limitFile)).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void shouldFallBackToNextLimitFile() throws IOException {
+        final Path invalidFile = Files.writeString(tmpDir.resolve("memory.max"), "invalid");
+        final Path limitFile = Files.writeString(tmpDir.resolve("memory.limit_in_bytes"), "1073741824");
+        assertThat(MemoryGovernor.readContainerLimit(tmpDir.resolve("missing"), invalidFile, limitFile))
+                .isEqualTo(1024 * MB);
+    }
+
+    @Test
+    void shouldBeUnlimitedWithoutLimitFile() {
+        assertThat(MemoryGovernor.readContainerLimit(tmpDir.resolve("missing"))).isEqualTo(Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2025 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.worker.compute.pre.utils;
+
+import com.iexec.worker.compute.pre.PreComputeException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.iexec.common.replicate.ReplicateStatusCause.PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TaskScopeTests {
+
+    @Test
+    void shouldRunAllTasks() {
+        final AtomicInteger completed = new AtomicInteger();
+        try (TaskScope scope = new TaskScope("test", 2)) {
+            for (int i = 0; i < 5; i++) {
+                scope.fork(completed::incrementAndGet);
+            }
+            assertDoesNotThrow(scope::join);
+        }
+        assertThat(completed).hasValue(5);
+    }
+
+    @Test
+    void shouldNotRunMoreTasksThanParallelism() {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        try (TaskScope scope = new TaskScope("test", 2)) {
+            for (int i = 0; i < 6; i++) {
+                scope.fork(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleep(50);
+                    running.decrementAndGet();
+                });
+            }
+            assertDoesNotThrow(scope::join);
+        }
+        assertThat(maxRunning.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldFailFastAndCancelOtherTasks() {
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final AtomicInteger completed = new AtomicInteger();
+        try (TaskScope scope = new TaskScope("test", 2)) {
+            scope.fork(() -> {
+                try {
+                    Thread.sleep(10_000);
+                    completed.incrementAndGet();
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            });
+            scope.fork(() -> {
+                throw new PreComputeException(PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+            });
+            for (int i = 0; i < 3; i++) {
+                scope.fork(completed::incrementAndGet);
+            }
+            final PreComputeException e = assertThrows(PreComputeException.class, scope::join);
+            assertThat(e.getExitCause()).isEqualTo(PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+        }
+        assertDoesNotThrow(() -> interrupted.await(5, TimeUnit.SECONDS));
+        assertThat(interrupted.getCount()).isZero();
+        assertThat(completed.get()).isLessThan(4);
+    }
+
+    @Test
+    void shouldWaitForInterruptedTasksWhenClosing() {
+        final AtomicBoolean isStopped = new AtomicBoolean();
+        try (TaskScope scope = new TaskScope("test", 2)) {
+            scope.fork(() -> {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    // a task may need time to clean up once interrupted
+                    sleepUninterruptibly(200);
+                    isStopped.set(true);
+                }
+            });
+            scope.fork(() -> {
+                throw new PreComputeException(PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+            });
+            assertThrows(PreComputeException.class, scope::join);
+        }
+        assertThat(isStopped).isTrue();
+    }
+
+    @Test
+    void shouldRethrowRuntimeException() {
+        try (TaskScope scope = new TaskScope("test", 1)) {
+            scope.fork(() -> {
+                throw new IllegalArgumentException("boom");
+            });
+            assertThrows(IllegalArgumentException.class, scope::join);
+        }
+    }
+
+    @Test
+    void shouldBoundPendingTasksWhenForking() {
+        final AtomicInteger pending = new AtomicInteger();
+        final AtomicInteger maxPending = new AtomicInteger();
+        final AtomicInteger completed = new AtomicInteger();
+        try (TaskScope scope = new TaskScope("test", 2)) {
+            for (int i = 0; i < 20; i++) {
+                maxPending.accumulateAndGet(pending.incrementAndGet(), Math::max);
+                assertDoesNotThrow(() -> scope.fork(() -> {
+                    sleep(10);
+                    pending.decrementAndGet();
+                    completed.incrementAndGet();
+                }, 3));
+            }
+            assertDoesNotThrow(scope::join);
+        }
+        assertThat(completed.get()).isEqualTo(20);
+        assertThat(maxPending.get()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void shouldFailFastWhenForkingAfterFailure() {
+        final AtomicInteger forked = new AtomicInteger();
+        try (TaskScope scope = new TaskScope("test", 1)) {
+            final PreComputeException e = assertThrows(PreComputeException.class, () -> {
+                for (int i = 0; i < 100; i++) {
+                    forked.incrementAndGet();
+                    scope.fork(() -> {
+                        throw new PreComputeException(PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+                    }, 2);
+                }
+            });
+            assertThat(e.getExitCause()).isEqualTo(PRE_COMPUTE_INPUT_FILE_DOWNLOAD_FAILED);
+        }
+        assertThat(forked.get()).isLessThan(100);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepUninterruptibly(long millis) {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                // keep sleeping
+            }
+        }
+    }
+}